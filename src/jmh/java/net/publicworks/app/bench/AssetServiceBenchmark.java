@@ -0,0 +1,87 @@
+package net.publicworks.app.bench;
+
+import jakarta.persistence.EntityManager;
+import net.publicworks.app.backend.commands.AssetCommand;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.service.AssetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AssetService#create} followed by {@code attributes} attribute values, in one transaction, the way an
+ * asset is entered from the form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AssetServiceBenchmark {
+
+    @Param({"0", "4", "16"})
+    public int attributes;
+
+    private AssetService assetService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> definitionIds = new ArrayList<>();
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        ConfigurableApplicationContext context = BenchContext.acquire();
+        assetService = context.getBean(AssetService.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < attributes; i++) {
+                AssetAttributeDefinition definition = SearchBenchmark.definition("attribute_" + i, "TEXT");
+                entityManager.persist(definition);
+                definitionIds.add(definition.getId());
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchContext.release();
+    }
+
+    @Benchmark
+    public Asset create() {
+        long n = sequence++;
+        return transactionTemplate.execute(status -> {
+            Asset asset = assetService.create(AssetCommand.builder()
+                    .name("Water Main " + n)
+                    .type(AssetTypeEnum.WATER_MAIN)
+                    .externalId("BENCH-" + n)
+                    .status("Active")
+                    .installYear(1998)
+                    .expectedServiceLifeYears(75)
+                    .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                    .operation(CrudOperation.CREATE)
+                    .build());
+            for (Long definitionId : definitionIds) {
+                entityManager.persist(SearchBenchmark.value(asset,
+                        entityManager.getReference(AssetAttributeDefinition.class, definitionId), "value " + n));
+            }
+            return asset;
+        });
+    }
+}
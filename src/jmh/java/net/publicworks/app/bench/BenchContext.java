@@ -0,0 +1,44 @@
+package net.publicworks.app.bench;
+
+import net.publicworks.app.VaadinApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application context the service benchmarks run against: the real beans on an embedded in-memory H2,
+ * without the web layer, SQL logging or the admin seeding. One context per forked benchmark JVM.
+ */
+final class BenchContext {
+
+    private static ConfigurableApplicationContext context;
+    private static int users;
+
+    private BenchContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext acquire() {
+        if (context == null) {
+            context = new SpringApplicationBuilder(VaadinApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.datasource.url=jdbc:h2:mem:publicworks_bench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.jpa.properties.hibernate.show_sql=false",
+                            "spring.jpa.properties.hibernate.format_sql=false",
+                            "spring.main.banner-mode=off",
+                            "app.seed-admin=false",
+                            "logging.level.root=WARN")
+                    .run();
+        }
+        users++;
+        return context;
+    }
+
+    static synchronized void release() {
+        if (--users == 0) {
+            context.close();
+            context = null;
+        }
+    }
+}
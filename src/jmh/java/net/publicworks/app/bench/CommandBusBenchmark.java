@@ -0,0 +1,75 @@
+package net.publicworks.app.bench;
+
+import net.publicworks.app.backend.commands.CommandBus;
+import net.publicworks.app.backend.commands.CreateWorkOrderCommand;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.itf.IResult;
+import net.publicworks.app.backend.repo.IWorkOrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link CommandBus#dispatch} adds on top of the work it routes to: the same work order is created once
+ * through the bus (handler lookup, tenant resolution, aspects, events, result wrapping) and once straight
+ * through the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandBusBenchmark {
+
+    private CommandBus commandBus;
+    private IWorkOrderRepository workOrderRepository;
+    private CreateWorkOrderCommand command;
+
+    @Setup
+    public void setUp() {
+        ConfigurableApplicationContext context = BenchContext.acquire();
+        commandBus = context.getBean(CommandBus.class);
+        workOrderRepository = context.getBean(IWorkOrderRepository.class);
+        command = CreateWorkOrderCommand.builder()
+                .title("Water main break on 5th")
+                .description("Water coming up through the pavement")
+                .requestedBy("Bench")
+                .requesterContact("bench@publicworks.local")
+                .location("5th and Main")
+                .priority("HIGH")
+                .operation(CrudOperation.CREATE)
+                .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchContext.release();
+    }
+
+    @Benchmark
+    public IResult dispatch() {
+        return commandBus.dispatch(command);
+    }
+
+    @Benchmark
+    public WorkOrder repositoryBaseline() {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setTitle(command.getTitle());
+        workOrder.setDescription(command.getDescription());
+        workOrder.setPriority(command.getPriority());
+        workOrder.setLocationText(command.getLocation());
+        workOrder.setRequesterEmail(command.getRequesterContact());
+        workOrder.setStatus("NEW");
+        workOrder.setCustomerDiferentiator(command.getCustomerDiferentiator());
+        return workOrderRepository.save(workOrder);
+    }
+}
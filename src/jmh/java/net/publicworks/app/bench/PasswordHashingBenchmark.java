@@ -0,0 +1,89 @@
+package net.publicworks.app.bench;
+
+import net.publicworks.app.backend.commands.RegisterCommand;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.itf.IAuthService;
+import net.publicworks.app.backend.itf.IResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt on its own at a few strengths, and {@link IAuthService#login} end to end (user lookup, the hashing pool
+ * hand-off and the hash check) for a correct and a wrong password.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHashingBenchmark {
+
+    private static final String EMAIL = "bench@publicworks.local";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @State(Scope.Benchmark)
+    public static class Encoder {
+
+        @Param({"10", "12"})
+        public int strength;
+
+        BCryptPasswordEncoder encoder;
+        String hash;
+
+        @Setup
+        public void setUp() {
+            encoder = new BCryptPasswordEncoder(strength);
+            hash = encoder.encode(PASSWORD);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Auth {
+
+        IAuthService authService;
+
+        @Setup
+        public void setUp() {
+            authService = BenchContext.acquire().getBean(IAuthService.class);
+            authService.register(RegisterCommand.builder()
+                    .email(EMAIL)
+                    .password(PASSWORD)
+                    .tenantName("bench")
+                    .role("USER")
+                    .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                    .build());
+        }
+
+        @TearDown
+        public void tearDown() {
+            BenchContext.release();
+        }
+    }
+
+    @Benchmark
+    public String encode(Encoder state) {
+        return state.encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches(Encoder state) {
+        return state.encoder.matches(PASSWORD, state.hash);
+    }
+
+    @Benchmark
+    public IResult login(Auth state) {
+        return state.authService.login(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public IResult loginWrongPassword(Auth state) {
+        return state.authService.login(EMAIL, "wrong");
+    }
+}
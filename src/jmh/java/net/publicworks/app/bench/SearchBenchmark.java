@@ -0,0 +1,172 @@
+package net.publicworks.app.bench;
+
+import jakarta.persistence.EntityManager;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetAttributeValue;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.service.search.AttributeFilter;
+import net.publicworks.app.backend.service.search.CountMode;
+import net.publicworks.app.backend.service.search.SearchFilter;
+import net.publicworks.app.backend.service.search.SearchQueryPlanner;
+import net.publicworks.app.backend.service.search.SearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static net.publicworks.app.backend.service.search.SearchFilter.Operator.EQ;
+import static net.publicworks.app.backend.service.search.SearchFilter.Operator.IN;
+import static net.publicworks.app.backend.service.search.SearchFilter.Operator.LIKE;
+import static net.publicworks.app.backend.service.search.SearchFilter.Operator.STARTS_WITH;
+
+/**
+ * {@link SearchService#search} for the filter combinations the list views send, on {@value #ROWS} work orders and
+ * {@value #ROWS} assets with two attribute values each in embedded H2. {@code search} includes the exact count,
+ * {@code slice} skips it, so the difference between the two is the count query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    static final int ROWS = 10_000;
+    private static final String[] STATUSES = {"NEW", "IN_PROGRESS", "ON_HOLD", "CLOSED"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+    private static final String[] MATERIALS = {"Ductile Iron", "PVC", "HDPE", "Cast Iron"};
+
+    @State(Scope.Benchmark)
+    public static class Data {
+
+        SearchService searchService;
+        SearchQueryPlanner planner;
+
+        @Setup
+        public void setUp() {
+            ConfigurableApplicationContext context = BenchContext.acquire();
+            searchService = context.getBean(SearchService.class);
+            planner = context.getBean(SearchQueryPlanner.class);
+            seed(context.getBean(EntityManager.class), context.getBean(PlatformTransactionManager.class));
+        }
+
+        @TearDown
+        public void tearDown() {
+            BenchContext.release();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shape {
+
+        @Param({"eq", "like", "in", "eq+startsWith+sort"})
+        public String shape;
+
+        List<SearchFilter> filters;
+        Pageable pageable = PageRequest.of(0, 50);
+
+        @Setup
+        public void setUp() {
+            filters = switch (shape) {
+                case "eq" -> List.of(new SearchFilter("status", "NEW", EQ));
+                case "like" -> List.of(new SearchFilter("title", "main", LIKE));
+                case "in" -> List.of(new SearchFilter("priority", List.of("HIGH", "MEDIUM"), IN));
+                case "eq+startsWith+sort" -> {
+                    pageable = PageRequest.of(0, 50, Sort.by("title"));
+                    yield List.of(new SearchFilter("status", "IN_PROGRESS", EQ),
+                            new SearchFilter("title", "Water", STARTS_WITH));
+                }
+                default -> throw new IllegalArgumentException("Unknown shape " + shape);
+            };
+        }
+    }
+
+    @Benchmark
+    public Object search(Data data, Shape shape) {
+        return data.searchService.search(WorkOrder.class, shape.filters, shape.pageable);
+    }
+
+    @Benchmark
+    public Slice<WorkOrder> slice(Data data, Shape shape) {
+        return data.planner.search(WorkOrder.class, shape.filters, shape.pageable, CountMode.SKIP);
+    }
+
+    @Benchmark
+    public Slice<Asset> attributes(Data data) {
+        return data.planner.search(Asset.class, List.of(new SearchFilter("status", "Active", EQ)),
+                List.of(AttributeFilter.of("material", AttributeFilter.Operator.EQ, "PVC"),
+                        AttributeFilter.between("diameter_in", 8, 12)),
+                PageRequest.of(0, 50), CountMode.SKIP);
+    }
+
+    private static void seed(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (entityManager.createQuery("select count(w) from WorkOrder w", Long.class).getSingleResult() > 0) {
+                return;
+            }
+            AssetAttributeDefinition diameter = definition("diameter_in", "NUMBER");
+            AssetAttributeDefinition material = definition("material", "ENUM");
+            entityManager.persist(diameter);
+            entityManager.persist(material);
+            for (int i = 0; i < ROWS; i++) {
+                WorkOrder workOrder = new WorkOrder();
+                workOrder.setTitle((i % 3 == 0 ? "Water main break " : "Pothole ") + i);
+                workOrder.setStatus(STATUSES[i % STATUSES.length]);
+                workOrder.setPriority(PRIORITIES[i % PRIORITIES.length]);
+                workOrder.setCustomerDiferentiator(CustomerDiferentiator.DEFAULT);
+                entityManager.persist(workOrder);
+
+                Asset asset = new Asset();
+                asset.setName("Water Main " + i);
+                asset.setExternalId("WM-" + i);
+                asset.setType(AssetTypeEnum.WATER_MAIN);
+                asset.setStatus(i % 10 == 0 ? "Abandoned" : "Active");
+                asset.setCustomerDiferentiator(CustomerDiferentiator.DEFAULT);
+                entityManager.persist(asset);
+                entityManager.persist(value(asset, diameter, String.valueOf(4 + (i % 5) * 2)));
+                entityManager.persist(value(asset, material, MATERIALS[i % MATERIALS.length]));
+                if (i % 500 == 499) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    diameter = entityManager.getReference(AssetAttributeDefinition.class, diameter.getId());
+                    material = entityManager.getReference(AssetAttributeDefinition.class, material.getId());
+                }
+            }
+        });
+    }
+
+    static AssetAttributeDefinition definition(String key, String dataType) {
+        AssetAttributeDefinition definition = new AssetAttributeDefinition();
+        definition.setAssetType(AssetTypeEnum.WATER_MAIN);
+        definition.setKey(key);
+        definition.setLabel(key);
+        definition.setDataType(dataType);
+        definition.setRequired(false);
+        definition.setCustomerDiferentiator(CustomerDiferentiator.DEFAULT);
+        return definition;
+    }
+
+    static AssetAttributeValue value(Asset asset, AssetAttributeDefinition definition, String value) {
+        AssetAttributeValue attribute = new AssetAttributeValue();
+        attribute.setAsset(asset);
+        attribute.setDefinition(definition);
+        attribute.setValue(value);
+        attribute.setCustomerDiferentiator(CustomerDiferentiator.DEFAULT);
+        return attribute;
+    }
+}
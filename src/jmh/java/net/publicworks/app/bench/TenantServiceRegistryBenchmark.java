@@ -0,0 +1,96 @@
+package net.publicworks.app.bench;
+
+import net.publicworks.app.backend.itf.Customer;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.service._TenantServiceRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link _TenantServiceRegistry#get} for a tenant with its own implementation, one that falls back to the
+ * default, and one spelled in a different case, against {@link #baseline} doing what a caller would do without
+ * the registry: {@code getBeansOfType} and a scan of the beans' {@code @Customer} annotations on every call.
+ * Runs on a bare context holding only a few {@code @Customer} beans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TenantServiceRegistryBenchmark {
+
+    @Param({"alaska", "unknown", "ALASKA"})
+    public String tenant;
+
+    private GenericApplicationContext context;
+    private _TenantServiceRegistry registry;
+
+    @Setup
+    public void setUp() {
+        context = new GenericApplicationContext();
+        context.registerBean(DefaultGreeter.class, DefaultGreeter::new);
+        context.registerBean(AlaskaGreeter.class, AlaskaGreeter::new);
+        context.registerBean(_TenantServiceRegistry.class, () -> new _TenantServiceRegistry(context));
+        context.refresh();
+        registry = context.getBean(_TenantServiceRegistry.class);
+        registry.refresh();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Greeter get() {
+        return registry.get(Greeter.class, tenant);
+    }
+
+    @Benchmark
+    public Greeter baseline() {
+        Greeter fallback = null;
+        for (Greeter bean : context.getBeansOfType(Greeter.class).values()) {
+            Customer customer = AnnotationUtils.findAnnotation(AopUtils.getTargetClass(bean), Customer.class);
+            if (customer == null) {
+                continue;
+            }
+            if (customer.value().equalsIgnoreCase(tenant)) {
+                return bean;
+            }
+            if (CustomerDiferentiator.DEFAULT.equalsIgnoreCase(customer.value())) {
+                fallback = bean;
+            }
+        }
+        return fallback;
+    }
+
+    public interface Greeter {
+        String greet();
+    }
+
+    @Customer(CustomerDiferentiator.DEFAULT)
+    public static class DefaultGreeter implements Greeter {
+        @Override
+        public String greet() {
+            return "hello";
+        }
+    }
+
+    @Customer(CustomerDiferentiator.ALASKA)
+    public static class AlaskaGreeter implements Greeter {
+        @Override
+        public String greet() {
+            return "hello from alaska";
+        }
+    }
+}
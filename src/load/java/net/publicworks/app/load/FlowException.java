@@ -0,0 +1,9 @@
+package net.publicworks.app.load;
+
+/** A step of a simulated flow did not get the response it expected. */
+class FlowException extends RuntimeException {
+
+    FlowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,63 @@
+package net.publicworks.app.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Round-trip times per step, kept in full (a few thousand users times a few steps) and summarised at the end. */
+final class Latencies {
+
+    private final Map<String, Recorder> steps = new LinkedHashMap<>();
+
+    synchronized void record(String step, long nanos) {
+        steps.computeIfAbsent(step, s -> new Recorder()).add(nanos);
+    }
+
+    synchronized void failed(String step) {
+        steps.computeIfAbsent(step, s -> new Recorder()).errors++;
+    }
+
+    synchronized Map<String, StepStats> summary() {
+        Map<String, StepStats> summary = new LinkedHashMap<>();
+        steps.forEach((step, recorder) -> summary.put(step, recorder.stats()));
+        return summary;
+    }
+
+    /** Milliseconds. */
+    record StepStats(int count, int errors, double mean, double p50, double p90, double p95, double p99, double max) {
+    }
+
+    private static final class Recorder {
+
+        long[] samples = new long[1024];
+        int size;
+        int errors;
+
+        void add(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        StepStats stats() {
+            if (size == 0) {
+                return new StepStats(0, errors, 0, 0, 0, 0, 0, 0);
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return new StepStats(size, errors, millis((long) Arrays.stream(sorted).average().orElse(0)),
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95), percentile(sorted, 99),
+                    millis(sorted[size - 1]));
+        }
+
+        private static double percentile(long[] sorted, int p) {
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return millis(sorted[Math.max(0, index)]);
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package net.publicworks.app.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@link WorkOrderFlow} for many users against a locally running app and reports latency percentiles per
+ * step, heap per session and database statements per flow.
+ * <p>
+ * Start the app with the {@code load} profile ({@code ./gradlew bootRun -Pprofiles=dev,load}), then run
+ * {@code ./gradlew loadTest -Pload.users=2000}. The run first plays the flow once on its own to count statements
+ * per step, then starts all users spread over the ramp-up, each on its own thread and HTTP session, and finally
+ * compares the server's heap (after a GC) with all sessions still open against the heap before the run.
+ * <p>
+ * Options: {@code --base-url}, {@code --users}, {@code --ramp-up} (seconds), {@code --think} (ms between steps),
+ * {@code --email}, {@code --password}, {@code --report} (JSON output file).
+ */
+public final class LoadHarness {
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080/");
+        URI base = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        long rampUpSeconds = Long.parseLong(options.getOrDefault("ramp-up", "60"));
+        long thinkMillis = Long.parseLong(options.getOrDefault("think", "1000"));
+        Path reportFile = Path.of(options.getOrDefault("report", "build/reports/load/report.json"));
+        WorkOrderFlow flow = new WorkOrderFlow(options.getOrDefault("email", "test"), options.getOrDefault("password", "test"));
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Probe probe = new Probe(http, base);
+        String startedAt = Instant.now().toString();
+
+        Map<String, Long> statementsPerStep = new LinkedHashMap<>();
+        flow.run(new UidlClient(http, base, "load-calibration"), 0, (name, action) -> {
+            long before = probe.sample(false).statements();
+            action.run();
+            statementsPerStep.put(name, probe.sample(false).statements() - before);
+        });
+        System.out.println("Calibration: statements per step " + statementsPerStep);
+
+        Probe.Sample before = probe.sample(true);
+        Latencies latencies = new Latencies();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(users);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(users, runnable -> {
+            Thread thread = new Thread(null, runnable, "load-user-" + threads.incrementAndGet(), 256 * 1024);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+        long started = System.nanoTime();
+        for (int i = 1; i <= users; i++) {
+            int user = i;
+            long startAt = started + rampUpNanos * (user - 1) / users;
+            pool.execute(() -> {
+                try {
+                    sleepNanos(startAt - System.nanoTime());
+                    flow.run(new UidlClient(http, base, "load-" + user), user, (name, action) -> {
+                        long stepStarted = System.nanoTime();
+                        try {
+                            action.run();
+                        } catch (RuntimeException e) {
+                            latencies.failed(name);
+                            throw e;
+                        }
+                        latencies.record(name, System.nanoTime() - stepStarted);
+                        sleepNanos(TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+                    });
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("user " + user + ": " + e.getMessage());
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        while (!done.await(10, TimeUnit.SECONDS)) {
+            System.out.printf("%d/%d flows done, %d failed%n", completed.get() + failed.get(), users, failed.get());
+        }
+        pool.shutdown();
+
+        Probe.Sample delta = probe.sample(true).minus(before);
+        LoadReport report = new LoadReport(base.toString(), startedAt, users, rampUpSeconds, thinkMillis,
+                completed.get(), failed.get(), latencies.summary(), statementsPerStep,
+                statementsPerStep.values().stream().mapToLong(Long::longValue).sum(),
+                delta.heapUsedBytes() / Math.max(1, delta.sessions()),
+                delta.heapUsedBytes() / Math.max(1, delta.uis()),
+                delta, errors);
+        write(report, reportFile);
+        print(report);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static void write(LoadReport report, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%n%d users, %d flows completed, %d failed%n", report.users(), report.completedFlows(),
+                report.failedFlows());
+        System.out.printf("%-18s %7s %6s %9s %9s %9s %9s %9s %6s%n",
+                "step (ms)", "count", "errors", "p50", "p90", "p95", "p99", "max", "stmts");
+        report.latencyMillis().forEach((step, stats) -> System.out.printf(
+                "%-18s %7d %6d %9.1f %9.1f %9.1f %9.1f %9.1f %6d%n", step, stats.count(), stats.errors(),
+                stats.p50(), stats.p90(), stats.p95(), stats.p99(), stats.max(),
+                report.statementsPerStep().getOrDefault(step, 0L)));
+        System.out.printf("heap per session %d KB, per UI %d KB, %d statements per flow%n",
+                report.heapPerSessionBytes() / 1024, report.heapPerUiBytes() / 1024, report.statementsPerFlow());
+        report.errors().forEach(error -> System.out.println("  " + error));
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlowException("Interrupted");
+        }
+    }
+}
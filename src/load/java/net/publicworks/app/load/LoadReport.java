@@ -0,0 +1,24 @@
+package net.publicworks.app.load;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one run measured, written as JSON so runs can be compared. Latencies are in milliseconds; statement
+ * counts come from a single user running the flow alone, so they are exact per step.
+ */
+record LoadReport(String baseUrl,
+                  String startedAt,
+                  int users,
+                  long rampUpSeconds,
+                  long thinkMillis,
+                  int completedFlows,
+                  int failedFlows,
+                  Map<String, Latencies.StepStats> latencyMillis,
+                  Map<String, Long> statementsPerStep,
+                  long statementsPerFlow,
+                  long heapPerSessionBytes,
+                  long heapPerUiBytes,
+                  Probe.Sample serverDelta,
+                  List<String> errors) {
+}
@@ -0,0 +1,51 @@
+package net.publicworks.app.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/** Reads {@code /actuator/loadprobe} of the app under load (it needs the {@code load} profile). */
+final class Probe {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final URI endpoint;
+
+    Probe(HttpClient http, URI base) {
+        this.http = http;
+        this.endpoint = base.resolve("actuator/loadprobe");
+    }
+
+    Sample sample(boolean gc) {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(endpoint + "?gc=" + gc)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " from " + endpoint
+                        + "; is the app running with the 'load' profile?");
+            }
+            return JSON.readValue(response.body(), Sample.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + endpoint + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    /** Mirrors {@code LoadProbeEndpoint.Sample}. */
+    record Sample(int sessions, int uis, long heapUsedBytes, long statements, long queries, long entityLoads,
+                  long transactions) {
+
+        Sample minus(Sample before) {
+            return new Sample(sessions - before.sessions, uis - before.uis, heapUsedBytes - before.heapUsedBytes,
+                    statements - before.statements, queries - before.queries, entityLoads - before.entityLoads,
+                    transactions - before.transactions);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package net.publicworks.app.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * One simulated browser tab, speaking Vaadin's UIDL protocol over plain HTTP.
+ * <p>
+ * {@link #open} bootstraps a UI the way the client does ({@code ?v-r=init}); after that every call is one
+ * UIDL round trip ({@code ?v-r=uidl}) carrying RPC invocations, and the state-tree changes in the response are
+ * applied to a local copy of the tree, so components can be found by tag, text, property or attribute.
+ * The push channel is never opened: changes the server makes in {@code ui.access} are collected by polling
+ * with empty messages ({@link #await}).
+ */
+final class UidlClient {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String UIDL_PREFIX = "for(;;);";
+    private static final int PROPERTY_MAP = 1;
+
+    private final HttpClient http;
+    private final URI base;
+    private final String windowName;
+    private final Map<String, String> cookies = new HashMap<>();
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private int uiId;
+    private String csrfToken;
+    private int syncId;
+    private int clientId;
+
+    UidlClient(HttpClient http, URI base, String windowName) {
+        this.http = http;
+        this.base = base;
+        this.windowName = windowName;
+    }
+
+    /** Starts a new UI on {@code location} in this client's HTTP session, like loading the page. */
+    void open(String location) {
+        JsonNode init = exchange(HttpRequest.newBuilder(base.resolve("?v-r=init&location=" + encode(location)
+                        + "&query=&v-sw=1920&v-sh=1080&v-wh=1080&v-ww=1920&v-tzo=0&v-wn=" + encode(windowName)))
+                .header("Accept", "application/json")
+                .GET());
+        JsonNode appConfig = init.path("appConfig");
+        uiId = appConfig.path("v-uiId").asInt();
+        nodes.clear();
+        syncId = -1;
+        clientId = 0;
+        apply(appConfig.path("uidl"));
+    }
+
+    /** Sets an input's value as the browser would on blur: property sync plus the {@code change} event. */
+    void setValue(int node, String value, ArrayNode rpc) {
+        rpc.addObject().put("type", "mSync").put("node", node).put("feature", PROPERTY_MAP)
+                .put("property", "value").put("value", value);
+        rpc.addObject().put("type", "event").put("node", node).put("event", "change").putObject("data");
+    }
+
+    void click(int node, ArrayNode rpc) {
+        ObjectNode data = rpc.addObject().put("type", "event").put("node", node).put("event", "click").putObject("data");
+        for (String key : new String[] {"event.screenX", "event.screenY", "event.clientX", "event.clientY", "event.button"}) {
+            data.put(key, 0);
+        }
+        data.put("event.detail", 1);
+        for (String key : new String[] {"event.shiftKey", "event.ctrlKey", "event.altKey", "event.metaKey"}) {
+            data.put(key, false);
+        }
+    }
+
+    void event(int node, String event, ObjectNode data, ArrayNode rpc) {
+        rpc.addObject().put("type", "event").put("node", node).put("event", event).set("data", data);
+    }
+
+    static ArrayNode rpc() {
+        return JSON.createArrayNode();
+    }
+
+    static ObjectNode data() {
+        return JSON.createObjectNode();
+    }
+
+    /** One UIDL round trip. An empty {@code rpc} only collects pending changes. */
+    void send(ArrayNode rpc) {
+        ObjectNode message = JSON.createObjectNode();
+        message.put("csrfToken", csrfToken);
+        message.set("rpc", rpc);
+        message.put("syncId", syncId);
+        message.put("clientId", clientId++);
+        JsonNode response = exchange(HttpRequest.newBuilder(base.resolve("?v-r=uidl&v-uiId=" + uiId))
+                .header("Content-Type", "application/json; charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(message.toString())));
+        apply(response.isArray() ? response.path(0) : response);
+    }
+
+    /** Polls until {@code condition} holds for some node; returns its id. */
+    int await(Predicate<Node> condition, Duration timeout, String what) {
+        awaitUntil(() -> find(condition) != null, timeout, what);
+        return find(condition);
+    }
+
+    /** Polls until {@code condition} holds, e.g. until a dialog's node is detached. */
+    void awaitUntil(BooleanSupplier condition, Duration timeout, String what) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new FlowException("Timed out after " + timeout.toMillis() + " ms waiting for " + what);
+            }
+            sleep(50);
+            send(rpc());
+        }
+    }
+
+    boolean isAttached(int node) {
+        return nodes.containsKey(node);
+    }
+
+    int require(Predicate<Node> condition, String what) {
+        Integer found = find(condition);
+        if (found == null) {
+            throw new FlowException("No " + what + " in the UI");
+        }
+        return found;
+    }
+
+    Integer find(Predicate<Node> condition) {
+        for (Node node : nodes.values()) {
+            if (condition.test(node)) {
+                return node.id;
+            }
+        }
+        return null;
+    }
+
+    Predicate<Node> tag(String tag) {
+        return node -> tag.equals(node.values.get("tag"));
+    }
+
+    Predicate<Node> testId(String testId) {
+        return node -> testId.equals(node.values.get("data-testid"));
+    }
+
+    Predicate<Node> button(String text) {
+        return node -> "vaadin-button".equals(node.values.get("tag")) && text(node).contains(text);
+    }
+
+    Predicate<Node> text(String text) {
+        return node -> {
+            String own = node.values.get("text");
+            return own != null && own.contains(text);
+        };
+    }
+
+    /** The text of a node and all of its (virtual) children. */
+    String text(Node node) {
+        StringBuilder text = new StringBuilder();
+        collectText(node, text, 0);
+        return text.toString();
+    }
+
+    private void collectText(Node node, StringBuilder text, int depth) {
+        String own = node.values.get("text");
+        if (own != null) {
+            text.append(own);
+        }
+        if (depth > 32) {
+            return;
+        }
+        for (List<Integer> children : node.lists.values()) {
+            for (Integer child : children) {
+                Node childNode = nodes.get(child);
+                if (childNode != null) {
+                    collectText(childNode, text, depth + 1);
+                }
+            }
+        }
+    }
+
+    private void apply(JsonNode uidl) {
+        if (uidl.has("Vaadin-Security-Key")) {
+            csrfToken = uidl.get("Vaadin-Security-Key").asText();
+        }
+        if (uidl.has("syncId")) {
+            syncId = uidl.get("syncId").asInt();
+        }
+        if (uidl.has("clientId")) {
+            clientId = uidl.get("clientId").asInt();
+        }
+        JsonNode meta = uidl.path("meta");
+        if (meta.has("sessionExpired") || meta.has("appError")) {
+            throw new FlowException("Server reported " + meta);
+        }
+        for (JsonNode change : uidl.path("changes")) {
+            int id = change.path("node").asInt();
+            switch (change.path("type").asText()) {
+                case "attach" -> nodes.computeIfAbsent(id, Node::new);
+                case "detach" -> nodes.remove(id);
+                case "put" -> {
+                    if (change.has("value")) {
+                        node(id).values.put(change.path("key").asText(), change.get("value").asText());
+                    }
+                }
+                case "remove" -> node(id).values.remove(change.path("key").asText());
+                case "clear" -> node(id).lists.remove(change.path("feat").asInt());
+                case "splice" -> {
+                    List<Integer> list = node(id).lists.computeIfAbsent(change.path("feat").asInt(), f -> new ArrayList<>());
+                    int index = Math.min(change.path("index").asInt(), list.size());
+                    int remove = Math.min(change.path("remove").asInt(), list.size() - index);
+                    list.subList(index, index + remove).clear();
+                    List<Integer> added = new ArrayList<>();
+                    change.path("addNodes").forEach(child -> added.add(child.asInt()));
+                    list.addAll(index, added);
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private Node node(int id) {
+        return nodes.computeIfAbsent(id, Node::new);
+    }
+
+    private JsonNode exchange(HttpRequest.Builder request) {
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", String.join("; ", cookies.values()));
+        }
+        try {
+            HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(60)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            response.headers().allValues("Set-Cookie").forEach(cookie -> {
+                String pair = cookie.split(";", 2)[0];
+                cookies.put(pair.substring(0, Math.max(0, pair.indexOf('='))), pair);
+            });
+            if (response.statusCode() != 200) {
+                throw new FlowException("HTTP " + response.statusCode() + " from " + response.uri());
+            }
+            String body = response.body();
+            return JSON.readTree(body.startsWith(UIDL_PREFIX) ? body.substring(UIDL_PREFIX.length()) : body);
+        } catch (IOException e) {
+            throw new FlowException("Request failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlowException("Interrupted");
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlowException("Interrupted");
+        }
+    }
+
+    /** A state node: its scalar values (tag, text, properties, attributes) and its node lists by feature. */
+    static final class Node {
+
+        final int id;
+        final Map<String, String> values = new HashMap<>();
+        final Map<Integer, List<Integer>> lists = new HashMap<>();
+
+        Node(int id) {
+            this.id = id;
+        }
+    }
+}
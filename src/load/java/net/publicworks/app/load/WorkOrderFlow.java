@@ -0,0 +1,71 @@
+package net.publicworks.app.load;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.time.Duration;
+
+/**
+ * The happy path of {@code auth_dashboard.cy.js}: sign in on {@code AuthView}, land on the {@code HomeView}
+ * dashboard inside {@code MainLayout}, reload it, and create a work order through the dialog.
+ * Each step ends when the UI shows what a user would wait for, so its time is the full round trip.
+ */
+final class WorkOrderFlow {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /** Runs one named step; the runner measures it and may pause between steps. */
+    interface StepRunner {
+        void step(String name, Runnable action);
+    }
+
+    private final String email;
+    private final String password;
+
+    WorkOrderFlow(String email, String password) {
+        this.email = email;
+        this.password = password;
+    }
+
+    void run(UidlClient client, int user, StepRunner runner) {
+        runner.step("open login", () -> {
+            client.open("");
+            client.require(client.tag("vaadin-login-overlay"), "login overlay");
+        });
+
+        runner.step("login", () -> {
+            ArrayNode rpc = UidlClient.rpc();
+            client.event(client.require(client.tag("vaadin-login-overlay"), "login overlay"), "login",
+                    UidlClient.data().put("event.detail.username", email).put("event.detail.password", password), rpc);
+            client.send(rpc);
+            client.await(client.text("Open Work Orders"), TIMEOUT, "the dashboard after login");
+        });
+
+        runner.step("reload dashboard", () -> {
+            client.open("app");
+            client.await(client.text("Open Work Orders"), TIMEOUT, "the dashboard");
+        });
+
+        runner.step("open dialog", () -> {
+            ArrayNode rpc = UidlClient.rpc();
+            client.click(client.require(client.button("New Work Order"), "New Work Order button"), rpc);
+            client.send(rpc);
+            client.await(client.testId("wo-save"), TIMEOUT, "the work order dialog");
+        });
+
+        runner.step("save work order", () -> {
+            ArrayNode rpc = UidlClient.rpc();
+            client.setValue(client.require(client.testId("wo-title"), "title field"), "Load test " + user, rpc);
+            client.setValue(client.require(client.testId("wo-requestedBy"), "requested by field"), "load-" + user, rpc);
+            client.setValue(client.require(client.testId("wo-contact"), "contact field"), "load-" + user + "@publicworks.local", rpc);
+            client.setValue(client.require(client.testId("wo-location"), "location field"), "Main St " + user, rpc);
+            client.setValue(client.require(client.testId("wo-phone"), "phone field"), "5550100", rpc);
+            client.setValue(client.require(client.testId("wo-description"), "description field"), "Created by the load harness", rpc);
+            int save = client.require(client.testId("wo-save"), "save button");
+            client.click(save, rpc);
+            client.send(rpc);
+            // the dialog closes once the work order is stored
+            client.awaitUntil(() -> !client.isAttached(save) || client.find(client.text("Work order created")) != null,
+                    TIMEOUT, "the confirmation");
+        });
+    }
+}
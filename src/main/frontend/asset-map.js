@@ -0,0 +1,96 @@
+import { LitElement, html } from 'lit';
+import L from 'leaflet';
+
+// the vector grid plugin extends the global L
+window.L = window.L || L;
+const vectorGrid = import('leaflet.vectorgrid');
+
+const TYPE_COLORS = {
+  WATER_MAIN: '#1e6fd9',
+  VALVE: '#d9481e',
+  HYDRANT: '#d91e3c',
+};
+
+/**
+ * Leaflet map that asks the server for markers whenever the view settles ("viewport-changed")
+ * and draws whatever it is given through setFeatures(json). Clusters are drawn with their count.
+ */
+class AssetMap extends LitElement {
+  static properties = {
+    tileUrl: { type: String, attribute: 'tile-url' },
+    attribution: { type: String },
+  };
+
+  // light DOM, so Leaflet's global stylesheet applies
+  createRenderRoot() {
+    return this;
+  }
+
+  render() {
+    return html`<div class="asset-map-canvas" style="width:100%;height:100%"></div>`;
+  }
+
+  firstUpdated() {
+    this.map = L.map(this.querySelector('.asset-map-canvas'), { preferCanvas: true }).setView([39.8, -98.6], 4);
+    L.tileLayer(this.tileUrl, { maxZoom: 19, attribution: this.attribution || '' }).addTo(this.map);
+    this.markers = L.layerGroup().addTo(this.map);
+    this.overlays = L.control.layers(null, null, { collapsed: true });
+    this.map.on('moveend', () => this._viewportChanged());
+    new ResizeObserver(() => this.map.invalidateSize()).observe(this);
+    this._viewportChanged();
+  }
+
+  setView(lat, lon, zoom) {
+    this.map.setView([lat, lon], zoom);
+  }
+
+  async addTileOverlay(label, urlTemplate, layer, color) {
+    await Promise.all([vectorGrid, this.updateComplete]);
+    const style = { weight: 3, color, radius: 4, fill: true, fillColor: color, fillOpacity: 0.8 };
+    const overlay = L.vectorGrid.protobuf(urlTemplate, {
+      rendererFactory: L.canvas.tile,
+      vectorTileLayerStyles: { [layer]: style },
+      maxNativeZoom: 20,
+      interactive: true,
+      getFeatureId: (f) => f.id,
+    }).on('click', (e) =>
+      this.dispatchEvent(new CustomEvent('asset-clicked', { detail: { assetId: e.layer.properties.id } })));
+    if (!this.overlays.getContainer()) {
+      this.overlays.addTo(this.map);
+    }
+    this.overlays.addOverlay(overlay, label);
+  }
+
+  setFeatures(json) {
+    const features = JSON.parse(json);
+    this.markers.clearLayers();
+    for (const f of features) {
+      if (f.count > 1) {
+        const size = Math.min(56, 24 + Math.log10(f.count) * 8);
+        L.marker([f.lat, f.lon], {
+          icon: L.divIcon({
+            className: 'asset-map-cluster',
+            html: `<span>${f.count}</span>`,
+            iconSize: [size, size],
+          }),
+        })
+          .on('click', () => this.map.setView([f.lat, f.lon], this.map.getZoom() + 2))
+          .addTo(this.markers);
+      } else {
+        L.circleMarker([f.lat, f.lon], { radius: 6, weight: 1, color: '#fff', fillOpacity: 0.9,
+          fillColor: TYPE_COLORS[f.type] || '#555' })
+          .on('click', () => this.dispatchEvent(new CustomEvent('asset-clicked', { detail: { assetId: f.assetId } })))
+          .addTo(this.markers);
+      }
+    }
+  }
+
+  _viewportChanged() {
+    const b = this.map.getBounds();
+    this.dispatchEvent(new CustomEvent('viewport-changed', {
+      detail: { west: b.getWest(), south: b.getSouth(), east: b.getEast(), north: b.getNorth(), zoom: this.map.getZoom() },
+    }));
+  }
+}
+
+customElements.define('asset-map', AssetMap);
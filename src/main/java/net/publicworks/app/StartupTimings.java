@@ -0,0 +1,105 @@
+package net.publicworks.app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs once the application is ready how long each startup phase took: JVM until {@code main}, preparing the
+ * environment and context, reading bean definitions (configuration classes and scanning), creating beans, and
+ * refresh until ready. Also lists the slowest beans, so a regression points at its cause.
+ * <p>
+ * The steps are recorded by a {@link BufferingApplicationStartup} that only keeps the steps used here and is
+ * drained afterwards.
+ */
+@Slf4j
+final class StartupTimings implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final int CAPACITY = 20_000;
+    private static final String REFRESH = "spring.context.refresh";
+    private static final String POST_PROCESS = "spring.context.beanfactory.post-process";
+    private static final String INSTANTIATE = "spring.beans.instantiate";
+    private static final int SLOWEST_BEANS = 8;
+
+    private final BufferingApplicationStartup startup;
+    private final long jvmMillis;
+    private boolean logged;
+
+    StartupTimings(BufferingApplicationStartup startup, long jvmMillis) {
+        this.startup = startup;
+        this.jvmMillis = jvmMillis;
+        startup.addFilter(step -> step.getName().startsWith("spring.boot.application.")
+                || step.getName().equals(REFRESH) || step.getName().equals(POST_PROCESS)
+                || step.getName().equals(INSTANTIATE));
+    }
+
+    static BufferingApplicationStartup recorder() {
+        return new BufferingApplicationStartup(CAPACITY);
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        if (logged) {
+            return;
+        }
+        logged = true;
+        StartupTimeline timeline = startup.drainBufferedTimeline();
+        List<TimelineEvent> events = timeline.getEvents();
+        TimelineEvent refresh = events.stream().filter(e -> REFRESH.equals(e.getStartupStep().getName()))
+                .findFirst().orElse(null);
+        if (refresh == null) {
+            return;
+        }
+        Instant ready = Instant.now();
+        Map<Long, String> names = new HashMap<>();
+        events.forEach(e -> names.put(e.getStartupStep().getId(), e.getStartupStep().getName()));
+
+        long definitions = events.stream().filter(e -> POST_PROCESS.equals(e.getStartupStep().getName()))
+                .mapToLong(e -> e.getDuration().toMillis()).sum();
+        List<TimelineEvent> beans = events.stream().filter(e -> INSTANTIATE.equals(e.getStartupStep().getName()))
+                .toList();
+        long instantiation = beans.stream()
+                .filter(e -> !INSTANTIATE.equals(names.get(e.getStartupStep().getParentId())))
+                .mapToLong(e -> e.getDuration().toMillis()).sum();
+
+        log.info("Startup: JVM {} ms before main, prepare {} ms, bean definitions {} ms, beans {} ms, refresh {} ms,"
+                        + " ready {} ms; {} ms in total",
+                jvmMillis,
+                millis(timeline.getStartTime(), refresh.getStartTime()),
+                definitions,
+                instantiation,
+                refresh.getDuration().toMillis(),
+                millis(refresh.getEndTime(), ready),
+                jvmMillis + millis(timeline.getStartTime(), ready));
+        log.info("Slowest beans (including their dependencies): {}", beans.stream()
+                .sorted(Comparator.comparing(TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_BEANS)
+                .map(e -> beanName(e.getStartupStep()) + " " + e.getDuration().toMillis() + " ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    private static long millis(Instant from, Instant to) {
+        return Duration.between(from, to).toMillis();
+    }
+}
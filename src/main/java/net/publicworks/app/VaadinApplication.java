@@ -1,15 +1,23 @@
 package net.publicworks.app;
 
+import lombok.extern.slf4j.Slf4j;
 import net.publicworks.app.backend.commands.RegisterCommand;
 import net.publicworks.app.backend.itf.CustomerDiferentiator;
 import net.publicworks.app.backend.itf.IAuthService;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
 @SpringBootApplication
 @EntityScan(basePackages = "net.publicworks.app")
 //@EnableJpaRepositories(basePackages = "net.publicworks.app")
@@ -17,12 +25,19 @@ import org.springframework.context.annotation.ComponentScan;
 public class VaadinApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(VaadinApplication.class, args);
+        long jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        SpringApplication application = new SpringApplication(VaadinApplication.class);
+        BufferingApplicationStartup startup = StartupTimings.recorder();
+        application.setApplicationStartup(startup);
+        application.addListeners(new StartupTimings(startup, jvmMillis));
+        application.run(args);
     }
 
+    /** Runs after the app reports ready, on its own thread, so two password hashes never delay startup. Off with {@code app.seed-admin=false}. */
     @Bean
-    CommandLineRunner initAdmin(IAuthService authService) {
-        return args -> {
+    @ConditionalOnProperty(name = "app.seed-admin", havingValue = "true", matchIfMissing = true)
+    ApplicationListener<ApplicationReadyEvent> initAdmin(IAuthService authService) {
+        return event -> CompletableFuture.runAsync(() -> {
             var result = authService.login("admin@publicworks.local", "admin123!");
 
             if (!result.isSuccess()) {
@@ -39,7 +54,10 @@ public class VaadinApplication {
             } else {
                 System.out.println("ℹ️ Admin user already exists");
             }
-        };
+        }).exceptionally(e -> {
+            log.error("Admin seeding failed", e);
+            return null;
+        });
     }
 
 }
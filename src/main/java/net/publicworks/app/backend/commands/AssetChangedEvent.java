@@ -0,0 +1,16 @@
+package net.publicworks.app.backend.commands;
+
+import net.publicworks.app.backend.entity.asset.Asset;
+
+/**
+ * Published after {@code AssetService.create} / {@code modify} / {@code delete} returns, and for assets deleted
+ * through their repository.
+ * {@code asset} is the returned entity when the service hands one back, otherwise {@code null}
+ * and listeners should reload it by {@code assetId} from {@code tenant}'s database.
+ */
+public record AssetChangedEvent(Long assetId, String tenant, Asset asset, CrudOperation operation) {
+
+    public AssetChangedEvent(Long assetId, Asset asset, CrudOperation operation) {
+        this(assetId, asset != null ? asset.getCustomerDiferentiator() : null, asset, operation);
+    }
+}
@@ -0,0 +1,171 @@
+package net.publicworks.app.backend.commands;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.itf.IResult;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link CommandBus} dispatches off the Vaadin request thread.
+ * <p>
+ * {@link #dispatchAsync(Supplier)} hands a single dispatch to the worker pool.
+ * {@link #dispatchBatched(Object, String, Supplier)} collects dispatches of the same kind and tenant for a short
+ * window and runs them in one transaction, with that tenant bound, so Hibernate can flush the inserts as a JDBC
+ * batch on the tenant's own database (see {@code hibernate.jdbc.batch_size} in application.yml).
+ */
+@Slf4j
+@Component
+public class AsyncCommandBus implements DisposableBean {
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService flushTimer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long batchWindowMs;
+
+    private final Map<BatchKey, CommandBatch> batches = new ConcurrentHashMap<>();
+
+    public AsyncCommandBus(PlatformTransactionManager transactionManager,
+                           @Value("${commandbus.async.threads:10}") int threads,
+                           @Value("${commandbus.batch.size:50}") int batchSize,
+                           @Value("${commandbus.batch.window-ms:25}") long batchWindowMs) {
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("command-bus-"));
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("command-bus-flush-"));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.batchWindowMs = batchWindowMs;
+    }
+
+    public CompletableFuture<IResult> dispatchAsync(Supplier<IResult> dispatch) {
+        return CompletableFuture.supplyAsync(dispatch, workers);
+    }
+
+    /**
+     * Queues the dispatch with others sharing the same {@code batchKey} (usually the command class) and
+     * {@code tenant} (the command's customerDiferentiator). The batch is flushed when it reaches
+     * {@code commandbus.batch.size} or after {@code commandbus.batch.window-ms}, whichever comes first.
+     */
+    public CompletableFuture<IResult> dispatchBatched(Object batchKey, String tenant, Supplier<IResult> dispatch) {
+        PendingCommand pending = new PendingCommand(dispatch, new CompletableFuture<>());
+        batches.computeIfAbsent(new BatchKey(batchKey, tenant), k -> new CommandBatch(tenant)).add(pending);
+        return pending.future();
+    }
+
+    private void runBatch(List<PendingCommand> drained) {
+        if (drained.size() == 1) {
+            runSingle(drained.get(0));
+            return;
+        }
+
+        List<IResult> results = new ArrayList<>(drained.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingCommand pending : drained) {
+                    results.add(pending.dispatch().get());
+                }
+            });
+        } catch (RuntimeException e) {
+            // one bad command must not sink the whole batch: replay each on its own
+            log.warn("Batch of {} commands failed, retrying individually: {}", drained.size(), e.getMessage());
+            drained.forEach(this::runSingle);
+            return;
+        }
+
+        for (int i = 0; i < drained.size(); i++) {
+            drained.get(i).future().complete(results.get(i));
+        }
+    }
+
+    private void runSingle(PendingCommand pending) {
+        try {
+            pending.future().complete(pending.dispatch().get());
+        } catch (RuntimeException e) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        batches.values().forEach(CommandBatch::flushAll);
+        flushTimer.shutdown();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Command bus workers did not finish within 10s");
+        }
+    }
+
+    private record PendingCommand(Supplier<IResult> dispatch, CompletableFuture<IResult> future) {}
+
+    private record BatchKey(Object kind, String tenant) {}
+
+    private final class CommandBatch {
+
+        private final String tenant;
+        private final Queue<PendingCommand> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        CommandBatch(String tenant) {
+            this.tenant = tenant;
+        }
+
+        void add(PendingCommand pending) {
+            queue.add(pending);
+            if (size.incrementAndGet() >= batchSize) {
+                workers.execute(this::flush);
+            } else {
+                scheduleFlush();
+            }
+        }
+
+        private void scheduleFlush() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                flushTimer.schedule(() -> {
+                    flushScheduled.set(false);
+                    workers.execute(this::flush);
+                }, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            List<PendingCommand> drained = new ArrayList<>(batchSize);
+            PendingCommand pending;
+            while (drained.size() < batchSize && (pending = queue.poll()) != null) {
+                drained.add(pending);
+                size.decrementAndGet();
+            }
+            if (!drained.isEmpty()) {
+                TenantScope.run(tenant, () -> runBatch(drained));
+            }
+            if (size.get() > 0) {
+                scheduleFlush();
+            }
+        }
+
+        void flushAll() {
+            while (size.get() > 0) {
+                flush();
+            }
+        }
+    }
+}
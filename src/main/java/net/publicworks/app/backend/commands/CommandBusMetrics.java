@@ -0,0 +1,178 @@
+package net.publicworks.app.backend.commands;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import net.publicworks.app.backend.itf.IResult;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interceptor around {@link CommandBus#dispatch}: records latency, errors and in-flight
+ * dispatches per command type, {@link CrudOperation} and customerDiferentiator.
+ * <p>
+ * Meters: {@code commandbus.dispatch} (timer with p50/p95/p99), {@code commandbus.errors}
+ * (counter, {@code outcome} = exception | failure) and {@code commandbus.inflight} (gauge per command).
+ */
+@Aspect
+@Component
+public class CommandBusMetrics {
+
+    static final String DISPATCH_TIMER = "commandbus.dispatch";
+    static final String ERROR_COUNTER = "commandbus.errors";
+    static final String INFLIGHT_GAUGE = "commandbus.inflight";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final Map<CommandKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public CommandBusMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* net.publicworks.app.backend.commands.CommandBus.dispatch(..))")
+    public Object aroundDispatch(ProceedingJoinPoint pjp) throws Throwable {
+        Object command = pjp.getArgs().length > 0 ? pjp.getArgs()[0] : null;
+        CommandKey key = CommandKey.of(command);
+        AtomicInteger running = inFlight.computeIfAbsent(key.command(), this::registerInFlightGauge);
+
+        running.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Object result = pjp.proceed();
+            if (result instanceof IResult r && !r.isSuccess()) {
+                errorCounter(key, "failure").increment();
+            }
+            return result;
+        } catch (Throwable t) {
+            errorCounter(key, "exception").increment();
+            throw t;
+        } finally {
+            timer(key).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.decrementAndGet();
+        }
+    }
+
+    /** Current figures for every (command, operation, tenant) seen so far, slowest p95 first. */
+    public List<CommandStats> snapshot() {
+        List<CommandStats> stats = new ArrayList<>(timers.size());
+        timers.forEach((key, timer) -> {
+            HistogramSnapshot snap = timer.takeSnapshot();
+            stats.add(new CommandStats(
+                    key.command(),
+                    key.operation(),
+                    key.tenant(),
+                    snap.count(),
+                    percentile(snap, 0.5),
+                    percentile(snap, 0.95),
+                    percentile(snap, 0.99),
+                    snap.max(TimeUnit.MILLISECONDS),
+                    errorCount(key),
+                    inFlight.getOrDefault(key.command(), new AtomicInteger()).get()));
+        });
+        stats.sort(Comparator.comparingDouble(CommandStats::p95Ms).reversed());
+        return stats;
+    }
+
+    private Timer timer(CommandKey key) {
+        return timers.computeIfAbsent(key, k -> Timer.builder(DISPATCH_TIMER)
+                .description("CommandBus dispatch latency")
+                .tags("command", k.command(), "operation", k.operation(), "tenant", k.tenant())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private Counter errorCounter(CommandKey key, String outcome) {
+        return Counter.builder(ERROR_COUNTER)
+                .tags("command", key.command(), "operation", key.operation(), "tenant", key.tenant(), "outcome", outcome)
+                .register(registry);
+    }
+
+    private long errorCount(CommandKey key) {
+        return (long) registry.find(ERROR_COUNTER)
+                .tags("command", key.command(), "operation", key.operation(), "tenant", key.tenant())
+                .counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private AtomicInteger registerInFlightGauge(String command) {
+        AtomicInteger value = new AtomicInteger();
+        Gauge.builder(INFLIGHT_GAUGE, value, AtomicInteger::get)
+                .tag("command", command)
+                .register(registry);
+        return value;
+    }
+
+    private static double percentile(HistogramSnapshot snap, double p) {
+        for (ValueAtPercentile v : snap.percentileValues()) {
+            if (v.percentile() == p) {
+                return v.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    public record CommandStats(String command, String operation, String tenant, long count,
+                               double p50Ms, double p95Ms, double p99Ms, double maxMs,
+                               long errors, int inFlight) {}
+
+    record CommandKey(String command, String operation, String tenant) {
+
+        // getter lookups are done once per command class, not per dispatch
+        private static final ClassValue<Method[]> ACCESSORS = new ClassValue<>() {
+            @Override
+            protected Method[] computeValue(Class<?> type) {
+                return new Method[]{getter(type, "getOperation"), getter(type, "getCustomerDiferentiator")};
+            }
+        };
+
+        static CommandKey of(Object command) {
+            if (command == null) {
+                return new CommandKey(NONE, NONE, NONE);
+            }
+            Method[] accessors = ACCESSORS.get(command.getClass());
+            return new CommandKey(
+                    command.getClass().getSimpleName(),
+                    read(accessors[0], command),
+                    read(accessors[1], command));
+        }
+
+        private static Method getter(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        private static String read(Method getter, Object command) {
+            if (getter == null) {
+                return NONE;
+            }
+            try {
+                Object value = getter.invoke(command);
+                return value != null ? value.toString() : NONE;
+            } catch (ReflectiveOperationException e) {
+                return NONE;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package net.publicworks.app.backend.commands;
+
+import net.publicworks.app.backend.itf.IResult;
+
+/** Published after {@link CommandBus#dispatch} returns a successful result. */
+public record CommandDispatchedEvent(Object command, IResult result) {}
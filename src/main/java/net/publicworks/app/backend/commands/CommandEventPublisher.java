@@ -0,0 +1,121 @@
+package net.publicworks.app.backend.commands;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetInspection;
+import net.publicworks.app.backend.entity.asset.AssetInspectionCommand;
+import net.publicworks.app.backend.itf.IResult;
+import net.publicworks.app.backend.repo.RepositoryDomains;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns successful writes into application events so derived state (search index, counters, ...)
+ * can follow along without the handlers knowing about it.
+ */
+@Slf4j
+@Aspect
+@Component
+public class CommandEventPublisher {
+
+    private final ApplicationEventPublisher events;
+
+    public CommandEventPublisher(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.commands.CommandBus.dispatch(..))", returning = "result")
+    public void afterDispatch(JoinPoint jp, Object result) {
+        if (result instanceof IResult r && r.isSuccess() && jp.getArgs().length > 0) {
+            events.publishEvent(new CommandDispatchedEvent(jp.getArgs()[0], r));
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.service.AssetService.create(..))", returning = "result")
+    public void afterAssetCreate(JoinPoint jp, Object result) {
+        publishAssetChange(jp, result, CrudOperation.CREATE);
+    }
+
+    /** {@code modify} also applies REMOVE / DELETE commands; the command says which. */
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.service.AssetService.modify(..))", returning = "result")
+    public void afterAssetModify(JoinPoint jp, Object result) {
+        CrudOperation operation = jp.getArgs().length > 0 && jp.getArgs()[0] instanceof AssetCommand cmd
+                && (cmd.getOperation() == CrudOperation.REMOVE || cmd.getOperation() == CrudOperation.DELETE)
+                ? cmd.getOperation() : CrudOperation.MODIFY;
+        publishAssetChange(jp, result, operation);
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.service.AssetService.delete*(..))"
+            + " || execution(* net.publicworks.app.backend.service.AssetService.remove*(..))", returning = "result")
+    public void afterAssetDelete(JoinPoint jp, Object result) {
+        publishAssetChange(jp, result, CrudOperation.DELETE);
+    }
+
+    /** Assets deleted straight through their repository, bypassing {@code AssetService}. */
+    @AfterReturning("execution(* org.springframework.data.repository.Repository+.delete*(..))")
+    public void afterAssetRepositoryDelete(JoinPoint jp) {
+        if (jp.getArgs().length > 0 && RepositoryDomains.holds(jp.getThis(), Asset.class)) {
+            publishAssetDeletes(jp.getArgs()[0]);
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.service.InspectionService.create(..))", returning = "result")
+    public void afterInspectionCreate(JoinPoint jp, Object result) {
+        if (jp.getArgs().length > 0 && jp.getArgs()[0] instanceof AssetInspectionCommand cmd) {
+            // create() also takes MODIFY commands for an existing inspection
+            boolean modify = cmd.getId() != null || cmd.getOperation() == CrudOperation.MODIFY;
+            publishInspectionChange(cmd, result, modify ? CrudOperation.MODIFY : CrudOperation.CREATE);
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.service.InspectionService.delete(..))", returning = "result")
+    public void afterInspectionDelete(JoinPoint jp, Object result) {
+        if (jp.getArgs().length > 0 && jp.getArgs()[0] instanceof AssetInspectionCommand cmd) {
+            publishInspectionChange(cmd, result, CrudOperation.DELETE);
+        }
+    }
+
+    private void publishInspectionChange(AssetInspectionCommand cmd, Object result, CrudOperation operation) {
+        Long assetId = cmd.getAssetId();
+        Long inspectionId = cmd.getId();
+        if (result instanceof AssetInspection inspection) {
+            inspectionId = inspection.getId();
+            if (inspection.getAsset() != null) {
+                assetId = inspection.getAsset().getId();
+            }
+        }
+        if (assetId != null) {
+            events.publishEvent(new InspectionChangedEvent(assetId, inspectionId, operation));
+        } else {
+            log.debug("Inspection {} change names no asset, no change event published", operation);
+        }
+    }
+
+    private void publishAssetChange(JoinPoint jp, Object result, CrudOperation operation) {
+        Object arg = jp.getArgs().length > 0 ? jp.getArgs()[0] : null;
+        if (result instanceof Asset asset) {
+            events.publishEvent(new AssetChangedEvent(asset.getId(), asset, operation));
+        } else if (arg instanceof AssetCommand cmd && cmd.getId() != null) {
+            events.publishEvent(new AssetChangedEvent(cmd.getId(), cmd.getCustomerDiferentiator(), null, operation));
+        } else if (arg instanceof Asset asset && asset.getId() != null) {
+            events.publishEvent(new AssetChangedEvent(asset.getId(), asset, operation));
+        } else if (arg instanceof Long id) {
+            events.publishEvent(new AssetChangedEvent(id, null, null, operation));
+        } else {
+            log.debug("AssetService.{} returned no asset, no change event published", jp.getSignature().getName());
+        }
+    }
+
+    private void publishAssetDeletes(Object deleted) {
+        if (deleted instanceof Asset asset && asset.getId() != null) {
+            events.publishEvent(new AssetChangedEvent(asset.getId(), asset, CrudOperation.DELETE));
+        } else if (deleted instanceof Long id) {
+            events.publishEvent(new AssetChangedEvent(id, null, null, CrudOperation.DELETE));
+        } else if (deleted instanceof Iterable<?> many) {
+            many.forEach(this::publishAssetDeletes);
+        }
+    }
+}
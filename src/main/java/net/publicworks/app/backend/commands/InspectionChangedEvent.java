@@ -0,0 +1,7 @@
+package net.publicworks.app.backend.commands;
+
+/**
+ * Published after {@code InspectionService.create} / {@code delete} returns. {@code inspectionId} is
+ * {@code null} for a new inspection whose id the service did not hand back.
+ */
+public record InspectionChangedEvent(Long assetId, Long inspectionId, CrudOperation operation) {}
@@ -0,0 +1,35 @@
+package net.publicworks.app.backend.entity.asset;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How far an asset import job got: the last row of the last committed batch, plus the totals so far.
+ * Written by {@code AssetImporter} in the same transaction as the batch, deleted when the job completes.
+ */
+@Entity
+@Table(name = "asset_import_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AssetImportCheckpoint {
+
+    @Id
+    @Column(length = 512)
+    private String jobId;
+
+    private long rowsRead;
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private String customerDiferentiator;
+
+    public AssetImportCheckpoint(String jobId) {
+        this.jobId = jobId;
+    }
+}
@@ -0,0 +1,37 @@
+package net.publicworks.app.backend.entity.asset;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The latest inspection of an asset, copied out of its history so lists and detail views need not
+ * load {@code Asset.inspections}. Maintained by {@code InspectionSummaries} on every inspection write.
+ */
+@Entity
+@Table(name = "asset_inspection_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AssetInspectionSummary {
+
+    @Id
+    private Long assetId;
+
+    private Long latestInspectionId;
+    private OffsetDateTime latestInspectionDate;
+    private Double latestConditionScore;
+    private String latestConditionClass;
+    private String latestMethod;
+    private long inspectionCount;
+    private String customerDiferentiator;
+
+    public AssetInspectionSummary(Long assetId) {
+        this.assetId = assetId;
+    }
+}
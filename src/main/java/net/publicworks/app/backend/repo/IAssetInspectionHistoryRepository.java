@@ -0,0 +1,22 @@
+package net.publicworks.app.backend.repo;
+
+import net.publicworks.app.backend.entity.asset.AssetInspection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+
+import java.util.Optional;
+
+/**
+ * One asset's inspections, newest first, a page at a time. The finders walk an index on
+ * {@code asset_inspection (asset_id, inspection_date)}, so their cost does not grow with the history;
+ * {@link #countByAssetId} does, and is only for backfilling a missing summary.
+ */
+public interface IAssetInspectionHistoryRepository extends Repository<AssetInspection, Long> {
+
+    Optional<AssetInspection> findFirstByAssetIdOrderByInspectionDateDescIdDesc(Long assetId);
+
+    Slice<AssetInspection> findByAssetIdOrderByInspectionDateDescIdDesc(Long assetId, Pageable pageable);
+
+    long countByAssetId(Long assetId);
+}
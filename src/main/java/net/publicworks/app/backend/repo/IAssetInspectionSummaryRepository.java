@@ -0,0 +1,15 @@
+package net.publicworks.app.backend.repo;
+
+import jakarta.persistence.LockModeType;
+import net.publicworks.app.backend.entity.asset.AssetInspectionSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.Optional;
+
+public interface IAssetInspectionSummaryRepository extends JpaRepository<AssetInspectionSummary, Long> {
+
+    /** The summary row, locked until the current transaction ends. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AssetInspectionSummary> findForUpdateByAssetId(Long assetId);
+}
@@ -0,0 +1,33 @@
+package net.publicworks.app.backend.repo;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.repository.Repository;
+
+/**
+ * The domain type of a Spring Data repository, for aspects that follow writes through whichever repository
+ * bean holds an entity. Pass the proxy's class: the target behind it is a {@code SimpleJpaRepository}
+ * that no longer declares the domain type.
+ */
+public final class RepositoryDomains {
+
+    private static final ClassValue<Class<?>> DOMAIN = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            for (Class<?> itf : type.getInterfaces()) {
+                Class<?> domain = ResolvableType.forClass(itf).as(Repository.class).resolveGeneric(0);
+                if (domain != null) {
+                    return domain;
+                }
+            }
+            return type.getSuperclass() != null ? get(type.getSuperclass()) : Object.class;
+        }
+    };
+
+    private RepositoryDomains() {
+    }
+
+    /** Whether {@code repository} (the repository proxy) stores {@code entity}s or a subtype of them. */
+    public static boolean holds(Object repository, Class<?> entity) {
+        return repository != null && entity.isAssignableFrom(DOMAIN.get(repository.getClass()));
+    }
+}
@@ -0,0 +1,350 @@
+package net.publicworks.app.backend.repo.hibernateMultiTenantConfig;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out one connection pool per tenant.
+ * <p>
+ * {@code DEFAULT} uses the application's primary DataSource. Every other tenant listed under
+ * {@code tenants.datasources} gets a Hikari pool that is only created on first use, sized by its own
+ * {@code max-size}/{@code min-idle}, and closed again once it has been idle for {@code tenants.pool.idle-ttl}.
+ * A pool is only retired while none of its connections is out, and a caller still holding a retired pool is
+ * served by the tenant's next one.
+ * <p>
+ * All tenant pools together never hold more than {@code tenants.pool.global-max} physical connections: opening a
+ * pool reserves its maximum size from that budget, shrunk to what is left, and closing it gives the reservation
+ * back. When nothing is left, the least recently used idle pools are closed right away to make room; if all of them
+ * are busy the caller gets an {@link SQLTransientConnectionException}. {@code DEFAULT}'s primary DataSource is sized
+ * by {@code spring.datasource.hikari.*} and is not part of this budget.
+ * <p>
+ * Per pool, Hikari's {@code hikaricp.connections.*} meters are registered (tagged {@code pool=tenant-<id>});
+ * {@code tenant.pool.wait} times how long callers waited for a connection of the pool.
+ */
+@Slf4j
+@Component
+public class MultiTenantConnectionProviderImpl implements MultiTenantConnectionProvider<String>, DisposableBean {
+
+    private final DataSource defaultDataSource;
+    private final Map<String, TenantPoolSettings> settings;
+    private final MeterRegistry meterRegistry;
+    private final int defaultMaxSize;
+    private final int defaultMinIdle;
+    private final Duration acquireTimeout;
+    private final int globalMax;
+    /** Sum of the maximum sizes of the open pools. */
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final Object opening = new Object();
+    private final Map<String, TenantPool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("tenant-pool-evictor-"));
+
+    @Autowired
+    public MultiTenantConnectionProviderImpl(DataSource defaultDataSource, Environment environment, MeterRegistry meterRegistry,
+                                             @Value("${tenants.pool.global-max:40}") int globalMax,
+                                             @Value("${tenants.pool.max-size:10}") int defaultMaxSize,
+                                             @Value("${tenants.pool.min-idle:0}") int defaultMinIdle,
+                                             @Value("${tenants.pool.idle-ttl:10m}") Duration idleTtl,
+                                             @Value("${tenants.pool.acquire-timeout:5s}") Duration acquireTimeout) {
+        this(defaultDataSource,
+                Binder.get(environment).bind("tenants.datasources", Bindable.mapOf(String.class, TenantPoolSettings.class)).orElse(Map.of()),
+                meterRegistry, globalMax, defaultMaxSize, defaultMinIdle, idleTtl, acquireTimeout);
+    }
+
+    public MultiTenantConnectionProviderImpl(DataSource defaultDataSource, Map<String, TenantPoolSettings> settings,
+                                             MeterRegistry meterRegistry, int globalMax, int defaultMaxSize,
+                                             int defaultMinIdle, Duration idleTtl, Duration acquireTimeout) {
+        this.defaultDataSource = defaultDataSource;
+        this.meterRegistry = meterRegistry;
+        this.globalMax = globalMax;
+        this.defaultMaxSize = defaultMaxSize;
+        this.defaultMinIdle = defaultMinIdle;
+        this.acquireTimeout = acquireTimeout;
+        Map<String, TenantPoolSettings> normalized = new ConcurrentHashMap<>();
+        settings.forEach((tenant, s) -> normalized.put(key(tenant), s));
+        this.settings = normalized;
+
+        Gauge.builder("tenant.pool.budget.in-use", reserved, AtomicInteger::get)
+                .description("Connections the open tenant pools may hold, against tenants.pool.global-max")
+                .register(meterRegistry);
+        long sweepMs = Math.max(1000, idleTtl.toMillis() / 4);
+        evictor.scheduleWithFixedDelay(() -> evictIdle(idleTtl), sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The tenant's DataSource; pools for non-default tenants are opened on the first call.
+     * Throws {@link IllegalStateException} if the budget has no room for a new pool.
+     */
+    public DataSource getDataSourceForTenant(String tenantId) {
+        try {
+            return dataSource(tenantId);
+        } catch (SQLTransientConnectionException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private DataSource dataSource(String tenantId) throws SQLTransientConnectionException {
+        String key = key(tenantId);
+        if (CustomerDiferentiator.DEFAULT.equalsIgnoreCase(key)) {
+            return defaultDataSource;
+        }
+        TenantPool pool = pools.get(key);
+        return pool != null ? pool : open(key);
+    }
+
+    /** Tenants configured under {@code tenants.datasources}; every other tenant's rows live in the default database. */
+    public Set<String> tenantsWithOwnDatabase() {
+        return Set.copyOf(settings.keySet());
+    }
+
+    /** The tenant to bind for {@code tenant}'s rows: itself if it has its own database, otherwise {@code DEFAULT}. */
+    public String databaseOf(String tenant) {
+        return tenant != null && settings.containsKey(key(tenant)) ? tenant : CustomerDiferentiator.DEFAULT;
+    }
+
+    /** Tenants with an open pool right now; idle tenants drop out after {@code tenants.pool.idle-ttl}. */
+    public Set<String> openTenantPools() {
+        return Set.copyOf(pools.keySet());
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return defaultDataSource.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        return dataSource(tenantIdentifier).getConnection();
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        throw new IllegalArgumentException("Cannot unwrap to " + unwrapType);
+    }
+
+    /** Opens the tenant's pool, one at a time so two pools never reserve the same share of the budget. */
+    private TenantPool open(String tenant) throws SQLTransientConnectionException {
+        TenantPoolSettings s = settings.get(tenant);
+        if (s == null || s.url() == null) {
+            throw new IllegalStateException("No DataSource configured for tenant " + tenant + " (tenants.datasources." + tenant + ")");
+        }
+        int wanted = Math.min(globalMax, s.maxSize() != null ? s.maxSize() : defaultMaxSize);
+        synchronized (opening) {
+            TenantPool open = pools.get(tenant);
+            if (open != null) {
+                return open;
+            }
+            if (globalMax - reserved.get() < wanted) {
+                reclaimIdle(wanted);
+            }
+            int size = Math.min(wanted, globalMax - reserved.get());
+            if (size <= 0) {
+                throw new SQLTransientConnectionException("Tenant " + tenant + ": all " + globalMax
+                        + " shared tenant connections are held by busy pools");
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("tenant-" + tenant);
+            config.setJdbcUrl(s.url());
+            config.setUsername(s.username());
+            config.setPassword(s.password());
+            config.setMaximumPoolSize(size);
+            config.setMinimumIdle(Math.min(size, s.minIdle() != null ? s.minIdle() : defaultMinIdle));
+            config.setConnectionTimeout(Math.max(250, acquireTimeout.toMillis()));
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            log.info("Opening connection pool for tenant {} (max {}, {} of {} shared connections reserved)",
+                    tenant, size, reserved.get() + size, globalMax);
+            TenantPool pool = new TenantPool(tenant, size, new HikariDataSource(config),
+                    Timer.builder("tenant.pool.wait").tag("tenant", tenant).publishPercentiles(0.5, 0.95, 0.99)
+                            .register(meterRegistry));
+            reserved.addAndGet(size);
+            pools.put(tenant, pool);
+            return pool;
+        }
+    }
+
+    /** Closes idle pools, least recently used first, until {@code wanted} connections are free or none is idle. */
+    private void reclaimIdle(int wanted) {
+        List<Map.Entry<String, TenantPool>> byAge = new ArrayList<>(pools.entrySet());
+        byAge.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+        long now = System.nanoTime();
+        for (Map.Entry<String, TenantPool> entry : byAge) {
+            if (globalMax - reserved.get() >= wanted) {
+                return;
+            }
+            retire(entry.getKey(), entry.getValue(), now);
+        }
+    }
+
+    /** Closes the pools of tenants that have not asked for a connection within {@code idleFor}. */
+    public void evictIdle(Duration idleFor) {
+        long threshold = System.nanoTime() - idleFor.toNanos();
+        pools.forEach((tenant, pool) -> retire(tenant, pool, threshold));
+    }
+
+    private void retire(String tenant, TenantPool pool, long idleSince) {
+        // retiring and unmapping is one step, so no caller can look the pool up in between
+        boolean removed = pools.computeIfPresent(tenant,
+                (t, current) -> current == pool && pool.retireIfIdle(idleSince) ? null : current) == null;
+        if (removed && pool.isRetired()) {
+            log.info("Closing idle connection pool for tenant {}", tenant);
+            pool.close();
+            reserved.addAndGet(-pool.size);
+        }
+    }
+
+    private static String key(String tenantId) {
+        return tenantId == null ? CustomerDiferentiator.DEFAULT : tenantId.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdown();
+        pools.values().forEach(TenantPool::close);
+        pools.clear();
+        reserved.set(0);
+    }
+
+    /** A tenant's Hikari pool of at most {@code size} connections, reserved from the shared budget. */
+    private final class TenantPool extends DelegatingDataSource {
+
+        private final String tenant;
+        private final int size;
+        private final HikariDataSource hikari;
+        private final Timer waitTimer;
+        private volatile long lastUsed = System.nanoTime();
+        /** Callers between {@link #getConnection} and closing the connection it returned; guarded by this. */
+        private int users;
+        private boolean retired;
+
+        TenantPool(String tenant, int size, HikariDataSource hikari, Timer waitTimer) {
+            super(hikari);
+            this.tenant = tenant;
+            this.size = size;
+            this.hikari = hikari;
+            this.waitTimer = waitTimer;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            if (!enter(start)) {
+                // evicted after the caller looked it up; the remove waits for the eviction to unmap it,
+                // then the tenant's next pool serves the call
+                pools.remove(tenant, this);
+                return dataSource(tenant).getConnection();
+            }
+            try {
+                Connection connection = hikari.getConnection();
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return leavingOnClose(connection);
+            } catch (SQLException | RuntimeException e) {
+                leave();
+                throw e;
+            }
+        }
+
+        private synchronized boolean enter(long now) {
+            if (retired) {
+                return false;
+            }
+            users++;
+            lastUsed = now;
+            return true;
+        }
+
+        private synchronized void leave() {
+            users--;
+        }
+
+        /** Marks the pool retired if nobody has used it since {@code threshold} and no connection is out. */
+        synchronized boolean retireIfIdle(long threshold) {
+            var mx = hikari.getHikariPoolMXBean();
+            if (users == 0 && lastUsed < threshold && (mx == null || mx.getActiveConnections() == 0)) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        synchronized boolean isRetired() {
+            return retired;
+        }
+
+        void close() {
+            hikari.close();
+        }
+
+        private Connection leavingOnClose(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            leave();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package net.publicworks.app.backend.repo.hibernateMultiTenantConfig;
+
+/**
+ * One entry of {@code tenants.datasources.<tenant>}. {@code maxSize} and {@code minIdle} are optional
+ * and fall back to {@code tenants.pool.max-size} / {@code tenants.pool.min-idle}.
+ */
+public record TenantPoolSettings(String url, String username, String password, Integer maxSize, Integer minIdle) {}
@@ -0,0 +1,43 @@
+package net.publicworks.app.backend.repo.hibernateMultiTenantConfig;
+
+import java.util.function.Supplier;
+
+/**
+ * The tenant bound to the current thread, for work that runs outside a UI request: schedulers, event
+ * listeners and worker pools. It takes precedence over the signed-in user's tenant when Hibernate opens a
+ * session, so JPA calls made inside {@link #run}/{@link #call} get their connections from that tenant's database.
+ * Bind it before a transaction starts; a session that is already open keeps its tenant.
+ */
+public final class TenantScope {
+
+    private static final ThreadLocal<String> BOUND = new ThreadLocal<>();
+
+    private TenantScope() {
+    }
+
+    /** The bound tenant, or {@code null} when none is. */
+    public static String current() {
+        return BOUND.get();
+    }
+
+    public static void run(String tenant, Runnable work) {
+        call(tenant, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(String tenant, Supplier<T> work) {
+        String previous = BOUND.get();
+        BOUND.set(tenant);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        }
+    }
+}
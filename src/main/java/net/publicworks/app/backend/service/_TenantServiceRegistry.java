@@ -0,0 +1,127 @@
+package net.publicworks.app.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.itf.Customer;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Picks the {@link Customer @Customer} implementation of a service type for a tenant, falling back to the
+ * {@link CustomerDiferentiator#DEFAULT} one.
+ * <p>
+ * Resolution is done at context refresh: every {@code @Customer} bean is registered under all of its interfaces
+ * and under its tenant id as annotated and in lower case. {@link #get} is then at most three hash lookups, with
+ * no reflection; any other tenant id gets the precomputed default and is not remembered, so the tables do not
+ * grow with the tenant ids callers pass. Call {@link #refresh()} after registering beans for a new tenant at
+ * runtime.
+ */
+@Slf4j
+@Component
+public class _TenantServiceRegistry {
+
+    private final ApplicationContext applicationContext;
+    private volatile Map<Class<?>, TenantTable> tables = new ConcurrentHashMap<>();
+
+    public _TenantServiceRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public <T> T get(Class<T> type, String tenantId) {
+        TenantTable table = tables.get(type);
+        if (table == null) {
+            table = tables.computeIfAbsent(type, t -> TenantTable.of(t, applicationContext.getBeansOfType(t).values()));
+        }
+        return type.cast(table.resolve(tenantId));
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void refresh() {
+        Set<Class<?>> types = new HashSet<>();
+        for (Object bean : applicationContext.getBeansWithAnnotation(Customer.class).values()) {
+            types.addAll(ClassUtils.getAllInterfacesForClassAsSet(AopUtils.getTargetClass(bean)));
+        }
+        Map<Class<?>, TenantTable> fresh = new ConcurrentHashMap<>();
+        for (Class<?> type : types) {
+            fresh.put(type, TenantTable.of(type, applicationContext.getBeansOfType(type).values()));
+        }
+        tables = fresh;
+        log.info("Tenant service registry: {} service types precomputed", fresh.size());
+    }
+
+    /** Resolved beans of one service type, fixed at refresh. */
+    private static final class TenantTable {
+
+        private final Class<?> type;
+        private final Map<String, Object> byTenant;
+        private final Object fallback;
+
+        private TenantTable(Class<?> type, Map<String, Object> byTenant, Object fallback) {
+            this.type = type;
+            this.byTenant = Map.copyOf(byTenant);
+            this.fallback = fallback;
+        }
+
+        static TenantTable of(Class<?> type, Collection<?> beans) {
+            Map<String, Object> byTenant = new HashMap<>();
+            Object fallback = null;
+            Object unannotated = null;
+            int unannotatedCount = 0;
+            for (Object bean : beans) {
+                Customer customer = AnnotationUtils.findAnnotation(AopUtils.getTargetClass(bean), Customer.class);
+                if (customer == null) {
+                    unannotated = bean;
+                    unannotatedCount++;
+                    continue;
+                }
+                String tenant = customer.value();
+                byTenant.put(tenant, bean);
+                byTenant.put(tenant.toLowerCase(Locale.ROOT), bean);
+                if (CustomerDiferentiator.DEFAULT.equalsIgnoreCase(tenant)) {
+                    fallback = bean;
+                }
+            }
+            // a single plain implementation serves every tenant
+            if (fallback == null && unannotatedCount == 1) {
+                fallback = unannotated;
+            }
+            return new TenantTable(type, byTenant, fallback);
+        }
+
+        Object resolve(String tenantId) {
+            if (tenantId == null) {
+                return orFail(fallback, null);
+            }
+            Object bean = byTenant.get(tenantId);
+            if (bean == null) {
+                // toLowerCase returns the same string when there is nothing to lower
+                bean = byTenant.get(tenantId.toLowerCase(Locale.ROOT));
+            }
+            return bean != null ? bean : orFail(fallback, tenantId);
+        }
+
+        private Object orFail(Object bean, String tenantId) {
+            if (bean != null) {
+                return bean;
+            }
+            if (byTenant.isEmpty()) {
+                throw new IllegalStateException("No bean found for type " + type.getName());
+            }
+            throw new IllegalStateException("No bean found for type " + type.getName()
+                    + " and tenant " + tenantId + ", and no " + CustomerDiferentiator.DEFAULT + " implementation");
+        }
+    }
+}
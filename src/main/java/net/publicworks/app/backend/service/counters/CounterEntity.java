@@ -0,0 +1,28 @@
+package net.publicworks.app.backend.service.counters;
+
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.entity.asset.Asset;
+
+import java.util.List;
+
+/** Entities counted for the dashboard and the columns they are broken down by. */
+public enum CounterEntity {
+    WORK_ORDER(WorkOrder.class, List.of("status", "priority")),
+    ASSET(Asset.class, List.of("status", "type"));
+
+    private final Class<?> type;
+    private final List<String> dimensions;
+
+    CounterEntity(Class<?> type, List<String> dimensions) {
+        this.type = type;
+        this.dimensions = dimensions;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    public List<String> dimensions() {
+        return dimensions;
+    }
+}
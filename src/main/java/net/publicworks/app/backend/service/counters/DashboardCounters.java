@@ -0,0 +1,306 @@
+package net.publicworks.app.backend.service.counters;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.commands.CreateWorkOrderCommand;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.handlers.ResultUtil;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tenant dashboard counts, keyed by (customerDiferentiator, entity, dimension, value),
+ * e.g. ({@code DEFAULT}, WORK_ORDER, status, {@code OPEN}).
+ * <p>
+ * Creates are applied as +1 deltas from command and asset events, so reading a count never touches the database.
+ * Modifies and deletes carry no "before" state, so they mark the tenant's entity stale instead; stale entries are
+ * recounted (one {@code GROUP BY} for that tenant) on the next maintenance tick, which also persists a snapshot.
+ * On startup the snapshot is loaded first so the dashboard has numbers right away, then every database is
+ * reconciled in the background: each tenant with its own database (with that tenant bound), plus one pass over
+ * the default database for everyone else. A recount only touches the tenants its query could see.
+ * <p>
+ * A recount never overwrites increments that arrive while its query runs: such a value is set to the count plus
+ * the increments made meanwhile. The query may already have seen some of those, so the tenant's entity is
+ * recounted once more on the next tick; a second conflict in a row is kept as is rather than retried forever.
+ */
+@Slf4j
+@Component
+public class DashboardCounters implements DisposableBean {
+
+    private static final String NO_VALUE = "(none)";
+
+    private final EntityManager entityManager;
+    private final Set<String> ownDatabases;
+    private final Path snapshotFile;
+    private final Map<Scope, Map<String, Long>> counters = new ConcurrentHashMap<>();
+    private final Set<Stale> stale = ConcurrentHashMap.newKeySet();
+    /** Recounts that lost a race and were queued once more; they are not queued a second time. */
+    private final Set<Stale> retried = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService maintenance =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("dashboard-counters-"));
+
+    @Autowired
+    public DashboardCounters(EntityManager entityManager, MultiTenantConnectionProviderImpl connections,
+                             @Value("${counters.snapshot-file:./data/dashboard-counters.properties}") Path snapshotFile,
+                             @Value("${counters.persist-seconds:60}") long persistSeconds) {
+        this(entityManager, connections.tenantsWithOwnDatabase(), snapshotFile, persistSeconds);
+    }
+
+    /** {@code ownDatabases} are the tenants whose rows are not in the default database (lower case). */
+    public DashboardCounters(EntityManager entityManager, Set<String> ownDatabases, Path snapshotFile, long persistSeconds) {
+        this.entityManager = entityManager;
+        this.ownDatabases = Set.copyOf(ownDatabases);
+        this.snapshotFile = snapshotFile;
+        loadSnapshot();
+        maintenance.scheduleWithFixedDelay(this::maintain, persistSeconds, persistSeconds, TimeUnit.SECONDS);
+    }
+
+    public long count(String customer, CounterEntity entity, String dimension, Object value) {
+        Map<String, Long> values = counters.get(new Scope(customer, entity, dimension));
+        Long count = values == null ? null : values.get(key(value));
+        return count == null ? 0 : count;
+    }
+
+    /** Sum over one dimension; every row has exactly one value per dimension. */
+    public long total(String customer, CounterEntity entity) {
+        return breakdown(customer, entity, entity.dimensions().get(0)).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<String, Long> breakdown(String customer, CounterEntity entity, String dimension) {
+        Map<String, Long> values = counters.get(new Scope(customer, entity, dimension));
+        return values == null ? Map.of() : new HashMap<>(values);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        if (event.command() instanceof CreateWorkOrderCommand) {
+            WorkOrder wo = ResultUtil.require(event.result(), WorkOrder.class);
+            increment(wo.getCustomerDiferentiator(), CounterEntity.WORK_ORDER, wo.getStatus(), wo.getPriority());
+        } else if (event.result().getData() instanceof WorkOrder wo) {
+            // a modify or delete: the previous status is gone, recount this tenant later
+            stale.add(new Stale(wo.getCustomerDiferentiator(), CounterEntity.WORK_ORDER));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        Asset asset = event.asset();
+        if (asset == null) {
+            if (event.tenant() != null) {
+                stale.add(new Stale(event.tenant(), CounterEntity.ASSET));
+            } else {
+                staleEverywhere(CounterEntity.ASSET);
+            }
+        } else if (event.operation() == CrudOperation.CREATE) {
+            increment(asset.getCustomerDiferentiator(), CounterEntity.ASSET, asset.getStatus(), asset.getType());
+        } else {
+            stale.add(new Stale(asset.getCustomerDiferentiator(), CounterEntity.ASSET));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        for (CounterEntity entity : CounterEntity.values()) {
+            staleEverywhere(entity);
+        }
+        maintenance.execute(this::maintain);
+    }
+
+    /**
+     * Recounts {@code entity} for {@code customer} in that tenant's database; {@code customer == null} recounts
+     * every tenant whose rows are in the default database.
+     */
+    public void reconcile(String customer, CounterEntity entity) {
+        boolean ownDatabase = customer != null && ownDatabases.contains(customer.toLowerCase(Locale.ROOT));
+        String database = ownDatabase ? customer : CustomerDiferentiator.DEFAULT;
+        boolean conflicted = TenantScope.call(database, () -> recount(customer, entity));
+        Stale recounted = new Stale(customer, entity);
+        if (!conflicted) {
+            retried.remove(recounted);
+        } else if (retried.add(recounted)) {
+            stale.add(recounted);
+        }
+    }
+
+    /** Returns whether an increment raced the query for any value. */
+    private boolean recount(String customer, CounterEntity entity) {
+        String name = entityManager.getMetamodel().entity(entity.type()).getName();
+        // the default database pass leaves the tenants with their own database alone
+        boolean excludeOwn = customer == null && !ownDatabases.isEmpty();
+        boolean conflicted = false;
+        for (String dimension : entity.dimensions()) {
+            String jpql = "select e.customerDiferentiator, e." + dimension + ", count(e) from " + name + " e"
+                    + (customer != null ? " where e.customerDiferentiator = :c"
+                    : excludeOwn ? " where e.customerDiferentiator is null or lower(e.customerDiferentiator) not in :own" : "")
+                    + " group by e.customerDiferentiator, e." + dimension;
+            var query = entityManager.createQuery(jpql, Object[].class);
+            if (customer != null) {
+                query.setParameter("c", customer);
+            } else if (excludeOwn) {
+                query.setParameter("own", ownDatabases);
+            }
+            Map<Scope, Map<String, Long>> before = new HashMap<>();
+            counters.forEach((scope, values) -> {
+                if (scope.entity() == entity && scope.dimension().equals(dimension) && visible(customer, scope.customer())) {
+                    before.put(scope, new HashMap<>(values));
+                }
+            });
+            Map<Scope, Map<String, Long>> fresh = new HashMap<>();
+            for (Object[] row : query.getResultList()) {
+                if (!visible(customer, (String) row[0])) {
+                    continue;
+                }
+                fresh.computeIfAbsent(new Scope((String) row[0], entity, dimension), s -> new HashMap<>())
+                        .put(key(row[1]), (Long) row[2]);
+            }
+            // values with no rows left must read 0, so every value the query could have seen is replaced too
+            Set<Scope> scopes = new HashSet<>(before.keySet());
+            scopes.addAll(fresh.keySet());
+            for (Scope scope : scopes) {
+                Map<String, Long> expected = before.getOrDefault(scope, Map.of());
+                Map<String, Long> counted = fresh.getOrDefault(scope, Map.of());
+                Set<String> values = new HashSet<>(expected.keySet());
+                values.addAll(counted.keySet());
+                for (String value : values) {
+                    conflicted |= !replace(scope, value, expected.getOrDefault(value, 0L), counted.getOrDefault(value, 0L));
+                }
+            }
+        }
+        return conflicted;
+    }
+
+    /** Whether a recount for {@code customer} covers the counts of {@code scopeCustomer}. */
+    private boolean visible(String customer, String scopeCustomer) {
+        if (customer != null) {
+            return customer.equals(scopeCustomer);
+        }
+        return scopeCustomer == null || !ownDatabases.contains(scopeCustomer.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Sets the count to {@code count}; increments made since {@code expected} was read are kept on top of it.
+     * Returns {@code false} if there were any.
+     */
+    private boolean replace(Scope scope, String value, long expected, long count) {
+        boolean[] replaced = {true};
+        counters.computeIfAbsent(scope, s -> new ConcurrentHashMap<>()).compute(value, (v, current) -> {
+            long raced = (current == null ? 0 : current) - expected;
+            replaced[0] = raced == 0;
+            long updated = count + raced;
+            return updated <= 0 ? null : updated;
+        });
+        return replaced[0];
+    }
+
+    /** Queues a recount of the default database and of every tenant with its own. */
+    private void staleEverywhere(CounterEntity entity) {
+        stale.add(new Stale(null, entity));
+        for (String tenant : ownDatabases) {
+            stale.add(new Stale(tenant, entity));
+        }
+    }
+
+    private void increment(String customer, CounterEntity entity, Object... values) {
+        List<String> dimensions = entity.dimensions();
+        for (int i = 0; i < dimensions.size(); i++) {
+            counters.computeIfAbsent(new Scope(customer, entity, dimensions.get(i)), s -> new ConcurrentHashMap<>())
+                    .merge(key(values[i]), 1L, Long::sum);
+        }
+    }
+
+    private void maintain() {
+        for (Stale s : List.copyOf(stale)) {
+            stale.remove(s);
+            try {
+                reconcile(s.customer(), s.entity());
+            } catch (RuntimeException e) {
+                stale.add(s);
+                log.warn("Could not reconcile {} counters for {}: {}", s.entity(), s.customer(), e.getMessage());
+            }
+        }
+        saveSnapshot();
+    }
+
+    private void loadSnapshot() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(snapshotFile)) {
+            props.load(in);
+        } catch (IOException e) {
+            log.warn("Could not read counter snapshot {}: {}", snapshotFile, e.getMessage());
+            return;
+        }
+        props.forEach((k, v) -> {
+            String[] parts = k.toString().split("\\|", 4);
+            if (parts.length == 4) {
+                counters.computeIfAbsent(new Scope(parts[0], CounterEntity.valueOf(parts[1]), parts[2]), s -> new ConcurrentHashMap<>())
+                        .put(parts[3], Long.parseLong(v.toString()));
+            }
+        });
+        log.info("Loaded {} dashboard counter scopes from {}", counters.size(), snapshotFile);
+    }
+
+    void saveSnapshot() {
+        Properties props = new Properties();
+        counters.forEach((scope, values) -> values.forEach((value, count) -> props.setProperty(
+                scope.customer() + "|" + scope.entity() + "|" + scope.dimension() + "|" + value,
+                Long.toString(count))));
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (Writer out = Files.newBufferedWriter(tmp)) {
+                props.store(out, "dashboard counters");
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write counter snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private static String key(Object value) {
+        return value == null ? NO_VALUE : value.toString();
+    }
+
+    @Override
+    public void destroy() {
+        maintenance.shutdown();
+        saveSnapshot();
+    }
+
+    private record Scope(String customer, CounterEntity entity, String dimension) {}
+
+    private record Stale(String customer, CounterEntity entity) {}
+}
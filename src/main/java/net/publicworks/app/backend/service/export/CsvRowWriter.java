@@ -0,0 +1,47 @@
+package net.publicworks.app.backend.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/** RFC 4180 CSV with a header row; nulls are empty fields. */
+class CsvRowWriter implements RowWriter {
+
+    private final BufferedWriter out;
+
+    CsvRowWriter(List<String> columns, OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        row(columns.toArray());
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                field(values[i] instanceof Enum<?> e ? e.name() : values[i].toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void field(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,114 @@
+package net.publicworks.app.backend.service.export;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every row of one kind for a tenant to an output stream, as CSV or NDJSON, optionally gzipped.
+ * <p>
+ * Rows come from a scalar, forward-only query ({@code getResultStream}) in a read-only transaction with
+ * {@code exports.fetch-size} rows per JDBC round trip, and are encoded as they arrive: an export holds one
+ * fetch window in memory however many rows it writes. Each tenant may run at most
+ * {@code exports.max-concurrent-per-tenant} exports at once; more fail fast with {@link ExportBusyException}.
+ * Meters: {@code export.duration} (tags {@code kind}, {@code format}) and {@code export.rows}.
+ */
+@Slf4j
+@Component
+public class DataExporter {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+    private final int maxPerTenant;
+    private final Map<String, Semaphore> running = new ConcurrentHashMap<>();
+
+    public DataExporter(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${exports.fetch-size:1000}") int fetchSize,
+                        @Value("${exports.max-concurrent-per-tenant:2}") int maxPerTenant) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+        this.maxPerTenant = maxPerTenant;
+    }
+
+    /** Writes the export to {@code out} and returns the number of rows; {@code out} is left open. */
+    public long export(ExportKind kind, ExportFormat format, boolean gzip, String tenant, OutputStream out) throws IOException {
+        Semaphore permits = running.computeIfAbsent(tenant, t -> new Semaphore(maxPerTenant));
+        if (!permits.tryAcquire()) {
+            throw new ExportBusyException(tenant);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, 1 << 16) : null;
+            RowWriter writer = RowWriter.of(format, kind.columns(), zip != null ? zip : out);
+            long rows = readOnly.execute(status -> write(kind, tenant, writer));
+            writer.finish();
+            if (zip != null) {
+                zip.finish();
+            }
+            meterRegistry.counter("export.rows", "kind", kind.name()).increment(rows);
+            log.info("Exported {} {} rows for tenant {} as {}", rows, kind, tenant, format);
+            return rows;
+        } finally {
+            sample.stop(meterRegistry.timer("export.duration", "kind", kind.name(), "format", format.name()));
+            permits.release();
+        }
+    }
+
+    /** Writes the export to {@code file}, replacing it only once the export is complete. */
+    public long export(ExportKind kind, ExportFormat format, boolean gzip, String tenant, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            long rows;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                rows = export(kind, format, gzip, tenant, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private long write(ExportKind kind, String tenant, RowWriter writer) {
+        long rows = 0;
+        try (Stream<Object[]> results = entityManager.createQuery(kind.jpql(), Object[].class)
+                .setParameter("tenant", tenant)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<Object[]> it = results.iterator();
+            while (it.hasNext()) {
+                writer.row(it.next());
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export of " + kind + " for " + tenant + " failed after " + rows + " rows", e);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,9 @@
+package net.publicworks.app.backend.service.export;
+
+/** The tenant already has {@code exports.max-concurrent-per-tenant} exports running. */
+public class ExportBusyException extends RuntimeException {
+
+    public ExportBusyException(String tenant) {
+        super("Tenant " + tenant + " already has the maximum number of exports running, please try again when one finishes");
+    }
+}
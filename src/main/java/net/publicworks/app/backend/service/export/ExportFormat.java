@@ -0,0 +1,22 @@
+package net.publicworks.app.backend.service.export;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType(boolean gzip) {
+        return gzip ? "application/gzip" : contentType;
+    }
+
+    public String fileName(String base, boolean gzip) {
+        return base + "." + extension + (gzip ? ".gz" : "");
+    }
+}
@@ -0,0 +1,60 @@
+package net.publicworks.app.backend.service.export;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What can be exported, as the entity and the property paths that become columns (named after the path).
+ * Dotted paths are read through a left join, so rows without the association still export.
+ */
+public enum ExportKind {
+    WORK_ORDER("WorkOrder", "work-orders",
+            "id", "title", "description", "status", "priority", "locationText", "requesterEmail"),
+    ASSET("Asset", "assets",
+            "id", "externalId", "name", "type", "status", "installYear", "expectedServiceLifeYears",
+            "replacementCostEstimate", "gisGeometryRef",
+            "location.addressLine1", "location.city", "location.stateProvince", "location.postalCode"),
+    INSPECTION("AssetInspection", "inspections",
+            "id", "asset.id", "asset.externalId", "inspectionDate", "inspectorName", "method",
+            "conditionScore", "conditionClass", "notes");
+
+    private final String entity;
+    private final String fileBase;
+    private final List<String> columns;
+
+    ExportKind(String entity, String fileBase, String... columns) {
+        this.entity = entity;
+        this.fileBase = fileBase;
+        this.columns = List.of(columns);
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public String fileBase() {
+        return fileBase;
+    }
+
+    /** Scalar select in id order, so Hibernate never builds (or keeps) an entity. */
+    String jpql() {
+        Map<String, String> joins = new LinkedHashMap<>();
+        StringBuilder select = new StringBuilder("select ");
+        for (int i = 0; i < columns.size(); i++) {
+            String path = columns.get(i);
+            int dot = path.indexOf('.');
+            if (dot > 0) {
+                String association = path.substring(0, dot);
+                String alias = joins.computeIfAbsent(association, a -> "j" + joins.size());
+                path = alias + path.substring(dot);
+            } else {
+                path = "e." + path;
+            }
+            select.append(i == 0 ? "" : ", ").append(path);
+        }
+        select.append(" from ").append(entity).append(" e");
+        joins.forEach((association, alias) -> select.append(" left join e.").append(association).append(' ').append(alias));
+        return select.append(" where e.customerDiferentiator = :tenant order by e.id").toString();
+    }
+}
@@ -0,0 +1,55 @@
+package net.publicworks.app.backend.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+/** One JSON object per line, keyed by column name; nulls are omitted. */
+class NdjsonRowWriter implements RowWriter {
+
+    private static final JsonFactory JSON = JsonFactory.builder().build();
+
+    private final List<String> columns;
+    private final JsonGenerator json;
+
+    NdjsonRowWriter(List<String> columns, OutputStream out) throws IOException {
+        this.columns = columns;
+        this.json = JSON.createGenerator(out);
+        this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.json.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            json.writeFieldName(columns.get(i));
+            if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                json.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                json.writeNumber(((Number) value).doubleValue());
+            } else if (value instanceof BigDecimal d) {
+                json.writeNumber(d);
+            } else if (value instanceof Boolean b) {
+                json.writeBoolean(b);
+            } else {
+                json.writeString(value instanceof Enum<?> e ? e.name() : value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        json.flush();
+    }
+}
@@ -0,0 +1,21 @@
+package net.publicworks.app.backend.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/** Encodes export rows onto a stream, one row at a time. */
+interface RowWriter {
+
+    void row(Object[] values) throws IOException;
+
+    /** Flushes buffered output; does not close the underlying stream. */
+    void finish() throws IOException;
+
+    static RowWriter of(ExportFormat format, List<String> columns, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvRowWriter(columns, out);
+            case NDJSON -> new NdjsonRowWriter(columns, out);
+        };
+    }
+}
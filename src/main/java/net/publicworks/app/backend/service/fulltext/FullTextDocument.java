@@ -0,0 +1,4 @@
+package net.publicworks.app.backend.service.fulltext;
+
+/** What gets indexed for one record: a short, boosted {@code title} and free {@code body} text. */
+public record FullTextDocument(FullTextKind kind, Long id, String tenant, String title, String body) {}
@@ -0,0 +1,4 @@
+package net.publicworks.app.backend.service.fulltext;
+
+/** A ranked match; resolve {@code id} through the repository for {@code kind}. */
+public record FullTextHit(FullTextKind kind, Long id, String title, float score) {}
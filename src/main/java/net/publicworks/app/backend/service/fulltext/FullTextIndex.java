@@ -0,0 +1,425 @@
+package net.publicworks.app.backend.service.fulltext;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index, one directory per tenant under {@code fulltext.index-dir}.
+ * <p>
+ * Writes go to the tenant's {@link IndexWriter} straight away; searchers are refreshed every
+ * {@code fulltext.refresh-ms} and the index is committed to disk every {@code fulltext.commit-seconds},
+ * so a burst of updates costs one refresh instead of one per write.
+ * Queries match each term exactly, as a prefix and (for longer terms) with one or two typos,
+ * with exact matches and title matches ranked highest.
+ * <p>
+ * {@link #rebuild} fills a separate index next to the tenant's and swaps it in with one commit, so searches
+ * keep seeing the old index until the new one is complete.
+ */
+@Slf4j
+@Component
+public class FullTextIndex implements DisposableBean {
+
+    private static final String UID = "uid";
+    private static final String KIND = "kind";
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String BODY = "body";
+    private static final String REBUILD_SUFFIX = ".rebuild";
+
+    private final Path root;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Map<String, TenantIndex> tenants = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("fulltext-"));
+
+    public FullTextIndex(@Value("${fulltext.index-dir:./data/fulltext}") Path root,
+                         @Value("${fulltext.refresh-ms:500}") long refreshMs,
+                         @Value("${fulltext.commit-seconds:30}") long commitSeconds) {
+        this.root = root;
+        maintenance.scheduleWithFixedDelay(this::refreshAll, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::commitAll, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+    }
+
+    public void index(FullTextDocument doc) {
+        Term uid = new Term(UID, uid(doc.kind(), doc.id()));
+        try {
+            tenant(doc.tenant()).write(writer -> writer.updateDocument(uid, toLucene(doc)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index " + doc.kind() + " " + doc.id(), e);
+        }
+    }
+
+    public void delete(String tenant, FullTextKind kind, Long id) {
+        Term uid = new Term(UID, uid(kind, id));
+        try {
+            tenant(tenant).write(writer -> writer.deleteDocuments(uid));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + kind + " " + id + " from index", e);
+        }
+    }
+
+    /** Deletes a document whose tenant is no longer known (the entity is gone) from every tenant's index. */
+    public void delete(FullTextKind kind, Long id) {
+        try (Stream<Path> dirs = Files.isDirectory(root) ? Files.list(root) : Stream.empty()) {
+            dirs.filter(Files::isDirectory)
+                    .map(dir -> dir.getFileName().toString())
+                    .filter(name -> !name.endsWith(REBUILD_SUFFIX))
+                    .forEach(name -> tenants.computeIfAbsent(name, this::open));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list full-text indexes in " + root, e);
+        }
+        Term uid = new Term(UID, uid(kind, id));
+        for (TenantIndex index : tenants.values()) {
+            try {
+                index.write(writer -> writer.deleteDocuments(uid));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete " + kind + " " + id + " from index", e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the tenant's whole index with what {@code source} feeds in. The documents go into a fresh index
+     * first; writes arriving meanwhile go to both. Searches see the old index until the swap.
+     */
+    public void rebuild(String tenant, Consumer<Consumer<FullTextDocument>> source) {
+        TenantIndex index = tenant(tenant);
+        synchronized (index) {
+            Path freshDir = index.dir().resolveSibling(index.dir().getFileName() + REBUILD_SUFFIX);
+            try {
+                try (FSDirectory fresh = FSDirectory.open(freshDir)) {
+                    IndexWriter writer = new IndexWriter(fresh,
+                            new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+                    try {
+                        index.startRebuild(writer);
+                        source.accept(doc -> {
+                            try {
+                                writer.updateDocument(new Term(UID, uid(doc.kind(), doc.id())), toLucene(doc));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                        index.swap(fresh);
+                    } finally {
+                        index.endRebuild();
+                        if (writer.isOpen()) {
+                            writer.rollback();
+                        }
+                    }
+                }
+                index.refresh();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not rebuild full-text index for " + tenant, e);
+            } finally {
+                FileSystemUtils.deleteRecursively(freshDir.toFile());
+            }
+        }
+    }
+
+    public List<FullTextHit> search(String tenant, String text, Collection<FullTextKind> kinds, int limit) {
+        return search(tenant, text, kinds, 0, limit);
+    }
+
+    /** One page of the ranked hits, for lazily scrolled result lists. */
+    public List<FullTextHit> search(String tenant, String text, Collection<FullTextKind> kinds, int offset, int limit) {
+        Query query = buildQuery(text, kinds);
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        TenantIndex index = tenant(tenant);
+        try {
+            IndexSearcher searcher = index.searchers().acquire();
+            try {
+                TopDocs top = searcher.search(query, offset + limit);
+                List<FullTextHit> hits = new ArrayList<>(Math.max(0, top.scoreDocs.length - offset));
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc sd = top.scoreDocs[i];
+                    Document d = searcher.storedFields().document(sd.doc);
+                    hits.add(new FullTextHit(
+                            FullTextKind.valueOf(d.get(KIND)),
+                            d.getField(ID).numericValue().longValue(),
+                            d.get(TITLE),
+                            sd.score));
+                }
+                return hits;
+            } finally {
+                index.searchers().release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Full-text search failed for " + tenant, e);
+        }
+    }
+
+    public int count(String tenant, String text, Collection<FullTextKind> kinds) {
+        Query query = buildQuery(text, kinds);
+        if (query == null) {
+            return 0;
+        }
+        TenantIndex index = tenant(tenant);
+        try {
+            IndexSearcher searcher = index.searchers().acquire();
+            try {
+                return searcher.count(query);
+            } finally {
+                index.searchers().release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Full-text count failed for " + tenant, e);
+        }
+    }
+
+    Query buildQuery(String text, Collection<FullTextKind> kinds) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder variants = new BooleanQuery.Builder();
+            for (String field : List.of(TITLE, BODY)) {
+                float fieldBoost = TITLE.equals(field) ? 2f : 1f;
+                variants.add(new BoostQuery(new TermQuery(new Term(field, term)), 4f * fieldBoost), BooleanClause.Occur.SHOULD);
+                variants.add(new BoostQuery(new PrefixQuery(new Term(field, term)), 2f * fieldBoost), BooleanClause.Occur.SHOULD);
+                int edits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+                if (edits > 0) {
+                    variants.add(new BoostQuery(new FuzzyQuery(new Term(field, term), edits, 1), fieldBoost), BooleanClause.Occur.SHOULD);
+                }
+            }
+            all.add(variants.build(), BooleanClause.Occur.MUST);
+        }
+        if (kinds != null && !kinds.isEmpty()) {
+            BooleanQuery.Builder kindFilter = new BooleanQuery.Builder();
+            for (FullTextKind kind : kinds) {
+                kindFilter.add(new TermQuery(new Term(KIND, kind.name())), BooleanClause.Occur.SHOULD);
+            }
+            all.add(kindFilter.build(), BooleanClause.Occur.FILTER);
+        }
+        return all.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream ts = analyzer.tokenStream(BODY, text)) {
+            CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                terms.add(term.toString());
+            }
+            ts.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static Document toLucene(FullTextDocument doc) {
+        Document d = new Document();
+        d.add(new StringField(UID, uid(doc.kind(), doc.id()), Field.Store.NO));
+        d.add(new StringField(KIND, doc.kind().name(), Field.Store.YES));
+        d.add(new StoredField(ID, doc.id()));
+        d.add(new TextField(TITLE, doc.title() == null ? "" : doc.title(), Field.Store.YES));
+        d.add(new TextField(BODY, doc.body() == null ? "" : doc.body(), Field.Store.NO));
+        return d;
+    }
+
+    private static String uid(FullTextKind kind, Long id) {
+        return kind.name() + ":" + id;
+    }
+
+    private TenantIndex tenant(String tenant) {
+        String key = (tenant == null ? "DEFAULT" : tenant).replaceAll("[^A-Za-z0-9_-]", "_");
+        return tenants.computeIfAbsent(key, this::open);
+    }
+
+    private TenantIndex open(String dirName) {
+        try {
+            Path dir = root.resolve(dirName);
+            IndexWriter writer = new IndexWriter(FSDirectory.open(dir), new IndexWriterConfig(analyzer));
+            return new TenantIndex(dir, writer, new SearcherManager(writer, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open full-text index for " + dirName, e);
+        }
+    }
+
+    private void refreshAll() {
+        tenants.forEach((tenant, index) -> {
+            try {
+                index.refresh();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Full-text refresh failed for {}: {}", tenant, e.getMessage());
+            }
+        });
+    }
+
+    private void commitAll() {
+        tenants.forEach((tenant, index) -> {
+            try {
+                index.commit();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Full-text commit failed for {}: {}", tenant, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        maintenance.shutdown();
+        tenants.forEach((tenant, index) -> {
+            try {
+                index.searchers().close();
+                index.writer().close();
+            } catch (IOException e) {
+                log.warn("Could not close full-text index for {}: {}", tenant, e.getMessage());
+            }
+        });
+    }
+
+    private interface WriterAction {
+        void apply(IndexWriter writer) throws IOException;
+    }
+
+    /**
+     * A tenant's writer and searchers. While a rebuild runs, writes also go to the fresh index; the swap
+     * replaces the live documents with the fresh ones under the write lock, so no searcher refresh (and no
+     * write) can land between the delete and the add.
+     */
+    private static final class TenantIndex {
+
+        private final Path dir;
+        private final IndexWriter writer;
+        private final SearcherManager searchers;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile IndexWriter rebuilding;
+
+        TenantIndex(Path dir, IndexWriter writer, SearcherManager searchers) {
+            this.dir = dir;
+            this.writer = writer;
+            this.searchers = searchers;
+        }
+
+        Path dir() {
+            return dir;
+        }
+
+        IndexWriter writer() {
+            return writer;
+        }
+
+        SearcherManager searchers() {
+            return searchers;
+        }
+
+        void write(WriterAction action) throws IOException {
+            lock.readLock().lock();
+            try {
+                action.apply(writer);
+                IndexWriter fresh = rebuilding;
+                if (fresh != null) {
+                    action.apply(fresh);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void refresh() throws IOException {
+            lock.readLock().lock();
+            try {
+                searchers.maybeRefresh();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void commit() throws IOException {
+            lock.readLock().lock();
+            try {
+                if (writer.hasUncommittedChanges()) {
+                    writer.commit();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void startRebuild(IndexWriter fresh) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void endRebuild() {
+            lock.writeLock().lock();
+            try {
+                rebuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void swap(Directory fresh) throws IOException {
+            lock.writeLock().lock();
+            try {
+                rebuilding.close();
+                rebuilding = null;
+                writer.deleteAll();
+                writer.addIndexes(fresh);
+                writer.commit();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.publicworks.app.backend.service.fulltext;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.commands.CreateWorkOrderCommand;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetLocation;
+import net.publicworks.app.backend.handlers.ResultUtil;
+import net.publicworks.app.backend.repo.IAssetRepository;
+import net.publicworks.app.backend.service.search.KeysetRequest;
+import net.publicworks.app.backend.service.search.KeysetSlice;
+import net.publicworks.app.backend.service.search.SearchFilter;
+import net.publicworks.app.backend.service.search.SearchQueryPlanner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@link FullTextIndex} in step with writes and rebuilds a tenant's index from the database.
+ */
+@Slf4j
+@Component
+public class FullTextIndexer {
+
+    private static final int REBUILD_BATCH = 500;
+    private static final ClassValue<Method> OPERATION = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getOperation");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private final FullTextIndex index;
+    private final IAssetRepository assetRepository;
+    private final SearchQueryPlanner planner;
+
+    public FullTextIndexer(FullTextIndex index, IAssetRepository assetRepository, SearchQueryPlanner planner) {
+        this.index = index;
+        this.assetRepository = assetRepository;
+        this.planner = planner;
+    }
+
+    /** Creates and edits (re)index the work order the command returned; REMOVE/DELETE commands drop it. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        try {
+            WorkOrder wo = event.command() instanceof CreateWorkOrderCommand
+                    ? ResultUtil.require(event.result(), WorkOrder.class)
+                    : event.result().getData() instanceof WorkOrder w ? w : null;
+            if (wo == null) {
+                return;
+            }
+            if (removes(OPERATION.get(event.command().getClass()), event.command())) {
+                index.delete(wo.getCustomerDiferentiator(), FullTextKind.WORK_ORDER, wo.getId());
+            } else {
+                index.index(document(wo));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not index work order from {}: {}", event.command().getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        try {
+            boolean removed = event.operation() == CrudOperation.REMOVE || event.operation() == CrudOperation.DELETE;
+            Asset asset = removed ? event.asset()
+                    : event.asset() != null ? event.asset() : assetRepository.findById(event.assetId()).orElse(null);
+            if (!removed && asset != null) {
+                index.index(document(asset));
+            } else if (asset != null) {
+                index.delete(asset.getCustomerDiferentiator(), FullTextKind.ASSET, event.assetId());
+            } else {
+                // gone from the database, so its tenant is unknown
+                index.delete(FullTextKind.ASSET, event.assetId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not index asset {}: {}", event.assetId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads every work order and asset of the tenant in keyset slices and replaces its index.
+     * Deliberately not transactional, so each slice is detached once read and memory stays flat.
+     */
+    public void rebuild(String tenant) {
+        List<SearchFilter> byTenant = List.of(new SearchFilter("customerDiferentiator", tenant, SearchFilter.Operator.EQ));
+        index.rebuild(tenant, sink -> {
+            stream(WorkOrder.class, byTenant, wo -> sink.accept(document(wo)));
+            stream(Asset.class, byTenant, asset -> sink.accept(document(asset)));
+        });
+        log.info("Rebuilt full-text index for tenant {}", tenant);
+    }
+
+    private <T> void stream(Class<T> type, List<SearchFilter> filters, Consumer<T> sink) {
+        KeysetRequest request = KeysetRequest.first(null, null, REBUILD_BATCH);
+        KeysetSlice<T> slice;
+        do {
+            slice = planner.searchKeyset(type, filters, request);
+            slice.getContent().forEach(sink);
+            request = request.next(slice);
+        } while (slice.hasNext());
+    }
+
+    static FullTextDocument document(WorkOrder wo) {
+        return new FullTextDocument(FullTextKind.WORK_ORDER, wo.getId(), wo.getCustomerDiferentiator(),
+                wo.getTitle(),
+                join(wo.getDescription(), wo.getLocationText()));
+    }
+
+    static FullTextDocument document(Asset asset) {
+        AssetLocation loc = asset.getLocation();
+        return new FullTextDocument(FullTextKind.ASSET, asset.getId(), asset.getCustomerDiferentiator(),
+                asset.getName(),
+                join(asset.getExternalId(),
+                        loc != null ? loc.getAddressLine1() : null,
+                        loc != null ? loc.getCity() : null,
+                        loc != null ? loc.getPostalCode() : null));
+    }
+
+    private static boolean removes(Method operation, Object command) {
+        if (operation == null) {
+            return false;
+        }
+        try {
+            Object value = operation.invoke(command);
+            return value == CrudOperation.REMOVE || value == CrudOperation.DELETE;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static String join(String... parts) {
+        StringJoiner joiner = new StringJoiner(" ");
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                joiner.add(part);
+            }
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,7 @@
+package net.publicworks.app.backend.service.fulltext;
+
+public enum FullTextKind {
+    WORK_ORDER,
+    ASSET,
+    SERVICE_REQUEST
+}
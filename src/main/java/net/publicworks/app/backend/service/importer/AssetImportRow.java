@@ -0,0 +1,16 @@
+package net.publicworks.app.backend.service.importer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One raw record of an import file: column (or GeoJSON property) name to text value.
+ * {@code row} is 1-based and counts data rows only, so it is stable across resumes.
+ * {@code errors} are problems the reader already found in the record, such as a geometry it cannot store.
+ */
+public record AssetImportRow(long row, Map<String, String> values, List<String> errors) {
+
+    public AssetImportRow(long row, Map<String, String> values) {
+        this(row, values, List.of());
+    }
+}
@@ -0,0 +1,240 @@
+package net.publicworks.app.backend.service.importer;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetAttributeValue;
+import net.publicworks.app.backend.service.reference.AttributeDefinitionCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk asset import from CSV or GeoJSON, for onboarding a tenant's inventory.
+ * <p>
+ * The file is streamed one record at a time and written in batches of {@code assets.import.batch-size},
+ * one transaction per batch, persisting through the {@link EntityManager} and clearing it afterwards so
+ * Hibernate's JDBC batching ({@code hibernate.jdbc.batch_size}) does the inserts and memory stays flat.
+ * Invalid rows are rejected individually (see {@link AssetRowValidator}) and never stop the file.
+ * <p>
+ * Each batch's transaction also writes the job's checkpoint row ({@link ImportCheckpoint}), so importing the
+ * same file again after a crash resumes right behind the last committed batch. Rows whose {@code externalId}
+ * already exists for the tenant are skipped, so an edited copy of a file does not duplicate assets either.
+ * Every rejected row is appended to {@code <jobId>.errors.csv} under {@code assets.import.work-dir} before its
+ * batch commits; a batch that fails is read again on resume and may list its rejections twice.
+ */
+@Slf4j
+@Component
+public class AssetImporter {
+
+    private static final int ERROR_SAMPLE = 100;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final AttributeDefinitionCache definitions;
+    private final int batchSize;
+    private final Path workDir;
+
+    public AssetImporter(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher events, AttributeDefinitionCache definitions,
+                         @Value("${assets.import.batch-size:500}") int batchSize,
+                         @Value("${assets.import.work-dir:./data/imports}") Path workDir) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.definitions = definitions;
+        this.batchSize = batchSize;
+        this.workDir = workDir;
+    }
+
+    public ImportReport importFile(Path file, String tenant, Consumer<ImportProgress> progress) {
+        String jobId;
+        try {
+            jobId = tenant + "-" + file.getFileName().toString().replaceAll("[^A-Za-z0-9_.-]", "_")
+                    + "-" + Files.size(file) + "-" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read import file " + file, e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importStream(jobId, ImportFormat.of(file.getFileName().toString()), in, tenant, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read import file " + file, e);
+        }
+    }
+
+    /**
+     * Imports {@code in}, resuming job {@code jobId} if it has a checkpoint. The caller picks a job id that
+     * identifies the file's content, so a different file never resumes someone else's checkpoint.
+     */
+    public ImportReport importStream(String jobId, ImportFormat format, InputStream in, String tenant,
+                                     Consumer<ImportProgress> progress) throws IOException {
+        Files.createDirectories(workDir);
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(entityManager, jobId, tenant);
+        boolean resumed = checkpoint.rows() > 0;
+        if (resumed) {
+            log.info("Resuming asset import {} after row {}", jobId, checkpoint.rows());
+        }
+        AssetRowValidator validator = AssetRowValidator.of(tenant, definitions.all(tenant));
+        Path errorFile = workDir.resolve(jobId + ".errors.csv");
+        Run run = new Run(tenant, checkpoint);
+
+        try (AssetRowSource source = AssetRowSource.open(format, in);
+             BufferedWriter errorsOut = Files.newBufferedWriter(errorFile, StandardOpenOption.CREATE,
+                     resumed ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            AssetImportRow row;
+            while ((row = source.next()) != null) {
+                if (row.row() <= checkpoint.rows()) {
+                    continue;
+                }
+                AssetRowValidator.Validated validated = validator.validate(row);
+                if (validated.isValid()) {
+                    run.batch.add(new Pending(row.row(), validated));
+                } else {
+                    run.rejections.add(new ImportError(row.row(), String.join("; ", validated.errors())));
+                }
+                run.lastRow = row.row();
+                if (run.batch.size() + run.rejections.size() >= batchSize) {
+                    commit(run, errorsOut, progress);
+                }
+            }
+            commit(run, errorsOut, progress);
+        }
+        transactionTemplate.executeWithoutResult(status -> run.checkpoint.delete(entityManager));
+        ImportProgress totals = run.totals();
+        log.info("Asset import {} finished: {} imported, {} skipped, {} rejected", jobId,
+                totals.imported(), totals.skipped(), totals.rejected());
+        return new ImportReport(jobId, totals, List.copyOf(run.sample), errorFile, resumed);
+    }
+
+    private void commit(Run run, BufferedWriter errorsOut, Consumer<ImportProgress> progress) throws IOException {
+        if (run.batch.isEmpty() && run.rejections.isEmpty()) {
+            return;
+        }
+        for (ImportError error : run.rejections) {
+            errorsOut.write(error.row() + ",\"" + error.message().replace("\"", "\"\"") + "\"\n");
+        }
+        errorsOut.flush();
+        run.checkpoint = transactionTemplate.execute(status -> {
+            int[] written = run.batch.isEmpty() ? new int[2] : persist(run.tenant, run.batch);
+            ImportProgress totals = new ImportProgress(run.lastRow, run.imported + written[0], run.skipped + written[1],
+                    run.rejected + run.rejections.size());
+            return run.checkpoint.advance(entityManager, run.lastRow, totals);
+        });
+        run.imported = run.checkpoint.imported();
+        run.skipped = run.checkpoint.skipped();
+        run.rejected = run.checkpoint.rejected();
+        for (ImportError error : run.rejections) {
+            if (run.sample.size() < ERROR_SAMPLE) {
+                run.sample.add(error);
+            }
+        }
+        run.batch.clear();
+        run.rejections.clear();
+        if (progress != null) {
+            progress.accept(run.totals());
+        }
+    }
+
+    /** Returns {imported, skipped}. */
+    private int[] persist(String tenant, List<Pending> batch) {
+        Set<String> seen = existingExternalIds(tenant, batch);
+        int imported = 0;
+        int skipped = 0;
+        for (Pending pending : batch) {
+            Asset asset = pending.validated().asset();
+            if (asset.getExternalId() != null && !seen.add(asset.getExternalId())) {
+                skipped++;
+                continue;
+            }
+            if (pending.validated().location() != null) {
+                entityManager.persist(pending.validated().location());
+                asset.setLocation(pending.validated().location());
+            }
+            entityManager.persist(asset);
+            for (Map.Entry<AssetAttributeDefinition, String> attribute : pending.validated().attributes().entrySet()) {
+                AssetAttributeValue value = new AssetAttributeValue();
+                value.setAsset(asset);
+                value.setDefinition(entityManager.getReference(AssetAttributeDefinition.class, attribute.getKey().getId()));
+                value.setValue(attribute.getValue());
+                value.setCustomerDiferentiator(tenant);
+                entityManager.persist(value);
+            }
+            imported++;
+        }
+        entityManager.flush();
+        for (Pending pending : batch) {
+            Asset asset = pending.validated().asset();
+            if (asset.getId() != null) {
+                events.publishEvent(new AssetChangedEvent(asset.getId(), asset, CrudOperation.CREATE));
+            }
+        }
+        entityManager.clear();
+        return new int[] {imported, skipped};
+    }
+
+    private Set<String> existingExternalIds(String tenant, List<Pending> batch) {
+        Set<String> ids = new HashSet<>();
+        for (Pending pending : batch) {
+            if (pending.validated().asset().getExternalId() != null) {
+                ids.add(pending.validated().asset().getExternalId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(entityManager.createQuery(
+                        "select a.externalId from Asset a where a.customerDiferentiator = :tenant and a.externalId in :ids",
+                        String.class)
+                .setParameter("tenant", tenant)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    private record Pending(long row, AssetRowValidator.Validated validated) {}
+
+    private static final class Run {
+
+        final String tenant;
+        final List<Pending> batch = new ArrayList<>();
+        final List<ImportError> rejections = new ArrayList<>();
+        final List<ImportError> sample = new ArrayList<>();
+        ImportCheckpoint checkpoint;
+        long lastRow;
+        long imported;
+        long skipped;
+        long rejected;
+
+        Run(String tenant, ImportCheckpoint checkpoint) {
+            this.tenant = tenant;
+            this.checkpoint = checkpoint;
+            this.lastRow = checkpoint.rows();
+            this.imported = checkpoint.imported();
+            this.skipped = checkpoint.skipped();
+            this.rejected = checkpoint.rejected();
+        }
+
+        ImportProgress totals() {
+            return new ImportProgress(lastRow, imported, skipped, rejected);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.publicworks.app.backend.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Reads an import file one record at a time. */
+public interface AssetRowSource extends Closeable {
+
+    /** The next record, or {@code null} at the end of the file. */
+    AssetImportRow next() throws IOException;
+
+    static AssetRowSource open(ImportFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvAssetRowSource(in);
+            case GEOJSON -> new GeoJsonAssetRowSource(in);
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package net.publicworks.app.backend.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetLocation;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.service.reference.AttributeDefinitions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns an {@link AssetImportRow} into unsaved entities, checking it against the tenant's
+ * {@link AssetAttributeDefinition}s: required attributes present, NUMBER values numeric and
+ * values within {@code allowedValuesJson} when one is set.
+ * <p>
+ * Columns named like an {@link Asset} or {@link AssetLocation} property map to that property;
+ * every other non-empty column is an attribute key of the asset's type.
+ */
+public class AssetRowValidator {
+
+    static final String GIS_GEOMETRY_REF = "gisGeometryRef";
+    private static final Set<String> LOCATION_COLUMNS = Set.of("locationType", "addressLine1", "city", "stateProvince", "postalCode");
+    private static final Set<String> ASSET_COLUMNS = Set.of("name", "type", "externalId", "status", GIS_GEOMETRY_REF,
+            "installYear", "expectedServiceLifeYears", "replacementCostEstimate");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String tenant;
+    private final Map<AssetTypeEnum, Map<String, AssetAttributeDefinition>> definitions = new HashMap<>();
+    private final Map<AssetAttributeDefinition, Set<String>> allowedValues = new IdentityHashMap<>();
+
+    public AssetRowValidator(String tenant, Collection<AssetAttributeDefinition> definitions) {
+        this.tenant = tenant;
+        for (AssetAttributeDefinition def : definitions) {
+            this.definitions.computeIfAbsent(def.getAssetType(), t -> new LinkedHashMap<>()).put(def.getKey(), def);
+        }
+    }
+
+    /** A validator over cached definitions, reusing their already parsed allowed values. */
+    public static AssetRowValidator of(String tenant, Collection<AttributeDefinitions> types) {
+        List<AssetAttributeDefinition> all = new ArrayList<>();
+        types.forEach(t -> all.addAll(t.definitions()));
+        AssetRowValidator validator = new AssetRowValidator(tenant, all);
+        for (AttributeDefinitions type : types) {
+            for (AssetAttributeDefinition def : type.definitions()) {
+                Set<String> allowed = type.allowedValues(def.getKey());
+                if (allowed != null) {
+                    validator.allowedValues.put(def, allowed);
+                }
+            }
+        }
+        return validator;
+    }
+
+    public Validated validate(AssetImportRow row) {
+        Map<String, String> values = row.values();
+        List<String> errors = new ArrayList<>(row.errors());
+
+        Asset asset = new Asset();
+        asset.setCustomerDiferentiator(tenant);
+        asset.setName(text(values, "name"));
+        if (asset.getName() == null) {
+            errors.add("name is required");
+        }
+        String type = text(values, "type");
+        if (type == null) {
+            errors.add("type is required");
+        } else {
+            try {
+                asset.setType(AssetTypeEnum.valueOf(type.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                errors.add("unknown type '" + type + "'");
+            }
+        }
+        asset.setExternalId(text(values, "externalId"));
+        asset.setStatus(text(values, "status"));
+        asset.setGisGeometryRef(text(values, GIS_GEOMETRY_REF));
+        asset.setInstallYear(integer(values, "installYear", errors));
+        asset.setExpectedServiceLifeYears(integer(values, "expectedServiceLifeYears", errors));
+        BigDecimal cost = number(values, "replacementCostEstimate", errors);
+        asset.setReplacementCostEstimate(cost == null ? null : cost.doubleValue());
+
+        AssetLocation location = location(values);
+
+        Map<AssetAttributeDefinition, String> attributes = new LinkedHashMap<>();
+        if (asset.getType() != null) {
+            Map<String, AssetAttributeDefinition> defs = definitions.getOrDefault(asset.getType(), Map.of());
+            values.forEach((column, raw) -> {
+                if (ASSET_COLUMNS.contains(column) || LOCATION_COLUMNS.contains(column) || raw == null || raw.isBlank()) {
+                    return;
+                }
+                AssetAttributeDefinition def = defs.get(column);
+                if (def == null) {
+                    errors.add("'" + column + "' is not an attribute of " + asset.getType());
+                } else {
+                    String value = raw.trim();
+                    String problem = check(def, value);
+                    if (problem != null) {
+                        errors.add(problem);
+                    } else {
+                        attributes.put(def, value);
+                    }
+                }
+            });
+            for (AssetAttributeDefinition def : defs.values()) {
+                if (Boolean.TRUE.equals(def.getRequired()) && text(values, def.getKey()) == null) {
+                    errors.add(def.getKey() + " is required for " + asset.getType());
+                }
+            }
+        }
+        return new Validated(asset, location, attributes, errors);
+    }
+
+    private String check(AssetAttributeDefinition def, String value) {
+        if ("NUMBER".equalsIgnoreCase(def.getDataType())) {
+            try {
+                new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                return def.getKey() + " must be a number, got '" + value + "'";
+            }
+        }
+        Set<String> allowed = allowedValues(def);
+        if (allowed != null && !allowed.contains(value)) {
+            return def.getKey() + " must be one of " + allowed + ", got '" + value + "'";
+        }
+        return null;
+    }
+
+    private Set<String> allowedValues(AssetAttributeDefinition def) {
+        String json = def.getAllowedValuesJson();
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        return allowedValues.computeIfAbsent(def, d -> {
+            try {
+                return new LinkedHashSet<>(MAPPER.readValue(json, new TypeReference<List<String>>() {}));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Attribute " + def.getKey() + " has invalid allowedValuesJson: " + json, e);
+            }
+        });
+    }
+
+    private AssetLocation location(Map<String, String> values) {
+        if (LOCATION_COLUMNS.stream().allMatch(c -> text(values, c) == null)) {
+            return null;
+        }
+        AssetLocation location = new AssetLocation();
+        location.setCustomerDiferentiator(tenant);
+        location.setLocationType(text(values, "locationType"));
+        location.setAddressLine1(text(values, "addressLine1"));
+        location.setCity(text(values, "city"));
+        location.setStateProvince(text(values, "stateProvince"));
+        location.setPostalCode(text(values, "postalCode"));
+        return location;
+    }
+
+    private static String text(Map<String, String> values, String column) {
+        String value = values.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Integer integer(Map<String, String> values, String column, List<String> errors) {
+        String value = text(values, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            errors.add(column + " must be a whole number, got '" + value + "'");
+            return null;
+        }
+    }
+
+    private static BigDecimal number(Map<String, String> values, String column, List<String> errors) {
+        String value = text(values, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            errors.add(column + " must be a number, got '" + value + "'");
+            return null;
+        }
+    }
+
+    public record Validated(Asset asset, AssetLocation location, Map<AssetAttributeDefinition, String> attributes,
+                            List<String> errors) {
+
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+    }
+}
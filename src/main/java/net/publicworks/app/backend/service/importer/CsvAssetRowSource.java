@@ -0,0 +1,105 @@
+package net.publicworks.app.backend.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row: quoted fields, doubled quotes and line breaks inside quotes are supported.
+ * Only the current record is held in memory. Blank lines are ignored.
+ */
+class CsvAssetRowSource implements AssetRowSource {
+
+    private final BufferedReader reader;
+    private final List<String> header;
+    private final StringBuilder field = new StringBuilder();
+    private long row;
+
+    CsvAssetRowSource(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        skipBom();
+        List<String> names = readRecord();
+        if (names == null) {
+            throw new IOException("CSV file is empty, expected a header row");
+        }
+        this.header = names.stream().map(String::trim).toList();
+    }
+
+    @Override
+    public AssetImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < header.size() && i < record.size(); i++) {
+            values.put(header.get(i), record.get(i));
+        }
+        return new AssetImportRow(++row, values);
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (c == -1) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field in CSV record " + (row + 1));
+                }
+                break;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int n = reader.read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void skipBom() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,145 @@
+package net.publicworks.app.backend.service.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A GeoJSON {@code FeatureCollection}, streamed feature by feature. Each feature's {@code properties}
+ * become the row values; its geometry is stored as {@code gisGeometryRef} (the whole geometry as 2D WKT, so
+ * a main keeps its line and a parcel its polygon) unless the properties already carry one. A geometry that
+ * cannot be written as WKT rejects the row.
+ */
+class GeoJsonAssetRowSource implements AssetRowSource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser parser;
+    private long row;
+
+    GeoJsonAssetRowSource(InputStream in) throws IOException {
+        this.parser = MAPPER.getFactory().createParser(in);
+        seekFeatures();
+    }
+
+    @Override
+    public AssetImportRow next() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        JsonNode feature = parser.readValueAsTree();
+        Map<String, String> values = new LinkedHashMap<>();
+        JsonNode properties = feature.path("properties");
+        properties.fields().forEachRemaining(e -> {
+            if (!e.getValue().isNull()) {
+                values.put(e.getKey(), e.getValue().isValueNode() ? e.getValue().asText() : e.getValue().toString());
+            }
+        });
+        JsonNode geometry = feature.path("geometry");
+        if (geometry.isObject() && !values.containsKey(AssetRowValidator.GIS_GEOMETRY_REF)) {
+            try {
+                StringBuilder wkt = new StringBuilder();
+                writeWkt(geometry, wkt);
+                values.put(AssetRowValidator.GIS_GEOMETRY_REF, wkt.toString());
+            } catch (IllegalArgumentException e) {
+                return new AssetImportRow(++row, values, List.of("geometry " + e.getMessage()));
+            }
+        }
+        return new AssetImportRow(++row, values);
+    }
+
+    private void seekFeatures() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("GeoJSON must be a FeatureCollection object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if ("features".equals(parser.currentName())) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("GeoJSON \"features\" must be an array");
+                }
+                return;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        throw new IOException("GeoJSON has no \"features\" array");
+    }
+
+    private static void writeWkt(JsonNode geometry, StringBuilder wkt) {
+        String type = geometry.path("type").asText();
+        JsonNode coordinates = geometry.path("coordinates");
+        switch (type) {
+            case "Point" -> position(coordinates, wkt.append("POINT("));
+            case "MultiPoint" -> {
+                wkt.append("MULTIPOINT(");
+                for (int i = 0; i < nonEmpty(coordinates).size(); i++) {
+                    position(coordinates.get(i), wkt.append(i == 0 ? "(" : ", ("));
+                    wkt.append(')');
+                }
+            }
+            case "LineString" -> line(coordinates, 2, wkt.append("LINESTRING("));
+            case "MultiLineString" -> lines(coordinates, 2, wkt.append("MULTILINESTRING("));
+            case "Polygon" -> lines(coordinates, 4, wkt.append("POLYGON("));
+            case "MultiPolygon" -> {
+                wkt.append("MULTIPOLYGON(");
+                for (int i = 0; i < nonEmpty(coordinates).size(); i++) {
+                    lines(coordinates.get(i), 4, wkt.append(i == 0 ? "(" : ", ("));
+                    wkt.append(')');
+                }
+            }
+            case "GeometryCollection" -> {
+                JsonNode geometries = geometry.path("geometries");
+                wkt.append("GEOMETRYCOLLECTION(");
+                for (int i = 0; i < nonEmpty(geometries).size(); i++) {
+                    writeWkt(geometries.get(i), wkt.append(i == 0 ? "" : ", "));
+                }
+            }
+            default -> throw new IllegalArgumentException("type '" + type + "' is not supported");
+        }
+        wkt.append(')');
+    }
+
+    /** Lines or polygon rings of at least {@code min} positions each: {@code (x y, ...), (x y, ...)}. */
+    private static void lines(JsonNode coordinates, int min, StringBuilder wkt) {
+        for (int i = 0; i < nonEmpty(coordinates).size(); i++) {
+            line(coordinates.get(i), min, wkt.append(i == 0 ? "(" : ", ("));
+            wkt.append(')');
+        }
+    }
+
+    /** At least {@code min} positions: {@code x y, x y, ...}. */
+    private static void line(JsonNode coordinates, int min, StringBuilder wkt) {
+        if (nonEmpty(coordinates).size() < min) {
+            throw new IllegalArgumentException("needs at least " + min + " positions per line or ring");
+        }
+        for (int i = 0; i < coordinates.size(); i++) {
+            position(coordinates.get(i), wkt.append(i == 0 ? "" : ", "));
+        }
+    }
+
+    private static void position(JsonNode position, StringBuilder wkt) {
+        if (!position.isArray() || position.size() < 2 || !position.get(0).isNumber() || !position.get(1).isNumber()) {
+            throw new IllegalArgumentException("has an invalid position " + position);
+        }
+        wkt.append(position.get(0).asText()).append(' ').append(position.get(1).asText());
+    }
+
+    private static JsonNode nonEmpty(JsonNode array) {
+        if (!array.isArray() || array.isEmpty()) {
+            throw new IllegalArgumentException("has missing or empty coordinates " + array);
+        }
+        return array;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
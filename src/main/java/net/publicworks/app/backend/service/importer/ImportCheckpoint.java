@@ -0,0 +1,44 @@
+package net.publicworks.app.backend.service.importer;
+
+import jakarta.persistence.EntityManager;
+import net.publicworks.app.backend.entity.asset.AssetImportCheckpoint;
+
+/**
+ * Where an import job got to: the last row whose batch was committed, plus the totals so far.
+ * Kept as an {@link AssetImportCheckpoint} row that {@link #advance} writes inside the batch's transaction,
+ * so the batch and its checkpoint commit or roll back together.
+ */
+record ImportCheckpoint(String jobId, String tenant, long rows, long imported, long skipped, long rejected) {
+
+    static ImportCheckpoint load(EntityManager entityManager, String jobId, String tenant) {
+        AssetImportCheckpoint saved = entityManager.find(AssetImportCheckpoint.class, jobId);
+        if (saved == null) {
+            return new ImportCheckpoint(jobId, tenant, 0, 0, 0, 0);
+        }
+        return new ImportCheckpoint(jobId, tenant, saved.getRowsRead(), saved.getImported(), saved.getSkipped(),
+                saved.getRejected());
+    }
+
+    /** Must run inside the transaction that writes the batch up to {@code rows}. */
+    ImportCheckpoint advance(EntityManager entityManager, long rows, ImportProgress totals) {
+        AssetImportCheckpoint saved = entityManager.find(AssetImportCheckpoint.class, jobId);
+        if (saved == null) {
+            saved = new AssetImportCheckpoint(jobId);
+            saved.setCustomerDiferentiator(tenant);
+            entityManager.persist(saved);
+        }
+        saved.setRowsRead(rows);
+        saved.setImported(totals.imported());
+        saved.setSkipped(totals.skipped());
+        saved.setRejected(totals.rejected());
+        return new ImportCheckpoint(jobId, tenant, rows, totals.imported(), totals.skipped(), totals.rejected());
+    }
+
+    /** Must run inside a transaction. */
+    void delete(EntityManager entityManager) {
+        AssetImportCheckpoint saved = entityManager.find(AssetImportCheckpoint.class, jobId);
+        if (saved != null) {
+            entityManager.remove(saved);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package net.publicworks.app.backend.service.importer;
+
+public record ImportError(long row, String message) {}
@@ -0,0 +1,19 @@
+package net.publicworks.app.backend.service.importer;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV,
+    GEOJSON;
+
+    public static ImportFormat of(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".geojson") || name.endsWith(".json")) {
+            return GEOJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import file " + fileName + ", expected .csv or .geojson");
+    }
+}
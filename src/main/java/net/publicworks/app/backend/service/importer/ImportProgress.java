@@ -0,0 +1,4 @@
+package net.publicworks.app.backend.service.importer;
+
+/** Running totals, reported after every committed batch. {@code skipped} rows were already imported. */
+public record ImportProgress(long rowsRead, long imported, long skipped, long rejected) {}
@@ -0,0 +1,10 @@
+package net.publicworks.app.backend.service.importer;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Outcome of one import run. {@code errors} holds the first rejected rows only;
+ * every rejection is written to {@code errorFile}.
+ */
+public record ImportReport(String jobId, ImportProgress totals, List<ImportError> errors, Path errorFile, boolean resumed) {}
@@ -0,0 +1,125 @@
+package net.publicworks.app.backend.service.inspection;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.commands.InspectionChangedEvent;
+import net.publicworks.app.backend.entity.asset.AssetInspection;
+import net.publicworks.app.backend.entity.asset.AssetInspectionSummary;
+import net.publicworks.app.backend.repo.IAssetInspectionHistoryRepository;
+import net.publicworks.app.backend.repo.IAssetInspectionSummaryRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * Keeps {@link AssetInspectionSummary} in step with each asset's inspections and reads history a page at a time,
+ * so neither writing nor showing an inspection touches {@code Asset.inspections}.
+ * <p>
+ * Every {@link InspectionChangedEvent} locks the asset's summary row in the writer's transaction when there is one,
+ * adjusts the count by one for a created or deleted inspection and re-reads the newest inspection with an indexed
+ * top-1 query. Concurrent writers of the same asset wait for each other's commit, so each one adjusts what the
+ * previous one wrote. Only a missing summary row is counted from the history: it is first created in a transaction
+ * of its own from what is already committed, which backfills assets inspected before summaries existed, and then
+ * recounted under the lock so the writer's own change is included. When two writers race to create it, one insert
+ * fails and that writer locks and recounts the other's row.
+ */
+@Slf4j
+@Component
+public class InspectionSummaries {
+
+    private final IAssetInspectionSummaryRepository summaries;
+    private final IAssetInspectionHistoryRepository history;
+    private final TransactionTemplate transactions;
+    private final TransactionTemplate separately;
+    private final TransactionTemplate readOnly;
+
+    public InspectionSummaries(IAssetInspectionSummaryRepository summaries, IAssetInspectionHistoryRepository history,
+                               PlatformTransactionManager transactionManager) {
+        this.summaries = summaries;
+        this.history = history;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.separately = new TransactionTemplate(transactionManager);
+        this.separately.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public Optional<AssetInspectionSummary> latest(Long assetId) {
+        return readOnly.execute(status -> summaries.findById(assetId));
+    }
+
+    /** Inspections newest first; the page's own sort, if any, is ignored. */
+    public Slice<AssetInspection> history(Long assetId, Pageable pageable) {
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return readOnly.execute(status -> history.findByAssetIdOrderByInspectionDateDescIdDesc(assetId, page));
+    }
+
+    public long count(Long assetId) {
+        return readOnly.execute(status -> summaries.findById(assetId)
+                .map(AssetInspectionSummary::getInspectionCount)
+                .orElseGet(() -> history.countByAssetId(assetId)));
+    }
+
+    @EventListener
+    public void onInspectionChanged(InspectionChangedEvent event) {
+        transactions.executeWithoutResult(status -> refresh(event.assetId(), event.operation()));
+    }
+
+    void refresh(Long assetId, CrudOperation operation) {
+        AssetInspectionSummary summary = summaries.findForUpdateByAssetId(assetId).orElse(null);
+        if (summary == null) {
+            create(assetId);
+            summary = summaries.findForUpdateByAssetId(assetId).orElseThrow();
+            summary.setInspectionCount(history.countByAssetId(assetId));
+        } else {
+            summary.setInspectionCount(Math.max(0, summary.getInspectionCount() + delta(operation)));
+        }
+        fillLatest(summary);
+        summaries.save(summary);
+        log.debug("Inspection summary of asset {}: {} inspections, latest {}", assetId,
+                summary.getInspectionCount(), summary.getLatestInspectionId());
+    }
+
+    private void create(Long assetId) {
+        try {
+            separately.executeWithoutResult(status -> {
+                if (!summaries.existsById(assetId)) {
+                    AssetInspectionSummary summary = new AssetInspectionSummary(assetId);
+                    summary.setInspectionCount(history.countByAssetId(assetId));
+                    fillLatest(summary);
+                    summaries.saveAndFlush(summary);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Inspection summary of asset {} was created concurrently", assetId);
+        }
+    }
+
+    private static int delta(CrudOperation operation) {
+        return switch (operation) {
+            case CREATE -> 1;
+            case DELETE, REMOVE -> -1;
+            default -> 0;
+        };
+    }
+
+    private void fillLatest(AssetInspectionSummary summary) {
+        AssetInspection latest = history.findFirstByAssetIdOrderByInspectionDateDescIdDesc(summary.getAssetId()).orElse(null);
+        summary.setLatestInspectionId(latest == null ? null : latest.getId());
+        summary.setLatestInspectionDate(latest == null ? null : latest.getInspectionDate());
+        summary.setLatestConditionScore(latest == null ? null : latest.getConditionScore());
+        summary.setLatestConditionClass(latest == null ? null : latest.getConditionClass());
+        summary.setLatestMethod(latest == null ? null : latest.getMethod());
+        if (latest != null && latest.getCustomerDiferentiator() != null) {
+            summary.setCustomerDiferentiator(latest.getCustomerDiferentiator());
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package net.publicworks.app.backend.service.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.service.journal.JournalCodec.Encoder;
+import net.publicworks.app.backend.service.journal.JournalCodec.Schema;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit journal of the state-changing commands ({@code journal.commands}) that {@code CommandBus}
+ * dispatched successfully and whose transaction committed.
+ * <p>
+ * Records go into memory-mapped segment files under {@code journal.dir} (see {@link JournalCodec} for the
+ * encoding), so appending is an in-memory copy under a short lock, with no database round trip. The pages are
+ * forced to disk by a background thread every {@code journal.flush-interval}: one fsync covers every command
+ * appended since the last one, and at most that interval is lost if the machine (not just the process) fails.
+ * A segment that is full is sealed, forced, trimmed to its records, and a new one begins with the next sequence.
+ * Sealed segments older than {@code journal.retention} are deleted (0 keeps them all).
+ * <p>
+ * Meters: {@code journal.append} (timer), {@code journal.bytes}, {@code journal.dropped}, {@code journal.sequence}.
+ */
+@Slf4j
+@Component
+public class CommandJournal implements DisposableBean {
+
+    private static final long MIN_SEGMENT = 64 << 10;
+    private static final long MAX_SEGMENT = 1L << 30;
+    private static final long RETENTION_SWEEP_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final ThreadLocal<Encoder> ENCODERS = ThreadLocal.withInitial(Encoder::new);
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private static final ClassValue<Method> TENANT = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            Method getter = getter(type, "getCustomerDiferentiator");
+            return getter != null ? getter : getter(type, "getTenantId");
+        }
+    };
+    private static final ClassValue<Method> ID = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            return getter(type, "getId");
+        }
+    };
+
+    private final Path dir;
+    private final int segmentSize;
+    private final Duration retention;
+    private final Set<String> commands;
+    private final JournalCodec codec;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Segment> sealed = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final CRC32C crc = new CRC32C();
+    private final byte[] head = new byte[17];
+    private final Timer appendTimer;
+    private final Counter bytes;
+    private final Counter dropped;
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("command-journal-"));
+    private Segment segment;
+    private long lastSweep = System.nanoTime() - RETENTION_SWEEP_NANOS;
+
+    public CommandJournal(@Value("${journal.dir:./data/journal}") Path dir,
+                          @Value("${journal.segment-size:64MB}") DataSize segmentSize,
+                          @Value("${journal.flush-interval:200ms}") Duration flushInterval,
+                          @Value("${journal.retention:0d}") Duration retention,
+                          @Value("${journal.commands:CreateWorkOrderCommand,AssetCommand,AssetInspectionCommand,RegisterCommand}")
+                          Set<String> commands,
+                          @Value("${journal.redacted-fields:password}") Collection<String> redactedFields,
+                          MeterRegistry meterRegistry) {
+        this.dir = dir;
+        this.segmentSize = (int) Math.max(MIN_SEGMENT, Math.min(MAX_SEGMENT, segmentSize.toBytes()));
+        this.retention = retention;
+        this.commands = Set.copyOf(commands);
+        this.codec = new JournalCodec(redactedFields);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal directory " + dir, e);
+        }
+        sequence.set(JournalReader.lastSequence(dir));
+        log.info("Command journal in {} continues after sequence {}", dir.toAbsolutePath(), sequence.get());
+
+        this.appendTimer = Timer.builder("journal.append").description("Time to append one command to the journal")
+                .register(meterRegistry);
+        this.bytes = Counter.builder("journal.bytes").description("Bytes appended to the journal")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("journal.dropped").description("Commands that could not be journaled")
+                .register(meterRegistry);
+        Gauge.builder("journal.sequence", sequence, AtomicLong::get).register(meterRegistry);
+        long flushMs = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs once the dispatching transaction has committed (or straight away without one), so commands that are
+     * rolled back, e.g. an async batch that is then retried one command at a time, are never journaled.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        Object command = event.command();
+        if (SUPPRESSED.get() || command == null || !commands.contains(command.getClass().getSimpleName())) {
+            return;
+        }
+        try {
+            append(command, idOf(event.result().getData()));
+        } catch (RuntimeException e) {
+            dropped.increment();
+            log.error("Could not journal {}: {}", command.getClass().getSimpleName(), e.getMessage(), e);
+        }
+    }
+
+    /** Appends {@code command}; returns its sequence, or -1 if it was dropped. */
+    public long append(Object command, Object entityId) {
+        long started = System.nanoTime();
+        Encoder out = ENCODERS.get();
+        out.reset();
+        List<Schema> used = new ArrayList<>(2);
+        Schema schema = codec.schema(command.getClass());
+        used.add(schema);
+        out.putVarLong(entityId instanceof Number n ? n.longValue() + 1 : 0);
+        Object tenant = read(TENANT.get(command.getClass()), command);
+        out.putString(tenant == null ? null : tenant.toString());
+        out.putVarLong(schema.id());
+        codec.writeValues(schema, command, out, used, 0);
+
+        long assigned;
+        lock.lock();
+        try {
+            assigned = sequence.get() + 1;
+            int needed = JournalReader.HEADER + head.length + out.size + missingSchemaBytes(used);
+            if (segment == null || segment.position + needed > segmentSize) {
+                roll(assigned);
+                needed = JournalReader.HEADER + head.length + out.size + missingSchemaBytes(used);
+            }
+            if (needed > segmentSize) {
+                dropped.increment();
+                log.error("{} needs {} bytes, more than a journal segment holds", command.getClass().getSimpleName(), needed);
+                return -1;
+            }
+            for (Schema s : used) {
+                if (segment.schemas.add(s.id())) {
+                    write(s.record(), s.record().length, null, 0);
+                }
+            }
+            head[0] = JournalCodec.COMMAND;
+            putLong(head, 1, assigned);
+            putLong(head, 9, System.currentTimeMillis());
+            write(head, head.length, out.bytes, out.size);
+            sequence.set(assigned);
+        } finally {
+            lock.unlock();
+        }
+        bytes.increment(out.size + head.length + JournalReader.HEADER);
+        appendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return assigned;
+    }
+
+    /** Journaled commands of {@code tenant} (all tenants if {@code null}) from {@code fromSequence} on, in order. */
+    public long read(String tenant, long fromSequence, Consumer<JournalEntry> consumer) {
+        return JournalReader.read(dir, fromSequence, t -> tenant == null || tenant.equalsIgnoreCase(t), consumer);
+    }
+
+    public long lastSequence() {
+        return sequence.get();
+    }
+
+    /** Runs {@code work} without journaling the commands it dispatches, e.g. while replaying the journal. */
+    public <T> T withoutJournal(Supplier<T> work) {
+        boolean outer = SUPPRESSED.get();
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            SUPPRESSED.set(outer);
+        }
+    }
+
+    /** Forces appended records to disk and closes sealed segments; called every {@code journal.flush-interval}. */
+    public void flush() {
+        Segment current;
+        int upTo;
+        List<Segment> toClose;
+        lock.lock();
+        try {
+            current = segment;
+            upTo = current == null ? 0 : current.position;
+            toClose = new ArrayList<>(sealed);
+            sealed.clear();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Segment s : toClose) {
+                s.close();
+            }
+            if (current != null && upTo > current.forced) {
+                current.buffer.force(current.forced, upTo - current.forced);
+                current.forced = upTo;
+            }
+            if (System.nanoTime() - lastSweep >= RETENTION_SWEEP_NANOS) {
+                lastSweep = System.nanoTime();
+                sweep(current);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not flush the command journal: {}", e.getMessage(), e);
+        }
+    }
+
+    private int missingSchemaBytes(List<Schema> used) {
+        int total = 0;
+        Set<Integer> counted = new HashSet<>();
+        for (Schema s : used) {
+            if ((segment == null || !segment.schemas.contains(s.id())) && counted.add(s.id())) {
+                total += JournalReader.HEADER + s.record().length;
+            }
+        }
+        return total;
+    }
+
+    /** Writes one record: payload first, then checksum and length, so a reader never sees a length too early. */
+    private void write(byte[] first, int firstLength, byte[] second, int secondLength) {
+        MappedByteBuffer buffer = segment.buffer;
+        int at = segment.position;
+        buffer.put(at + JournalReader.HEADER, first, 0, firstLength);
+        crc.reset();
+        crc.update(first, 0, firstLength);
+        if (second != null) {
+            buffer.put(at + JournalReader.HEADER + firstLength, second, 0, secondLength);
+            crc.update(second, 0, secondLength);
+        }
+        buffer.putInt(at + 4, (int) crc.getValue());
+        buffer.putInt(at, firstLength + secondLength);
+        segment.position = at + JournalReader.HEADER + firstLength + secondLength;
+    }
+
+    private void roll(long firstSequence) {
+        if (segment != null) {
+            sealed.add(segment);
+        }
+        Path file = dir.resolve(JournalReader.segmentName(firstSequence));
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            segment = null;
+            throw new UncheckedIOException("Cannot open journal segment " + file, e);
+        }
+    }
+
+    private void sweep(Segment current) throws IOException {
+        if (retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        for (Path file : JournalReader.segments(dir)) {
+            if ((current == null || !file.equals(current.file))
+                    && Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                log.info("Deleting journal segment {} (older than {})", file.getFileName(), retention);
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        lock.lock();
+        try {
+            if (segment != null) {
+                sealed.add(segment);
+                segment = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    private static void putLong(byte[] target, int at, long value) {
+        for (int i = 7; i >= 0; i--) {
+            target[at + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static Method getter(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /** The id of a command's result ({@code getId()}), or {@code null}. */
+    static Object idOf(Object data) {
+        return data == null ? null : read(ID.get(data.getClass()), data);
+    }
+
+    private static Object read(Method getter, Object target) {
+        if (getter == null) {
+            return null;
+        }
+        try {
+            return getter.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /** The mapped file being written, or a sealed one waiting to be forced, trimmed and closed. */
+    private static final class Segment {
+
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final Set<Integer> schemas = new HashSet<>();
+        int position;
+        int forced;
+
+        Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.truncate(position);
+            channel.close();
+            if (position == 0) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
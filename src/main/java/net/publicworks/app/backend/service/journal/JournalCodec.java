@@ -0,0 +1,315 @@
+package net.publicworks.app.backend.service.journal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binary form of journaled commands.
+ * <p>
+ * A command class is described once per segment by a schema record (type id, class name, property names in
+ * getter order); command records then carry only the type id and one tagged value per property: varints for
+ * whole numbers, dates and lengths, UTF-8 for strings and enum names, nested objects and lists inline.
+ * Properties named in {@code journal.redacted-fields} are left out of the schema altogether.
+ */
+final class JournalCodec {
+
+    static final byte SCHEMA = 1;
+    static final byte COMMAND = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte ENUM = 6;
+    private static final byte DATE = 7;
+    private static final byte OBJECT = 8;
+    private static final byte DATE_TIME = 9;
+    private static final byte INSTANT = 10;
+    private static final byte LIST = 11;
+    private static final byte DECIMAL = 12;
+    private static final int MAX_DEPTH = 4;
+    private static final String APP_PACKAGE = "net.publicworks.app.";
+
+    private final Set<String> redacted;
+    private final Map<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+    private final AtomicInteger typeIds = new AtomicInteger();
+
+    JournalCodec(Collection<String> redactedFields) {
+        this.redacted = Set.copyOf(redactedFields.stream().map(f -> f.toLowerCase(Locale.ROOT)).toList());
+    }
+
+    Schema schema(Class<?> type) {
+        Schema schema = schemas.get(type);
+        return schema != null ? schema : schemas.computeIfAbsent(type, this::describe);
+    }
+
+    /** Writes the tagged property values of {@code value}, adding the schemas it needs to {@code used}. */
+    void writeValues(Schema schema, Object value, Encoder out, List<Schema> used, int depth) {
+        for (Method getter : schema.getters()) {
+            Object property;
+            try {
+                property = getter.invoke(value);
+            } catch (ReflectiveOperationException e) {
+                property = null;
+            }
+            writeValue(property, out, used, depth);
+        }
+    }
+
+    private void writeValue(Object value, Encoder out, List<Schema> used, int depth) {
+        if (value == null) {
+            out.put(NULL);
+        } else if (value instanceof String s) {
+            out.put(STRING);
+            out.putString(s);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.put(LONG);
+            out.putSignedVarLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.put(DOUBLE);
+            out.putLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean b) {
+            out.put(b ? TRUE : FALSE);
+        } else if (value instanceof Enum<?> e) {
+            out.put(ENUM);
+            out.putString(e.name());
+        } else if (value instanceof LocalDate d) {
+            out.put(DATE);
+            out.putSignedVarLong(d.toEpochDay());
+        } else if (value instanceof LocalDateTime t) {
+            out.put(DATE_TIME);
+            out.putSignedVarLong(t.toEpochSecond(ZoneOffset.UTC));
+            out.putVarLong(t.getNano());
+        } else if (value instanceof Instant i) {
+            out.put(INSTANT);
+            out.putSignedVarLong(i.getEpochSecond());
+            out.putVarLong(i.getNano());
+        } else if (value instanceof BigDecimal d) {
+            out.put(DECIMAL);
+            out.putString(d.toString());
+        } else if (value instanceof Collection<?> list) {
+            out.put(LIST);
+            out.putVarLong(list.size());
+            list.forEach(item -> writeValue(item, out, used, depth + 1));
+        } else if (value.getClass().getName().startsWith(APP_PACKAGE) && depth < MAX_DEPTH) {
+            Schema schema = schema(value.getClass());
+            used.add(schema);
+            out.put(OBJECT);
+            out.putVarLong(schema.id());
+            writeValues(schema, value, out, used, depth + 1);
+        } else {
+            out.put(STRING);
+            out.putString(value.toString());
+        }
+    }
+
+    static Object readValue(Decoder in, Map<Integer, SchemaInfo> schemas) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING, ENUM -> in.getString();
+            case LONG -> in.getSignedVarLong();
+            case DOUBLE -> Double.longBitsToDouble(in.getLong());
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case DATE -> LocalDate.ofEpochDay(in.getSignedVarLong());
+            case DATE_TIME -> LocalDateTime.ofEpochSecond(in.getSignedVarLong(), (int) in.getVarLong(), ZoneOffset.UTC);
+            case INSTANT -> Instant.ofEpochSecond(in.getSignedVarLong(), in.getVarLong());
+            case DECIMAL -> new BigDecimal(in.getString());
+            case LIST -> {
+                int size = (int) in.getVarLong();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, schemas));
+                }
+                yield list;
+            }
+            case OBJECT -> readObject(in, schemas);
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    static JournalObject readObject(Decoder in, Map<Integer, SchemaInfo> schemas) {
+        int typeId = (int) in.getVarLong();
+        SchemaInfo schema = schemas.get(typeId);
+        if (schema == null) {
+            throw new IllegalStateException("No schema for type " + typeId);
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (String name : schema.properties()) {
+            fields.put(name, readValue(in, schemas));
+        }
+        return new JournalObject(schema.type(), fields);
+    }
+
+    static SchemaInfo readSchema(Decoder in) {
+        int typeId = (int) in.getVarLong();
+        String type = in.getString();
+        int count = (int) in.getVarLong();
+        List<String> properties = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            properties.add(in.getString());
+        }
+        return new SchemaInfo(typeId, type, properties);
+    }
+
+    private Schema describe(Class<?> type) {
+        List<Method> getters = Arrays.stream(type.getMethods())
+                .filter(m -> m.getParameterCount() == 0 && !Modifier.isStatic(m.getModifiers())
+                        && m.getDeclaringClass() != Object.class && property(m) != null
+                        && !redacted.contains(property(m).toLowerCase(Locale.ROOT)))
+                .sorted(Comparator.comparing(JournalCodec::property))
+                .toList();
+        int id = typeIds.incrementAndGet();
+        Encoder record = new Encoder();
+        record.put(SCHEMA);
+        record.putVarLong(id);
+        record.putString(type.getName());
+        record.putVarLong(getters.size());
+        getters.forEach(g -> record.putString(property(g)));
+        return new Schema(id, getters, Arrays.copyOf(record.bytes, record.size));
+    }
+
+    private static String property(Method getter) {
+        String name = getter.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        if (name.startsWith("is") && name.length() > 2
+                && (getter.getReturnType() == boolean.class || getter.getReturnType() == Boolean.class)) {
+            return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+        }
+        return null;
+    }
+
+    /** A command class as this process writes it: its type id, getters and encoded schema record. */
+    record Schema(int id, List<Method> getters, byte[] record) {}
+
+    /** A schema as read back from a segment. */
+    record SchemaInfo(int id, String type, List<String> properties) {}
+
+    /** Growable write buffer; one per appending thread. */
+    static final class Encoder {
+
+        byte[] bytes = new byte[256];
+        int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putSignedVarLong(long value) {
+            putVarLong((value << 1) ^ (value >> 63));
+        }
+
+        /** Length + 1 (0 for {@code null}), then UTF-8. */
+        void putString(String value) {
+            if (value == null) {
+                putVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(utf8.length + 1L);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+            }
+        }
+    }
+
+    /** Reads from a (mapped) buffer at an absolute position. */
+    static final class Decoder {
+
+        private final ByteBuffer buffer;
+        int position;
+
+        Decoder(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte get() {
+            return buffer.get(position++);
+        }
+
+        long getLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        long getVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint at " + position);
+        }
+
+        long getSignedVarLong() {
+            long raw = getVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String getString() {
+            int length = (int) getVarLong();
+            if (length == 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length - 1];
+            buffer.get(position, utf8);
+            position += utf8.length;
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package net.publicworks.app.backend.service.journal;
+
+import java.time.Instant;
+
+/**
+ * One journaled command. {@code entityId} is the id of the entity the command's result carried (the new work
+ * order, asset, ...), or {@code null}.
+ */
+public record JournalEntry(long sequence, Instant timestamp, String tenant, Long entityId, JournalObject command) {}
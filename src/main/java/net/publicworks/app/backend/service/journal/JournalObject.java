@@ -0,0 +1,49 @@
+package net.publicworks.app.backend.service.journal;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A journaled command (or a command nested in one) as read back: its class name and property values.
+ * Enum values come back as their names and nested commands as {@code JournalObject}s; {@link #toInstance()}
+ * converts them again while rebuilding the command through its Lombok builder.
+ */
+public record JournalObject(String type, Map<String, Object> fields) {
+
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+    public Object get(String property) {
+        return fields.get(property);
+    }
+
+    /** The command rebuilt with {@code builder()...build()}; redacted properties stay unset. */
+    public Object toInstance() {
+        try {
+            Class<?> commandType = ClassUtils.forName(type, JournalObject.class.getClassLoader());
+            Object builder = commandType.getMethod("builder").invoke(null);
+            for (Method setter : builder.getClass().getMethods()) {
+                if (setter.getParameterCount() == 1 && fields.get(setter.getName()) != null) {
+                    setter.invoke(builder, convert(fields.get(setter.getName()), setter.getParameterTypes()[0]));
+                }
+            }
+            return builder.getClass().getMethod("build").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Cannot rebuild journaled " + type + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Object convert(Object value, Class<?> target) {
+        if (value instanceof JournalObject nested) {
+            return nested.toInstance();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(item -> item instanceof JournalObject nested ? nested.toInstance() : item).toList();
+        }
+        return CONVERSION.convert(value, target);
+    }
+}
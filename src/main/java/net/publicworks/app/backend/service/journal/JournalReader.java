@@ -0,0 +1,152 @@
+package net.publicworks.app.backend.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.service.journal.JournalCodec.Decoder;
+import net.publicworks.app.backend.service.journal.JournalCodec.SchemaInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads journal segments front to back, each one mapped read-only.
+ * <p>
+ * A record is {@code [int length][int crc32c][payload]}; a segment ends at the first zero length, or at a record
+ * that runs past the file or fails its checksum (a write torn by a crash), and reading goes on with the next one.
+ * Records of other tenants or below the start sequence are skipped by their length without decoding the values.
+ */
+@Slf4j
+final class JournalReader {
+
+    static final String SUFFIX = ".journal";
+    static final int HEADER = 8;
+
+    private JournalReader() {
+    }
+
+    /** Segment files, oldest first; names are the zero-padded first sequence they may hold. */
+    static List<Path> segments(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal segments in " + dir, e);
+        }
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    /** Feeds {@code consumer} every command from {@code fromSequence} on whose tenant passes; returns how many. */
+    static long read(Path dir, long fromSequence, Predicate<String> tenant, Consumer<JournalEntry> consumer) {
+        List<Path> segments = segments(dir);
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            count += readSegment(segments.get(i), fromSequence, tenant, consumer);
+        }
+        return count;
+    }
+
+    /** The highest sequence written to {@code dir}, or 0. */
+    static long lastSequence(Path dir) {
+        List<Path> segments = segments(dir);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long[] last = {0};
+            scan(segments.get(i), (sequence, in) -> last[0] = Math.max(last[0], sequence));
+            if (last[0] > 0) {
+                return last[0];
+            }
+        }
+        return 0;
+    }
+
+    private static long readSegment(Path segment, long fromSequence, Predicate<String> tenant,
+                                    Consumer<JournalEntry> consumer) {
+        Map<Integer, SchemaInfo> schemas = new HashMap<>();
+        long[] count = {0};
+        scan(segment, (sequence, in) -> {
+            if (sequence < 0) {
+                SchemaInfo schema = JournalCodec.readSchema(in);
+                schemas.put(schema.id(), schema);
+                return;
+            }
+            if (sequence < fromSequence) {
+                return;
+            }
+            Instant timestamp = Instant.ofEpochMilli(in.getLong());
+            long entityId = in.getVarLong();
+            String recordTenant = in.getString();
+            if (!tenant.test(recordTenant)) {
+                return;
+            }
+            JournalObject command = JournalCodec.readObject(in, schemas);
+            consumer.accept(new JournalEntry(sequence, timestamp, recordTenant, entityId == 0 ? null : entityId - 1,
+                    command));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /** Calls {@code visitor} per valid record: sequence -1 for schemas, the decoder positioned after the sequence. */
+    private static void scan(Path segment, RecordVisitor visitor) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int position = 0;
+            CRC32C crc = new CRC32C();
+            while (position + HEADER < size) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER + (long) length > size) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.duplicate().position(position + HEADER).limit(position + HEADER + length));
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    log.warn("Journal segment {} ends in a damaged record at {}", segment.getFileName(), position);
+                    break;
+                }
+                Decoder in = new Decoder(buffer, position + HEADER);
+                byte kind = in.get();
+                if (kind == JournalCodec.SCHEMA) {
+                    visitor.visit(-1, in);
+                } else if (kind == JournalCodec.COMMAND) {
+                    visitor.visit(in.getLong(), in);
+                }
+                position += HEADER + length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal segment " + segment, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long sequence, Decoder in);
+    }
+}
@@ -0,0 +1,176 @@
+package net.publicworks.app.backend.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CommandBus;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.itf.IResult;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uses the {@link CommandJournal} to bring other state up to date.
+ * <p>
+ * {@link #replay} dispatches a tenant's journaled commands again, in order, through {@link CommandBus} (into
+ * an empty schema, or one restored from a backup older than {@code fromSequence}); the replayed commands are
+ * not journaled a second time. Redacted properties (passwords) come back as {@code null}.
+ * The database hands out new ids to the replayed creates, so ids are remapped on the way: the id a create's
+ * result carries replaces the id the journal recorded for it in every later command's {@code id} (for an entity
+ * of the command's own kind, e.g. {@code AssetCommand} → asset) and {@code <entity>Id} properties (e.g.
+ * {@code assetId}), per tenant. Ids the journal never created in this run are taken as they are, since they come
+ * from the restored backup. A later command referring to a create that failed is not dispatched. Ids of nested
+ * commands' own entities (e.g. an asset's location) are not remapped.
+ * {@link #republishAssetChanges} touches nothing in the database: it publishes an {@link AssetChangedEvent}
+ * for every asset a journaled {@code AssetCommand} changed, so the derived indexes (search, map, topology,
+ * counters) reload just those assets instead of being rebuilt from scratch.
+ */
+@Slf4j
+@Component
+public class JournalReplayer {
+
+    private static final String ASSET_COMMAND = "AssetCommand";
+
+    private final CommandJournal journal;
+    private final CommandBus commandBus;
+    private final ApplicationEventPublisher events;
+
+    public JournalReplayer(CommandJournal journal, CommandBus commandBus, ApplicationEventPublisher events) {
+        this.journal = journal;
+        this.commandBus = commandBus;
+        this.events = events;
+    }
+
+    /** Returns the number of commands that were dispatched successfully. */
+    public long replay(String tenant, long fromSequence) {
+        AtomicLong replayed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        // "tenant:entity:journal id" -> id of the replayed create, or null if that create failed
+        Map<String, Long> recreated = new HashMap<>();
+        journal.withoutJournal(() -> journal.read(tenant, fromSequence, entry -> {
+            String entity = entity(entry.command().type());
+            String created = entry.entityId() == null ? null : key(entry.tenant(), entity, entry.entityId());
+            if (created != null && entry.command().get("id") == null) {
+                recreated.put(created, null);
+            }
+            try {
+                Object command = remap(entry.command(), entry.tenant(), entity, recreated).toInstance();
+                if (dispatch(command) instanceof IResult r && r.isSuccess()) {
+                    replayed.incrementAndGet();
+                    if (created != null && CommandJournal.idOf(r.getData()) instanceof Number id) {
+                        recreated.put(created, id.longValue());
+                    }
+                } else {
+                    failed.incrementAndGet();
+                    log.warn("Replayed command {} ({}) did not succeed", entry.sequence(), entry.command().type());
+                }
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.warn("Could not replay command {} ({}): {}", entry.sequence(), entry.command().type(), e.getMessage());
+            }
+        }));
+        log.info("Replayed {} commands of tenant {} from sequence {}, {} failed", replayed, tenant, fromSequence, failed);
+        return replayed.get();
+    }
+
+    /** Returns the number of change events published. */
+    public long republishAssetChanges(String tenant, long fromSequence) {
+        AtomicLong published = new AtomicLong();
+        journal.read(tenant, fromSequence, entry -> {
+            if (!entry.command().type().endsWith("." + ASSET_COMMAND)) {
+                return;
+            }
+            Long assetId = entry.entityId() != null ? entry.entityId()
+                    : entry.command().get("id") instanceof Number n ? n.longValue() : null;
+            if (assetId == null) {
+                return;
+            }
+            CrudOperation operation = operation(entry.command().get("operation"));
+            events.publishEvent(new AssetChangedEvent(assetId, entry.tenant(), null, operation));
+            published.incrementAndGet();
+        });
+        log.info("Published {} asset changes of tenant {} from sequence {}", published, tenant, fromSequence);
+        return published.get();
+    }
+
+    /** The command with its own {@code id} and its {@code <entity>Id} references switched to the replayed ids. */
+    private static JournalObject remap(JournalObject command, String tenant, String entity, Map<String, Long> recreated) {
+        Map<String, Object> fields = new LinkedHashMap<>(command.fields());
+        fields.replaceAll((name, value) -> {
+            String target = name.equals("id") ? entity
+                    : name.length() > 2 && name.endsWith("Id") ? name.substring(0, name.length() - 2) : null;
+            if (target != null && value instanceof Number id) {
+                return replayedId(recreated, key(tenant, target, id.longValue()), id.longValue());
+            }
+            if (value instanceof JournalObject nested) {
+                return remap(nested, tenant, null, recreated);
+            }
+            if (value instanceof List<?> list) {
+                return list.stream()
+                        .map(item -> item instanceof JournalObject nested ? remap(nested, tenant, null, recreated) : item)
+                        .toList();
+            }
+            return value;
+        });
+        return new JournalObject(command.type(), fields);
+    }
+
+    private static long replayedId(Map<String, Long> recreated, String key, long journaled) {
+        if (!recreated.containsKey(key)) {
+            return journaled;
+        }
+        Long id = recreated.get(key);
+        if (id == null) {
+            throw new IllegalStateException("refers to " + key + ", whose create was not replayed");
+        }
+        return id;
+    }
+
+    /** The entity a command writes, as its id properties name it: {@code CreateWorkOrderCommand} → {@code workOrder}. */
+    private static String entity(String commandType) {
+        String name = commandType.substring(commandType.lastIndexOf('.') + 1);
+        if (name.endsWith("Command")) {
+            name = name.substring(0, name.length() - "Command".length());
+        }
+        if (name.startsWith("Create") && name.length() > 6 && Character.isUpperCase(name.charAt(6))) {
+            name = name.substring(6);
+        }
+        return name.isEmpty() ? name : Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String key(String tenant, String entity, long id) {
+        return tenant + ":" + entity + ":" + id;
+    }
+
+    private static CrudOperation operation(Object recorded) {
+        if (recorded instanceof String name
+                && (CrudOperation.REMOVE.name().equals(name) || CrudOperation.DELETE.name().equals(name))) {
+            return CrudOperation.valueOf(name);
+        }
+        return CrudOperation.MODIFY;
+    }
+
+    /** {@code CommandBus.dispatch} takes the command interface; it is looked up for the command at hand. */
+    private Object dispatch(Object command) {
+        Method dispatch = Arrays.stream(commandBus.getClass().getMethods())
+                .filter(m -> m.getName().equals("dispatch") && m.getParameterCount() == 1
+                        && m.getParameterTypes()[0].isInstance(command))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("CommandBus cannot dispatch " + command.getClass()));
+        try {
+            return dispatch.invoke(commandBus, command);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package net.publicworks.app.backend.service.reference;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of {@link AssetAttributeDefinition}s per tenant and asset type, with {@code allowedValuesJson}
+ * already parsed, for asset forms and validation.
+ * <p>
+ * Holds at most {@code reference-data.max-size} tenant/type entries, least recently used first out. Definitions
+ * written through the command bus or the definition repository evict their own entry, again after commit;
+ * {@code reference-data.ttl} bounds how long a change made any other way goes unseen. Hits, misses and
+ * evictions are published as {@code reference.cache.*} metrics.
+ */
+@Slf4j
+@Component
+public class AttributeDefinitionCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public AttributeDefinitionCache(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${reference-data.max-size:2000}") int maxSize,
+                                    @Value("${reference-data.ttl:10m}") Duration ttl) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+        this.hits = Counter.builder("reference.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("reference.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("reference.cache.evictions").register(meterRegistry);
+        Gauge.builder("reference.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    public AttributeDefinitions get(String tenant, AssetTypeEnum type) {
+        Key key = new Key(tenant, type);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.loadedAt() <= ttlNanos) {
+            hits.increment();
+            return entry.definitions();
+        }
+        misses.increment();
+        long loadedIn = generation.get();
+        AttributeDefinitions loaded = load(tenant, type);
+        // an eviction while loading may have been for this entry; use what was read but do not keep it
+        if (generation.get() == loadedIn) {
+            entries.put(key, new Entry(loaded, System.nanoTime()));
+        }
+        return loaded;
+    }
+
+    /** One entry per asset type, in {@link AssetTypeEnum} order. */
+    public List<AttributeDefinitions> all(String tenant) {
+        List<AttributeDefinitions> all = new ArrayList<>(AssetTypeEnum.values().length);
+        for (AssetTypeEnum type : AssetTypeEnum.values()) {
+            all.add(get(tenant, type));
+        }
+        return all;
+    }
+
+    /** Drops the entry of the definition's tenant and type, now and once the current transaction commits. */
+    public void evict(AssetAttributeDefinition definition) {
+        if (definition.getId() != null) {
+            evictDefinition(definition.getId());
+        }
+        Key key = new Key(definition.getCustomerDiferentiator(), definition.getAssetType());
+        runNowAndAfterCommit(() -> remove(key));
+    }
+
+    /** Drops whichever entry holds the definition with this id. */
+    public void evictDefinition(Long id) {
+        runNowAndAfterCommit(() -> {
+            List<Key> holding = new ArrayList<>();
+            synchronized (entries) {
+                entries.forEach((key, entry) -> {
+                    if (entry.definitions().definitions().stream().anyMatch(d -> id.equals(d.getId()))) {
+                        holding.add(key);
+                    }
+                });
+            }
+            holding.forEach(this::remove);
+        });
+    }
+
+    public void clear() {
+        runNowAndAfterCommit(() -> {
+            generation.incrementAndGet();
+            int size = entries.size();
+            entries.clear();
+            evictions.increment(size);
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        if (event.result().getData() instanceof AssetAttributeDefinition definition) {
+            evict(definition);
+        }
+    }
+
+    private void remove(Key key) {
+        generation.incrementAndGet();
+        if (entries.remove(key) != null) {
+            evictions.increment();
+        }
+    }
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a reader may reload the old rows before the write commits
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private AttributeDefinitions load(String tenant, AssetTypeEnum type) {
+        List<AssetAttributeDefinition> definitions = readOnly.execute(status -> entityManager.createQuery(
+                        "select d from AssetAttributeDefinition d"
+                                + " where d.customerDiferentiator = :tenant and d.assetType = :type order by d.id",
+                        AssetAttributeDefinition.class)
+                .setParameter("tenant", tenant)
+                .setParameter("type", type)
+                .getResultList());
+        Map<String, Set<String>> allowedValues = new LinkedHashMap<>();
+        for (AssetAttributeDefinition definition : definitions) {
+            String json = definition.getAllowedValuesJson();
+            if (json == null || json.isBlank()) {
+                continue;
+            }
+            try {
+                allowedValues.put(definition.getKey(), Collections.unmodifiableSet(
+                        new LinkedHashSet<>(MAPPER.readValue(json, new TypeReference<List<String>>() {}))));
+            } catch (JsonProcessingException e) {
+                log.warn("Attribute {} of {} has invalid allowedValuesJson: {}", definition.getKey(), type, json);
+            }
+        }
+        return new AttributeDefinitions(tenant, type, List.copyOf(definitions), Collections.unmodifiableMap(allowedValues));
+    }
+
+    private record Key(String tenant, AssetTypeEnum type) {}
+
+    private record Entry(AttributeDefinitions definitions, long loadedAt) {}
+}
@@ -0,0 +1,47 @@
+package net.publicworks.app.backend.service.reference;
+
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.repo.RepositoryDomains;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached definitions written straight through a Spring Data repository of
+ * {@link AssetAttributeDefinition}s. Repositories are recognized by their domain type rather than by name,
+ * so whichever repository bean the application defines for definitions is covered.
+ */
+@Aspect
+@Component
+public class AttributeDefinitionWrites {
+
+    private final AttributeDefinitionCache cache;
+
+    public AttributeDefinitionWrites(AttributeDefinitionCache cache) {
+        this.cache = cache;
+    }
+
+    @AfterReturning("execution(* org.springframework.data.repository.Repository+.save*(..))"
+            + " || execution(* org.springframework.data.repository.Repository+.delete*(..))")
+    public void afterWrite(JoinPoint jp) {
+        if (!RepositoryDomains.holds(jp.getThis(), AssetAttributeDefinition.class)) {
+            return;
+        }
+        if (jp.getArgs().length == 0) {
+            cache.clear();
+            return;
+        }
+        evict(jp.getArgs()[0]);
+    }
+
+    private void evict(Object written) {
+        if (written instanceof AssetAttributeDefinition definition) {
+            cache.evict(definition);
+        } else if (written instanceof Long id) {
+            cache.evictDefinition(id);
+        } else if (written instanceof Iterable<?> many) {
+            many.forEach(this::evict);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.publicworks.app.backend.service.reference;
+
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A tenant's attribute definitions for one asset type, as cached by {@link AttributeDefinitionCache}.
+ * The definitions are detached and shared between callers: treat them as read-only.
+ *
+ * @param allowedValues parsed {@code allowedValuesJson} by definition key, for definitions that have one
+ */
+public record AttributeDefinitions(String tenant, AssetTypeEnum type, List<AssetAttributeDefinition> definitions,
+                                   Map<String, Set<String>> allowedValues) {
+
+    public AssetAttributeDefinition byKey(String key) {
+        for (AssetAttributeDefinition definition : definitions) {
+            if (definition.getKey().equals(key)) {
+                return definition;
+            }
+        }
+        return null;
+    }
+
+    /** {@code null} when any value is allowed. */
+    public Set<String> allowedValues(String key) {
+        return allowedValues.get(key);
+    }
+}
@@ -0,0 +1,10 @@
+package net.publicworks.app.backend.service.search;
+
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+
+/** One line of the asset list; see {@link #PROJECTION}. Inspections and relationships are never touched. */
+public record AssetRow(Long id, String externalId, String name, AssetTypeEnum type, String status, String city) {
+
+    public static final Projection<AssetRow> PROJECTION = Projection.of(AssetRow.class,
+            "id", "externalId", "name", "type", "status", "location.city");
+}
@@ -0,0 +1,49 @@
+package net.publicworks.app.backend.service.search;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Predicate on a dynamic asset attribute, addressed by {@code AssetAttributeDefinition.key}
+ * (e.g. {@code diameter_in >= 12}, {@code material = 'Ductile Iron'}).
+ * <p>
+ * Compiled by {@link SearchQueryPlanner} into an {@code EXISTS} sub-query on {@code AssetAttributeValue},
+ * so matching happens in the database. The comparison operators ({@code GT}, {@code GTE}, {@code LT},
+ * {@code LTE}, {@code BETWEEN}) compare numerically and only match NUMBER-typed definitions.
+ */
+public record AttributeFilter(String key, Operator operator, Object value, Object upperBound) {
+
+    public enum Operator {
+        EQ, NE, IN, LIKE, GT, GTE, LT, LTE, BETWEEN, EXISTS;
+
+        boolean isNumeric() {
+            return this == GT || this == GTE || this == LT || this == LTE || this == BETWEEN;
+        }
+    }
+
+    public AttributeFilter {
+        Objects.requireNonNull(key, "attribute key");
+        Objects.requireNonNull(operator, "attribute operator");
+        if (operator != Operator.EXISTS && value == null) {
+            throw new IllegalArgumentException(operator + " on attribute '" + key + "' needs a value");
+        }
+        if (operator == Operator.BETWEEN && upperBound == null) {
+            throw new IllegalArgumentException("BETWEEN on attribute '" + key + "' needs an upper bound");
+        }
+        if (operator == Operator.IN && !(value instanceof Collection<?>)) {
+            throw new IllegalArgumentException("IN on attribute '" + key + "' needs a collection");
+        }
+    }
+
+    public static AttributeFilter of(String key, Operator operator, Object value) {
+        return new AttributeFilter(key, operator, value, null);
+    }
+
+    public static AttributeFilter between(String key, Number from, Number to) {
+        return new AttributeFilter(key, Operator.BETWEEN, from, to);
+    }
+
+    public static AttributeFilter exists(String key) {
+        return new AttributeFilter(key, Operator.EXISTS, null, null);
+    }
+}
@@ -0,0 +1,15 @@
+package net.publicworks.app.backend.service.search;
+
+/**
+ * How a paged search should work out the total.
+ * <ul>
+ *     <li>{@link #EXACT} – run {@code COUNT(*)} unless the page itself already tells us the total.</li>
+ *     <li>{@link #SKIP} – never count; the result is a {@code Slice} that only knows whether there is a next page.</li>
+ *     <li>{@link #ESTIMATE} – reuse a recent count for the same filters, only recounting once it has expired.</li>
+ * </ul>
+ */
+public enum CountMode {
+    EXACT,
+    SKIP,
+    ESTIMATE
+}
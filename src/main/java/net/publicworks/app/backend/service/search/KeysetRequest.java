@@ -0,0 +1,29 @@
+package net.publicworks.app.backend.service.search;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Seek-style paging: {@code continuationToken} is the opaque token from the previous {@link KeysetSlice}
+ * ({@code null} for the first slice). Rows are ordered by {@code sortBy} and then by id, so the sort key
+ * does not need to be unique. Rows whose {@code sortBy} is null come last, in either direction;
+ * {@code sortBy == null} means "by id".
+ */
+public record KeysetRequest(String sortBy, Sort.Direction direction, int size, String continuationToken) {
+
+    public KeysetRequest {
+        if (size < 1) {
+            throw new IllegalArgumentException("Keyset page size must be at least 1");
+        }
+        if (direction == null) {
+            direction = Sort.Direction.ASC;
+        }
+    }
+
+    public static KeysetRequest first(String sortBy, Sort.Direction direction, int size) {
+        return new KeysetRequest(sortBy, direction, size, null);
+    }
+
+    public KeysetRequest next(KeysetSlice<?> previous) {
+        return new KeysetRequest(sortBy, direction, size, previous.getContinuationToken());
+    }
+}
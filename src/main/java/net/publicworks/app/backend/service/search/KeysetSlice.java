@@ -0,0 +1,22 @@
+package net.publicworks.app.backend.service.search;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/** A {@link org.springframework.data.domain.Slice} from a keyset search plus the token for the next one. */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private final String continuationToken;
+
+    public KeysetSlice(List<T> content, int size, boolean hasNext, String continuationToken) {
+        super(content, PageRequest.ofSize(size), hasNext);
+        this.continuationToken = continuationToken;
+    }
+
+    /** Token for the next slice, or {@code null} when this is the last one. */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+}
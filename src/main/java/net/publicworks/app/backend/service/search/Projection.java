@@ -0,0 +1,26 @@
+package net.publicworks.app.backend.service.search;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Selects a few entity paths into a row type instead of loading whole entities.
+ * <p>
+ * {@code paths} are handed in order to a constructor of {@code type} (usually a record), e.g.
+ * {@code Projection.of(AssetRow.class, "id", "name", "location.city")}. Dotted paths are fetched through a
+ * left join, so rows without the associated entity still come back, with {@code null} in that column.
+ */
+public record Projection<R>(Class<R> type, List<String> paths) {
+
+    public Projection {
+        Objects.requireNonNull(type, "projection type");
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("Projection " + type.getSimpleName() + " needs at least one path");
+        }
+        paths = List.copyOf(paths);
+    }
+
+    public static <R> Projection<R> of(Class<R> type, String... paths) {
+        return new Projection<>(type, List.of(paths));
+    }
+}
@@ -0,0 +1,598 @@
+package net.publicworks.app.backend.service.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import net.publicworks.app.backend.entity.asset.Asset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles {@link SearchFilter} lists into JPQL once per filter <em>shape</em> and reuses the plan.
+ * <p>
+ * A shape is the entity class, the (field, operator) pairs in order, an IN-list arity bucket and the sort.
+ * Field names are resolved against the JPA metamodel when the plan is built, so unknown fields fail up front
+ * and nothing is reflected per call. Executing a plan only converts and binds the new values; because the
+ * JPQL string is identical for every call with the same shape, Hibernate's query interpretation cache
+ * serves the parsed query as well.
+ * <p>
+ * Besides offset paging ({@link #search(Class, List, Pageable, CountMode)}) plans can be compiled for
+ * keyset paging ({@link #searchKeyset(Class, List, KeysetRequest)}), which seeks past the last seen
+ * (sort key, id) instead of skipping rows, so deep pages cost the same as the first one.
+ * <p>
+ * List views that only show a few columns pass a {@link Projection}; the plan then selects just those
+ * columns into a row type, so no entity (and none of its lazy associations) is loaded or kept.
+ */
+@Slf4j
+@Component
+public class SearchQueryPlanner {
+
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+    private static final char TOKEN_SEPARATOR = '\u001F';
+    private static final String NULL_SORT_VALUE = "n";
+
+    private final EntityManager entityManager;
+    private final int maxCachedPlans;
+    private final long countEstimateTtlNanos;
+    private final Map<PlanKey, SearchPlan> plans = new ConcurrentHashMap<>();
+    private final Map<CountKey, CachedCount> estimatedCounts = new ConcurrentHashMap<>();
+
+    public SearchQueryPlanner(EntityManager entityManager,
+                              @Value("${search.plan-cache.max-size:1024}") int maxCachedPlans,
+                              @Value("${search.count-estimate.ttl-seconds:30}") long countEstimateTtlSeconds) {
+        this.entityManager = entityManager;
+        this.maxCachedPlans = maxCachedPlans;
+        this.countEstimateTtlNanos = TimeUnit.SECONDS.toNanos(countEstimateTtlSeconds);
+    }
+
+    public <T> Page<T> search(Class<T> type, List<SearchFilter> filters, Pageable pageable) {
+        return (Page<T>) search(type, filters, pageable, CountMode.EXACT);
+    }
+
+    /**
+     * Offset paging. {@link CountMode#SKIP} returns a plain {@link Slice}; the other modes return a {@link Page}.
+     */
+    public <T> Slice<T> search(Class<T> type, List<SearchFilter> filters, Pageable pageable, CountMode countMode) {
+        return search(type, filters, List.of(), pageable, countMode);
+    }
+
+    /** Offset paging with additional predicates on dynamic asset attributes (only valid for {@code Asset}). */
+    public <T> Slice<T> search(Class<T> type, List<SearchFilter> filters, List<AttributeFilter> attributes,
+                               Pageable pageable, CountMode countMode) {
+        return search(type, null, type, Criteria.of(filters, attributes), pageable, countMode);
+    }
+
+    /** Offset paging that returns projected rows instead of entities. */
+    public <R> Slice<R> search(Class<?> type, Projection<R> projection, List<SearchFilter> filters,
+                               Pageable pageable, CountMode countMode) {
+        return search(type, projection, projection.type(), Criteria.of(filters, List.of()), pageable, countMode);
+    }
+
+    private <R> Slice<R> search(Class<?> type, Projection<R> projection, Class<R> resultType, Criteria active,
+                                Pageable pageable, CountMode countMode) {
+        PlanKey key = PlanKey.of(type, projection, active, pageable.getSort(), KeysetMode.NONE, null);
+        SearchPlan plan = plans.get(key);
+        if (plan == null) {
+            plan = cache(key, compile(type, projection, active, pageable.getSort(), KeysetMode.NONE, Sort.Direction.ASC));
+        }
+
+        TypedQuery<R> query = entityManager.createQuery(plan.selectJpql(), resultType);
+        plan.bind(query, active);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(countMode == CountMode.SKIP ? pageable.getPageSize() + 1 : pageable.getPageSize());
+        }
+        List<R> content = query.getResultList();
+
+        if (countMode == CountMode.SKIP) {
+            boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+        }
+
+        SearchPlan countPlan = plan;
+        return PageableExecutionUtils.getPage(content, pageable, countMode == CountMode.ESTIMATE
+                ? () -> estimatedCount(key, countPlan, active)
+                : () -> count(countPlan, active));
+    }
+
+    /** Seek paging by (sortBy, id); never counts. */
+    public <T> KeysetSlice<T> searchKeyset(Class<T> type, List<SearchFilter> filters, KeysetRequest request) {
+        return searchKeyset(type, filters, List.of(), request);
+    }
+
+    public <T> KeysetSlice<T> searchKeyset(Class<T> type, List<SearchFilter> filters, List<AttributeFilter> attributes,
+                                           KeysetRequest request) {
+        Criteria active = Criteria.of(filters, attributes);
+        Sort sort = request.sortBy() == null ? Sort.unsorted() : Sort.by(request.direction(), request.sortBy());
+        KeysetMode mode = request.continuationToken() == null ? KeysetMode.FIRST : KeysetMode.SEEK;
+        SearchPlan plan = keysetPlan(type, active, sort, mode, request.direction());
+        Object[] cursor = null;
+        if (mode == KeysetMode.SEEK) {
+            cursor = plan.decodeToken(request.continuationToken());
+            if (cursor[0] == null && plan.keyset().sortName() != null) {
+                // the previous slice ended among the rows without a sort value, which sort last
+                plan = keysetPlan(type, active, sort, KeysetMode.SEEK_NULL, request.direction());
+            }
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(plan.selectJpql(), Object[].class);
+        plan.bind(query, active);
+        if (cursor != null) {
+            if (cursor[0] != null) {
+                query.setParameter("ks", cursor[0]);
+            }
+            query.setParameter("kid", cursor[1]);
+        }
+        query.setMaxResults(request.size() + 1);
+        List<Object[]> rows = query.getResultList();
+
+        boolean hasNext = rows.size() > request.size();
+        List<Object[]> page = hasNext ? rows.subList(0, request.size()) : rows;
+        List<T> content = new ArrayList<>(page.size());
+        for (Object[] row : page) {
+            content.add(type.cast(row[0]));
+        }
+        String token = hasNext ? plan.encodeToken(page.get(page.size() - 1)) : null;
+        return new KeysetSlice<>(content, request.size(), hasNext, token);
+    }
+
+    private SearchPlan keysetPlan(Class<?> type, Criteria active, Sort sort, KeysetMode mode, Sort.Direction direction) {
+        PlanKey key = PlanKey.of(type, null, active, sort, mode, direction);
+        SearchPlan plan = plans.get(key);
+        return plan != null ? plan : cache(key, compile(type, null, active, sort, mode, direction));
+    }
+
+    /** Returns the cached offset-paging plan for this shape, compiling (and validating) it on first use. */
+    public SearchPlan plan(Class<?> type, List<SearchFilter> filters, Sort sort) {
+        Criteria active = Criteria.of(filters, List.of());
+        PlanKey key = PlanKey.of(type, null, active, sort, KeysetMode.NONE, null);
+        SearchPlan plan = plans.get(key);
+        return plan != null ? plan : cache(key, compile(type, null, active, sort, KeysetMode.NONE, Sort.Direction.ASC));
+    }
+
+    public int cachedPlanCount() {
+        return plans.size();
+    }
+
+    private SearchPlan cache(PlanKey key, SearchPlan plan) {
+        if (plans.size() < maxCachedPlans) {
+            SearchPlan existing = plans.putIfAbsent(key, plan);
+            return existing != null ? existing : plan;
+        }
+        log.debug("Search plan cache full ({}), not caching shape {}", maxCachedPlans, key);
+        return plan;
+    }
+
+    private long count(SearchPlan plan, Criteria active) {
+        TypedQuery<Long> count = entityManager.createQuery(plan.countJpql(), Long.class);
+        plan.bind(count, active);
+        return count.getSingleResult();
+    }
+
+    private long estimatedCount(PlanKey key, SearchPlan plan, Criteria active) {
+        CountKey countKey = CountKey.of(key, active);
+        long now = System.nanoTime();
+        CachedCount cached = estimatedCounts.get(countKey);
+        if (cached != null && now - cached.countedAt() < countEstimateTtlNanos) {
+            return cached.count();
+        }
+        long total = count(plan, active);
+        if (cached == null && estimatedCounts.size() >= maxCachedPlans * 4) {
+            estimatedCounts.values().removeIf(c -> now - c.countedAt() >= countEstimateTtlNanos);
+        }
+        if (cached != null || estimatedCounts.size() < maxCachedPlans * 4) {
+            estimatedCounts.put(countKey, new CachedCount(total, now));
+        }
+        return total;
+    }
+
+    /** Drops null filters and value filters without a value, matching the existing "ignore empty filter" behaviour. */
+    static List<SearchFilter> activeFilters(List<SearchFilter> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return List.of();
+        }
+        List<SearchFilter> active = new ArrayList<>(filters.size());
+        for (SearchFilter f : filters) {
+            if (f == null || f.getOperator() == null) {
+                continue;
+            }
+            boolean needsValue = f.getOperator() != SearchFilter.Operator.IS_NULL
+                    && f.getOperator() != SearchFilter.Operator.NOT_NULL;
+            if (needsValue && f.getValue() == null) {
+                continue;
+            }
+            active.add(f);
+        }
+        return active;
+    }
+
+    private SearchPlan compile(Class<?> type, Projection<?> projection, Criteria active, Sort sort, KeysetMode mode,
+                               Sort.Direction direction) {
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType<?> entity = metamodel.entity(type);
+
+        StringBuilder where = new StringBuilder();
+        List<Class<?>> bindTypes = new ArrayList<>(active.filters().size());
+        for (int i = 0; i < active.filters().size(); i++) {
+            SearchFilter f = active.filters().get(i);
+            Class<?> fieldType = resolve(metamodel, type, f.getField());
+            if (isLike(f.getOperator()) && fieldType != String.class) {
+                throw new IllegalArgumentException(f.getOperator() + " needs a text field, '" + f.getField() + "' is " + fieldType.getSimpleName());
+            }
+            String path = "e." + f.getField();
+            String param = ":p" + i;
+
+            where.append(where.length() == 0 ? " where " : " and ");
+            switch (f.getOperator()) {
+                case EQ -> where.append(path).append(" = ").append(param);
+                case LIKE, STARTS_WITH, ENDS_WITH -> where.append("lower(").append(path).append(") like ").append(param);
+                case IN -> where.append(isEmptyCollection(f.getValue()) ? "1 = 0" : path + " in " + param);
+                case IS_NULL -> where.append(path).append(" is null");
+                case NOT_NULL -> where.append(path).append(" is not null");
+                default -> throw new IllegalArgumentException("Unsupported search operator " + f.getOperator());
+            }
+            bindTypes.add(fieldType);
+        }
+
+        if (!active.attributes().isEmpty() && type != Asset.class) {
+            throw new IllegalArgumentException("Attribute filters only apply to Asset, not " + type.getSimpleName());
+        }
+        for (int i = 0; i < active.attributes().size(); i++) {
+            where.append(where.length() == 0 ? " where " : " and ");
+            appendAttributePredicate(where, active.attributes().get(i), i);
+        }
+
+        if (mode == KeysetMode.NONE) {
+            ProjectionJoins joins = new ProjectionJoins();
+            String select = "select e";
+            if (projection != null) {
+                List<String> columns = new ArrayList<>(projection.paths().size());
+                for (String path : projection.paths()) {
+                    resolve(metamodel, type, path);
+                    columns.add(joins.column(path));
+                }
+                select = "select new " + projection.type().getName() + "(" + String.join(", ", columns) + ")";
+            }
+            StringBuilder orderBy = new StringBuilder();
+            for (Sort.Order order : sort) {
+                resolve(metamodel, type, order.getProperty());
+                orderBy.append(orderBy.length() == 0 ? " order by " : ", ")
+                        .append(projection != null ? joins.column(order.getProperty()) : "e." + order.getProperty())
+                        .append(order.isAscending() ? " asc" : " desc");
+            }
+            String from = " from " + entity.getName() + " e";
+            return new SearchPlan(select + from + joins.clause() + where + orderBy, "select count(e)" + from + where,
+                    List.copyOf(bindTypes), null);
+        }
+
+        // keyset: order by (sortBy, id) and seek past the last row of the previous slice
+        String idName = entity.getId(entity.getIdType().getJavaType()).getName();
+        Class<?> idType = entity.getIdType().getJavaType();
+        String sortName = sort.isSorted() ? sort.iterator().next().getProperty() : null;
+        if (idName.equals(sortName)) {
+            sortName = null;
+        }
+        Class<?> sortType = sortName != null ? resolve(metamodel, type, sortName) : null;
+        String dir = direction.isAscending() ? " asc" : " desc";
+        String cmp = direction.isAscending() ? " > " : " < ";
+
+        // rows without a sort value come last in either direction, ordered by id among themselves
+        if (mode == KeysetMode.SEEK || mode == KeysetMode.SEEK_NULL) {
+            where.append(where.length() == 0 ? " where " : " and ");
+            if (sortName == null) {
+                where.append("e.").append(idName).append(cmp).append(":kid");
+            } else if (mode == KeysetMode.SEEK_NULL) {
+                where.append("(e.").append(sortName).append(" is null and e.").append(idName).append(cmp).append(":kid)");
+            } else {
+                where.append("(e.").append(sortName).append(cmp).append(":ks or (e.").append(sortName)
+                        .append(" = :ks and e.").append(idName).append(cmp).append(":kid) or e.").append(sortName)
+                        .append(" is null)");
+            }
+        }
+        String select = sortName == null
+                ? "select e, e." + idName
+                : "select e, e." + sortName + ", e." + idName;
+        String orderBy = sortName == null
+                ? " order by e." + idName + dir
+                : " order by e." + sortName + dir + " nulls last, e." + idName + dir;
+        return new SearchPlan(select + " from " + entity.getName() + " e" + where + orderBy, null,
+                List.copyOf(bindTypes), new KeysetColumns(sortName, sortType, idType));
+    }
+
+    /**
+     * {@code exists (select 1 from AssetAttributeValue v where v.asset = e and v.definition.key = :ak and ...)}.
+     * The sub-query is driven by the value row's asset and definition keys; numeric comparisons cast the stored
+     * text only for rows whose definition is NUMBER-typed, so other attributes never hit the cast.
+     */
+    private static void appendAttributePredicate(StringBuilder where, AttributeFilter f, int i) {
+        String value = numeric(f)
+                ? "case when v.definition.dataType = 'NUMBER' then cast(v.value as BigDecimal) end"
+                : "v.value";
+        String param = ":av" + i;
+
+        where.append("exists (select 1 from AssetAttributeValue v where v.asset = e and v.definition.key = :ak").append(i);
+        switch (f.operator()) {
+            case EQ -> where.append(" and ").append(value).append(" = ").append(param);
+            case NE -> where.append(" and ").append(value).append(" <> ").append(param);
+            case IN -> where.append(" and ").append(value).append(" in ").append(param);
+            case LIKE -> where.append(" and lower(v.value) like ").append(param);
+            case GT -> where.append(" and ").append(value).append(" > ").append(param);
+            case GTE -> where.append(" and ").append(value).append(" >= ").append(param);
+            case LT -> where.append(" and ").append(value).append(" < ").append(param);
+            case LTE -> where.append(" and ").append(value).append(" <= ").append(param);
+            case BETWEEN -> where.append(" and ").append(value).append(" between ").append(param)
+                    .append(" and ").append(param).append("b");
+            case EXISTS -> {
+                // the key match alone is the predicate
+            }
+        }
+        where.append(")");
+    }
+
+    /** Range operators always compare numerically; EQ/NE/IN do when given numbers. */
+    private static boolean numeric(AttributeFilter f) {
+        if (f.operator().isNumeric()) {
+            return true;
+        }
+        Object sample = f.value() instanceof Collection<?> c && !c.isEmpty() ? c.iterator().next() : f.value();
+        return sample instanceof Number;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        return value instanceof BigDecimal d ? d : new BigDecimal(value.toString().trim());
+    }
+
+    /** Walks a dotted path through the metamodel and returns the java type of the last attribute. */
+    private static Class<?> resolve(Metamodel metamodel, Class<?> root, String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Search field must not be blank");
+        }
+        ManagedType<?> current = metamodel.managedType(root);
+        Class<?> javaType = root;
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            Attribute<?, ?> attribute;
+            try {
+                attribute = current.getAttribute(segments[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown search field '" + path + "' on " + root.getSimpleName(), e);
+            }
+            if (attribute.isCollection()) {
+                throw new IllegalArgumentException("Search field '" + path + "' traverses a collection");
+            }
+            javaType = attribute.getJavaType();
+            if (i < segments.length - 1) {
+                current = metamodel.managedType(javaType);
+            }
+        }
+        return javaType;
+    }
+
+    private static boolean isLike(SearchFilter.Operator op) {
+        return op == SearchFilter.Operator.LIKE || op == SearchFilter.Operator.STARTS_WITH || op == SearchFilter.Operator.ENDS_WITH;
+    }
+
+    private static boolean isEmptyCollection(Object value) {
+        return value instanceof Collection<?> c && c.isEmpty();
+    }
+
+    private static Object convert(Object value, Class<?> target) {
+        if (value == null || target.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof String s) {
+            // java.time types have parse(), which the default conversion service does not pick up
+            if (target == OffsetDateTime.class) {
+                return OffsetDateTime.parse(s);
+            }
+            if (target == LocalDateTime.class) {
+                return LocalDateTime.parse(s);
+            }
+            if (target == LocalDate.class) {
+                return LocalDate.parse(s);
+            }
+            if (target == Instant.class) {
+                return Instant.parse(s);
+            }
+        }
+        return CONVERSION.convert(value, target);
+    }
+
+    private enum KeysetMode { NONE, FIRST, SEEK, SEEK_NULL }
+
+    /** Left-joins the owner of each dotted projection path once and hands out the column expression. */
+    private static final class ProjectionJoins {
+
+        private final Map<String, String> aliases = new LinkedHashMap<>();
+        private final StringBuilder clause = new StringBuilder();
+
+        String column(String path) {
+            int dot = path.lastIndexOf('.');
+            if (dot < 0) {
+                return "e." + path;
+            }
+            String owner = path.substring(0, dot);
+            String alias = aliases.computeIfAbsent(owner, o -> {
+                String a = "j" + aliases.size();
+                clause.append(" left join e.").append(o).append(' ').append(a);
+                return a;
+            });
+            return alias + path.substring(dot);
+        }
+
+        String clause() {
+            return clause.toString();
+        }
+    }
+
+    /** The filters that actually constrain a query: column filters plus attribute filters. */
+    record Criteria(List<SearchFilter> filters, List<AttributeFilter> attributes) {
+
+        static Criteria of(List<SearchFilter> filters, List<AttributeFilter> attributes) {
+            return new Criteria(activeFilters(filters), attributes == null ? List.of() : attributes);
+        }
+    }
+
+    /** Sort and id columns of a keyset plan; {@code sortName} is null when ordering by id alone. */
+    record KeysetColumns(String sortName, Class<?> sortType, Class<?> idType) {}
+
+    /** A compiled query for one filter shape; {@link #bind} supplies the per-call values. */
+    public record SearchPlan(String selectJpql, String countJpql, List<Class<?>> bindTypes, KeysetColumns keyset) {
+
+        void bind(TypedQuery<?> query, Criteria active) {
+            for (int i = 0; i < active.filters().size(); i++) {
+                SearchFilter f = active.filters().get(i);
+                Object value = f.getValue();
+                switch (f.getOperator()) {
+                    case EQ -> query.setParameter("p" + i, convert(value, bindTypes.get(i)));
+                    case LIKE -> query.setParameter("p" + i, "%" + likeTerm(value) + "%");
+                    case STARTS_WITH -> query.setParameter("p" + i, likeTerm(value) + "%");
+                    case ENDS_WITH -> query.setParameter("p" + i, "%" + likeTerm(value));
+                    case IN -> {
+                        if (!isEmptyCollection(value)) {
+                            query.setParameter("p" + i, convertAll(value, bindTypes.get(i)));
+                        }
+                    }
+                    default -> {
+                        // IS_NULL / NOT_NULL carry no bind value
+                    }
+                }
+            }
+            for (int i = 0; i < active.attributes().size(); i++) {
+                AttributeFilter f = active.attributes().get(i);
+                query.setParameter("ak" + i, f.key());
+                boolean numeric = numeric(f);
+                switch (f.operator()) {
+                    case EXISTS -> {
+                        // key only
+                    }
+                    case LIKE -> query.setParameter("av" + i, "%" + likeTerm(f.value()) + "%");
+                    case IN -> {
+                        List<Object> values = new ArrayList<>();
+                        for (Object v : (Collection<?>) f.value()) {
+                            values.add(numeric ? toDecimal(v) : v.toString());
+                        }
+                        query.setParameter("av" + i, values);
+                    }
+                    case BETWEEN -> {
+                        query.setParameter("av" + i, toDecimal(f.value()));
+                        query.setParameter("av" + i + "b", toDecimal(f.upperBound()));
+                    }
+                    default -> query.setParameter("av" + i, numeric ? toDecimal(f.value()) : f.value().toString());
+                }
+            }
+        }
+
+        /**
+         * Token = base64url(sortName, sortValue, id) of the last row; the sort name guards against reuse under
+         * another sort. The sort value is prefixed with {@code v}, or is just {@code n} when the row has none.
+         */
+        String encodeToken(Object[] lastRow) {
+            String sortName = keyset.sortName() != null ? keyset.sortName() : "";
+            Object sortValue = keyset.sortName() == null ? "" : lastRow[1] == null ? NULL_SORT_VALUE : "v" + lastRow[1];
+            Object id = lastRow[lastRow.length - 1];
+            String raw = sortName + TOKEN_SEPARATOR + sortValue + TOKEN_SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Object[] decodeToken(String token) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                        .split(String.valueOf(TOKEN_SEPARATOR), -1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed continuation token", e);
+            }
+            String sortName = keyset.sortName() != null ? keyset.sortName() : "";
+            if (parts.length != 3 || !parts[0].equals(sortName)
+                    || keyset.sortName() != null && !parts[1].equals(NULL_SORT_VALUE) && !parts[1].startsWith("v")) {
+                throw new IllegalArgumentException("Continuation token does not belong to this sort");
+            }
+            boolean hasSortValue = keyset.sortName() != null && !parts[1].equals(NULL_SORT_VALUE);
+            return new Object[]{
+                    hasSortValue ? convert(parts[1].substring(1), keyset.sortType()) : null,
+                    convert(parts[2], keyset.idType())};
+        }
+
+        private static String likeTerm(Object value) {
+            return value.toString().toLowerCase(Locale.ROOT);
+        }
+
+        private static List<Object> convertAll(Object value, Class<?> target) {
+            Collection<?> values = value instanceof Collection<?> c ? c : List.of(value);
+            List<Object> converted = new ArrayList<>(values.size());
+            for (Object v : values) {
+                converted.add(convert(v, target));
+            }
+            return converted;
+        }
+    }
+
+    record PlanKey(Class<?> type, Projection<?> projection, List<String> shape, Sort sort, KeysetMode mode,
+                   Sort.Direction direction) {
+
+        static PlanKey of(Class<?> type, Projection<?> projection, Criteria active, Sort sort, KeysetMode mode,
+                          Sort.Direction direction) {
+            List<String> shape = new ArrayList<>(active.filters().size() + active.attributes().size());
+            for (SearchFilter f : active.filters()) {
+                String entry = f.getField() + ":" + f.getOperator();
+                if (f.getOperator() == SearchFilter.Operator.IN) {
+                    entry += ":" + inArityBucket(f.getValue());
+                }
+                shape.add(entry);
+            }
+            for (AttributeFilter f : active.attributes()) {
+                shape.add("attr:" + f.operator() + (numeric(f) ? ":num" : ":text"));
+            }
+            return new PlanKey(type, projection, shape, sort, mode, direction);
+        }
+
+        /** 0 for an empty list, otherwise the next power of two (matches hibernate.query.in_clause_parameter_padding). */
+        static int inArityBucket(Object value) {
+            int size = value instanceof Collection<?> c ? c.size() : 1;
+            return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+        }
+    }
+
+    private record CountKey(PlanKey plan, List<Object> values) {
+
+        static CountKey of(PlanKey plan, Criteria active) {
+            List<Object> values = new ArrayList<>(active.filters().size() + active.attributes().size());
+            for (SearchFilter f : active.filters()) {
+                values.add(f.getValue());
+            }
+            values.addAll(active.attributes());
+            return new CountKey(plan, values);
+        }
+    }
+
+    private record CachedCount(long count, long countedAt) {}
+}
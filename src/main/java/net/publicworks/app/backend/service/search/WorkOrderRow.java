@@ -0,0 +1,9 @@
+package net.publicworks.app.backend.service.search;
+
+/** One line of the work order list; see {@link #PROJECTION}. */
+public record WorkOrderRow(Long id, String title, String status, String priority, String locationText,
+                           String requesterEmail) {
+
+    public static final Projection<WorkOrderRow> PROJECTION = Projection.of(WorkOrderRow.class,
+            "id", "title", "status", "priority", "locationText", "requesterEmail");
+}
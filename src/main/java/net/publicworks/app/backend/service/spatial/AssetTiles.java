@@ -0,0 +1,313 @@
+package net.publicworks.app.backend.service.spatial;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Vector tiles of each tenant's assets, one layer per {@link AssetTypeEnum}, for the map's asset overlays.
+ * <p>
+ * A tenant's geometries are read once with a streamed scalar query and kept current from
+ * {@link AssetChangedEvent}s; tiles are encoded from that copy on first request, so serving never queries
+ * the database. Each type's geometries are bucketed in a {@link ShapeGrid}, so rendering a tile only looks at
+ * the shapes near it. A tenant is loaded under a lock of its own, so other tenants' tiles keep being served
+ * meanwhile. Encoded tiles sit in a heap cache of {@code tiles.memory-cache} bytes in front of a
+ * memory-mapped {@link TileStore} of {@code tiles.disk-cache} bytes. An asset edit drops only the cached
+ * tiles that its old or new geometry falls in: their keys are worked out from the geometry's bounding box at
+ * each zoom that has tiles cached, so the cost follows the size of the edit rather than of the caches.
+ * <p>
+ * A rendered tile is only cached if no edit of its tenant happened meanwhile; the version check and the put
+ * happen under the same lock as an edit's version bump and eviction, so a stale tile can never be kept.
+ */
+@Slf4j
+@Component
+public class AssetTiles implements DisposableBean {
+
+    /** Features reaching this far (in tile units) past the edge are drawn too, so symbols are not cut off. */
+    private static final int BUFFER = 64;
+    /** Beyond this many tiles at one zoom, an edit scans the cached keys of that zoom instead. */
+    private static final int MAX_KEYS_PER_ZOOM = 1024;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final TileCache memory;
+    private final TileStore disk;
+    private final int maxZoom;
+    private final Map<String, TenantShapes> tenants = new ConcurrentHashMap<>();
+    /** One lock per tenant whose shapes are being loaded. */
+    private final Map<String, Object> loading = new ConcurrentHashMap<>();
+    /** Bit z is set once a tile of zoom z has been cached. */
+    private final AtomicLong cachedZooms = new AtomicLong();
+
+    public AssetTiles(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                      @Value("${tiles.dir:./data/tiles}") Path dir,
+                      @Value("${tiles.memory-cache:64MB}") DataSize memoryCache,
+                      @Value("${tiles.disk-cache:1GB}") DataSize diskCache,
+                      @Value("${tiles.max-zoom:20}") int maxZoom) throws IOException {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.memory = new TileCache(memoryCache.toBytes());
+        this.disk = new TileStore(dir.resolve("tiles.dat"), diskCache.toBytes());
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * The encoded tile, empty when nothing of that type is in it. The array is shared with the cache and
+     * must not be modified.
+     */
+    public byte[] tile(TileKey key) {
+        if (!key.isValid() || key.z() > maxZoom) {
+            throw new IllegalArgumentException("No such tile: " + key);
+        }
+        byte[] tile = memory.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        TenantShapes shapes = shapes(key.tenant());
+        long version = shapes.version.get();
+        tile = disk.get(key);
+        if (tile != null) {
+            cache(shapes, version, key, tile, false);
+            return tile;
+        }
+        tile = VectorTileEncoder.encode(key, key.type().name(), shapes.within(key));
+        cache(shapes, version, key, tile, true);
+        return tile;
+    }
+
+    /** Drops a tenant's geometries and tiles, e.g. after a bulk change that published no events. */
+    public void rebuild(String tenant) {
+        TenantShapes previous = tenants.remove(tenant);
+        if (previous == null) {
+            return;
+        }
+        synchronized (previous) {
+            previous.version.incrementAndGet();
+            memory.invalidate(key -> key.tenant().equals(tenant));
+            disk.invalidate(key -> key.tenant().equals(tenant));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        if (event.assetId() == null) {
+            return;
+        }
+        long id = event.assetId();
+        try {
+            Object[] row = null;
+            if (event.operation() != CrudOperation.REMOVE && event.operation() != CrudOperation.DELETE) {
+                Asset asset = event.asset();
+                row = asset != null
+                        ? new Object[] {asset.getGisGeometryRef(), asset.getType(), asset.getCustomerDiferentiator()}
+                        : readOnly.execute(status -> entityManager.createQuery(
+                                        "select a.gisGeometryRef, a.type, a.customerDiferentiator from Asset a where a.id = :id",
+                                        Object[].class)
+                                .setParameter("id", id)
+                                .getResultStream().findFirst().orElse(null));
+            }
+            for (Map.Entry<String, TenantShapes> entry : tenants.entrySet()) {
+                boolean owner = row != null && entry.getKey().equals(row[2]);
+                TenantShapes shapes = entry.getValue();
+                Placed before = shapes.remove(id);
+                Placed after = owner ? shapes.put(id, (String) row[0], (AssetTypeEnum) row[1]) : null;
+                if (before != null || after != null) {
+                    synchronized (shapes) {
+                        shapes.version.incrementAndGet();
+                        int dropped = invalidate(entry.getKey(), before) + invalidate(entry.getKey(), after);
+                        log.debug("Asset {} touched {} cached tiles", id, dropped);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update map tiles for asset {}: {}", id, e.getMessage());
+        }
+    }
+
+    /** Caches a tile rendered (or read) at {@code version}, unless an edit of the tenant has happened since. */
+    private void cache(TenantShapes shapes, long version, TileKey key, byte[] tile, boolean toDisk) {
+        synchronized (shapes) {
+            if (shapes.version.get() != version) {
+                return;
+            }
+            cachedZooms.getAndUpdate(zooms -> zooms | 1L << key.z());
+            memory.put(key, tile);
+            if (toDisk) {
+                try {
+                    disk.put(key, tile);
+                } catch (IOException e) {
+                    log.warn("Could not store tile {}: {}", key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Drops the cached tiles the shape is drawn in; called with the tenant's shapes locked. */
+    private int invalidate(String tenant, Placed placed) {
+        if (placed == null) {
+            return 0;
+        }
+        AssetTypeEnum type = placed.type();
+        VectorTileEncoder.Shape shape = placed.shape();
+        long zooms = cachedZooms.get();
+        double pad = 2.0 * BUFFER / VectorTileEncoder.EXTENT;
+        List<TileKey> keys = new ArrayList<>();
+        int dropped = 0;
+        for (int z = 0; z <= maxZoom; z++) {
+            if ((zooms & 1L << z) == 0) {
+                continue;
+            }
+            int n = 1 << z;
+            int minX = tile(VectorTileEncoder.worldX(shape.minLon()) * n - pad, n);
+            int maxX = tile(VectorTileEncoder.worldX(shape.maxLon()) * n + pad, n);
+            int minY = tile(VectorTileEncoder.worldY(shape.maxLat()) * n - pad, n);
+            int maxY = tile(VectorTileEncoder.worldY(shape.minLat()) * n + pad, n);
+            if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_KEYS_PER_ZOOM) {
+                int zoom = z;
+                dropped += memory.invalidate(key -> key.z() == zoom && touches(key, tenant, type, shape));
+                dropped += disk.invalidate(key -> key.z() == zoom && touches(key, tenant, type, shape));
+                continue;
+            }
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    TileKey key = new TileKey(tenant, type, z, x, y);
+                    if (touches(key, tenant, type, shape)) {
+                        keys.add(key);
+                    }
+                }
+            }
+        }
+        return dropped + memory.invalidate(keys) + disk.invalidate(keys);
+    }
+
+    private static int tile(double world, int n) {
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(world)));
+    }
+
+    private static boolean touches(TileKey key, String tenant, AssetTypeEnum type, VectorTileEncoder.Shape shape) {
+        if (key.type() != type || !key.tenant().equals(tenant)) {
+            return false;
+        }
+        double[] b = bounds(key);
+        return shape.intersects(b[0], b[1], b[2], b[3]);
+    }
+
+    /** West, south, east and north of the tile, widened by {@link #BUFFER}. */
+    private static double[] bounds(TileKey key) {
+        double padX = (key.east() - key.west()) * BUFFER / VectorTileEncoder.EXTENT;
+        double padY = (key.north() - key.south()) * BUFFER / VectorTileEncoder.EXTENT;
+        return new double[] {key.west() - padX, key.south() - padY, key.east() + padX, key.north() + padY};
+    }
+
+    private TenantShapes shapes(String tenant) {
+        TenantShapes shapes = tenants.get(tenant);
+        if (shapes == null) {
+            Object lock = loading.computeIfAbsent(tenant, t -> new Object());
+            synchronized (lock) {
+                shapes = tenants.get(tenant);
+                if (shapes == null) {
+                    shapes = load(tenant);
+                    tenants.put(tenant, shapes);
+                    loading.remove(tenant, lock);
+                }
+            }
+        }
+        return shapes;
+    }
+
+    private TenantShapes load(String tenant) {
+        long started = System.nanoTime();
+        TenantShapes shapes = new TenantShapes();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = entityManager.createQuery(
+                            "select a.id, a.gisGeometryRef, a.type from Asset a"
+                                    + " where a.customerDiferentiator = :tenant and a.gisGeometryRef is not null",
+                            Object[].class)
+                    .setParameter("tenant", tenant)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                rows.forEach(row -> shapes.put((Long) row[0], (String) row[1], (AssetTypeEnum) row[2]));
+            }
+        });
+        log.info("Map tiles for tenant {}: {} asset geometries loaded in {} ms", tenant, shapes.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return shapes;
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            disk.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Placed(AssetTypeEnum type, VectorTileEncoder.Shape shape) {}
+
+    private static final class TenantShapes {
+
+        final AtomicLong version = new AtomicLong();
+        final Map<AssetTypeEnum, ShapeGrid> byType = new EnumMap<>(AssetTypeEnum.class);
+
+        TenantShapes() {
+            for (AssetTypeEnum type : AssetTypeEnum.values()) {
+                byType.put(type, new ShapeGrid());
+            }
+        }
+
+        Placed put(long id, String geometryRef, AssetTypeEnum type) {
+            double[] coordinates = type == null ? null : GeoPoints.parseShape(geometryRef);
+            if (coordinates == null) {
+                return null;
+            }
+            VectorTileEncoder.Shape shape = VectorTileEncoder.Shape.of(id, coordinates);
+            byType.get(type).put(shape);
+            return new Placed(type, shape);
+        }
+
+        Placed remove(long id) {
+            for (Map.Entry<AssetTypeEnum, ShapeGrid> entry : byType.entrySet()) {
+                VectorTileEncoder.Shape shape = entry.getValue().remove(id);
+                if (shape != null) {
+                    return new Placed(entry.getKey(), shape);
+                }
+            }
+            return null;
+        }
+
+        List<VectorTileEncoder.Shape> within(TileKey key) {
+            double[] b = bounds(key);
+            return byType.get(key.type()).within(b[0], b[1], b[2], b[3]);
+        }
+
+        int size() {
+            return byType.values().stream().mapToInt(ShapeGrid::size).sum();
+        }
+    }
+}
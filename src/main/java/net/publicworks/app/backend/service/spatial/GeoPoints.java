@@ -0,0 +1,86 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a point out of {@code Asset.gisGeometryRef}: WKT {@code POINT(lon lat)} (optionally with an
+ * {@code SRID=4326;} prefix, as written by the asset import) or a GeoJSON Point. Anything else, such as a
+ * reference into an external GIS, has no position and is left off the map.
+ * <p>
+ * {@link #parseShape} also accepts a LineString, for linear assets such as mains drawn on map tiles.
+ */
+final class GeoPoints {
+
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)";
+    private static final Pattern WKT = Pattern.compile(
+            "^\\s*(?:SRID=\\d+;)?\\s*POINT\\s*\\(\\s*" + NUMBER + "\\s+" + NUMBER + "\\s*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern GEOJSON_POINT = Pattern.compile("\"type\"\\s*:\\s*\"Point\"");
+    private static final Pattern GEOJSON_COORDINATES = Pattern.compile(
+            "\"coordinates\"\\s*:\\s*\\[\\s*" + NUMBER + "\\s*,\\s*" + NUMBER);
+    private static final Pattern WKT_LINE = Pattern.compile(
+            "^\\s*(?:SRID=\\d+;)?\\s*LINESTRING\\s*\\(([^()]*)\\)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern GEOJSON_LINE = Pattern.compile("\"type\"\\s*:\\s*\"LineString\"");
+    private static final Pattern GEOJSON_LINE_COORDINATES = Pattern.compile(
+            "\"coordinates\"\\s*:\\s*\\[((?:\\s*\\[[^\\[\\]]*\\]\\s*,?)+)\\]");
+    private static final Pattern ANY_NUMBER = Pattern.compile(NUMBER);
+
+    private GeoPoints() {}
+
+    /** {@code [lon, lat]}, or {@code null} if the value holds no valid point. */
+    static double[] parse(String geometryRef) {
+        if (geometryRef == null || geometryRef.isBlank()) {
+            return null;
+        }
+        Matcher m = WKT.matcher(geometryRef);
+        if (!m.matches()) {
+            m = GEOJSON_COORDINATES.matcher(geometryRef);
+            if (!GEOJSON_POINT.matcher(geometryRef).find() || !m.find()) {
+                return null;
+            }
+        }
+        double lon = Double.parseDouble(m.group(1));
+        double lat = Double.parseDouble(m.group(2));
+        if (lon < -180 || lon > 180 || lat < -90 || lat > 90) {
+            return null;
+        }
+        return new double[] {lon, lat};
+    }
+
+    /**
+     * A point as {@code [lon, lat]} or a line as {@code [lon0, lat0, lon1, lat1, ...]}, or {@code null} if the
+     * value holds neither.
+     */
+    static double[] parseShape(String geometryRef) {
+        double[] point = parse(geometryRef);
+        if (point != null || geometryRef == null) {
+            return point;
+        }
+        Matcher m = WKT_LINE.matcher(geometryRef);
+        if (!m.matches()) {
+            m = GEOJSON_LINE_COORDINATES.matcher(geometryRef);
+            if (!GEOJSON_LINE.matcher(geometryRef).find() || !m.find()) {
+                return null;
+            }
+        }
+        Matcher numbers = ANY_NUMBER.matcher(m.group(1));
+        double[] coordinates = new double[16];
+        int n = 0;
+        while (numbers.find()) {
+            if (n == coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, n * 2);
+            }
+            coordinates[n++] = Double.parseDouble(numbers.group(1));
+        }
+        if (n < 4 || n % 2 != 0) {
+            return null;
+        }
+        for (int i = 0; i < n; i += 2) {
+            if (coordinates[i] < -180 || coordinates[i] > 180 || coordinates[i + 1] < -90 || coordinates[i + 1] > 90) {
+                return null;
+            }
+        }
+        return Arrays.copyOf(coordinates, n);
+    }
+}
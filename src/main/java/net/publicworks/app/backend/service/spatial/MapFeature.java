@@ -0,0 +1,12 @@
+package net.publicworks.app.backend.service.spatial;
+
+/**
+ * One marker: a single asset ({@code count == 1}, with its id and type) or a cluster of {@code count} assets
+ * drawn at their centroid.
+ */
+public record MapFeature(double lon, double lat, int count, Long assetId, String type) {
+
+    public boolean isCluster() {
+        return count > 1;
+    }
+}
@@ -0,0 +1,147 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One tenant's shapes of one asset type, bucketed by bounding box into Web Mercator tiles of zoom {@value #LEVEL}
+ * (about 10 km wide), the same cell scheme as {@link TenantGrid} one level of detail up.
+ * <p>
+ * A shape is listed in every cell its bounding box covers, so a query visits only the cells it overlaps (or every
+ * occupied cell, if that is fewer) and reports each shape from the first of its cells in range. Shapes covering
+ * more than {@value #MAX_CELLS} cells are kept apart and always checked.
+ */
+final class ShapeGrid {
+
+    static final int LEVEL = 12;
+    private static final int MAX_CELLS = 64;
+
+    private final Map<Long, VectorTileEncoder.Shape> shapes = new HashMap<>();
+    private final Map<Long, List<VectorTileEncoder.Shape>> cells = new HashMap<>();
+    private final Map<Long, VectorTileEncoder.Shape> wide = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(VectorTileEncoder.Shape shape) {
+        lock.writeLock().lock();
+        try {
+            unlink(shapes.put(shape.id(), shape));
+            int[] r = range(shape);
+            if ((long) (r[1] - r[0] + 1) * (r[3] - r[2] + 1) > MAX_CELLS) {
+                wide.put(shape.id(), shape);
+                return;
+            }
+            for (int x = r[0]; x <= r[1]; x++) {
+                for (int y = r[2]; y <= r[3]; y++) {
+                    cells.computeIfAbsent(key(x, y), k -> new ArrayList<>(4)).add(shape);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    VectorTileEncoder.Shape remove(long id) {
+        lock.writeLock().lock();
+        try {
+            VectorTileEncoder.Shape shape = shapes.remove(id);
+            unlink(shape);
+            return shape;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return shapes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The shapes whose bounding box intersects the given one. */
+    List<VectorTileEncoder.Shape> within(double west, double south, double east, double north) {
+        int x0 = TenantGrid.tileX(west, LEVEL);
+        int x1 = TenantGrid.tileX(east, LEVEL);
+        int y0 = TenantGrid.tileY(north, LEVEL);
+        int y1 = TenantGrid.tileY(south, LEVEL);
+        List<VectorTileEncoder.Shape> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (VectorTileEncoder.Shape shape : wide.values()) {
+                if (shape.intersects(west, south, east, north)) {
+                    found.add(shape);
+                }
+            }
+            long span = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+            if (span <= cells.size()) {
+                for (int x = x0; x <= x1; x++) {
+                    for (int y = y0; y <= y1; y++) {
+                        List<VectorTileEncoder.Shape> cell = cells.get(key(x, y));
+                        if (cell != null) {
+                            collect(cell, x, y, x0, y0, west, south, east, north, found);
+                        }
+                    }
+                }
+            } else {
+                cells.forEach((key, cell) -> {
+                    int x = (int) (key >>> 32);
+                    int y = (int) (long) key;
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        collect(cell, x, y, x0, y0, west, south, east, north, found);
+                    }
+                });
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(List<VectorTileEncoder.Shape> cell, int x, int y, int x0, int y0,
+                                double west, double south, double east, double north,
+                                List<VectorTileEncoder.Shape> found) {
+        for (VectorTileEncoder.Shape shape : cell) {
+            if (!shape.intersects(west, south, east, north)) {
+                continue;
+            }
+            // a shape sits in several cells; only the first one in range reports it
+            int[] r = range(shape);
+            if (x == Math.max(x0, r[0]) && y == Math.max(y0, r[2])) {
+                found.add(shape);
+            }
+        }
+    }
+
+    private void unlink(VectorTileEncoder.Shape shape) {
+        if (shape == null || wide.remove(shape.id()) != null) {
+            return;
+        }
+        int[] r = range(shape);
+        for (int x = r[0]; x <= r[1]; x++) {
+            for (int y = r[2]; y <= r[3]; y++) {
+                long key = key(x, y);
+                List<VectorTileEncoder.Shape> cell = cells.get(key);
+                if (cell != null && cell.remove(shape) && cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /** Min x, max x, min y and max y of the cells the shape's bounding box covers. */
+    private static int[] range(VectorTileEncoder.Shape shape) {
+        return new int[] {
+                TenantGrid.tileX(shape.minLon(), LEVEL), TenantGrid.tileX(shape.maxLon(), LEVEL),
+                TenantGrid.tileY(shape.maxLat(), LEVEL), TenantGrid.tileY(shape.minLat(), LEVEL)};
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
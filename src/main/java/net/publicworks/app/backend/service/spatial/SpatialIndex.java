@@ -0,0 +1,184 @@
+package net.publicworks.app.backend.service.spatial;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CrudOperation;
+import net.publicworks.app.backend.entity.asset.Asset;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Where each tenant's assets are, for the map. Positions come from {@code Asset.gisGeometryRef}
+ * (see {@link GeoPoints}); assets without one are not indexed.
+ * <p>
+ * A tenant is loaded on its first query with one streamed scalar query and then kept current from
+ * {@link AssetChangedEvent}s, one asset at a time. Changes that arrive while a tenant is loading are queued and
+ * re-read onto the new grid, before it is published and once more after. {@link #query} never returns more than
+ * {@code map.max-features} markers: beyond that, assets are clustered.
+ */
+@Slf4j
+@Component
+public class SpatialIndex {
+
+    private static final int ID_BATCH = 500;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final int maxFeatures;
+    private final Map<String, TenantGrid> tenants = new ConcurrentHashMap<>();
+    /** One set of changed asset ids per load in progress. */
+    private final Set<Set<Long>> loading = ConcurrentHashMap.newKeySet();
+
+    public SpatialIndex(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                        @Value("${map.max-features:2000}") int maxFeatures) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxFeatures = maxFeatures;
+    }
+
+    public List<MapFeature> query(String tenant, Viewport viewport) {
+        return grid(tenant).query(viewport.normalized(), maxFeatures);
+    }
+
+    public int size(String tenant) {
+        return grid(tenant).size();
+    }
+
+    /** Reloads the tenant from the database, e.g. after a bulk change that published no events. */
+    public void rebuild(String tenant) {
+        loadAndPublish(tenant);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        if (event.assetId() == null) {
+            return;
+        }
+        loading.forEach(changed -> changed.add(event.assetId()));
+        if (event.operation() == CrudOperation.REMOVE || event.operation() == CrudOperation.DELETE) {
+            tenants.values().forEach(grid -> grid.remove(event.assetId()));
+            return;
+        }
+        try {
+            Asset asset = event.asset();
+            Object[] row = asset != null
+                    ? new Object[] {asset.getGisGeometryRef(), asset.getType(), asset.getCustomerDiferentiator()}
+                    : readOnly.execute(status -> entityManager.createQuery(
+                                    "select a.gisGeometryRef, a.type, a.customerDiferentiator from Asset a where a.id = :id",
+                                    Object[].class)
+                            .setParameter("id", event.assetId())
+                            .getResultStream().findFirst().orElse(null));
+            if (row == null) {
+                tenants.values().forEach(grid -> grid.remove(event.assetId()));
+                return;
+            }
+            TenantGrid grid = row[2] == null ? null : tenants.get((String) row[2]);
+            if (grid != null) {
+                place(grid, event.assetId(), (String) row[0], row[1]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update map position of asset {}: {}", event.assetId(), e.getMessage());
+        }
+    }
+
+    private TenantGrid grid(String tenant) {
+        TenantGrid grid = tenants.get(tenant);
+        if (grid == null) {
+            synchronized (tenants) {
+                grid = tenants.get(tenant);
+                if (grid == null) {
+                    grid = loadAndPublish(tenant);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Loads the tenant into a new grid and publishes it. Assets changed while it loaded may have been read before
+     * their change committed, so they are read again: once before the grid is published, to keep them out of
+     * sight, and once after, for changes that arrived in between and found only the old grid (or none).
+     */
+    private TenantGrid loadAndPublish(String tenant) {
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        loading.add(changed);
+        TenantGrid grid;
+        try {
+            grid = load(tenant);
+            replay(tenant, grid, changed);
+            tenants.put(tenant, grid);
+        } finally {
+            loading.remove(changed);
+        }
+        replay(tenant, grid, changed);
+        return grid;
+    }
+
+    private void replay(String tenant, TenantGrid grid, Set<Long> changed) {
+        List<Long> ids = new ArrayList<>(changed);
+        changed.removeAll(ids);
+        for (int i = 0; i < ids.size(); i += ID_BATCH) {
+            List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + ID_BATCH));
+            Set<Long> gone = new HashSet<>(chunk);
+            readOnly.executeWithoutResult(status -> entityManager.createQuery(
+                            "select a.id, a.gisGeometryRef, a.type from Asset a"
+                                    + " where a.id in :ids and a.customerDiferentiator = :tenant",
+                            Object[].class)
+                    .setParameter("ids", chunk)
+                    .setParameter("tenant", tenant)
+                    .getResultList()
+                    .forEach(row -> {
+                        gone.remove((Long) row[0]);
+                        place(grid, (Long) row[0], (String) row[1], row[2]);
+                    }));
+            gone.forEach(grid::remove);
+        }
+        if (!ids.isEmpty()) {
+            log.debug("Map index for tenant {}: {} assets changed during the load re-read", tenant, ids.size());
+        }
+    }
+
+    private TenantGrid load(String tenant) {
+        long started = System.nanoTime();
+        TenantGrid grid = new TenantGrid();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = entityManager.createQuery(
+                            "select a.id, a.gisGeometryRef, a.type from Asset a"
+                                    + " where a.customerDiferentiator = :tenant and a.gisGeometryRef is not null",
+                            Object[].class)
+                    .setParameter("tenant", tenant)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                rows.forEach(row -> place(grid, (Long) row[0], (String) row[1], row[2]));
+            }
+        });
+        log.info("Map index for tenant {}: {} positioned assets loaded in {} ms", tenant, grid.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return grid;
+    }
+
+    private static void place(TenantGrid grid, long id, String geometryRef, Object type) {
+        double[] point = GeoPoints.parse(geometryRef);
+        if (point == null) {
+            grid.remove(id);
+        } else {
+            grid.put(id, point[0], point[1], type == null ? null : type.toString());
+        }
+    }
+}
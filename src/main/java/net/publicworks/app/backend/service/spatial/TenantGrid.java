@@ -0,0 +1,241 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * One tenant's asset positions, bucketed into Web Mercator tiles of zoom {@value #LEVEL} (about 600 m wide).
+ * <p>
+ * Each occupied cell keeps its points in parallel primitive arrays, so moving or removing an asset touches one
+ * cell. A viewport query visits only the cells it overlaps (or every occupied cell, if that is fewer) and, when
+ * more than the feature limit are visible, merges cells into clusters about 64 px wide at the requested zoom.
+ */
+final class TenantGrid {
+
+    static final int LEVEL = 16;
+    private static final double MAX_LAT = 85.05112878;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Long> cellOf = new HashMap<>();
+    private final Map<String, Short> typeIndex = new HashMap<>();
+    private final List<String> typeNames = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(long id, double lon, double lat, String type) {
+        int x = tileX(lon, LEVEL);
+        int y = tileY(lat, LEVEL);
+        long key = key(x, y);
+        lock.writeLock().lock();
+        try {
+            Long previous = cellOf.put(id, key);
+            if (previous != null) {
+                cells.get(previous).remove(id);
+                if (cells.get(previous).size == 0) {
+                    cells.remove(previous);
+                }
+            }
+            cells.computeIfAbsent(key, k -> new Cell(x, y)).add(id, lon, lat, type(type));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Long key = cellOf.remove(id);
+            if (key != null) {
+                Cell cell = cells.get(key);
+                cell.remove(id);
+                if (cell.size == 0) {
+                    cells.remove(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return cellOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Individual assets if at most {@code maxFeatures} are in view, otherwise clusters (single assets stay points). */
+    List<MapFeature> query(Viewport viewport, int maxFeatures) {
+        int clusterLevel = Math.max(0, Math.min(LEVEL, viewport.zoom() + 2));
+        int shift = LEVEL - clusterLevel;
+        Map<Long, Cluster> clusters = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int[] total = new int[1];
+            visit(viewport, (cell, i) -> {
+                long clusterKey = key(cell.x >> shift, cell.y >> shift);
+                clusters.computeIfAbsent(clusterKey, k -> new Cluster()).add(cell, i);
+                total[0]++;
+            });
+            List<MapFeature> features = new ArrayList<>(Math.min(total[0], maxFeatures));
+            if (total[0] <= maxFeatures) {
+                visit(viewport, (cell, i) -> features.add(point(cell, i)));
+            } else {
+                for (Cluster c : clusters.values()) {
+                    features.add(c.count == 1
+                            ? point(c.first, c.firstIndex)
+                            : new MapFeature(c.sumLon / c.count, c.sumLat / c.count, c.count, null, null));
+                }
+            }
+            return features;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Calls {@code visitor} for every point inside the viewport. */
+    private void visit(Viewport viewport, PointVisitor visitor) {
+        double south = Math.max(-MAX_LAT, viewport.south());
+        double north = Math.min(MAX_LAT, viewport.north());
+        int y0 = tileY(north, LEVEL);
+        int y1 = tileY(south, LEVEL);
+        if (viewport.west() <= viewport.east()) {
+            visit(tileX(viewport.west(), LEVEL), tileX(viewport.east(), LEVEL), y0, y1,
+                    viewport.west(), viewport.east(), south, north, visitor);
+        } else {
+            visit(tileX(viewport.west(), LEVEL), tileX(180, LEVEL), y0, y1, viewport.west(), 180, south, north, visitor);
+            visit(tileX(-180, LEVEL), tileX(viewport.east(), LEVEL), y0, y1, -180, viewport.east(), south, north, visitor);
+        }
+    }
+
+    private void visit(int x0, int x1, int y0, int y1, double west, double east, double south, double north,
+                       PointVisitor visitor) {
+        Consumer<Cell> scan = cell -> {
+            for (int i = 0; i < cell.size; i++) {
+                if (cell.lon[i] >= west && cell.lon[i] <= east && cell.lat[i] >= south && cell.lat[i] <= north) {
+                    visitor.visit(cell, i);
+                }
+            }
+        };
+        long span = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (span <= cells.size()) {
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    Cell cell = cells.get(key(x, y));
+                    if (cell != null) {
+                        scan.accept(cell);
+                    }
+                }
+            }
+        } else {
+            cells.forEach((key, cell) -> {
+                if (cell.x >= x0 && cell.x <= x1 && cell.y >= y0 && cell.y <= y1) {
+                    scan.accept(cell);
+                }
+            });
+        }
+    }
+
+    private MapFeature point(Cell cell, int i) {
+        return new MapFeature(cell.lon[i], cell.lat[i], 1, cell.ids[i], typeNames.get(cell.type[i]));
+    }
+
+    private short type(String type) {
+        String name = type == null ? "" : type;
+        Short index = typeIndex.get(name);
+        if (index == null) {
+            index = (short) typeNames.size();
+            typeIndex.put(name, index);
+            typeNames.add(name);
+        }
+        return index;
+    }
+
+    static int tileX(double lon, int level) {
+        int n = 1 << level;
+        return Math.min(n - 1, Math.max(0, (int) Math.floor((lon + 180) / 360 * n)));
+    }
+
+    static int tileY(double lat, int level) {
+        int n = 1 << level;
+        double rad = Math.toRadians(Math.max(-MAX_LAT, Math.min(MAX_LAT, lat)));
+        double y = (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2;
+        return Math.min(n - 1, Math.max(0, (int) Math.floor(y * n)));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    @FunctionalInterface
+    private interface PointVisitor {
+        void visit(Cell cell, int index);
+    }
+
+    private static final class Cell {
+
+        final int x;
+        final int y;
+        long[] ids = new long[4];
+        double[] lon = new double[4];
+        double[] lat = new double[4];
+        short[] type = new short[4];
+        int size;
+
+        Cell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        void add(long id, double pointLon, double pointLat, short t) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                lon = Arrays.copyOf(lon, size * 2);
+                lat = Arrays.copyOf(lat, size * 2);
+                type = Arrays.copyOf(type, size * 2);
+            }
+            ids[size] = id;
+            lon[size] = pointLon;
+            lat[size] = pointLat;
+            type[size++] = t;
+        }
+
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    lon[i] = lon[size];
+                    lat[i] = lat[size];
+                    type[i] = type[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Cluster {
+
+        int count;
+        double sumLon;
+        double sumLat;
+        Cell first;
+        int firstIndex;
+
+        void add(Cell cell, int i) {
+            if (count++ == 0) {
+                first = cell;
+                firstIndex = i;
+            }
+            sumLon += cell.lon[i];
+            sumLat += cell.lat[i];
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/** Least-recently-used encoded tiles, bounded by their total size in bytes. */
+final class TileCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<TileKey, byte[]> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    TileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized byte[] get(TileKey key) {
+        return tiles.get(key);
+    }
+
+    synchronized void put(TileKey key, byte[] tile) {
+        if (tile.length > maxBytes) {
+            return;
+        }
+        byte[] previous = tiles.put(key, tile);
+        bytes += tile.length - (previous == null ? 0 : previous.length);
+        Iterator<Map.Entry<TileKey, byte[]>> eldest = tiles.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    synchronized int invalidate(Predicate<TileKey> touched) {
+        int before = tiles.size();
+        tiles.entrySet().removeIf(e -> {
+            boolean drop = touched.test(e.getKey());
+            if (drop) {
+                bytes -= e.getValue().length;
+            }
+            return drop;
+        });
+        return before - tiles.size();
+    }
+
+    synchronized int invalidate(Collection<TileKey> keys) {
+        int dropped = 0;
+        for (TileKey key : keys) {
+            byte[] tile = tiles.remove(key);
+            if (tile != null) {
+                bytes -= tile.length;
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    synchronized int size() {
+        return tiles.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,37 @@
+package net.publicworks.app.backend.service.spatial;
+
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+
+/** One z/x/y tile of one tenant's assets of one type. */
+public record TileKey(String tenant, AssetTypeEnum type, int z, int x, int y) {
+
+    public boolean isValid() {
+        return tenant != null && type != null && z >= 0 && z <= 24
+                && x >= 0 && y >= 0 && x < (1 << z) && y < (1 << z);
+    }
+
+    /** Western edge of the tile, in degrees. */
+    double west() {
+        return lon(x);
+    }
+
+    double east() {
+        return lon(x + 1);
+    }
+
+    double north() {
+        return lat(y);
+    }
+
+    double south() {
+        return lat(y + 1);
+    }
+
+    private double lon(int tileX) {
+        return (double) tileX / (1 << z) * 360 - 180;
+    }
+
+    private double lat(int tileY) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * tileY / (1 << z)))));
+    }
+}
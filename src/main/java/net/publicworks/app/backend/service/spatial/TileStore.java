@@ -0,0 +1,170 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Encoded tiles in one memory-mapped file, used as a ring of fixed-size segments: tiles are appended to the
+ * current segment and, once the file has reached its size, the oldest segment is overwritten and its tiles
+ * forgotten. Invalidated tiles are only dropped from the index; their bytes are reclaimed when the ring comes
+ * round.
+ * <p>
+ * The index lives on the heap and the file is truncated on open: tiles are cheap to regenerate, and ones
+ * left over from a previous run may predate edits made while the application was down.
+ */
+final class TileStore implements Closeable {
+
+    private static final int MAX_SEGMENT = 16 << 20;
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final int segmentCount;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<TileKey, Slot> index = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int segment = -1;
+    private int offset;
+    private long bytes;
+
+    TileStore(Path file, long maxBytes) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.segmentSize = (int) Math.max(64 << 10, Math.min(MAX_SEGMENT, maxBytes / 16));
+        this.segmentCount = (int) Math.max(1, maxBytes / segmentSize);
+    }
+
+    /** A copy of the stored tile, or {@code null}. */
+    byte[] get(TileKey key) {
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot == null) {
+                return null;
+            }
+            byte[] tile = new byte[slot.length()];
+            segments.get(slot.segment()).get(slot.offset(), tile);
+            return tile;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(TileKey key, byte[] tile) throws IOException {
+        if (tile.length > segmentSize) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (segment < 0 || offset + tile.length > segmentSize) {
+                nextSegment();
+            }
+            segments.get(segment).put(offset, tile);
+            Slot previous = index.put(key, new Slot(segment, offset, tile.length));
+            if (previous != null) {
+                bytes -= previous.length();
+            }
+            offset += tile.length;
+            bytes += tile.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int invalidate(Predicate<TileKey> touched) {
+        lock.writeLock().lock();
+        try {
+            int before = index.size();
+            index.entrySet().removeIf(e -> {
+                boolean drop = touched.test(e.getKey());
+                if (drop) {
+                    bytes -= e.getValue().length();
+                }
+                return drop;
+            });
+            return before - index.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int invalidate(Collection<TileKey> keys) {
+        lock.writeLock().lock();
+        try {
+            int dropped = 0;
+            for (TileKey key : keys) {
+                Slot slot = index.remove(key);
+                if (slot != null) {
+                    bytes -= slot.length();
+                    dropped++;
+                }
+            }
+            return dropped;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Bytes of live tiles. */
+    long bytes() {
+        lock.readLock().lock();
+        try {
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        segment = (segment + 1) % segmentCount;
+        offset = 0;
+        if (segment == segments.size()) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentSize, segmentSize));
+        } else {
+            int reused = segment;
+            index.values().removeIf(slot -> {
+                boolean drop = slot.segment() == reused;
+                if (drop) {
+                    bytes -= slot.length();
+                }
+                return drop;
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            segments.clear();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Slot(int segment, int offset, int length) {}
+}
@@ -0,0 +1,181 @@
+package net.publicworks.app.backend.service.spatial;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes one layer of assets as a Mapbox Vector Tile (protobuf, spec 2.1): a point per point asset and a
+ * line per linear one, with the asset id as feature id and as its only attribute, {@code id}. Coordinates are in tile units
+ * of {@value #EXTENT}; lines are not clipped, clients clip to the tile.
+ */
+final class VectorTileEncoder {
+
+    static final int EXTENT = 4096;
+
+    private static final int POINT = 1;
+    private static final int LINESTRING = 2;
+    private static final int MOVE_TO = 1;
+    private static final int LINE_TO = 2;
+
+    private VectorTileEncoder() {}
+
+    /** An empty array (a valid tile without layers) if there are no shapes. */
+    static byte[] encode(TileKey key, String layer, List<Shape> shapes) {
+        if (shapes.isEmpty()) {
+            return new byte[0];
+        }
+        double scale = 1 << key.z();
+        ProtoWriter features = new ProtoWriter(shapes.size() * 16);
+        ProtoWriter values = new ProtoWriter(shapes.size() * 8);
+        ProtoWriter feature = new ProtoWriter(64);
+        ProtoWriter geometry = new ProtoWriter(64);
+        ProtoWriter scratch = new ProtoWriter(16);
+        int index = 0;
+        int[] xs = new int[16];
+        int[] ys = new int[16];
+        for (Shape shape : shapes) {
+            double[] c = shape.coordinates();
+            int points = c.length / 2;
+            if (xs.length < points) {
+                xs = new int[points];
+                ys = new int[points];
+            }
+            int n = 0;
+            for (int i = 0; i < c.length; i += 2) {
+                int px = (int) Math.round((worldX(c[i]) * scale - key.x()) * EXTENT);
+                int py = (int) Math.round((worldY(c[i + 1]) * scale - key.y()) * EXTENT);
+                // consecutive points that land on the same tile unit add nothing
+                if (n == 0 || px != xs[n - 1] || py != ys[n - 1]) {
+                    xs[n] = px;
+                    ys[n++] = py;
+                }
+            }
+            geometry.reset();
+            geometry.varint(command(MOVE_TO, 1)).varint(zigzag(xs[0])).varint(zigzag(ys[0]));
+            if (n > 1) {
+                geometry.varint(command(LINE_TO, n - 1));
+                for (int i = 1; i < n; i++) {
+                    geometry.varint(zigzag(xs[i] - xs[i - 1])).varint(zigzag(ys[i] - ys[i - 1]));
+                }
+            }
+            scratch.reset();
+            scratch.tag(5, 0).varint(shape.id());
+            values.tag(4, 2).bytes(scratch);
+            scratch.reset();
+            scratch.varint(0).varint(index++);
+            feature.reset();
+            feature.tag(1, 0).varint(shape.id());
+            feature.tag(2, 2).bytes(scratch);
+            feature.tag(3, 0).varint(n > 1 ? LINESTRING : POINT);
+            feature.tag(4, 2).bytes(geometry);
+            features.tag(2, 2).bytes(feature);
+        }
+        ProtoWriter body = new ProtoWriter(features.size + values.size + layer.length() + 16);
+        body.tag(15, 0).varint(2);
+        body.tag(1, 2).string(layer);
+        body.raw(features);
+        body.tag(3, 2).string("id");
+        body.raw(values);
+        body.tag(5, 0).varint(EXTENT);
+        ProtoWriter tile = new ProtoWriter(body.size + 8);
+        tile.tag(3, 2).bytes(body);
+        return tile.toByteArray();
+    }
+
+    static double worldX(double lon) {
+        return (lon + 180) / 360;
+    }
+
+    static double worldY(double lat) {
+        double rad = Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, lat)));
+        return (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2;
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    /** An asset's geometry: {@code [lon, lat]} for a point, {@code [lon0, lat0, lon1, lat1, ...]} for a line. */
+    record Shape(long id, double[] coordinates, double minLon, double minLat, double maxLon, double maxLat) {
+
+        static Shape of(long id, double[] coordinates) {
+            double minLon = 180, minLat = 90, maxLon = -180, maxLat = -90;
+            for (int i = 0; i < coordinates.length; i += 2) {
+                minLon = Math.min(minLon, coordinates[i]);
+                maxLon = Math.max(maxLon, coordinates[i]);
+                minLat = Math.min(minLat, coordinates[i + 1]);
+                maxLat = Math.max(maxLat, coordinates[i + 1]);
+            }
+            return new Shape(id, coordinates, minLon, minLat, maxLon, maxLat);
+        }
+
+        boolean intersects(double west, double south, double east, double north) {
+            return minLon <= east && maxLon >= west && minLat <= north && maxLat >= south;
+        }
+    }
+
+    private static final class ProtoWriter {
+
+        byte[] buffer;
+        int size;
+
+        ProtoWriter(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        ProtoWriter tag(int field, int wireType) {
+            return varint((field << 3) | wireType);
+        }
+
+        ProtoWriter varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+            return this;
+        }
+
+        ProtoWriter string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buffer, size, utf8.length);
+            size += utf8.length;
+            return this;
+        }
+
+        /** {@code other} as a length-delimited field value. */
+        ProtoWriter bytes(ProtoWriter other) {
+            varint(other.size);
+            return raw(other);
+        }
+
+        ProtoWriter raw(ProtoWriter other) {
+            ensure(other.size);
+            System.arraycopy(other.buffer, 0, buffer, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int more) {
+            if (size + more > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + more));
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.publicworks.app.backend.service.spatial;
+
+/** The visible map area in WGS84 degrees; {@code west > east} when it crosses the antimeridian. */
+public record Viewport(double west, double south, double east, double north, int zoom) {
+
+    /**
+     * Brings longitudes from a map that has been panned around the world back into [-180, 180];
+     * a view wider than the world becomes the whole world.
+     */
+    public Viewport normalized() {
+        if (east - west >= 360) {
+            return new Viewport(-180, south, 180, north, zoom);
+        }
+        return new Viewport(wrap(west), south, wrap(east), north, zoom);
+    }
+
+    private static double wrap(double lon) {
+        double wrapped = ((lon + 180) % 360 + 360) % 360 - 180;
+        return wrapped == -180 && lon > 0 ? 180 : wrapped;
+    }
+}
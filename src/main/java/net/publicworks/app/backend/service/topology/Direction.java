@@ -0,0 +1,11 @@
+package net.publicworks.app.backend.service.topology;
+
+/**
+ * Which way edges are followed. Downstream follows {@code fromAsset -> toAsset} and parent to child,
+ * upstream the reverse, both ignores direction.
+ */
+public enum Direction {
+    DOWNSTREAM,
+    UPSTREAM,
+    BOTH
+}
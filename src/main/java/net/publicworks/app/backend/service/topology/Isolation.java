@@ -0,0 +1,7 @@
+package net.publicworks.app.backend.service.topology;
+
+/**
+ * Answer to "what do we close for this break": {@code boundary} are the isolating assets (valves) that cut the
+ * {@code segment} off from the rest of the network, {@code downstream} everything fed only through the segment.
+ */
+public record Isolation(long[] boundary, long[] segment, long[] downstream) {}
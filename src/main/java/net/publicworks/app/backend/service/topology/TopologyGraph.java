@@ -0,0 +1,449 @@
+package net.publicworks.app.backend.service.topology;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable adjacency of one tenant's assets in compressed sparse row form.
+ * <p>
+ * Assets are numbered by position in the sorted {@code ids} array; edges are {@code int} indexes grouped per
+ * node in {@code outTarget} / {@code inSource}, with the relationship type as a {@code short} beside each one.
+ * No objects per node or edge, so a million-asset network is a handful of primitive arrays and a trace is a
+ * walk over them. Changes produce a new graph ({@link #apply}); readers keep whatever graph they started with.
+ */
+final class TopologyGraph {
+
+    /** Relationship type used for {@code Asset.parent}, pointing from parent to child. */
+    static final String PARENT = "parent";
+
+    private final long[] ids;
+    private final short[] nodeType;
+    private final String[] typeNames;
+    private final String[] relNames;
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final short[] outRel;
+    private final int[] inStart;
+    private final int[] inSource;
+    private final short[] inRel;
+
+    private TopologyGraph(long[] ids, short[] nodeType, String[] typeNames, String[] relNames,
+                          int[] outStart, int[] outTarget, short[] outRel,
+                          int[] inStart, int[] inSource, short[] inRel) {
+        this.ids = ids;
+        this.nodeType = nodeType;
+        this.typeNames = typeNames;
+        this.relNames = relNames;
+        this.outStart = outStart;
+        this.outTarget = outTarget;
+        this.outRel = outRel;
+        this.inStart = inStart;
+        this.inSource = inSource;
+        this.inRel = inRel;
+    }
+
+    int nodeCount() {
+        return ids.length;
+    }
+
+    int edgeCount() {
+        return outTarget.length;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /** Asset ids reachable from {@code start}, in visit order, {@code start} first; empty if it is unknown. */
+    long[] trace(long start, Direction direction, boolean depthFirst, Set<String> relationshipTypes, int maxDepth) {
+        int from = Arrays.binarySearch(ids, start);
+        if (from < 0) {
+            return new long[0];
+        }
+        boolean[] rels = relMask(relationshipTypes);
+        int limit = maxDepth < 0 ? Integer.MAX_VALUE : maxDepth;
+        BitSet visited = new BitSet(ids.length);
+        int[] work = new int[ids.length];
+        int[] depth = new int[ids.length];
+        long[] out = new long[ids.length];
+        int found = 0;
+        int head = 0;
+        int tail = 0;
+        work[tail] = from;
+        depth[tail++] = 0;
+        if (!depthFirst) {
+            visited.set(from);
+        }
+        while (tail > head) {
+            int node;
+            int d;
+            if (depthFirst) {
+                node = work[--tail];
+                d = depth[tail];
+                if (visited.get(node)) {
+                    continue;
+                }
+                visited.set(node);
+            } else {
+                node = work[head];
+                d = depth[head++];
+            }
+            out[found++] = ids[node];
+            if (d == limit) {
+                continue;
+            }
+            if (direction != Direction.UPSTREAM) {
+                int first = outStart[node];
+                int last = outStart[node + 1] - 1;
+                for (int k = 0; k <= last - first; k++) {
+                    // a stack pops in reverse, so push the last edge first to visit edges in order
+                    int e = depthFirst ? last - k : first + k;
+                    int next = outTarget[e];
+                    if ((rels == null || rels[outRel[e]]) && !visited.get(next)) {
+                        if (tail == work.length) {
+                            work = Arrays.copyOf(work, work.length * 2);
+                            depth = Arrays.copyOf(depth, depth.length * 2);
+                        }
+                        if (!depthFirst) {
+                            visited.set(next);
+                        }
+                        work[tail] = next;
+                        depth[tail++] = d + 1;
+                    }
+                }
+            }
+            if (direction != Direction.DOWNSTREAM) {
+                int first = inStart[node];
+                int last = inStart[node + 1] - 1;
+                for (int k = 0; k <= last - first; k++) {
+                    // a stack pops in reverse, so push the last edge first to visit edges in order
+                    int e = depthFirst ? last - k : first + k;
+                    int next = inSource[e];
+                    if ((rels == null || rels[inRel[e]]) && !visited.get(next)) {
+                        if (tail == work.length) {
+                            work = Arrays.copyOf(work, work.length * 2);
+                            depth = Arrays.copyOf(depth, depth.length * 2);
+                        }
+                        if (!depthFirst) {
+                            visited.set(next);
+                        }
+                        work[tail] = next;
+                        depth[tail++] = d + 1;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(out, found);
+    }
+
+    /** Fewest-hops path from {@code from} to {@code to}, both included; empty if there is none. */
+    long[] shortestPath(long from, long to, Direction direction, Set<String> relationshipTypes) {
+        int source = Arrays.binarySearch(ids, from);
+        int target = Arrays.binarySearch(ids, to);
+        if (source < 0 || target < 0) {
+            return new long[0];
+        }
+        boolean[] rels = relMask(relationshipTypes);
+        int[] prev = new int[ids.length];
+        Arrays.fill(prev, -1);
+        prev[source] = source;
+        int[] queue = new int[ids.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail && prev[target] < 0) {
+            int node = queue[head++];
+            if (direction != Direction.UPSTREAM) {
+                for (int e = outStart[node]; e < outStart[node + 1]; e++) {
+                    int next = outTarget[e];
+                    if ((rels == null || rels[outRel[e]]) && prev[next] < 0) {
+                        prev[next] = node;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            if (direction != Direction.DOWNSTREAM) {
+                for (int e = inStart[node]; e < inStart[node + 1]; e++) {
+                    int next = inSource[e];
+                    if ((rels == null || rels[inRel[e]]) && prev[next] < 0) {
+                        prev[next] = node;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        if (prev[target] < 0) {
+            return new long[0];
+        }
+        int length = 1;
+        for (int n = target; n != source; n = prev[n]) {
+            length++;
+        }
+        long[] path = new long[length];
+        for (int n = target, i = length - 1; i >= 0; n = prev[n], i--) {
+            path[i] = ids[n];
+        }
+        return path;
+    }
+
+    /**
+     * Spreads from {@code start} in both directions, stopping at assets whose type is in {@code isolatingTypes};
+     * those form the boundary. Downstream is then everything reachable downstream of the segment that is
+     * neither segment nor boundary.
+     */
+    Isolation isolate(long start, Set<String> isolatingTypes, Set<String> relationshipTypes) {
+        int from = Arrays.binarySearch(ids, start);
+        if (from < 0) {
+            return new Isolation(new long[0], new long[0], new long[0]);
+        }
+        boolean[] rels = relMask(relationshipTypes);
+        boolean[] isolating = new boolean[typeNames.length];
+        for (int t = 0; t < typeNames.length; t++) {
+            isolating[t] = isolatingTypes.contains(typeNames[t]);
+        }
+        BitSet seen = new BitSet(ids.length);
+        BitSet boundary = new BitSet(ids.length);
+        int[] queue = new int[ids.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        seen.set(from);
+        while (head < tail) {
+            int node = queue[head++];
+            if (node != from && isolating[nodeType[node]]) {
+                boundary.set(node);
+                continue;
+            }
+            for (int e = outStart[node]; e < outStart[node + 1]; e++) {
+                if ((rels == null || rels[outRel[e]]) && !seen.get(outTarget[e])) {
+                    seen.set(outTarget[e]);
+                    queue[tail++] = outTarget[e];
+                }
+            }
+            for (int e = inStart[node]; e < inStart[node + 1]; e++) {
+                if ((rels == null || rels[inRel[e]]) && !seen.get(inSource[e])) {
+                    seen.set(inSource[e]);
+                    queue[tail++] = inSource[e];
+                }
+            }
+        }
+        BitSet segment = (BitSet) seen.clone();
+        segment.andNot(boundary);
+
+        BitSet downstream = new BitSet(ids.length);
+        head = 0;
+        tail = 0;
+        for (int n = segment.nextSetBit(0); n >= 0; n = segment.nextSetBit(n + 1)) {
+            queue[tail++] = n;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = outStart[node]; e < outStart[node + 1]; e++) {
+                int next = outTarget[e];
+                if ((rels == null || rels[outRel[e]]) && !segment.get(next) && !downstream.get(next)) {
+                    downstream.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        downstream.andNot(boundary);
+        return new Isolation(toIds(boundary), toIds(segment), toIds(downstream));
+    }
+
+    /**
+     * A new graph with the given assets' edges replaced. Each update carries every edge touching that asset
+     * (both directions, parent and children included); an update for an asset that no longer exists removes it.
+     */
+    TopologyGraph apply(Collection<NodeUpdate> updates) {
+        Map<Long, NodeUpdate> byId = new HashMap<>();
+        for (NodeUpdate update : updates) {
+            byId.put(update.id(), update);
+        }
+        Builder builder = new Builder(typeNames, relNames);
+        for (int n = 0; n < ids.length; n++) {
+            if (!byId.containsKey(ids[n])) {
+                builder.node(ids[n], typeNames[nodeType[n]]);
+            }
+        }
+        for (NodeUpdate update : byId.values()) {
+            if (update.type() != null) {
+                builder.node(update.id(), update.type());
+            }
+        }
+        for (int n = 0; n < ids.length; n++) {
+            if (byId.containsKey(ids[n])) {
+                continue;
+            }
+            for (int e = outStart[n]; e < outStart[n + 1]; e++) {
+                if (!byId.containsKey(ids[outTarget[e]])) {
+                    builder.edge(ids[n], ids[outTarget[e]], relNames[outRel[e]]);
+                }
+            }
+        }
+        // an edge between two updated assets is in both updates
+        Set<Edge> fresh = new HashSet<>();
+        for (NodeUpdate update : byId.values()) {
+            for (Edge edge : update.edges()) {
+                if (fresh.add(edge)) {
+                    builder.edge(edge.from(), edge.to(), edge.type());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private boolean[] relMask(Set<String> relationshipTypes) {
+        if (relationshipTypes == null || relationshipTypes.isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[relNames.length];
+        for (int r = 0; r < relNames.length; r++) {
+            mask[r] = relationshipTypes.contains(relNames[r]);
+        }
+        return mask;
+    }
+
+    private long[] toIds(BitSet nodes) {
+        long[] out = new long[nodes.cardinality()];
+        int i = 0;
+        for (int n = nodes.nextSetBit(0); n >= 0; n = nodes.nextSetBit(n + 1)) {
+            out[i++] = ids[n];
+        }
+        return out;
+    }
+
+    record Edge(long from, long to, String type) {}
+
+    /** Current state of one asset: {@code type} is {@code null} when it was deleted. */
+    record NodeUpdate(long id, String type, List<Edge> edges) {}
+
+    /**
+     * Collects nodes and edges into growable primitive arrays, then sorts them into CSR form.
+     * Edges whose ends are not both known nodes (another tenant, or deleted meanwhile) are dropped.
+     */
+    static final class Builder {
+
+        private final Map<String, Short> types = new HashMap<>();
+        private final Map<String, Short> rels = new HashMap<>();
+        private long[] nodeIds = new long[1024];
+        private short[] nodeTypes = new short[1024];
+        private int nodes;
+        private long[] from = new long[1024];
+        private long[] to = new long[1024];
+        private short[] rel = new short[1024];
+        private int edges;
+
+        Builder() {
+        }
+
+        private Builder(String[] typeNames, String[] relNames) {
+            for (String t : typeNames) {
+                intern(types, t);
+            }
+            for (String r : relNames) {
+                intern(rels, r);
+            }
+        }
+
+        Builder node(long id, String type) {
+            if (nodes == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, nodes * 2);
+                nodeTypes = Arrays.copyOf(nodeTypes, nodes * 2);
+            }
+            nodeIds[nodes] = id;
+            nodeTypes[nodes++] = intern(types, type == null ? "" : type);
+            return this;
+        }
+
+        Builder edge(long fromId, long toId, String type) {
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+                rel = Arrays.copyOf(rel, edges * 2);
+            }
+            from[edges] = fromId;
+            to[edges] = toId;
+            rel[edges++] = intern(rels, type == null ? "" : type);
+            return this;
+        }
+
+        TopologyGraph build() {
+            long[] ids = Arrays.copyOf(nodeIds, nodes);
+            Arrays.sort(ids);
+            int n = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[n++] = ids[i];
+                }
+            }
+            ids = Arrays.copyOf(ids, n);
+            short[] nodeType = new short[n];
+            for (int i = 0; i < nodes; i++) {
+                nodeType[Arrays.binarySearch(ids, nodeIds[i])] = nodeTypes[i];
+            }
+
+            int[] src = new int[edges];
+            int[] dst = new int[edges];
+            int kept = 0;
+            int[] outDegree = new int[n + 1];
+            int[] inDegree = new int[n + 1];
+            short[] keptRel = new short[edges];
+            for (int e = 0; e < edges; e++) {
+                int s = Arrays.binarySearch(ids, from[e]);
+                int d = Arrays.binarySearch(ids, to[e]);
+                if (s < 0 || d < 0) {
+                    continue;
+                }
+                src[kept] = s;
+                dst[kept] = d;
+                keptRel[kept++] = rel[e];
+                outDegree[s + 1]++;
+                inDegree[d + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                outDegree[i + 1] += outDegree[i];
+                inDegree[i + 1] += inDegree[i];
+            }
+            int[] outTarget = new int[kept];
+            short[] outRel = new short[kept];
+            int[] inSource = new int[kept];
+            short[] inRel = new short[kept];
+            int[] outFill = Arrays.copyOf(outDegree, n);
+            int[] inFill = Arrays.copyOf(inDegree, n);
+            for (int e = 0; e < kept; e++) {
+                int o = outFill[src[e]]++;
+                outTarget[o] = dst[e];
+                outRel[o] = keptRel[e];
+                int i = inFill[dst[e]]++;
+                inSource[i] = src[e];
+                inRel[i] = keptRel[e];
+            }
+            return new TopologyGraph(ids, nodeType, names(types), names(rels),
+                    outDegree, outTarget, outRel, inDegree, inSource, inRel);
+        }
+
+        private static short intern(Map<String, Short> table, String name) {
+            Short index = table.get(name);
+            if (index == null) {
+                if (table.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct names in topology: " + table.size());
+                }
+                index = (short) table.size();
+                table.put(name, index);
+            }
+            return index;
+        }
+
+        private static String[] names(Map<String, Short> table) {
+            String[] names = new String[table.size()];
+            table.forEach((name, index) -> names[index] = name);
+            return names;
+        }
+    }
+}
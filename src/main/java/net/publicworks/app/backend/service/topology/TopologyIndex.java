@@ -0,0 +1,247 @@
+package net.publicworks.app.backend.service.topology;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-memory network topology per tenant, over {@code AssetRelationship} edges and {@code Asset.parent}
+ * (as relationship type {@value TopologyGraph#PARENT}, parent to child), for tracing without a query per hop.
+ * <p>
+ * A tenant's graph is loaded on first use (or for every tenant at startup with {@code topology.warm-on-startup})
+ * with two streamed scalar queries. Afterwards {@link AssetChangedEvent}s queue the asset under its tenant; every
+ * {@code topology.apply-ms} the queued assets are re-read with their edges in a few batched queries and swapped
+ * into a new graph, so queries never block and see changes within that delay.
+ * <p>
+ * Every read runs with the tenant bound, so it reaches that tenant's own database if it has one. An asset only
+ * leaves a graph when its tenant's database no longer has it.
+ */
+@Slf4j
+@Component
+public class TopologyIndex implements DisposableBean {
+
+    private static final int ID_BATCH = 500;
+
+    private final EntityManager entityManager;
+    private final MultiTenantConnectionProviderImpl connections;
+    private final TransactionTemplate readOnly;
+    private final boolean warmOnStartup;
+    private final Map<String, TenantTopology> tenants = new ConcurrentHashMap<>();
+    /** Changed asset ids by tenant. */
+    private final Map<String, Set<Long>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("topology-"));
+
+    public TopologyIndex(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                         MultiTenantConnectionProviderImpl connections,
+                         @Value("${topology.apply-ms:500}") long applyMs,
+                         @Value("${topology.warm-on-startup:false}") boolean warmOnStartup) {
+        this.entityManager = entityManager;
+        this.connections = connections;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.warmOnStartup = warmOnStartup;
+        maintenance.scheduleWithFixedDelay(this::applyPending, applyMs, applyMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Assets reachable from {@code assetId}, in breadth- or depth-first visit order; {@code maxDepth < 0} is unlimited. */
+    public long[] trace(String tenant, long assetId, Direction direction, boolean depthFirst,
+                        Set<String> relationshipTypes, int maxDepth) {
+        return graph(tenant).trace(assetId, direction, depthFirst, relationshipTypes, maxDepth);
+    }
+
+    public long[] shortestPath(String tenant, long fromAssetId, long toAssetId, Direction direction,
+                               Set<String> relationshipTypes) {
+        return graph(tenant).shortestPath(fromAssetId, toAssetId, direction, relationshipTypes);
+    }
+
+    /** See {@link Isolation}; {@code isolatingTypes} are asset type names such as {@code VALVE}. */
+    public Isolation isolate(String tenant, long assetId, Set<String> isolatingTypes, Set<String> relationshipTypes) {
+        return graph(tenant).isolate(assetId, isolatingTypes, relationshipTypes);
+    }
+
+    /** Reloads the tenant's whole graph from the database. */
+    public void rebuild(String tenant) {
+        TenantTopology topology = tenants.computeIfAbsent(tenant, t -> new TenantTopology());
+        synchronized (topology) {
+            topology.graph = load(tenant);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        if (event.assetId() != null) {
+            String tenant = event.tenant() != null ? event.tenant() : CustomerDiferentiator.DEFAULT;
+            pending.computeIfAbsent(tenant, t -> ConcurrentHashMap.newKeySet()).add(event.assetId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmOnStartup) {
+            return;
+        }
+        maintenance.execute(() -> {
+            Set<String> own = connections.tenantsWithOwnDatabase();
+            List<String> all = new ArrayList<>(TenantScope.call(CustomerDiferentiator.DEFAULT, () -> readOnly.execute(
+                    status -> entityManager.createQuery("select distinct a.customerDiferentiator from Asset a"
+                            + " where a.customerDiferentiator is not null", String.class).getResultList())));
+            all.removeIf(tenant -> own.contains(tenant.toLowerCase(Locale.ROOT)));
+            all.addAll(own);
+            for (String tenant : all) {
+                graph(tenant);
+            }
+        });
+    }
+
+    TopologyGraph graph(String tenant) {
+        TenantTopology topology = tenants.computeIfAbsent(tenant, t -> new TenantTopology());
+        TopologyGraph graph = topology.graph;
+        if (graph == null) {
+            synchronized (topology) {
+                if (topology.graph == null) {
+                    topology.graph = load(tenant);
+                }
+                graph = topology.graph;
+            }
+        }
+        return graph;
+    }
+
+    private TopologyGraph load(String tenant) {
+        long started = System.nanoTime();
+        TopologyGraph.Builder builder = new TopologyGraph.Builder();
+        TenantScope.run(connections.databaseOf(tenant), () -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = stream("select a.id, a.type, p.id from Asset a left join a.parent p"
+                    + " where a.customerDiferentiator = :tenant", tenant)) {
+                rows.forEach(row -> {
+                    long id = (Long) row[0];
+                    builder.node(id, row[1] == null ? null : row[1].toString());
+                    if (row[2] != null) {
+                        builder.edge((Long) row[2], id, TopologyGraph.PARENT);
+                    }
+                });
+            }
+            try (Stream<Object[]> rows = stream("select f.id, t.id, r.relationshipType from AssetRelationship r"
+                    + " join r.fromAsset f join r.toAsset t where f.customerDiferentiator = :tenant", tenant)) {
+                rows.forEach(row -> builder.edge((Long) row[0], (Long) row[1], (String) row[2]));
+            }
+        }));
+        TopologyGraph graph = builder.build();
+        log.info("Topology for tenant {}: {} assets, {} edges loaded in {} ms", tenant, graph.nodeCount(),
+                graph.edgeCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return graph;
+    }
+
+    private Stream<Object[]> stream(String jpql, String tenant) {
+        return entityManager.createQuery(jpql, Object[].class)
+                .setParameter("tenant", tenant)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private void applyPending() {
+        pending.forEach((tenant, queued) -> {
+            if (queued.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(queued);
+            queued.removeAll(ids);
+            try {
+                List<TopologyGraph.NodeUpdate> updates = new ArrayList<>();
+                TenantScope.run(connections.databaseOf(tenant), () -> {
+                    for (int i = 0; i < ids.size(); i += ID_BATCH) {
+                        List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + ID_BATCH));
+                        readOnly.executeWithoutResult(status -> collectUpdates(tenant, chunk, updates));
+                    }
+                });
+                TenantTopology topology = tenants.get(tenant);
+                if (topology == null) {
+                    return;
+                }
+                synchronized (topology) {
+                    if (topology.graph != null) {
+                        topology.graph = topology.graph.apply(updates);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} topology changes of tenant {}, retrying: {}", ids.size(), tenant, e.getMessage());
+                queued.addAll(ids);
+            }
+        });
+    }
+
+    /** Reads the current state of each of the tenant's assets and every edge touching it. */
+    private void collectUpdates(String tenant, List<Long> ids, List<TopologyGraph.NodeUpdate> updates) {
+        Map<Long, String> typeOf = new HashMap<>();
+        Map<Long, List<TopologyGraph.Edge>> edges = new HashMap<>();
+        for (Long id : ids) {
+            edges.put(id, new ArrayList<>());
+        }
+        for (Object[] row : entityManager.createQuery("select a.id, a.type, p.id from Asset a left join a.parent p"
+                        + " where a.id in :ids and a.customerDiferentiator = :tenant", Object[].class)
+                .setParameter("ids", ids).setParameter("tenant", tenant).getResultList()) {
+            Long id = (Long) row[0];
+            typeOf.put(id, row[1] == null ? "" : row[1].toString());
+            if (row[2] != null) {
+                edges.get(id).add(new TopologyGraph.Edge((Long) row[2], id, TopologyGraph.PARENT));
+            }
+        }
+        for (Object[] row : entityManager.createQuery("select c.id, p.id from Asset c join c.parent p"
+                        + " where p.id in :ids", Object[].class)
+                .setParameter("ids", ids).getResultList()) {
+            edges.get((Long) row[1]).add(new TopologyGraph.Edge((Long) row[1], (Long) row[0], TopologyGraph.PARENT));
+        }
+        for (Object[] row : entityManager.createQuery("select f.id, t.id, r.relationshipType from AssetRelationship r"
+                        + " join r.fromAsset f join r.toAsset t where f.id in :ids or t.id in :ids", Object[].class)
+                .setParameter("ids", ids).getResultList()) {
+            TopologyGraph.Edge edge = new TopologyGraph.Edge((Long) row[0], (Long) row[1], (String) row[2]);
+            if (edges.containsKey(edge.from())) {
+                edges.get(edge.from()).add(edge);
+            }
+            if (edges.containsKey(edge.to())) {
+                edges.get(edge.to()).add(edge);
+            }
+        }
+        for (Long id : ids) {
+            // no row in the tenant's own database: deleted, so the update drops it from the tenant's graph
+            String type = typeOf.get(id);
+            updates.add(new TopologyGraph.NodeUpdate(id, type, type != null ? edges.get(id) : List.of()));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        maintenance.shutdownNow();
+    }
+
+    private static final class TenantTopology {
+        volatile TopologyGraph graph;
+    }
+}
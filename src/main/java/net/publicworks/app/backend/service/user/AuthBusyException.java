@@ -0,0 +1,9 @@
+package net.publicworks.app.backend.service.user;
+
+/** Thrown instead of queueing a sign-in when password hashing is saturated; the user should simply retry. */
+public class AuthBusyException extends RuntimeException {
+
+    public AuthBusyException() {
+        super("Too many sign-ins right now, please try again in a moment");
+    }
+}
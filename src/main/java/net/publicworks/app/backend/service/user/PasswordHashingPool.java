@@ -0,0 +1,170 @@
+package net.publicworks.app.backend.service.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.entity.User;
+import net.publicworks.app.backend.itf.IResult;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the password hashing of {@code IAuthService} (the {@code encode} / {@code matches} calls on its
+ * {@link PasswordEncoder} bean) on a dedicated pool sized to the CPU count ({@code auth.hashing.threads}).
+ * Only the hash moves; the rest of login and register, with its transaction and tenant, stays on the caller's thread.
+ * <p>
+ * At most {@code auth.hashing.queue-capacity} hashes wait for a thread; beyond that a sign-in is refused at once
+ * with {@link AuthBusyException} instead of piling up behind hundreds of others and timing out anyway.
+ * <p>
+ * After a successful login whose stored hash the service's encoder reports as weak ({@code upgradeEncoding}),
+ * the password is re-hashed with that encoder in the background and the stored hash replaced.
+ * Meters: {@code auth.hashing.duration} and {@code auth.hashing.queue.wait} (tag {@code operation}),
+ * {@code auth.hashing.rejected}, {@code auth.hashing.queue.depth}.
+ */
+@Slf4j
+@Aspect
+@Component
+public class PasswordHashingPool implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+    /** Looked up on use: resolving it while aspects are built would leave the encoder itself unadvised. */
+    private final ObjectProvider<PasswordEncoder> encoder;
+    private final MultiTenantConnectionProviderImpl connections;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public PasswordHashingPool(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                               ObjectProvider<PasswordEncoder> encoder, MultiTenantConnectionProviderImpl connections,
+                               MeterRegistry meterRegistry,
+                               @Value("${auth.hashing.threads:0}") int threads,
+                               @Value("${auth.hashing.queue-capacity:0}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int capacity = queueCapacity > 0 ? queueCapacity : size * 16;
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                new CustomizableThreadFactory("password-hash-"), new ThreadPoolExecutor.AbortPolicy());
+        this.encoder = encoder;
+        this.connections = connections;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Sign-ins refused because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", pool, p -> p.getQueue().size()).register(meterRegistry);
+    }
+
+    @Around("execution(* org.springframework.security.crypto.password.PasswordEncoder+.encode(..))"
+            + " || execution(* org.springframework.security.crypto.password.PasswordEncoder+.matches(..))")
+    public Object onHashingPool(ProceedingJoinPoint jp) throws Throwable {
+        if (Thread.currentThread().getName().startsWith("password-hash-")) {
+            return jp.proceed();
+        }
+        String operation = jp.getSignature().getName();
+        long queuedAt = System.nanoTime();
+        Future<Object> call;
+        try {
+            call = pool.submit(() -> {
+                long started = System.nanoTime();
+                timer("auth.hashing.queue.wait", operation).record(started - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return jp.proceed();
+                } catch (Throwable t) {
+                    throw t instanceof Exception e ? e : new RuntimeException(t);
+                } finally {
+                    timer("auth.hashing.duration", operation).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AuthBusyException();
+        }
+
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthBusyException();
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* net.publicworks.app.backend.itf.IAuthService+.login(..))", returning = "result")
+    public void afterLogin(JoinPoint jp, Object result) {
+        if (result instanceof IResult r && r.isSuccess() && r.getData() instanceof User user
+                && jp.getArgs().length > 1 && jp.getArgs()[1] instanceof CharSequence rawPassword) {
+            upgradeIfWeak(user, rawPassword);
+        }
+    }
+
+    /** Best effort: skipped when the pool is busy, retried on the next login. */
+    private void upgradeIfWeak(User user, CharSequence rawPassword) {
+        PasswordEncoder passwords = encoder.getIfAvailable();
+        String stored = user.getPasswordHash();
+        if (passwords == null || stored == null || user.getId() == null) {
+            return;
+        }
+        try {
+            if (!passwords.upgradeEncoding(stored)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            // a hash this encoder cannot parse: leave it alone, the login itself succeeded
+            log.debug("Cannot tell whether the password hash of user {} needs an upgrade: {}", user.getId(), e.getMessage());
+            return;
+        }
+        String tenant = TenantScope.current() != null ? TenantScope.current() : connections.databaseOf(user.getCustomerDiferentiator());
+        try {
+            pool.execute(() -> TenantScope.run(tenant, () -> {
+                String upgraded = passwords.encode(rawPassword);
+                String entity = entityManager.getMetamodel().entity(User.class).getName();
+                Integer updated = transactionTemplate.execute(status -> entityManager
+                        .createQuery("update " + entity + " u set u.passwordHash = :h where u.id = :id and u.passwordHash = :old")
+                        .setParameter("h", upgraded)
+                        .setParameter("id", user.getId())
+                        .setParameter("old", stored)
+                        .executeUpdate());
+                if (updated != null && updated == 1) {
+                    log.info("Upgraded password hash for user {}", user.getId());
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.debug("Hashing pool busy, password hash upgrade for user {} deferred", user.getId());
+        }
+    }
+
+    private Timer timer(String name, String operation) {
+        return Timer.builder(name).tag("operation", operation).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
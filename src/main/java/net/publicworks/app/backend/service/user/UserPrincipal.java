@@ -0,0 +1,41 @@
+package net.publicworks.app.backend.service.user;
+
+import net.publicworks.app.backend.entity.User;
+import net.publicworks.app.backend.service.search.Projection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * What the UI needs to know about the signed-in user. Kept in the session instead of the {@link User} entity,
+ * so sessions carry no password hash, no Hibernate state and no associations.
+ */
+public record UserPrincipal(Long id, String email, String role, String tenantId, String customerDiferentiator)
+        implements Serializable {
+
+    public static final Projection<UserPrincipal> PROJECTION = Projection.of(UserPrincipal.class,
+            "id", "email", "role", "tenantId", "customerDiferentiator");
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getTenantId(),
+                user.getCustomerDiferentiator());
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+
+    /** Java-serialized size in bytes, i.e. what this principal adds to a serialized session. */
+    public static int serializedSize(Serializable value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.size();
+    }
+}
@@ -0,0 +1,97 @@
+package net.publicworks.app.backend.service.user;
+
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.entity.User;
+import net.publicworks.app.backend.service.search.CountMode;
+import net.publicworks.app.backend.service.search.SearchFilter;
+import net.publicworks.app.backend.service.search.SearchQueryPlanner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared, size-bounded cache of {@link UserPrincipal}s, one entry per user no matter how many sessions they have.
+ * <p>
+ * Sessions hold a principal and swap it for {@link #current} on navigation, so a role change reaches every
+ * open session without a logout. Users changed through the command bus are updated here right away; changes
+ * made elsewhere show up once the entry is older than {@code users.principal-cache.ttl}.
+ */
+@Slf4j
+@Component
+public class UserPrincipalCache {
+
+    private final SearchQueryPlanner planner;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+
+    public UserPrincipalCache(SearchQueryPlanner planner,
+                              @Value("${users.principal-cache.max-size:10000}") int maxSize,
+                              @Value("${users.principal-cache.ttl:5m}") Duration ttl) {
+        this.planner = planner;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * The up-to-date principal for the one held by a session: the same instance when nothing changed,
+     * a fresh one after a role or tenant change, {@code null} when the user no longer exists.
+     */
+    public UserPrincipal current(UserPrincipal held) {
+        if (held == null || held.id() == null) {
+            return held;
+        }
+        Entry entry = entries.get(held.id());
+        if (entry == null || System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            UserPrincipal loaded = load(held.id());
+            if (loaded == null) {
+                entries.remove(held.id());
+                return null;
+            }
+            entry = new Entry(loaded, System.nanoTime());
+            entries.put(held.id(), entry);
+        }
+        return entry.principal().equals(held) ? held : entry.principal();
+    }
+
+    public void put(UserPrincipal principal) {
+        if (principal.id() != null) {
+            entries.put(principal.id(), new Entry(principal, System.nanoTime()));
+        }
+    }
+
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        if (event.result().getData() instanceof User user) {
+            put(UserPrincipal.of(user));
+        }
+    }
+
+    private UserPrincipal load(Long id) {
+        List<UserPrincipal> rows = planner.search(User.class, UserPrincipal.PROJECTION,
+                List.of(new SearchFilter("id", id, SearchFilter.Operator.EQ)), PageRequest.of(0, 1), CountMode.SKIP).getContent();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private record Entry(UserPrincipal principal, long loadedAt) {}
+}
@@ -0,0 +1,95 @@
+package net.publicworks.app.frontend;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.ComponentEvent;
+import com.vaadin.flow.component.ComponentEventListener;
+import com.vaadin.flow.component.DomEvent;
+import com.vaadin.flow.component.EventData;
+import com.vaadin.flow.component.HasSize;
+import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.component.dependency.CssImport;
+import com.vaadin.flow.component.dependency.JsModule;
+import com.vaadin.flow.component.dependency.NpmPackage;
+import com.vaadin.flow.shared.Registration;
+import net.publicworks.app.backend.service.spatial.MapFeature;
+import net.publicworks.app.backend.service.spatial.Viewport;
+
+import java.util.List;
+
+/** Leaflet map of asset markers; the server supplies markers for each viewport it reports. */
+@Tag("asset-map")
+@NpmPackage(value = "leaflet", version = "1.9.4")
+@NpmPackage(value = "leaflet.vectorgrid", version = "1.3.0")
+@JsModule("./asset-map.js")
+@CssImport("leaflet/dist/leaflet.css")
+public class AssetMap extends Component implements HasSize {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public AssetMap(String tileUrl, String attribution) {
+        getElement().setAttribute("tile-url", tileUrl);
+        getElement().setProperty("attribution", attribution);
+    }
+
+    public void setFeatures(List<MapFeature> features) {
+        try {
+            getElement().callJsFunction("setFeatures", JSON.writeValueAsString(features));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode map features", e);
+        }
+    }
+
+    /** A vector tile overlay the user can switch on; {@code layer} is the layer name inside the tiles. */
+    public void addTileOverlay(String label, String urlTemplate, String layer, String color) {
+        getElement().callJsFunction("addTileOverlay", label, urlTemplate, layer, color);
+    }
+
+    public void setView(double lat, double lon, int zoom) {
+        getElement().callJsFunction("setView", lat, lon, zoom);
+    }
+
+    public Registration addViewportChangeListener(ComponentEventListener<ViewportChangeEvent> listener) {
+        return addListener(ViewportChangeEvent.class, listener);
+    }
+
+    public Registration addAssetClickListener(ComponentEventListener<AssetClickEvent> listener) {
+        return addListener(AssetClickEvent.class, listener);
+    }
+
+    @DomEvent("viewport-changed")
+    public static class ViewportChangeEvent extends ComponentEvent<AssetMap> {
+
+        private final Viewport viewport;
+
+        public ViewportChangeEvent(AssetMap source, boolean fromClient,
+                                   @EventData("event.detail.west") double west,
+                                   @EventData("event.detail.south") double south,
+                                   @EventData("event.detail.east") double east,
+                                   @EventData("event.detail.north") double north,
+                                   @EventData("event.detail.zoom") int zoom) {
+            super(source, fromClient);
+            this.viewport = new Viewport(west, south, east, north, zoom);
+        }
+
+        public Viewport getViewport() {
+            return viewport;
+        }
+    }
+
+    @DomEvent("asset-clicked")
+    public static class AssetClickEvent extends ComponentEvent<AssetMap> {
+
+        private final long assetId;
+
+        public AssetClickEvent(AssetMap source, boolean fromClient, @EventData("event.detail.assetId") long assetId) {
+            super(source, fromClient);
+            this.assetId = assetId;
+        }
+
+        public long getAssetId() {
+            return assetId;
+        }
+    }
+}
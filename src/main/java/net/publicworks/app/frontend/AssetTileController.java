@@ -0,0 +1,55 @@
+package net.publicworks.app.frontend;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.service.spatial.AssetTiles;
+import net.publicworks.app.backend.service.spatial.TileKey;
+import net.publicworks.app.backend.service.user.UserPrincipal;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/** Vector tiles of the signed-in tenant's assets, one layer per asset type, for {@link AssetMap} overlays. */
+@RestController
+public class AssetTileController {
+
+    private static final MediaType MVT = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final AssetTiles tiles;
+
+    public AssetTileController(AssetTiles tiles) {
+        this.tiles = tiles;
+    }
+
+    /** Leaflet-style URL template of one type's tiles, relative to the application root. */
+    public static String urlTemplate(AssetTypeEnum type) {
+        return "tiles/" + type.name() + "/{z}/{x}/{y}.mvt";
+    }
+
+    @GetMapping("/tiles/{type}/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> tile(@PathVariable AssetTypeEnum type, @PathVariable int z,
+                                       @PathVariable int x, @PathVariable int y, HttpServletRequest request) {
+        UserPrincipal user = CurrentUser.fromHttpSession(request.getSession(false));
+        if (user == null || user.customerDiferentiator() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        TileKey key = new TileKey(user.customerDiferentiator(), type, z, x, y);
+        byte[] tile;
+        try {
+            tile = tiles.tile(key);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        // the cached bytes are written out as they are, without re-encoding or copying
+        return ResponseEntity.ok()
+                .contentType(MVT)
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(30)).cachePrivate())
+                .body(tile);
+    }
+}
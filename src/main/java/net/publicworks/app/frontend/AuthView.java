@@ -6,25 +6,31 @@ import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.login.LoginOverlay;
+import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.component.UI;
+import net.publicworks.app.backend.commands.AsyncCommandBus;
 import net.publicworks.app.backend.commands.CommandBus;
 import net.publicworks.app.backend.commands.RegisterCommand;
 import net.publicworks.app.backend.commands.LoginCommand;
+import net.publicworks.app.backend.entity.User;
 import net.publicworks.app.backend.itf.IResult;
+import net.publicworks.app.backend.service.user.AuthBusyException;
 
 @Route("")           // root
 @PageTitle("Sign in | Public Works")
 public class AuthView extends VerticalLayout {
 
     private final CommandBus commandBus;
+    private final AsyncCommandBus asyncCommandBus;
 
-    public AuthView(CommandBus commandBus) {
+    public AuthView(CommandBus commandBus, AsyncCommandBus asyncCommandBus) {
         this.commandBus = commandBus;
+        this.asyncCommandBus = asyncCommandBus;
 
         setSizeFull();
         setAlignItems(Alignment.CENTER);
@@ -65,20 +71,29 @@ public class AuthView extends VerticalLayout {
 //        form.setForgotPasswordButtonVisible(false);
 
         loginOverlay.addLoginListener(event -> {
-            IResult result = commandBus.dispatch(
-                    LoginCommand.builder()
-                            .email(event.getUsername())
-                            .password(event.getPassword())
-                            .build()
-            );
-
-            if (result.isSuccess()) {
-                // TODO: store user/tenant in session if you want
-                CurrentUser.set(result.getData());
-                UI.getCurrent().navigate("app"); // go to MainView
-            } else {
-                loginOverlay.setError(true);
-            }
+            LoginCommand cmd = LoginCommand.builder()
+                    .email(event.getUsername())
+                    .password(event.getPassword())
+                    .build();
+
+            UiAsync.onComplete(asyncCommandBus.dispatchAsync(() -> commandBus.dispatch(cmd)), result -> {
+                if (result.isSuccess()) {
+                    // TODO: store user/tenant in session if you want
+                    User user = result.getData();
+                    CurrentUser.set(user);
+                    UI.getCurrent().navigate("app"); // go to MainView
+                } else {
+                    loginOverlay.setError(true);
+                }
+            }, error -> {
+                if (error instanceof AuthBusyException) {
+                    // overloaded at shift start: let the user retry instead of reporting bad credentials
+                    loginOverlay.setEnabled(true);
+                    Notification.show(error.getMessage(), 5000, Notification.Position.MIDDLE);
+                } else {
+                    loginOverlay.setError(true);
+                }
+            });
         });
 
         return loginOverlay;
@@ -93,27 +108,37 @@ public class AuthView extends VerticalLayout {
         Button register = new Button("Create Account");
         Span status = new Span();
 
+        register.setDisableOnClick(true);
         register.addClickListener(e -> {
-            IResult result = commandBus.dispatch(
-                    RegisterCommand.builder()
-                            .email(email.getValue())
-                            .password(password.getValue())
-                            .tenantName(tenant.getValue())
-                            .loggingIn(false)
-                            .build()
-            );
-
-            if (result.isSuccess()) {
-                status.getStyle().set("color", "green");
-                status.setText("Account created. You can now log in.");
-            } else {
+            RegisterCommand cmd = RegisterCommand.builder()
+                    .email(email.getValue())
+                    .password(password.getValue())
+                    .tenantName(tenant.getValue())
+                    .loggingIn(false)
+                    .build();
+
+            UiAsync.onComplete(asyncCommandBus.dispatchAsync(() -> commandBus.dispatch(cmd)), result -> {
+                register.setEnabled(true);
+                showRegisterResult(status, result);
+            }, error -> {
+                register.setEnabled(true);
                 status.getStyle().set("color", "red");
-                status.setText(result.getMessage());
-            }
+                status.setText(error.getMessage());
+            });
         });
 
         layout.add(email, password, tenant, register, status);
         layout.setMaxWidth("400px");
         return layout;
     }
+
+    private void showRegisterResult(Span status, IResult result) {
+        if (result.isSuccess()) {
+            status.getStyle().set("color", "green");
+            status.setText("Account created. You can now log in.");
+        } else {
+            status.getStyle().set("color", "red");
+            status.setText(result.getMessage());
+        }
+    }
 }
@@ -2,8 +2,14 @@
 package net.publicworks.app.frontend;
 
 import com.vaadin.flow.server.VaadinSession;
+import jakarta.servlet.http.HttpSession;
 import net.publicworks.app.backend.entity.User;
+import net.publicworks.app.backend.service.user.UserPrincipal;
 
+/**
+ * The signed-in user of the current session, kept as a compact {@link UserPrincipal}
+ * rather than the {@link User} entity.
+ */
 public final class CurrentUser {
 
     private static final String KEY = "currentUser";
@@ -11,15 +17,29 @@ public final class CurrentUser {
     private CurrentUser() {}
 
     public static void set(User user) {
-        VaadinSession.getCurrent().setAttribute(KEY, user);
+        set(user != null ? UserPrincipal.of(user) : null);
+    }
+
+    public static void set(UserPrincipal principal) {
+        VaadinSession session = VaadinSession.getCurrent();
+        session.setAttribute(KEY, principal);
+        // mirrored into the HTTP session for plain HTTP endpoints, such as map tiles
+        if (session.getSession() != null) {
+            session.getSession().setAttribute(KEY, principal);
+        }
     }
 
-    public static User get() {
-        return (User) VaadinSession.getCurrent().getAttribute(KEY);
+    public static UserPrincipal get() {
+        return (UserPrincipal) VaadinSession.getCurrent().getAttribute(KEY);
     }
 
     public static void clear() {
-        VaadinSession.getCurrent().setAttribute(KEY, null);
+        set((UserPrincipal) null);
+    }
+
+    /** The signed-in user for a request that is not handled by Vaadin. */
+    public static UserPrincipal fromHttpSession(HttpSession session) {
+        return session == null ? null : (UserPrincipal) session.getAttribute(KEY);
     }
 
     public static boolean isLoggedIn() {
@@ -27,13 +47,13 @@ public final class CurrentUser {
     }
 
     public static boolean isAdmin() {
-        User u = get();
-        return u != null && "ADMIN".equalsIgnoreCase(u.getRole());
+        UserPrincipal u = get();
+        return u != null && u.isAdmin();
     }
 
     public static String tenantId() {
-        User u = get();
-        return u != null ? u.getTenantId() : null;
+        UserPrincipal u = get();
+        return u != null ? u.tenantId() : null;
     }
 
     /** This is the only tenant helper you need here */
@@ -41,8 +61,8 @@ public final class CurrentUser {
         if (VaadinSession.getCurrent() == null) {
             return null;
         }
-        User u = get();
-        return u != null ? u.getCustomerDiferentiator() : null;
+        UserPrincipal u = get();
+        return u != null ? u.customerDiferentiator() : null;
     }
 
 }
@@ -0,0 +1,58 @@
+package net.publicworks.app.frontend;
+
+import com.vaadin.flow.component.Composite;
+import com.vaadin.flow.component.contextmenu.MenuItem;
+import com.vaadin.flow.component.contextmenu.SubMenu;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.menubar.MenuBar;
+import com.vaadin.flow.component.menubar.MenuBarVariant;
+import com.vaadin.flow.server.StreamResource;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.service.export.DataExporter;
+import net.publicworks.app.backend.service.export.ExportFormat;
+import net.publicworks.app.backend.service.export.ExportKind;
+
+import java.io.IOException;
+
+/**
+ * "Export" drop-down with one download link per kind and format. The file is produced while it downloads,
+ * straight from the database cursor into the response, for the tenant of the signed-in user.
+ */
+@Slf4j
+public class ExportMenu extends Composite<MenuBar> {
+
+    private final DataExporter exporter;
+
+    public ExportMenu(DataExporter exporter, ExportKind... kinds) {
+        this.exporter = exporter;
+        MenuItem root = getContent().addItem(VaadinIcon.DOWNLOAD.create());
+        root.add(" Export");
+        getContent().addThemeVariants(MenuBarVariant.LUMO_TERTIARY);
+        SubMenu items = root.getSubMenu();
+        String tenant = CurrentUser.getCustomerDiferentiator();
+        for (ExportKind kind : kinds) {
+            String label = kinds.length > 1 ? kind.fileBase() + " " : "";
+            items.addItem(link(label + "CSV", kind, ExportFormat.CSV, false, tenant));
+            items.addItem(link(label + "CSV (gzip)", kind, ExportFormat.CSV, true, tenant));
+            items.addItem(link(label + "NDJSON (gzip)", kind, ExportFormat.NDJSON, true, tenant));
+        }
+    }
+
+    private Anchor link(String label, ExportKind kind, ExportFormat format, boolean gzip, String tenant) {
+        StreamResource resource = new StreamResource(format.fileName(kind.fileBase(), gzip), (out, session) -> {
+            try {
+                exporter.export(kind, format, gzip, tenant, out);
+            } catch (IOException | RuntimeException e) {
+                // the response has started, all we can do is cut it short
+                log.warn("Export of {} for {} failed: {}", kind, tenant, e.getMessage());
+                throw new IOException(e.getMessage(), e);
+            }
+        });
+        resource.setContentType(format.contentType(gzip));
+        resource.setCacheTime(0);
+        Anchor anchor = new Anchor(resource, label);
+        anchor.getElement().setAttribute("download", true);
+        return anchor;
+    }
+}
@@ -0,0 +1,7 @@
+package net.publicworks.app.frontend;
+
+/** What changed, as far as open views care: each view refreshes the topics it shows. */
+public enum LiveTopic {
+    WORK_ORDERS,
+    ASSETS
+}
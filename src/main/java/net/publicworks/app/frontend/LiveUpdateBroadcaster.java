@@ -0,0 +1,194 @@
+package net.publicworks.app.frontend;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.shared.Registration;
+import lombok.extern.slf4j.Slf4j;
+import net.publicworks.app.backend.commands.AssetChangedEvent;
+import net.publicworks.app.backend.commands.CommandDispatchedEvent;
+import net.publicworks.app.backend.commands.CreateWorkOrderCommand;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.handlers.ResultUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pushes "something changed" to every open view of a tenant, so dashboards and lists follow other users'
+ * writes without polling.
+ * <p>
+ * Committed commands and asset changes only mark the tenant's subscriptions dirty. Every {@code live.tick-ms}
+ * each dirty subscription gets one {@link UI#access} with all topics that changed since its last update.
+ * A UI whose previous update has not run yet, or whose browser tab is hidden, is skipped and keeps collecting
+ * topics, so a slow client holds at most one queued update however busy the tenant is. Detached UIs are dropped.
+ */
+@Slf4j
+@Component
+public class LiveUpdateBroadcaster implements DisposableBean {
+
+    private final Map<String, Set<Subscription>> tenants = new ConcurrentHashMap<>();
+    private final Map<UI, Visibility> visibility = new WeakHashMap<>();
+    private final ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("live-updates-"));
+
+    public LiveUpdateBroadcaster(@Value("${live.tick-ms:500}") long tickMs) {
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Calls {@code onChange} in {@code ui}'s session with the topics that changed, at most once per tick.
+     * Remove the registration when the view detaches.
+     */
+    public Registration subscribe(UI ui, String tenant, Set<LiveTopic> topics, Consumer<Set<LiveTopic>> onChange) {
+        if (tenant == null) {
+            return () -> {};
+        }
+        Subscription subscription = new Subscription(ui, EnumSet.copyOf(topics), onChange, visibility(ui));
+        tenants.computeIfAbsent(tenant, t -> ConcurrentHashMap.newKeySet()).add(subscription);
+        return () -> unsubscribe(tenant, subscription);
+    }
+
+    public void publish(String tenant, LiveTopic topic) {
+        if (tenant == null) {
+            tenants.values().forEach(subscriptions -> subscriptions.forEach(s -> s.mark(topic)));
+            return;
+        }
+        Set<Subscription> subscriptions = tenants.get(tenant);
+        if (subscriptions != null) {
+            subscriptions.forEach(s -> s.mark(topic));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommand(CommandDispatchedEvent event) {
+        WorkOrder wo = event.command() instanceof CreateWorkOrderCommand
+                ? ResultUtil.require(event.result(), WorkOrder.class)
+                : event.result().getData() instanceof WorkOrder w ? w : null;
+        if (wo != null) {
+            publish(wo.getCustomerDiferentiator(), LiveTopic.WORK_ORDERS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        // without the entity the tenant is unknown; every tenant's asset views refresh
+        publish(event.asset() == null ? null : event.asset().getCustomerDiferentiator(), LiveTopic.ASSETS);
+    }
+
+    int subscriptions(String tenant) {
+        Set<Subscription> subscriptions = tenants.get(tenant);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    void tick() {
+        tenants.forEach((tenant, subscriptions) -> {
+            for (Subscription subscription : subscriptions) {
+                try {
+                    if (!subscription.deliver()) {
+                        unsubscribe(tenant, subscription);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Live update for tenant {} failed: {}", tenant, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void unsubscribe(String tenant, Subscription subscription) {
+        tenants.computeIfPresent(tenant, (t, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    /** One listener per UI reports whether its tab is hidden, shared by the UI's subscriptions. */
+    private Visibility visibility(UI ui) {
+        synchronized (visibility) {
+            Visibility v = visibility.get(ui);
+            if (v == null) {
+                Visibility created = new Visibility();
+                ui.getElement().addEventListener("live-visibility",
+                        e -> created.hidden = e.getEventData().getBoolean("event.detail")).addEventData("event.detail");
+                ui.getElement().executeJs("document.addEventListener('visibilitychange', () => "
+                        + "this.dispatchEvent(new CustomEvent('live-visibility', {detail: document.hidden})))");
+                visibility.put(ui, created);
+                v = created;
+            }
+            return v;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+
+    private static final class Visibility {
+        volatile boolean hidden;
+    }
+
+    private static final class Subscription {
+
+        final UI ui;
+        final Set<LiveTopic> topics;
+        final Consumer<Set<LiveTopic>> onChange;
+        final Visibility visibility;
+        Set<LiveTopic> pending = EnumSet.noneOf(LiveTopic.class);
+        boolean inFlight;
+
+        Subscription(UI ui, Set<LiveTopic> topics, Consumer<Set<LiveTopic>> onChange, Visibility visibility) {
+            this.ui = ui;
+            this.topics = topics;
+            this.onChange = onChange;
+            this.visibility = visibility;
+        }
+
+        synchronized void mark(LiveTopic topic) {
+            if (topics.contains(topic)) {
+                pending.add(topic);
+            }
+        }
+
+        /** {@code false} once the UI is gone. */
+        boolean deliver() {
+            if (ui.isClosing() || !ui.isAttached()) {
+                return false;
+            }
+            Set<LiveTopic> changed;
+            synchronized (this) {
+                if (pending.isEmpty() || inFlight || visibility.hidden) {
+                    return true;
+                }
+                changed = pending;
+                pending = EnumSet.noneOf(LiveTopic.class);
+                inFlight = true;
+            }
+            try {
+                ui.access(() -> {
+                    try {
+                        onChange.accept(changed);
+                    } finally {
+                        synchronized (this) {
+                            inFlight = false;
+                        }
+                    }
+                });
+            } catch (UIDetachedException e) {
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package net.publicworks.app.frontend;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Hands the outcome of a background {@link CompletableFuture} back to the UI that started it.
+ * Callbacks run inside {@link UI#access}, so they may touch components and the session;
+ * with {@code @Push} enabled the changes reach the browser immediately.
+ */
+@Slf4j
+public final class UiAsync {
+
+    private UiAsync() {}
+
+    public static <T> void onComplete(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        UI ui = UI.getCurrent();
+        future.whenComplete((value, error) -> {
+            try {
+                ui.access(() -> {
+                    if (error == null) {
+                        onSuccess.accept(value);
+                    } else {
+                        onError.accept(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error);
+                    }
+                });
+            } catch (UIDetachedException e) {
+                // user closed the tab or navigated away; nothing left to update
+                log.debug("UI detached before async result arrived");
+            }
+        });
+    }
+}
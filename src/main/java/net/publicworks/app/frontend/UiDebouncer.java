@@ -0,0 +1,73 @@
+package net.publicworks.app.frontend;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side debounce for one input component: only the last call within the quiet period runs,
+ * earlier ones are cancelled before they start. The action runs inside {@link UI#access}.
+ * <p>
+ * {@link #isCurrent(long)} lets an action that has already started notice it was superseded
+ * and drop its result instead of repainting stale data.
+ */
+@Slf4j
+public final class UiDebouncer {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(daemonFactory());
+
+    private final long delayMs;
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    public UiDebouncer(Duration delay) {
+        this.delayMs = delay.toMillis();
+    }
+
+    /** Runs {@code action} after the quiet period unless another call comes first; returns its generation. */
+    public synchronized long schedule(Runnable action) {
+        long gen = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        UI ui = UI.getCurrent();
+        pending = TIMER.schedule(() -> {
+            try {
+                ui.access(() -> {
+                    if (isCurrent(gen)) {
+                        action.run();
+                    }
+                });
+            } catch (UIDetachedException e) {
+                log.debug("UI detached before debounced action ran");
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return gen;
+    }
+
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public boolean isCurrent(long gen) {
+        return generation.get() == gen;
+    }
+
+    private static CustomizableThreadFactory daemonFactory() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("ui-debounce-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
@@ -0,0 +1,87 @@
+package net.publicworks.app.frontend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetch callback helper for lazy grids: serves the requested window and loads the next one in the background,
+ * so scrolling down finds the rows already there.
+ * <p>
+ * At most one window is held ahead per grid, and only for the filter/sort {@code state} it was loaded with.
+ * Prefetching is best effort: when the shared pool is busy the prefetch is dropped and the next
+ * request simply loads its rows itself.
+ *
+ * @param <S> immutable filter and sort state of the grid
+ */
+@Slf4j
+public final class WindowPrefetcher<S, T> {
+
+    @FunctionalInterface
+    public interface Loader<S, T> {
+        List<T> load(S state, int offset, int limit);
+    }
+
+    private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(64), daemonFactory(), new ThreadPoolExecutor.DiscardPolicy());
+
+    private final Loader<S, T> loader;
+    private Window<S, T> ahead;
+
+    public WindowPrefetcher(Loader<S, T> loader) {
+        this.loader = loader;
+    }
+
+    public synchronized List<T> fetch(S state, int offset, int limit) {
+        List<T> rows = null;
+        Window<S, T> window = ahead;
+        ahead = null;
+        if (window != null && window.matches(state, offset, limit)) {
+            rows = window.rows().getNow(null);
+        }
+        if (rows == null) {
+            if (window != null) {
+                window.rows().cancel(false);
+            }
+            rows = loader.load(state, offset, limit);
+        }
+        if (rows.size() == limit) {
+            int next = offset + limit;
+            CompletableFuture<List<T>> future = CompletableFuture.supplyAsync(() -> loader.load(state, next, limit), POOL);
+            future.exceptionally(e -> {
+                log.debug("Prefetch of rows {}..{} failed: {}", next, next + limit, e.getMessage());
+                return null;
+            });
+            ahead = new Window<>(state, next, limit, future);
+        }
+        return rows;
+    }
+
+    /** Drops the window held ahead, e.g. after a save changed the underlying rows. */
+    public synchronized void invalidate() {
+        if (ahead != null) {
+            ahead.rows().cancel(false);
+            ahead = null;
+        }
+    }
+
+    private record Window<S, T>(S state, int offset, int limit, CompletableFuture<List<T>> rows) {
+
+        boolean matches(S otherState, int otherOffset, int otherLimit) {
+            return offset == otherOffset && limit == otherLimit && Objects.equals(state, otherState)
+                    && !rows.isCompletedExceptionally();
+        }
+    }
+
+    private static CustomizableThreadFactory daemonFactory() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("grid-prefetch-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
@@ -0,0 +1,62 @@
+package net.publicworks.app.frontend.config;
+
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code GET /actuator/loadprobe}: what the load harness samples between steps. Open Vaadin sessions and UIs,
+ * used heap ({@code ?gc=true} collects first, so two samples can be subtracted) and Hibernate's statement,
+ * query and entity load counters, which need {@code hibernate.generate_statistics}.
+ * Only present with the {@code load} profile.
+ */
+@Component
+@Profile("load")
+@Endpoint(id = "loadprobe")
+public class LoadProbeEndpoint implements VaadinServiceInitListener {
+
+    private final Statistics statistics;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger uis = new AtomicInteger();
+
+    public LoadProbeEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        event.getSource().addSessionInitListener(init -> sessions.incrementAndGet());
+        event.getSource().addSessionDestroyListener(destroy -> sessions.decrementAndGet());
+        event.getSource().addUIInitListener(init -> {
+            uis.incrementAndGet();
+            init.getUI().addDetachListener(detach -> uis.decrementAndGet());
+        });
+    }
+
+    @ReadOperation
+    public Sample sample(@Nullable Boolean gc) {
+        if (Boolean.TRUE.equals(gc)) {
+            System.gc();
+        }
+        return new Sample(sessions.get(), uis.get(),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount(),
+                statistics.getTransactionCount());
+    }
+
+    public record Sample(int sessions, int uis, long heapUsedBytes, long statements, long queries,
+                         long entityLoads, long transactions) {
+    }
+}
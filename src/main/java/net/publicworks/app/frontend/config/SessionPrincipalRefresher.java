@@ -0,0 +1,39 @@
+package net.publicworks.app.frontend.config;
+
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import net.publicworks.app.backend.service.user.UserPrincipal;
+import net.publicworks.app.backend.service.user.UserPrincipalCache;
+import net.publicworks.app.frontend.CurrentUser;
+import org.springframework.stereotype.Component;
+
+/**
+ * On every navigation, swaps the session's principal for the shared cache's current one,
+ * so role changes apply without a new login and removed users are signed out.
+ */
+@Component
+public class SessionPrincipalRefresher implements VaadinServiceInitListener {
+
+    private final UserPrincipalCache principals;
+
+    public SessionPrincipalRefresher(UserPrincipalCache principals) {
+        this.principals = principals;
+    }
+
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        event.getSource().addUIInitListener(ui -> ui.getUI().addBeforeEnterListener(enter -> {
+            UserPrincipal held = CurrentUser.get();
+            if (held == null) {
+                return;
+            }
+            UserPrincipal current = principals.current(held);
+            if (current == null) {
+                CurrentUser.clear();
+                enter.rerouteTo("");
+            } else if (current != held) {
+                CurrentUser.set(current);
+            }
+        }));
+    }
+}
@@ -0,0 +1,48 @@
+package net.publicworks.app.frontend.config;
+
+import net.publicworks.app.backend.itf.CustomerDiferentiator;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl;
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope;
+import net.publicworks.app.frontend.CurrentUser;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tells Hibernate which tenant a new session belongs to: the one bound with {@link TenantScope} if any,
+ * otherwise the signed-in user's, otherwise {@code DEFAULT}. Connections come from
+ * {@link MultiTenantConnectionProviderImpl}.
+ */
+@Component
+public class TenantResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
+
+    private final MultiTenantConnectionProviderImpl connections;
+
+    public TenantResolver(MultiTenantConnectionProviderImpl connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String bound = TenantScope.current();
+        if (bound != null) {
+            return bound;
+        }
+        String user = CurrentUser.getCustomerDiferentiator();
+        return user != null ? user : CustomerDiferentiator.DEFAULT;
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return true;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connections);
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
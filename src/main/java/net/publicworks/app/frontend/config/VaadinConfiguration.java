@@ -2,6 +2,7 @@ package net.publicworks.app.frontend.config;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.component.page.BodySize;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.spring.annotation.EnableVaadin;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.context.annotation.Configuration;
@@ -10,5 +11,6 @@ import org.springframework.context.annotation.Configuration;
 @EnableVaadin
 @Theme("app-theme")
 @BodySize(height = "100%")
+@Push
 public class VaadinConfiguration implements AppShellConfigurator {
 }
@@ -0,0 +1,145 @@
+package net.publicworks.app.frontend.layout;
+
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.icon.Icon;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+import net.publicworks.app.backend.entity.asset.Asset;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.service.export.DataExporter;
+import net.publicworks.app.backend.service.export.ExportKind;
+import net.publicworks.app.backend.service.search.AssetRow;
+import net.publicworks.app.backend.service.search.CountMode;
+import net.publicworks.app.backend.service.search.SearchFilter;
+import net.publicworks.app.backend.service.search.SearchQueryPlanner;
+import net.publicworks.app.frontend.CurrentUser;
+import net.publicworks.app.frontend.ExportMenu;
+import net.publicworks.app.frontend.LiveTopic;
+import net.publicworks.app.frontend.LiveUpdateBroadcaster;
+import net.publicworks.app.frontend.WindowPrefetcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+@Route(value = "assets", layout = MainLayout.class)
+@PageTitle("Assets | Public Works")
+public class AssetListView extends VerticalLayout implements BeforeEnterObserver {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final SearchQueryPlanner planner;
+    private final WindowPrefetcher<ListState, AssetRow> rows;
+    private final Grid<AssetRow> grid = new Grid<>(AssetRow.class, false);
+    private final TextField nameFilter = new TextField();
+    private final ComboBox<AssetTypeEnum> typeFilter = new ComboBox<>();
+    /** Set by {@code ?id=}: the list shows just that asset until another filter is chosen. */
+    private Long assetId;
+    private Registration liveUpdates;
+
+    public AssetListView(SearchQueryPlanner planner, DataExporter exporter, LiveUpdateBroadcaster live) {
+        this.planner = planner;
+        this.rows = new WindowPrefetcher<>(this::load);
+        setSizeFull();
+        setPadding(true);
+
+        nameFilter.setPlaceholder("Filter by name…");
+        nameFilter.setPrefixComponent(new Icon(VaadinIcon.SEARCH));
+        nameFilter.setClearButtonVisible(true);
+        nameFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        nameFilter.addValueChangeListener(e -> filterChanged());
+
+        typeFilter.setPlaceholder("Any type");
+        typeFilter.setItems(AssetTypeEnum.values());
+        typeFilter.setClearButtonVisible(true);
+        typeFilter.addValueChangeListener(e -> filterChanged());
+
+        HorizontalLayout header = new HorizontalLayout(new H2("Assets"), nameFilter, typeFilter,
+                new ExportMenu(exporter, ExportKind.ASSET, ExportKind.INSPECTION));
+        header.setWidthFull();
+        header.setAlignItems(FlexComponent.Alignment.BASELINE);
+
+        grid.addColumn(AssetRow::externalId).setHeader("Asset ID").setSortProperty("externalId").setAutoWidth(true);
+        grid.addColumn(AssetRow::name).setHeader("Name").setSortProperty("name").setFlexGrow(2);
+        grid.addColumn(AssetRow::type).setHeader("Type").setSortProperty("type");
+        grid.addColumn(AssetRow::status).setHeader("Status").setSortProperty("status");
+        grid.addColumn(AssetRow::city).setHeader("City").setSortProperty("location.city");
+        grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
+        grid.setPageSize(PAGE_SIZE);
+        // no count query: the grid grows as the user scrolls
+        grid.setItems(query -> rows.fetch(state(query), query.getOffset(), query.getLimit()).stream());
+        grid.setSizeFull();
+
+        add(header, grid);
+        expand(grid);
+
+        // other users' writes are pushed in; the grid re-reads only the rows it shows
+        addAttachListener(e -> liveUpdates = live.subscribe(e.getUI(), CurrentUser.getCustomerDiferentiator(),
+                EnumSet.of(LiveTopic.ASSETS), topics -> refresh()));
+        addDetachListener(e -> liveUpdates.remove());
+    }
+
+    private List<AssetRow> load(ListState state, int offset, int limit) {
+        List<SearchFilter> filters = new ArrayList<>(3);
+        filters.add(new SearchFilter("customerDiferentiator", state.customer(), SearchFilter.Operator.EQ));
+        if (state.id() != null) {
+            filters.add(new SearchFilter("id", state.id(), SearchFilter.Operator.EQ));
+        }
+        if (state.name() != null) {
+            filters.add(new SearchFilter("name", state.name(), SearchFilter.Operator.LIKE));
+        }
+        if (state.type() != null) {
+            filters.add(new SearchFilter("type", state.type(), SearchFilter.Operator.EQ));
+        }
+        return planner.search(Asset.class, AssetRow.PROJECTION, filters,
+                PageRequest.of(offset / limit, limit, state.sort()), CountMode.SKIP).getContent();
+    }
+
+    private ListState state(Query<AssetRow, Void> query) {
+        return new ListState(CurrentUser.getCustomerDiferentiator(), assetId,
+                nameFilter.isEmpty() ? null : nameFilter.getValue().trim(),
+                typeFilter.getValue(),
+                WorkOrderListView.toSort(query));
+    }
+
+    private void filterChanged() {
+        assetId = null;
+        refresh();
+    }
+
+    private void refresh() {
+        rows.invalidate();
+        grid.getDataProvider().refreshAll();
+    }
+
+    @Override
+    public void beforeEnter(BeforeEnterEvent event) {
+        if (!CurrentUser.isLoggedIn()) {
+            event.rerouteTo("");
+            return;
+        }
+        event.getLocation().getQueryParameters().getSingleParameter("q").ifPresent(nameFilter::setValue);
+        assetId = event.getLocation().getQueryParameters().getSingleParameter("id")
+                .filter(id -> id.matches("\\d{1,18}"))
+                .map(Long::valueOf)
+                .orElse(null);
+        refresh();
+    }
+
+    private record ListState(String customer, Long id, String name, AssetTypeEnum type, Sort sort) {}
+}
@@ -0,0 +1,75 @@
+package net.publicworks.app.frontend.layout;
+
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.icon.Icon;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import net.publicworks.app.backend.commands.CommandBusMetrics;
+import net.publicworks.app.backend.commands.CommandBusMetrics.CommandStats;
+import net.publicworks.app.frontend.CurrentUser;
+
+import java.util.function.ToDoubleFunction;
+
+@Route(value = "admin/metrics", layout = MainLayout.class)
+@PageTitle("Command Metrics | Public Works")
+public class CommandMetricsView extends VerticalLayout implements BeforeEnterObserver {
+
+    private final CommandBusMetrics metrics;
+    private final Grid<CommandStats> grid = new Grid<>();
+
+    public CommandMetricsView(CommandBusMetrics metrics) {
+        this.metrics = metrics;
+        setSizeFull();
+        setPadding(true);
+
+        H2 title = new H2("Command Bus Metrics");
+        Button refresh = new Button("Refresh", new Icon(VaadinIcon.REFRESH), e -> refresh());
+
+        HorizontalLayout header = new HorizontalLayout(title, refresh);
+        header.setWidthFull();
+        header.setAlignItems(FlexComponent.Alignment.CENTER);
+        header.expand(title);
+
+        grid.addColumn(CommandStats::command).setHeader("Command").setSortable(true).setAutoWidth(true);
+        grid.addColumn(CommandStats::operation).setHeader("Operation").setSortable(true);
+        grid.addColumn(CommandStats::tenant).setHeader("Tenant").setSortable(true);
+        grid.addColumn(CommandStats::count).setHeader("Count").setSortable(true);
+        addMillisColumn("p50 (ms)", CommandStats::p50Ms);
+        addMillisColumn("p95 (ms)", CommandStats::p95Ms);
+        addMillisColumn("p99 (ms)", CommandStats::p99Ms);
+        addMillisColumn("Max (ms)", CommandStats::maxMs);
+        grid.addColumn(CommandStats::errors).setHeader("Errors").setSortable(true);
+        grid.addColumn(CommandStats::inFlight).setHeader("In flight");
+        grid.setSizeFull();
+
+        add(header, grid);
+        expand(grid);
+    }
+
+    private void addMillisColumn(String header, ToDoubleFunction<CommandStats> value) {
+        grid.addColumn(s -> String.format("%.1f", value.applyAsDouble(s)))
+                .setHeader(header)
+                .setComparator((a, b) -> Double.compare(value.applyAsDouble(a), value.applyAsDouble(b)));
+    }
+
+    private void refresh() {
+        grid.setItems(metrics.snapshot());
+    }
+
+    @Override
+    public void beforeEnter(BeforeEnterEvent event) {
+        if (!CurrentUser.isAdmin()) {
+            event.rerouteTo(CurrentUser.isLoggedIn() ? "app" : "");
+            return;
+        }
+        refresh();
+    }
+}
@@ -1,6 +1,7 @@
 // src/main/java/net/publicworks/app/frontend/view/HomeView.java
 package net.publicworks.app.frontend.layout;
 
+import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.formlayout.FormLayout;
@@ -20,42 +21,80 @@ import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.popover.Popover;
+import com.vaadin.flow.component.popover.PopoverPosition;
+import com.vaadin.flow.component.virtuallist.VirtualList;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.QueryParameters;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+import net.publicworks.app.backend.commands.AsyncCommandBus;
 import net.publicworks.app.backend.commands.CommandBus;
 import net.publicworks.app.backend.commands.CreateWorkOrderCommand;
 import net.publicworks.app.backend.commands.CrudOperation;
-import net.publicworks.app.backend.entity.User;
 import net.publicworks.app.backend.entity.WorkOrder;
 import net.publicworks.app.backend.handlers.ResultUtil;
 import net.publicworks.app.backend.itf.IResult;
 import net.publicworks.app.backend.itf.Result;
+import net.publicworks.app.backend.service.counters.CounterEntity;
+import net.publicworks.app.backend.service.counters.DashboardCounters;
+import net.publicworks.app.backend.service.fulltext.FullTextHit;
+import net.publicworks.app.backend.service.fulltext.FullTextIndex;
+import net.publicworks.app.backend.service.user.UserPrincipal;
 import net.publicworks.app.frontend.CurrentUser;
+import net.publicworks.app.frontend.LiveTopic;
+import net.publicworks.app.frontend.LiveUpdateBroadcaster;
+import net.publicworks.app.frontend.UiAsync;
+import net.publicworks.app.frontend.UiDebouncer;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
 
 @Route(value = "app", layout = MainLayout.class)
 @PageTitle("Dashboard | Public Works")
 public class HomeView extends VerticalLayout implements BeforeEnterObserver {
 
-    private final CommandBus commandBus;
+    private static final int TYPE_AHEAD_MAX_RESULTS = 50;
 
-    public HomeView(CommandBus commandBus) {
+    private final CommandBus commandBus;
+    private final AsyncCommandBus asyncCommandBus;
+    private final FullTextIndex fullTextIndex;
+    private final DashboardCounters counters;
+    private final UiDebouncer searchDebouncer = new UiDebouncer(Duration.ofMillis(200));
+    private final String customer = CurrentUser.getCustomerDiferentiator();
+    private final Span openWorkOrders = new Span();
+    private final Span assetTotal = new Span();
+    private String activeQuery;
+    private DataProvider<FullTextHit, Void> searchHits;
+    private Popover searchPopover;
+    private Registration liveUpdates;
+
+    public HomeView(CommandBus commandBus, AsyncCommandBus asyncCommandBus, FullTextIndex fullTextIndex,
+                    DashboardCounters counters, LiveUpdateBroadcaster live) {
         this.commandBus = commandBus;
+        this.counters = counters;
+        this.asyncCommandBus = asyncCommandBus;
+        this.fullTextIndex = fullTextIndex;
         setSizeFull();
         setPadding(true);
         setSpacing(true);
         setDefaultHorizontalComponentAlignment(FlexComponent.Alignment.STRETCH);
 
-        User user = CurrentUser.get();
+        UserPrincipal user = CurrentUser.get();
 
         // Greeting and user context
         String greeting = (user != null)
-                ? "Welcome, " + user.getEmail()
+                ? "Welcome, " + user.email()
                 : "Welcome";
 
-        String tenant = (user != null && user.getTenantId() != null)
-                ? "User: " + user.getTenantId()
+        String tenant = (user != null && user.tenantId() != null)
+                ? "User: " + user.tenantId()
                 : "No user configured yet";
 
         H2 title = new H2(greeting);
@@ -68,6 +107,12 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
         searchField.setPlaceholder("Search assets, work orders, requests…");
         searchField.setWidthFull();
         searchField.setClearButtonVisible(true);
+        // the browser only sends a value after a short pause in typing; the server debounces again below
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.setValueChangeTimeout(250);
+        createSearchResults(searchField);
+        searchField.addValueChangeListener(e -> onSearchInput(e.getValue()));
+        addDetachListener(e -> searchDebouncer.cancel());
 
         // Quick action buttons
         Button newWorkOrderBtn = new Button("New Work Order", new Icon(VaadinIcon.PLUS_CIRCLE));
@@ -79,7 +124,7 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
         newServiceRequestBtn.addClickListener(e ->
                 UI.getCurrent().navigate("requests"));          // replace with your route
         viewMapBtn.addClickListener(e ->
-                UI.getCurrent().navigate(String.valueOf(MapView.class)));       // replace with your map view class
+                UI.getCurrent().navigate(MapView.class));
 
         HorizontalLayout actions = new HorizontalLayout(newWorkOrderBtn, newServiceRequestBtn, viewMapBtn);
         actions.setSpacing(true);
@@ -96,11 +141,11 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
 
         // Dashboard cards summarising important features
         cards.add(
-                createCard("Open Work Orders",
+                createCard("Open Work Orders", openWorkOrders,
                         "Track and assign field work for today."),
                 createCard("Service Requests",
                         "View, create and manage citizen service requests."),
-                createCard("Assets",
+                createCard("Assets", assetTotal,
                         "Access inventory of mains, valves, hydrants and other critical infrastructure."),
                 createCard("Reports",
                         "Generate activity and compliance reports."),
@@ -110,19 +155,82 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
 
         add(cards);
         expand(cards);
+        showCounts();
 
-        // Placeholder for GIS map integration
-        Div mapPlaceholder = new Div();
-        mapPlaceholder.setWidthFull();
-        mapPlaceholder.setHeight("300px");
-        mapPlaceholder.getStyle().set("border", "1px solid var(--lumo-contrast-10pct)")
-                .set("margin-top", "1rem")
-                .set("border-radius", "8px")
-                .set("display", "flex")
-                .set("align-items", "center")
-                .set("justify-content", "center");
-        mapPlaceholder.setText("GIS Map Integration Coming Soon");
-        add(mapPlaceholder);
+        // counts follow other users' writes; they come from memory, not the database
+        addAttachListener(e -> liveUpdates = live.subscribe(e.getUI(), customer,
+                EnumSet.allOf(LiveTopic.class), topics -> showCounts()));
+        addDetachListener(e -> liveUpdates.remove());
+    }
+
+    private void createSearchResults(TextField searchField) {
+        VirtualList<FullTextHit> list = new VirtualList<>();
+        list.setHeight("320px");
+        // rendered client-side from a handful of properties, no server component per row
+        list.setRenderer(LitRenderer.<FullTextHit>of(
+                        "<div style='padding:0.4rem 0.75rem;cursor:pointer' @click=${open}>"
+                                + "${item.title} <small style='color:var(--lumo-secondary-text-color)'>${item.kind}</small>"
+                                + "</div>")
+                .withProperty("title", FullTextHit::title)
+                .withProperty("kind", hit -> hit.kind().name().replace('_', ' ').toLowerCase())
+                .withFunction("open", this::openSearchHit));
+        // rows are fetched a page at a time as the list scrolls
+        searchHits = DataProvider.fromCallbacks(
+                query -> fetchSearchHits(query.getOffset(), query.getLimit()).stream(),
+                query -> activeQuery == null ? 0
+                        : Math.min(TYPE_AHEAD_MAX_RESULTS, fullTextIndex.count(customer, activeQuery, null)));
+        list.setDataProvider(searchHits);
+
+        searchPopover = new Popover(list);
+        searchPopover.setTarget(searchField);
+        searchPopover.setPosition(PopoverPosition.BOTTOM_START);
+        searchPopover.setOpenOnClick(false);
+        searchPopover.setWidth("min(40rem, 90vw)");
+    }
+
+    private void onSearchInput(String text) {
+        if (text == null || text.isBlank()) {
+            searchDebouncer.cancel();
+            activeQuery = null;
+            searchPopover.close();
+            return;
+        }
+        // superseded keystrokes are cancelled before they reach the index
+        searchDebouncer.schedule(() -> {
+            activeQuery = text.trim();
+            searchHits.refreshAll();
+            searchPopover.open();
+        });
+    }
+
+    private List<FullTextHit> fetchSearchHits(int offset, int limit) {
+        int capped = Math.min(limit, TYPE_AHEAD_MAX_RESULTS - offset);
+        if (activeQuery == null || capped <= 0) {
+            return List.of();
+        }
+        return fullTextIndex.search(customer, activeQuery, null, offset, capped);
+    }
+
+    private void openSearchHit(FullTextHit hit) {
+        searchPopover.close();
+        Class<? extends Component> target = switch (hit.kind()) {
+            case ASSET -> AssetListView.class;
+            default -> WorkOrderListView.class;
+        };
+        // by id: titles are not unique, and the list opens on exactly the entity that was hit
+        UI.getCurrent().navigate(target, QueryParameters.of("id", Long.toString(hit.id())));
+    }
+
+    private void showCounts() {
+        openWorkOrders.setText(Long.toString(counters.count(customer, CounterEntity.WORK_ORDER, "status", "OPEN")));
+        assetTotal.setText(Long.toString(counters.total(customer, CounterEntity.ASSET)));
+    }
+
+    private Div createCard(String title, Span figure, String body) {
+        Div card = createCard(title, body);
+        figure.getStyle().set("font-size", "1.75rem").set("font-weight", "600");
+        card.addComponentAtIndex(1, figure);
+        return card;
     }
 
     private Div createCard(String title, String body) {
@@ -233,7 +341,7 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
 
             // TODO: Dispatch to backend to actually create and persist a WorkOrder entity
             var user = CurrentUser.get();
-            String tenantId = user != null ? user.getTenantId() : null;
+            String tenantId = user != null ? user.tenantId() : null;
 
             var cmd = CreateWorkOrderCommand.builder()
                     .tenantId(tenantId)
@@ -248,15 +356,22 @@ public class HomeView extends VerticalLayout implements BeforeEnterObserver {
                     .customerDiferentiator(CurrentUser.getCustomerDiferentiator())
                     .build();
 
-            IResult result = commandBus.dispatch(cmd);
-
-            // Show a confirmation banner with actions
-            WorkOrder saved = ResultUtil.require(result, WorkOrder.class);
-
-            Result.UiBanner banner = ResultUtil.require(result, Result.UiBanner.class);
-            BannerUtil.show(banner);
-
-            dialog.close();
+            // work orders from a busy crew are coalesced into one batched insert
+            e.getSource().setEnabled(false);
+            UiAsync.onComplete(asyncCommandBus.dispatchBatched(CreateWorkOrderCommand.class,
+                    cmd.getCustomerDiferentiator(), () -> commandBus.dispatch(cmd)), result -> {
+                // Show a confirmation banner with actions
+                WorkOrder saved = ResultUtil.require(result, WorkOrder.class);
+
+                Result.UiBanner banner = ResultUtil.require(result, Result.UiBanner.class);
+                BannerUtil.show(banner);
+
+                dialog.close();
+            }, error -> {
+                e.getSource().setEnabled(true);
+                Notification.show("Could not save work order: " + error.getMessage())
+                        .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            });
         });
 
         save.getElement().setAttribute("data-testid", "wo-save");
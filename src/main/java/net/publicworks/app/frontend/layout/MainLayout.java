@@ -14,7 +14,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.RouterLayout;
 import com.vaadin.flow.router.RouterLink;
-import net.publicworks.app.backend.entity.User;
+import net.publicworks.app.backend.service.user.UserPrincipal;
 import net.publicworks.app.frontend.CurrentUser;
 
 
@@ -33,9 +33,9 @@ public class MainLayout extends AppLayout implements RouterLayout {
                 .set("font-size", "1.25rem")
                 .set("margin", "0");
 
-        User user = CurrentUser.get();
+        UserPrincipal user = CurrentUser.get();
         String userLabel = user != null
-                ? user.getEmail() + " (" + user.getRole() + ")"
+                ? user.email() + " (" + user.role() + ")"
                 : "Not signed in";
 
         Span userSpan = new Span(userLabel);
@@ -87,14 +87,22 @@ public class MainLayout extends AppLayout implements RouterLayout {
         RouterLink dashboard = new RouterLink("Dashboard", HomeView.class);
         dashboard.addComponentAsFirst(new Icon(VaadinIcon.DASHBOARD));
 
-        // Placeholder for future sections
-        RouterLink workOrders = new RouterLink("Work Orders", HomeView.class);
+        RouterLink workOrders = new RouterLink("Work Orders", WorkOrderListView.class);
         workOrders.addComponentAsFirst(new Icon(VaadinIcon.CLIPBOARD_CHECK));
 
-        RouterLink assets = new RouterLink("Assets", HomeView.class);
+        RouterLink assets = new RouterLink("Assets", AssetListView.class);
         assets.addComponentAsFirst(new Icon(VaadinIcon.FACTORY));
 
-        nav.add(sectionTitle, divider, dashboard, workOrders, assets);
+        RouterLink map = new RouterLink("Map", MapView.class);
+        map.addComponentAsFirst(new Icon(VaadinIcon.GLOBE));
+
+        nav.add(sectionTitle, divider, dashboard, workOrders, assets, map);
+
+        if (CurrentUser.isAdmin()) {
+            RouterLink metrics = new RouterLink("Command Metrics", CommandMetricsView.class);
+            metrics.addComponentAsFirst(new Icon(VaadinIcon.CHART));
+            nav.add(metrics);
+        }
 
         addToDrawer(nav);
     }
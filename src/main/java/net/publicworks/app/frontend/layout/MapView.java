@@ -1,4 +1,96 @@
 package net.publicworks.app.frontend.layout;
 
-public class MapView {
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.QueryParameters;
+import com.vaadin.flow.router.Route;
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum;
+import net.publicworks.app.backend.repo.IAssetRepository;
+import net.publicworks.app.backend.service.spatial.MapFeature;
+import net.publicworks.app.backend.service.spatial.SpatialIndex;
+import net.publicworks.app.backend.service.spatial.Viewport;
+import net.publicworks.app.frontend.AssetMap;
+import net.publicworks.app.frontend.AssetTileController;
+import net.publicworks.app.frontend.CurrentUser;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Route(value = "map", layout = MainLayout.class)
+@PageTitle("Map | Public Works")
+public class MapView extends VerticalLayout implements BeforeEnterObserver {
+
+    private static final Map<AssetTypeEnum, String> OVERLAY_COLORS = Map.of(
+            AssetTypeEnum.WATER_MAIN, "#1e6fd9",
+            AssetTypeEnum.VALVE, "#d9481e",
+            AssetTypeEnum.HYDRANT, "#d91e3c");
+
+    private final SpatialIndex spatialIndex;
+    private final IAssetRepository assetRepository;
+    private final String customer = CurrentUser.getCustomerDiferentiator();
+    private final Span inView = new Span();
+
+    public MapView(SpatialIndex spatialIndex, IAssetRepository assetRepository,
+                   @Value("${map.tile-url:https://tile.openstreetmap.org/{z}/{x}/{y}.png}") String tileUrl,
+                   @Value("${map.attribution:&copy; OpenStreetMap contributors}") String attribution) {
+        this.spatialIndex = spatialIndex;
+        this.assetRepository = assetRepository;
+        setSizeFull();
+        setPadding(true);
+
+        inView.getStyle().set("font-size", "0.875rem").set("color", "var(--lumo-secondary-text-color)");
+        HorizontalLayout header = new HorizontalLayout(new H2("Map"), inView);
+        header.setAlignItems(FlexComponent.Alignment.BASELINE);
+
+        // the browser reports where it is looking; only the markers for that area are sent back
+        AssetMap map = new AssetMap(tileUrl, attribution);
+        map.setSizeFull();
+        map.addViewportChangeListener(e -> showViewport(map, e.getViewport()));
+        map.addAssetClickListener(e -> openAsset(e.getAssetId()));
+        // full geometries (mains as lines) come as cached vector tiles, one switchable overlay per type
+        for (AssetTypeEnum type : AssetTypeEnum.values()) {
+            map.addTileOverlay(label(type), AssetTileController.urlTemplate(type), type.name(),
+                    OVERLAY_COLORS.getOrDefault(type, "#555555"));
+        }
+
+        add(header, map);
+        expand(map);
+    }
+
+    private static String label(AssetTypeEnum type) {
+        String words = type.name().replace('_', ' ').toLowerCase();
+        return Character.toUpperCase(words.charAt(0)) + words.substring(1);
+    }
+
+    private void showViewport(AssetMap map, Viewport viewport) {
+        if (customer == null) {
+            return;
+        }
+        List<MapFeature> features = spatialIndex.query(customer, viewport);
+        long assets = features.stream().mapToLong(MapFeature::count).sum();
+        inView.setText(assets + (assets == 1 ? " asset" : " assets") + " in view");
+        map.setFeatures(features);
+    }
+
+    private void openAsset(long assetId) {
+        assetRepository.findById(assetId)
+                .filter(asset -> customer != null && customer.equals(asset.getCustomerDiferentiator()))
+                .ifPresent(asset -> UI.getCurrent().navigate(AssetListView.class,
+                        QueryParameters.of("id", Long.toString(asset.getId()))));
+    }
+
+    @Override
+    public void beforeEnter(BeforeEnterEvent event) {
+        if (!CurrentUser.isLoggedIn()) {
+            event.rerouteTo("");
+        }
+    }
 }
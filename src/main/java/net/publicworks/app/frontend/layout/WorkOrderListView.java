@@ -0,0 +1,157 @@
+package net.publicworks.app.frontend.layout;
+
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.icon.Icon;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.SortDirection;
+import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+import net.publicworks.app.backend.entity.WorkOrder;
+import net.publicworks.app.backend.service.export.DataExporter;
+import net.publicworks.app.backend.service.export.ExportKind;
+import net.publicworks.app.backend.service.search.CountMode;
+import net.publicworks.app.backend.service.search.SearchFilter;
+import net.publicworks.app.backend.service.search.SearchQueryPlanner;
+import net.publicworks.app.backend.service.search.WorkOrderRow;
+import net.publicworks.app.frontend.CurrentUser;
+import net.publicworks.app.frontend.ExportMenu;
+import net.publicworks.app.frontend.LiveTopic;
+import net.publicworks.app.frontend.LiveUpdateBroadcaster;
+import net.publicworks.app.frontend.WindowPrefetcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+@Route(value = "work-orders", layout = MainLayout.class)
+@PageTitle("Work Orders | Public Works")
+public class WorkOrderListView extends VerticalLayout implements BeforeEnterObserver {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final SearchQueryPlanner planner;
+    private final WindowPrefetcher<ListState, WorkOrderRow> rows;
+    private final Grid<WorkOrderRow> grid = new Grid<>(WorkOrderRow.class, false);
+    private final TextField titleFilter = new TextField();
+    private final ComboBox<String> priorityFilter = new ComboBox<>();
+    /** Set by {@code ?id=}: the list shows just that work order until another filter is chosen. */
+    private Long workOrderId;
+    private Registration liveUpdates;
+
+    public WorkOrderListView(SearchQueryPlanner planner, DataExporter exporter, LiveUpdateBroadcaster live) {
+        this.planner = planner;
+        this.rows = new WindowPrefetcher<>(this::load);
+        setSizeFull();
+        setPadding(true);
+
+        titleFilter.setPlaceholder("Filter by title…");
+        titleFilter.setPrefixComponent(new Icon(VaadinIcon.SEARCH));
+        titleFilter.setClearButtonVisible(true);
+        titleFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        titleFilter.addValueChangeListener(e -> filterChanged());
+
+        priorityFilter.setPlaceholder("Any priority");
+        priorityFilter.setItems("Low", "Normal", "High", "Emergency");
+        priorityFilter.setClearButtonVisible(true);
+        priorityFilter.addValueChangeListener(e -> filterChanged());
+
+        HorizontalLayout header = new HorizontalLayout(new H2("Work Orders"), titleFilter, priorityFilter,
+                new ExportMenu(exporter, ExportKind.WORK_ORDER));
+        header.setWidthFull();
+        header.setAlignItems(FlexComponent.Alignment.BASELINE);
+
+        grid.addColumn(WorkOrderRow::id).setHeader("#").setSortProperty("id").setAutoWidth(true);
+        grid.addColumn(WorkOrderRow::title).setHeader("Title").setSortProperty("title").setFlexGrow(2);
+        grid.addColumn(WorkOrderRow::status).setHeader("Status").setSortProperty("status");
+        grid.addColumn(WorkOrderRow::priority).setHeader("Priority").setSortProperty("priority");
+        grid.addColumn(WorkOrderRow::locationText).setHeader("Location").setSortProperty("locationText");
+        grid.addColumn(WorkOrderRow::requesterEmail).setHeader("Requester");
+        grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
+        grid.setPageSize(PAGE_SIZE);
+        // no count query: the grid grows as the user scrolls
+        grid.setItems(query -> rows.fetch(state(query), query.getOffset(), query.getLimit()).stream());
+        grid.setSizeFull();
+
+        add(header, grid);
+        expand(grid);
+
+        // other users' writes are pushed in; the grid re-reads only the rows it shows
+        addAttachListener(e -> liveUpdates = live.subscribe(e.getUI(), CurrentUser.getCustomerDiferentiator(),
+                EnumSet.of(LiveTopic.WORK_ORDERS), topics -> refresh()));
+        addDetachListener(e -> liveUpdates.remove());
+    }
+
+    private List<WorkOrderRow> load(ListState state, int offset, int limit) {
+        List<SearchFilter> filters = new ArrayList<>(3);
+        filters.add(new SearchFilter("customerDiferentiator", state.customer(), SearchFilter.Operator.EQ));
+        if (state.id() != null) {
+            filters.add(new SearchFilter("id", state.id(), SearchFilter.Operator.EQ));
+        }
+        if (state.title() != null) {
+            filters.add(new SearchFilter("title", state.title(), SearchFilter.Operator.LIKE));
+        }
+        if (state.priority() != null) {
+            filters.add(new SearchFilter("priority", state.priority(), SearchFilter.Operator.EQ));
+        }
+        return planner.search(WorkOrder.class, WorkOrderRow.PROJECTION, filters,
+                PageRequest.of(offset / limit, limit, state.sort()), CountMode.SKIP).getContent();
+    }
+
+    private ListState state(Query<WorkOrderRow, Void> query) {
+        return new ListState(CurrentUser.getCustomerDiferentiator(), workOrderId,
+                titleFilter.isEmpty() ? null : titleFilter.getValue().trim(),
+                priorityFilter.getValue(),
+                toSort(query));
+    }
+
+    static Sort toSort(Query<?, ?> query) {
+        List<Sort.Order> orders = new ArrayList<>();
+        query.getSortOrders().forEach(o -> orders.add(o.getDirection() == SortDirection.DESCENDING
+                ? Sort.Order.desc(o.getSorted())
+                : Sort.Order.asc(o.getSorted())));
+        // id last keeps offset pages stable when the sort column has duplicates
+        orders.add(Sort.Order.asc("id"));
+        return Sort.by(orders);
+    }
+
+    private void filterChanged() {
+        workOrderId = null;
+        refresh();
+    }
+
+    private void refresh() {
+        rows.invalidate();
+        grid.getDataProvider().refreshAll();
+    }
+
+    @Override
+    public void beforeEnter(BeforeEnterEvent event) {
+        if (!CurrentUser.isLoggedIn()) {
+            event.rerouteTo("");
+            return;
+        }
+        event.getLocation().getQueryParameters().getSingleParameter("q").ifPresent(titleFilter::setValue);
+        workOrderId = event.getLocation().getQueryParameters().getSingleParameter("id")
+                .filter(id -> id.matches("\\d{1,18}"))
+                .map(Long::valueOf)
+                .orElse(null);
+        refresh();
+    }
+
+    /** Everything a page of rows depends on; the prefetched window is only reused for an equal state. */
+    private record ListState(String customer, Long id, String title, String priority, Sort sort) {}
+}
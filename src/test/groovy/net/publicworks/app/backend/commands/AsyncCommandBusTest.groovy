@@ -0,0 +1,83 @@
+package net.publicworks.app.backend.commands
+
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.itf.IResult
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class AsyncCommandBusTest extends Specification {
+
+    PlatformTransactionManager transactionManager = Mock()
+    AsyncCommandBus bus = new AsyncCommandBus(transactionManager, 4, 5, 20)
+
+    def cleanup() {
+        bus.destroy()
+    }
+
+    def "dispatchAsync runs the dispatch off the calling thread"() {
+        given:
+        def caller = Thread.currentThread()
+        IResult ok = Stub()
+        Thread ranOn = null
+
+        when:
+        def result = bus.dispatchAsync({ ranOn = Thread.currentThread(); ok }).get(5, TimeUnit.SECONDS)
+
+        then:
+        result.is(ok)
+        ranOn != caller
+        ranOn.name.startsWith("command-bus-")
+    }
+
+    def "batched dispatches of the same kind share one transaction and keep their own results"() {
+        given:
+        def results = (1..5).collect { Stub(IResult) }
+
+        when:
+        List<CompletableFuture<IResult>> futures = results.collect { r ->
+            bus.dispatchBatched(CreateWorkOrderCommand, CustomerDiferentiator.DEFAULT, { r })
+        }
+        def completed = futures*.get(5, TimeUnit.SECONDS)
+
+        then:
+        [completed, results].transpose().every { a, b -> a.is(b) }
+        1 * transactionManager.getTransaction(_)
+        1 * transactionManager.commit(_)
+    }
+
+    def "a failing command in a batch is retried alone and does not fail the others"() {
+        given:
+        IResult ok = Stub()
+
+        when:
+        def good = bus.dispatchBatched(CreateWorkOrderCommand, CustomerDiferentiator.DEFAULT, { ok })
+        def bad = bus.dispatchBatched(CreateWorkOrderCommand, CustomerDiferentiator.DEFAULT, { throw new IllegalStateException("boom") })
+        good.get(5, TimeUnit.SECONDS)
+        bad.handle({ v, e -> e }).get(5, TimeUnit.SECONDS)
+
+        then:
+        good.get().is(ok)
+        bad.isCompletedExceptionally()
+    }
+
+    def "each tenant's commands are batched apart, with that tenant bound"() {
+        given:
+        Map<String, List<String>> boundFor = [:].withDefault { [].asSynchronized() }
+
+        when:
+        List<CompletableFuture<IResult>> futures = [CustomerDiferentiator.DEFAULT, CustomerDiferentiator.ALASKA].collectMany { tenant ->
+            (1..2).collect { bus.dispatchBatched(CreateWorkOrderCommand, tenant, { boundFor[tenant] << TenantScope.current(); Stub(IResult) }) }
+        }
+        futures*.get(5, TimeUnit.SECONDS)
+
+        then:
+        boundFor[CustomerDiferentiator.DEFAULT] == [CustomerDiferentiator.DEFAULT] * 2
+        boundFor[CustomerDiferentiator.ALASKA] == [CustomerDiferentiator.ALASKA] * 2
+        2 * transactionManager.getTransaction(_)
+        2 * transactionManager.commit(_)
+    }
+}
@@ -0,0 +1,66 @@
+package net.publicworks.app.backend.commands
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.itf.IResult
+import org.aspectj.lang.ProceedingJoinPoint
+import spock.lang.Specification
+
+class CommandBusMetricsTest extends Specification {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+    CommandBusMetrics metrics = new CommandBusMetrics(registry)
+
+    def "records latency per command type, operation and tenant"() {
+        given:
+        def cmd = CreateWorkOrderCommand.builder()
+                .title("Hydrant leaking")
+                .operation(CrudOperation.CREATE)
+                .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                .build()
+        IResult ok = Stub { isSuccess() >> true }
+        ProceedingJoinPoint pjp = Stub {
+            getArgs() >> ([cmd] as Object[])
+            proceed() >> ok
+        }
+
+        when:
+        3.times { metrics.aroundDispatch(pjp) }
+
+        then:
+        def timer = registry.get("commandbus.dispatch")
+                .tags("command", "CreateWorkOrderCommand", "operation", "CREATE", "tenant", CustomerDiferentiator.DEFAULT)
+                .timer()
+        timer.count() == 3
+
+        and:
+        def stats = metrics.snapshot()
+        stats.size() == 1
+        stats[0].count() == 3
+        stats[0].errors() == 0
+        stats[0].inFlight() == 0
+    }
+
+    def "counts failed results and exceptions as errors"() {
+        given:
+        def cmd = LoginCommand.builder().email("a@b.c").password("x").build()
+        IResult failed = Stub { isSuccess() >> false }
+        ProceedingJoinPoint failing = Stub {
+            getArgs() >> ([cmd] as Object[])
+            proceed() >> failed
+        }
+        ProceedingJoinPoint throwing = Stub {
+            getArgs() >> ([cmd] as Object[])
+            proceed() >> { throw new IllegalStateException("db down") }
+        }
+
+        when:
+        metrics.aroundDispatch(failing)
+        metrics.aroundDispatch(throwing)
+
+        then:
+        thrown(IllegalStateException)
+        metrics.snapshot()[0].errors() == 2
+        registry.get("commandbus.errors").tags("command", "LoginCommand", "outcome", "exception").counter().count() == 1
+    }
+}
@@ -0,0 +1,167 @@
+package net.publicworks.app.backend.repo
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantPoolSettings
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.SQLTransientConnectionException
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicBoolean
+
+class TenantConnectionPoolTest extends Specification {
+
+    DataSource defaultDataSource = Mock()
+    SimpleMeterRegistry meters = new SimpleMeterRegistry()
+
+    MultiTenantConnectionProviderImpl provider = provider(4)
+
+    def cleanup() {
+        provider.destroy()
+    }
+
+    MultiTenantConnectionProviderImpl provider(int globalMax) {
+        new MultiTenantConnectionProviderImpl(defaultDataSource, [
+                juneau: new TenantPoolSettings("jdbc:h2:mem:pool_juneau;DB_CLOSE_DELAY=-1", "sa", "", 2, 1),
+                nome  : new TenantPoolSettings("jdbc:h2:mem:pool_nome;DB_CLOSE_DELAY=-1", "sa", "", 2, 1),
+        ], meters, globalMax, 10, 0, Duration.ofHours(1), Duration.ofMillis(300))
+    }
+
+    def "pools are opened on first use only, DEFAULT uses the primary DataSource"() {
+        expect:
+        provider.openTenantPools().isEmpty()
+        provider.getDataSourceForTenant(CustomerDiferentiator.DEFAULT).is(defaultDataSource)
+
+        when:
+        provider.getDataSourceForTenant("Juneau").connection.close()
+
+        then:
+        provider.openTenantPools() == ["juneau"] as Set
+        meters.find("tenant.pool.wait").tag("tenant", "juneau").timer().count() == 1
+        meters.find("tenant.pool.budget.in-use").gauge().value() == 2
+    }
+
+    def "open pools never hold more than the global budget, idle ones make room"() {
+        given:
+        provider.destroy()
+        meters = new SimpleMeterRegistry()
+        provider = provider(2)
+        def a = provider.getConnection("juneau")
+
+        when: "juneau's pool holds the whole budget and is busy"
+        provider.getConnection("nome")
+
+        then:
+        thrown(SQLTransientConnectionException)
+        provider.openTenantPools() == ["juneau"] as Set
+
+        when: "once juneau is idle its pool is closed for nome"
+        a.close()
+        def b = provider.getConnection("nome")
+
+        then:
+        b != null
+        provider.openTenantPools() == ["nome"] as Set
+
+        cleanup:
+        b?.close()
+    }
+
+    def "a late pool is sized from what is left of the budget"() {
+        given:
+        provider.destroy()
+        meters = new SimpleMeterRegistry()
+        provider = provider(3)
+        def a = provider.getConnection("juneau")
+        def b = provider.getConnection("nome")
+
+        when:
+        provider.getConnection("nome")
+
+        then:
+        thrown(SQLTransientConnectionException)
+        meters.find("tenant.pool.budget.in-use").gauge().value() == 3
+
+        cleanup:
+        a?.close()
+        b?.close()
+    }
+
+    def "idle pools are closed, busy ones stay"() {
+        given:
+        def busy = provider.getDataSourceForTenant("juneau").connection
+        provider.getDataSourceForTenant("nome").connection.close()
+
+        when:
+        provider.evictIdle(Duration.ZERO)
+
+        then:
+        provider.openTenantPools() == ["juneau"] as Set
+
+        cleanup:
+        busy?.close()
+    }
+
+    def "a caller still holding an evicted pool is served by the tenant's next pool"() {
+        given:
+        def stale = provider.getDataSourceForTenant("juneau")
+        stale.connection.close()
+        provider.evictIdle(Duration.ZERO)
+
+        expect:
+        provider.openTenantPools().isEmpty()
+
+        when:
+        def connection = stale.connection
+
+        then:
+        connection.isValid(1)
+        provider.openTenantPools() == ["juneau"] as Set
+        !provider.getDataSourceForTenant("juneau").is(stale)
+
+        cleanup:
+        connection?.close()
+    }
+
+    def "eviction racing with callers never hands out a closed pool"() {
+        given:
+        def running = new AtomicBoolean(true)
+        def evictor = Thread.start {
+            while (running.get()) {
+                provider.evictIdle(Duration.ZERO)
+            }
+        }
+        def errors = Collections.synchronizedList([])
+
+        when:
+        def callers = (1..2).collect {
+            Thread.start {
+                500.times {
+                    try {
+                        def connection = provider.getConnection("juneau")
+                        connection.createStatement().withCloseable { it.execute("select 1") }
+                        connection.close()
+                    } catch (Exception e) {
+                        errors << e
+                    }
+                }
+            }
+        }
+        callers*.join()
+        running.set(false)
+        evictor.join()
+
+        then:
+        errors.isEmpty()
+    }
+
+    def "unknown tenants are rejected"() {
+        when:
+        provider.getDataSourceForTenant("atlantis")
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
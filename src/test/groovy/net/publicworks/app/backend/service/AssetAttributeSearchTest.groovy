@@ -0,0 +1,97 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinitionRepository
+import net.publicworks.app.backend.entity.asset.AssetAttributeValue
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.entity.WorkOrder
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.repo.IAssetAttributeValueRepository
+import net.publicworks.app.backend.repo.IAssetRepository
+import net.publicworks.app.backend.service.search.AssetRow
+import net.publicworks.app.backend.service.search.AttributeFilter
+import net.publicworks.app.backend.service.search.CountMode
+import net.publicworks.app.backend.service.search.SearchFilter
+import net.publicworks.app.backend.service.search.SearchQueryPlanner
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Sort
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static net.publicworks.app.backend.service.search.AttributeFilter.Operator.*
+
+@SpringBootTest
+@Transactional
+class AssetAttributeSearchTest extends Specification {
+
+    @Autowired SearchQueryPlanner planner
+    @Autowired IAssetRepository assetRepository
+    @Autowired AssetAttributeDefinitionRepository assetAttributeDefinitionRepository
+    @Autowired IAssetAttributeValueRepository assetAttributeValueRepository
+
+    def setup() {
+        def type = AssetTypeEnum.WATER_MAIN
+
+        def diameterDef = assetAttributeDefinitionRepository.save(new AssetAttributeDefinition(
+                assetType: type, key: "diameter_in", label: "Diameter (in)", dataType: "NUMBER",
+                required: true, unit: "in", customerDiferentiator: CustomerDiferentiator.DEFAULT))
+        def materialDef = assetAttributeDefinitionRepository.save(new AssetAttributeDefinition(
+                assetType: type, key: "material", label: "Material", dataType: "ENUM", required: true,
+                allowedValuesJson: '["Ductile Iron","PVC","HDPE"]', customerDiferentiator: CustomerDiferentiator.DEFAULT))
+
+        def main12 = assetRepository.save(new Asset(type: type, name: "Water Main 12in DI", externalId: "WM-0012-DI",
+                status: "Active", customerDiferentiator: CustomerDiferentiator.DEFAULT))
+        def main8 = assetRepository.save(new Asset(type: type, name: "Water Main 8in PVC", externalId: "WM-0008-PVC",
+                status: "Active", customerDiferentiator: CustomerDiferentiator.DEFAULT))
+        def main16 = assetRepository.save(new Asset(type: type, name: "Water Main 16in DI", externalId: "WM-0016-DI",
+                status: "Abandoned", customerDiferentiator: CustomerDiferentiator.DEFAULT))
+
+        assetAttributeValueRepository.saveAll([
+                new AssetAttributeValue(asset: main12, definition: diameterDef, value: "12", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new AssetAttributeValue(asset: main12, definition: materialDef, value: "Ductile Iron", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new AssetAttributeValue(asset: main8, definition: diameterDef, value: "8", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new AssetAttributeValue(asset: main8, definition: materialDef, value: "PVC", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new AssetAttributeValue(asset: main16, definition: diameterDef, value: "16", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new AssetAttributeValue(asset: main16, definition: materialDef, value: "Ductile Iron", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+        ])
+    }
+
+    @Unroll
+    def "attribute search: #description"() {
+        when:
+        def slice = planner.search(Asset, filters, attributes, PageRequest.of(0, 10), CountMode.SKIP)
+
+        then:
+        (slice.content*.externalId as Set) == (expected as Set)
+
+        where:
+        description                         | filters                                       | attributes                                                                               | expected
+        "12in Ductile Iron"                 | []                                            | [AttributeFilter.of("diameter_in", EQ, 12), AttributeFilter.of("material", EQ, "Ductile Iron")] | ["WM-0012-DI"]
+        "diameter >= 12 compares as number" | []                                            | [AttributeFilter.of("diameter_in", GTE, 12)]                                            | ["WM-0012-DI", "WM-0016-DI"]
+        "diameter between 8 and 12"         | []                                            | [AttributeFilter.between("diameter_in", 8, 12)]                                         | ["WM-0012-DI", "WM-0008-PVC"]
+        "material in list"                  | []                                            | [AttributeFilter.of("material", IN, ["PVC", "HDPE"])]                                   | ["WM-0008-PVC"]
+        "combined with column filters"      | [new SearchFilter("status", "Active", SearchFilter.Operator.EQ)] | [AttributeFilter.of("material", EQ, "Ductile Iron")]                 | ["WM-0012-DI"]
+        "has attribute"                     | []                                            | [AttributeFilter.exists("pressure_class")]                                              | []
+    }
+
+    def "asset rows left-join the location, so assets without one are still listed"() {
+        when:
+        def slice = planner.search(Asset, AssetRow.PROJECTION, [], PageRequest.of(0, 10, Sort.by("location.city", "externalId")), CountMode.SKIP)
+
+        then:
+        slice.content*.externalId == ["WM-0008-PVC", "WM-0012-DI", "WM-0016-DI"]
+        slice.content*.city == [null, null, null]
+    }
+
+    def "attribute filters are rejected for entities other than Asset"() {
+        when:
+        planner.search(WorkOrder, [], [AttributeFilter.exists("material")], PageRequest.of(0, 10), CountMode.SKIP)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
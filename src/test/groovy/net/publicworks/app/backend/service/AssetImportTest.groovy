@@ -0,0 +1,240 @@
+package net.publicworks.app.backend.service
+
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition
+import net.publicworks.app.backend.entity.asset.AssetImportCheckpoint
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.service.importer.AssetImportRow
+import net.publicworks.app.backend.service.importer.AssetImporter
+import net.publicworks.app.backend.service.importer.AssetRowSource
+import net.publicworks.app.backend.service.importer.AssetRowValidator
+import net.publicworks.app.backend.service.importer.ImportFormat
+import net.publicworks.app.backend.service.importer.ImportProgress
+import net.publicworks.app.backend.service.reference.AttributeDefinitionCache
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+class AssetImportTest extends Specification {
+
+    def validator = new AssetRowValidator(CustomerDiferentiator.DEFAULT, [
+            new AssetAttributeDefinition(id: 1L, assetType: AssetTypeEnum.WATER_MAIN, key: "diameter_in", dataType: "NUMBER", required: true),
+            new AssetAttributeDefinition(id: 2L, assetType: AssetTypeEnum.WATER_MAIN, key: "material", dataType: "ENUM", required: false,
+                    allowedValuesJson: '["Ductile Iron","PVC","HDPE"]'),
+    ])
+
+    def "CSV records are read one at a time, quotes and embedded line breaks included"() {
+        given:
+        def csv = 'name,type,externalId,material\n' +
+                '"Main St, segment A",WATER_MAIN,WM-1,PVC\n' +
+                '\n' +
+                '"Elm ""North""\nspur",water_main,WM-2,\n'
+
+        when:
+        def rows = readAll(ImportFormat.CSV, csv)
+
+        then:
+        rows*.row() == [1L, 2L]
+        rows[0].values() == [name: "Main St, segment A", type: "WATER_MAIN", externalId: "WM-1", material: "PVC"]
+        rows[1].values().name == 'Elm "North"\nspur'
+    }
+
+    def "GeoJSON features become rows with the whole geometry as WKT"() {
+        given:
+        def json = '''{"type":"FeatureCollection","name":"mains","features":[
+            {"type":"Feature","geometry":{"type":"LineString","coordinates":[[-88.08,42.03],[-88.07,42.04]]},
+             "properties":{"name":"Main A","type":"WATER_MAIN","diameter_in":12}},
+            {"type":"Feature","geometry":null,"properties":{"name":"Hydrant","type":"HYDRANT"}},
+            {"type":"Feature","geometry":{"type":"Point","coordinates":[-88.1,42.0]},"properties":{"name":"Valve"}},
+            {"type":"Feature","geometry":{"type":"Polygon","coordinates":[[[0,0],[4,0],[4,4],[0,0]],[[1,1],[2,1],[2,2],[1,1]]]},
+             "properties":{"name":"Lot"}},
+            {"type":"Feature","geometry":{"type":"MultiPolygon","coordinates":[[[[0,0],[1,0],[1,1],[0,0]]]]},"properties":{}},
+            {"type":"Feature","geometry":{"type":"MultiPoint","coordinates":[[1,2],[3,4]]},"properties":{}},
+            {"type":"Feature","geometry":{"type":"LineString","coordinates":[[-88.08,42.03]]},"properties":{"name":"Stub"}},
+            {"type":"Feature","geometry":{"type":"Circle","coordinates":[0,0]},"properties":{"name":"Round"}}]}'''
+
+        when:
+        def rows = readAll(ImportFormat.GEOJSON, json)
+
+        then:
+        rows.size() == 8
+        rows[0].values() == [name: "Main A", type: "WATER_MAIN", diameter_in: "12", gisGeometryRef: "LINESTRING(-88.08 42.03, -88.07 42.04)"]
+        !rows[1].values().containsKey("gisGeometryRef")
+        rows[2].values().gisGeometryRef == "POINT(-88.1 42.0)"
+        rows[3].values().gisGeometryRef == "POLYGON((0 0, 4 0, 4 4, 0 0), (1 1, 2 1, 2 2, 1 1))"
+        rows[4].values().gisGeometryRef == "MULTIPOLYGON(((0 0, 1 0, 1 1, 0 0)))"
+        rows[5].values().gisGeometryRef == "MULTIPOINT((1 2), (3 4))"
+        rows[0..5].every { it.errors().isEmpty() }
+
+        and: "geometry that cannot be stored rejects the row instead of being cut down to a point"
+        rows[6].errors() == ["geometry needs at least 2 positions per line or ring"]
+        rows[7].errors() == ["geometry type 'Circle' is not supported"]
+        validator.validate(rows[7]).errors() == ["geometry type 'Circle' is not supported", "type is required"]
+    }
+
+    def "rows are checked against the attribute definitions of their type"() {
+        expect:
+        validator.validate(new AssetImportRow(1, values)).errors() == errors
+
+        where:
+        values                                                                   | errors
+        [name: "A", type: "WATER_MAIN", diameter_in: "12", material: "PVC"]      | []
+        [name: "A", type: "WATER_MAIN", material: "PVC"]                         | ["diameter_in is required for WATER_MAIN"]
+        [name: "A", type: "WATER_MAIN", diameter_in: "twelve"]                   | ["diameter_in must be a number, got 'twelve'"]
+        [name: "A", type: "WATER_MAIN", diameter_in: "8", material: "Steel"]     | ["material must be one of [Ductile Iron, PVC, HDPE], got 'Steel'"]
+        [type: "ROCKET", installYear: "1990s"]                                   | ["name is required", "unknown type 'ROCKET'", "installYear must be a whole number, got '1990s'"]
+        [name: "A", type: "HYDRANT", color: "red"]                               | ["'color' is not an attribute of HYDRANT"]
+    }
+
+    def "a valid row becomes an asset with its location and attribute values"() {
+        when:
+        def result = validator.validate(new AssetImportRow(1, [name: "Main A", type: "water_main", externalId: "WM-1",
+                installYear: "1995", city: "Schaumburg", diameter_in: " 12 "]))
+
+        then:
+        result.valid
+        result.asset().type == AssetTypeEnum.WATER_MAIN
+        result.asset().installYear == 1995
+        result.asset().customerDiferentiator == CustomerDiferentiator.DEFAULT
+        result.location().city == "Schaumburg"
+        result.attributes().collectEntries { def_, v -> [def_.key, v] } == [diameter_in: "12"]
+    }
+
+    def "an import that stops mid-file resumes behind the last committed batch"() {
+        given:
+        def database = new Database()
+        def importer = importer(database)
+        def csv = 'name,type,externalId\n' +
+                'H1,HYDRANT,H-1\n' +
+                'H2,HYDRANT,H-2\n' +
+                'H3,HYDRANT,H-3\n' +
+                ',HYDRANT,H-4\n' +
+                'H5,HYDRANT,H-5\n'
+        database.failOn = "H-3"
+
+        when: "the second batch fails"
+        importer.importStream("job-1", ImportFormat.CSV, stream(csv), CustomerDiferentiator.DEFAULT, null)
+
+        then: "the first batch and its checkpoint committed, the second batch and its checkpoint did not"
+        thrown(IllegalStateException)
+        database.externalIds == ["H-1", "H-2"]
+        database.checkpoint.rowsRead == 2
+        database.checkpoint.imported == 2
+
+        when: "the same file is imported again"
+        database.failOn = null
+        def progress = []
+        def report = importer.importStream("job-1", ImportFormat.CSV, stream(csv), CustomerDiferentiator.DEFAULT,
+                { progress << it })
+
+        then: "it resumes after row 2, imports every asset once and drops the checkpoint"
+        report.resumed()
+        report.totals() == new ImportProgress(5, 4, 0, 1)
+        progress*.rowsRead() == [4L, 5L]
+        database.externalIds == ["H-1", "H-2", "H-3", "H-5"]
+        database.checkpoint == null
+        report.errors()*.row() == [4L]
+        Files.readAllLines(report.errorFile()).last() == '4,"name is required"'
+    }
+
+    @TempDir
+    Path workDir
+
+    private AssetImporter importer(Database database) {
+        TypedQuery<String> existing = Stub() { getResultList() >> { List.copyOf(database.externalIds) } }
+        existing.setParameter(_ as String, _) >> existing
+        EntityManager entityManager = Stub() {
+            find(AssetImportCheckpoint, _) >> { database.find() }
+            persist(_) >> { args -> database.persist(args[0]) }
+            remove(_) >> { database.removed = true }
+            createQuery(_ as String, String) >> existing
+        }
+        AttributeDefinitionCache definitions = Stub() { all(_) >> [] }
+        new AssetImporter(entityManager, database, {} as ApplicationEventPublisher, definitions, 2, workDir)
+    }
+
+    private static InputStream stream(String content) {
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+    }
+
+    /** Assets and the import checkpoint, with writes kept apart until their transaction commits. */
+    static class Database extends AbstractPlatformTransactionManager {
+
+        List<String> externalIds = []
+        AssetImportCheckpoint checkpoint
+        String failOn
+        List<Asset> staged = []
+        AssetImportCheckpoint stagedCheckpoint
+        boolean removed
+        long ids
+
+        AssetImportCheckpoint find() {
+            if (stagedCheckpoint == null && checkpoint != null) {
+                stagedCheckpoint = new AssetImportCheckpoint(jobId: checkpoint.jobId, rowsRead: checkpoint.rowsRead,
+                        imported: checkpoint.imported, skipped: checkpoint.skipped, rejected: checkpoint.rejected)
+            }
+            stagedCheckpoint
+        }
+
+        void persist(Object entity) {
+            if (entity instanceof AssetImportCheckpoint) {
+                stagedCheckpoint = entity
+            } else if (entity instanceof Asset) {
+                if (entity.externalId == failOn) {
+                    throw new IllegalStateException("connection lost")
+                }
+                entity.id = ++ids
+                staged << entity
+            }
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            new Object()
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            discard()
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            externalIds.addAll(staged*.externalId)
+            checkpoint = removed ? null : stagedCheckpoint ?: checkpoint
+            discard()
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            discard()
+        }
+
+        private void discard() {
+            staged.clear()
+            stagedCheckpoint = null
+            removed = false
+        }
+    }
+
+    private static List<AssetImportRow> readAll(ImportFormat format, String content) {
+        def rows = []
+        AssetRowSource.open(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).withCloseable { source ->
+            def row
+            while ((row = source.next()) != null) {
+                rows << row
+            }
+        }
+        return rows
+    }
+}
@@ -0,0 +1,119 @@
+package net.publicworks.app.backend.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import net.publicworks.app.backend.commands.CommandDispatchedEvent
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinitionRepository
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.IResult
+import net.publicworks.app.backend.repo.IAssetInspectionSummaryRepository
+import net.publicworks.app.backend.service.reference.AttributeDefinitionCache
+import net.publicworks.app.backend.service.reference.AttributeDefinitionWrites
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+
+import java.time.Duration
+
+class AttributeDefinitionCacheTest extends Specification {
+
+    EntityManager entityManager = Mock()
+    TypedQuery<AssetAttributeDefinition> query = Mock()
+    SimpleMeterRegistry metrics = new SimpleMeterRegistry()
+    AttributeDefinitionCache cache = new AttributeDefinitionCache(entityManager, Mock(PlatformTransactionManager),
+            metrics, 2, Duration.ofMinutes(10))
+
+    def material = new AssetAttributeDefinition(id: 7L, assetType: AssetTypeEnum.WATER_MAIN, key: "material",
+            dataType: "ENUM", allowedValuesJson: '["PVC","HDPE"]', customerDiferentiator: "DEFAULT")
+
+    def setup() {
+        query.setParameter(_ as String, _) >> query
+    }
+
+    def "definitions are read once per tenant and type, with allowed values parsed"() {
+        when:
+        def first = cache.get("DEFAULT", AssetTypeEnum.WATER_MAIN)
+        def second = cache.get("DEFAULT", AssetTypeEnum.WATER_MAIN)
+
+        then:
+        1 * entityManager.createQuery(_, AssetAttributeDefinition) >> query
+        1 * query.getResultList() >> [material]
+        second.is(first)
+        first.byKey("material").is(material)
+        first.allowedValues("material") as List == ["PVC", "HDPE"]
+        metrics.get("reference.cache.requests").tag("result", "hit").counter().count() == 1
+        metrics.get("reference.cache.requests").tag("result", "miss").counter().count() == 1
+    }
+
+    def "a definition written through the command bus evicts only its own entry"() {
+        given:
+        entityManager.createQuery(_, AssetAttributeDefinition) >> query
+        query.getResultList() >>> [[material], [], [material]]
+        cache.get("DEFAULT", AssetTypeEnum.WATER_MAIN)
+        cache.get("DEFAULT", AssetTypeEnum.VALVE)
+        IResult result = Mock() { getData() >> material }
+
+        when:
+        cache.onCommand(new CommandDispatchedEvent(new Object(), result))
+
+        then:
+        cache.size() == 1
+        metrics.get("reference.cache.evictions").counter().count() == 1
+
+        when:
+        cache.get("DEFAULT", AssetTypeEnum.VALVE)
+
+        then:
+        0 * query.getResultList()
+    }
+
+    def "the cache is bounded"() {
+        given:
+        entityManager.createQuery(_, AssetAttributeDefinition) >> query
+        query.getResultList() >> []
+
+        when:
+        cache.all("DEFAULT")
+
+        then:
+        cache.size() == 2
+    }
+
+    def "writes through a repository of definitions evict, writes through other repositories do not"() {
+        given:
+        entityManager.createQuery(_, AssetAttributeDefinition) >> query
+        query.getResultList() >> [material]
+        def definitions = advised(AssetAttributeDefinitionRepository)
+        def summaries = advised(IAssetInspectionSummaryRepository)
+        cache.get("DEFAULT", AssetTypeEnum.WATER_MAIN)
+
+        when:
+        summaries.deleteById(7L)
+
+        then:
+        cache.size() == 1
+
+        when:
+        definitions.deleteById(7L)
+
+        then:
+        cache.size() == 0
+
+        when:
+        cache.get("DEFAULT", AssetTypeEnum.WATER_MAIN)
+        definitions.save(material)
+
+        then:
+        cache.size() == 0
+    }
+
+    /** A proxied repository, as Spring Data creates it, with the eviction aspect applied. */
+    private <T> T advised(Class<T> repository) {
+        def proxies = new AspectJProxyFactory([save: { it }, deleteById: { }].asType(repository))
+        proxies.addInterface(repository)
+        proxies.addAspect(new AttributeDefinitionWrites(cache))
+        proxies.getProxy()
+    }
+}
@@ -0,0 +1,43 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinition
+import net.publicworks.app.backend.entity.asset.AssetAttributeDefinitionRepository
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.service.reference.AttributeDefinitionCache
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+@SpringBootTest
+@Transactional
+class AttributeDefinitionWritesTest extends Specification {
+
+    @Autowired AttributeDefinitionCache cache
+    @Autowired AssetAttributeDefinitionRepository repository
+
+    def "definitions saved or deleted through the repository bean are not served stale from the cache"() {
+        given:
+        repository.save(definition("flow_gpm"))
+        def before = cache.get(CustomerDiferentiator.DEFAULT, AssetTypeEnum.HYDRANT)
+
+        when:
+        def added = repository.save(definition("outlet_count"))
+
+        then:
+        before.byKey("outlet_count") == null
+        cache.get(CustomerDiferentiator.DEFAULT, AssetTypeEnum.HYDRANT).byKey("outlet_count") != null
+
+        when:
+        repository.deleteById(added.id)
+
+        then:
+        cache.get(CustomerDiferentiator.DEFAULT, AssetTypeEnum.HYDRANT).byKey("outlet_count") == null
+    }
+
+    private static AssetAttributeDefinition definition(String key) {
+        new AssetAttributeDefinition(assetType: AssetTypeEnum.HYDRANT, key: key, label: key, dataType: "NUMBER",
+                required: false, customerDiferentiator: CustomerDiferentiator.DEFAULT)
+    }
+}
@@ -0,0 +1,226 @@
+package net.publicworks.app.backend.service
+
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import jakarta.persistence.metamodel.EntityType
+import jakarta.persistence.metamodel.Metamodel
+import net.publicworks.app.VaadinApplication
+import net.publicworks.app.backend.commands.AssetChangedEvent
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.entity.WorkOrder
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.repo.IWorkOrderRepository
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope
+import net.publicworks.app.backend.service.counters.CounterEntity
+import net.publicworks.app.backend.service.counters.DashboardCounters
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.test.context.ActiveProfiles
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Path
+
+@SpringBootTest(classes = VaadinApplication)
+@ActiveProfiles("dev")
+class DashboardCountersTest extends Specification {
+
+    static final String TENANT = CustomerDiferentiator.DEFAULT
+
+    @Autowired
+    DashboardCounters counters
+
+    @Autowired
+    IWorkOrderRepository workOrderRepo
+
+    @Autowired
+    EntityManager entityManager
+
+    @TempDir
+    Path dir
+
+    def setup() {
+        workOrderRepo.deleteAll()
+        workOrderRepo.saveAll([
+                new WorkOrder(title: "Main break", status: "OPEN", priority: "High", customerDiferentiator: TENANT),
+                new WorkOrder(title: "Light out", status: "OPEN", priority: "Low", customerDiferentiator: TENANT),
+                new WorkOrder(title: "Pothole", status: "CLOSED", priority: "Low", customerDiferentiator: TENANT),
+        ])
+        counters.reconcile(TENANT, CounterEntity.WORK_ORDER)
+    }
+
+    def "reconcile matches a GROUP BY over the tenant's rows"() {
+        expect:
+        counters.count(TENANT, CounterEntity.WORK_ORDER, "status", "OPEN") == 2
+        counters.count(TENANT, CounterEntity.WORK_ORDER, "priority", "Low") == 2
+        counters.total(TENANT, CounterEntity.WORK_ORDER) == 3
+        counters.total(CustomerDiferentiator.ALASKA, CounterEntity.WORK_ORDER) == 0
+    }
+
+    def "created assets are counted from the event alone"() {
+        given:
+        long before = counters.count(TENANT, CounterEntity.ASSET, "type", AssetTypeEnum.WATER_MAIN)
+        def asset = new Asset(id: 42L, type: AssetTypeEnum.WATER_MAIN, status: "Active", customerDiferentiator: TENANT)
+
+        when:
+        counters.onAssetChanged(new AssetChangedEvent(42L, asset, CrudOperation.CREATE))
+
+        then:
+        counters.count(TENANT, CounterEntity.ASSET, "type", AssetTypeEnum.WATER_MAIN) == before + 1
+    }
+
+    def "a snapshot restores the counts before any query runs"() {
+        given:
+        def file = dir.resolve("counters.properties")
+        def first = new DashboardCounters(entityManager, [] as Set, file, 3600)
+        first.reconcile(TENANT, CounterEntity.WORK_ORDER)
+
+        when:
+        first.destroy()
+        def second = new DashboardCounters(null, [] as Set, file, 3600)
+
+        then:
+        second.count(TENANT, CounterEntity.WORK_ORDER, "status", "OPEN") == 2
+
+        cleanup:
+        second?.destroy()
+    }
+
+    def "a create committing while a recount runs is neither lost nor counted twice"() {
+        given:
+        DashboardCounters racing
+        def created = new Asset(id: 43L, type: AssetTypeEnum.WATER_MAIN, status: "Active", customerDiferentiator: TENANT)
+        boolean raced = false
+        EntityManager stubbed = Stub() {
+            getMetamodel() >> Stub(Metamodel) {
+                entity(Asset) >> Stub(EntityType) { getName() >> "Asset" }
+            }
+            createQuery(_ as String, Object[]) >> { String jpql, Class type ->
+                Stub(TypedQuery) {
+                    getResultList() >> {
+                        if (!raced) {
+                            // the create commits after the recount started; whether the query saw it is unknown
+                            raced = true
+                            racing.onAssetChanged(new AssetChangedEvent(43L, created, CrudOperation.CREATE))
+                        }
+                        [[TENANT, jpql.contains("e.status") ? "Active" : AssetTypeEnum.WATER_MAIN, 5L] as Object[]]
+                    }
+                }
+            }
+        }
+        racing = new DashboardCounters(stubbed, [] as Set, dir.resolve("race.properties"), 3600)
+
+        when:
+        racing.reconcile(TENANT, CounterEntity.ASSET)
+
+        then: "the raced value keeps its increment on top of the count and is recounted once more"
+        racing.count(TENANT, CounterEntity.ASSET, "status", "Active") == 6
+        racing.count(TENANT, CounterEntity.ASSET, "type", AssetTypeEnum.WATER_MAIN) == 5
+        racing.stale*.entity() == [CounterEntity.ASSET]
+
+        when:
+        racing.stale.clear()
+        racing.reconcile(TENANT, CounterEntity.ASSET)
+
+        then:
+        racing.count(TENANT, CounterEntity.ASSET, "status", "Active") == 5
+        racing.stale.isEmpty()
+
+        cleanup:
+        racing?.destroy()
+    }
+
+    def "steady increments queue one more recount, not one per tick"() {
+        given:
+        DashboardCounters racing
+        long id = 100
+        EntityManager stubbed = stubbedCounts { racing.onAssetChanged(new AssetChangedEvent(id, asset(id++, TENANT), CrudOperation.CREATE)) }
+        racing = new DashboardCounters(stubbed, [] as Set, dir.resolve("steady.properties"), 3600)
+
+        when:
+        racing.reconcile(TENANT, CounterEntity.ASSET)
+
+        then:
+        racing.stale.size() == 1
+
+        when: "the queued recount races too"
+        racing.stale.clear()
+        racing.reconcile(TENANT, CounterEntity.ASSET)
+
+        then:
+        racing.stale.isEmpty()
+
+        cleanup:
+        racing?.destroy()
+    }
+
+    def "each database is recounted with its tenant bound and only its own tenants touched"() {
+        given:
+        List<String> bound = []
+        List<String> queries = []
+        EntityManager stubbed = stubbedCounts({ bound << TenantScope.current() }, queries)
+        def own = new DashboardCounters(stubbed, [CustomerDiferentiator.ALASKA] as Set, dir.resolve("own.properties"), 3600)
+        own.onAssetChanged(new AssetChangedEvent(7L, asset(7L, CustomerDiferentiator.ALASKA), CrudOperation.CREATE))
+
+        when: "the default database pass cannot see the tenant with its own database"
+        own.reconcile(null, CounterEntity.ASSET)
+
+        then:
+        own.count(CustomerDiferentiator.ALASKA, CounterEntity.ASSET, "status", "Active") == 1
+        own.count(TENANT, CounterEntity.ASSET, "status", "Active") == 5
+        bound.every { it == CustomerDiferentiator.DEFAULT }
+        queries.every { it.contains("not in :own") }
+
+        when:
+        bound.clear()
+        own.reconcile(CustomerDiferentiator.ALASKA, CounterEntity.ASSET)
+
+        then:
+        bound.every { it == CustomerDiferentiator.ALASKA }
+        own.count(CustomerDiferentiator.ALASKA, CounterEntity.ASSET, "status", "Active") == 5
+        own.count(TENANT, CounterEntity.ASSET, "status", "Active") == 5
+
+        when: "a startup reconcile queues every database"
+        own.stale.clear()
+        own.reconcileOnStartup()
+
+        then:
+        new PollingConditions(timeout: 5).eventually { assert bound.contains(CustomerDiferentiator.ALASKA) }
+
+        cleanup:
+        own?.destroy()
+    }
+
+    static Asset asset(long id, String tenant) {
+        new Asset(id: id, type: AssetTypeEnum.WATER_MAIN, status: "Active", customerDiferentiator: tenant)
+    }
+
+    /** Five active water mains for the queried tenant (default: DEFAULT), running {@code onQuery} inside every query. */
+    EntityManager stubbedCounts(Closure onQuery, List<String> queries = []) {
+        Stub(EntityManager) {
+            getMetamodel() >> Stub(Metamodel) {
+                entity(Asset) >> Stub(EntityType) { getName() >> "Asset" }
+            }
+            createQuery(_ as String, Object[]) >> { String jpql, Class type ->
+                queries << jpql
+                String tenant = TENANT
+                TypedQuery query = Stub(TypedQuery) {
+                    getResultList() >> {
+                        onQuery()
+                        [[tenant, jpql.contains("e.status") ? "Active" : AssetTypeEnum.WATER_MAIN, 5L] as Object[]]
+                    }
+                }
+                query.setParameter(_ as String, _) >> { String name, value ->
+                    if (name == "c") {
+                        tenant = value
+                    }
+                    query
+                }
+                query
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.service.export.ExportFormat
+import net.publicworks.app.backend.service.export.ExportKind
+import net.publicworks.app.backend.service.export.RowWriter
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class DataExportTest extends Specification {
+
+    def "exports select scalars in id order and left join associations"() {
+        expect:
+        ExportKind.ASSET.jpql() == "select e.id, e.externalId, e.name, e.type, e.status, e.installYear, " +
+                "e.expectedServiceLifeYears, e.replacementCostEstimate, e.gisGeometryRef, " +
+                "j0.addressLine1, j0.city, j0.stateProvince, j0.postalCode " +
+                "from Asset e left join e.location j0 where e.customerDiferentiator = :tenant order by e.id"
+    }
+
+    def "CSV quotes only the fields that need it"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def writer = RowWriter.of(ExportFormat.CSV, ["id", "name", "type", "notes"], out)
+
+        when:
+        writer.row([1L, 'Main St, "A"', AssetTypeEnum.WATER_MAIN, null] as Object[])
+        writer.finish()
+
+        then:
+        out.toString(StandardCharsets.UTF_8) == 'id,name,type,notes\r\n1,"Main St, ""A""",WATER_MAIN,\r\n'
+    }
+
+    def "NDJSON writes one object per line and leaves out nulls"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def writer = RowWriter.of(ExportFormat.NDJSON, ["id", "conditionScore", "notes"], out)
+
+        when:
+        writer.row([1L, 2.5d, "line\nbreak"] as Object[])
+        writer.row([2L, null, null] as Object[])
+        writer.finish()
+
+        then:
+        out.toString(StandardCharsets.UTF_8) == '{"id":1,"conditionScore":2.5,"notes":"line\\nbreak"}\n{"id":2}\n'
+    }
+}
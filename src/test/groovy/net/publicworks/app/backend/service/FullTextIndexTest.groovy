@@ -0,0 +1,171 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.commands.AssetChangedEvent
+import net.publicworks.app.backend.commands.AssetCommand
+import net.publicworks.app.backend.commands.CommandEventPublisher
+import net.publicworks.app.backend.commands.CommandDispatchedEvent
+import net.publicworks.app.backend.commands.CreateWorkOrderCommand
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.entity.WorkOrder
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.itf.IResult
+import net.publicworks.app.backend.repo.IAssetRepository
+import net.publicworks.app.backend.service.fulltext.FullTextDocument
+import net.publicworks.app.backend.service.fulltext.FullTextIndex
+import net.publicworks.app.backend.service.fulltext.FullTextIndexer
+import net.publicworks.app.backend.service.fulltext.FullTextKind
+import net.publicworks.app.backend.service.search.SearchQueryPlanner
+import org.aspectj.lang.JoinPoint
+import org.springframework.context.ApplicationEventPublisher
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Path
+
+class FullTextIndexTest extends Specification {
+
+    @TempDir
+    Path dir
+
+    FullTextIndex index
+
+    def setup() {
+        index = new FullTextIndex(dir, 50, 60)
+        index.rebuild("DEFAULT") { sink ->
+            sink.accept(new FullTextDocument(FullTextKind.WORK_ORDER, 1L, "DEFAULT", "Water main break on 5th", "Major leak near school"))
+            sink.accept(new FullTextDocument(FullTextKind.WORK_ORDER, 2L, "DEFAULT", "Street light out", "Lamp post near the water tower"))
+            sink.accept(new FullTextDocument(FullTextKind.ASSET, 3L, "DEFAULT", "Hydrant H-104", "Elm Street"))
+        }
+        index.rebuild("ALASKA") { sink ->
+            sink.accept(new FullTextDocument(FullTextKind.WORK_ORDER, 9L, "ALASKA", "Water main frozen", ""))
+        }
+    }
+
+    def cleanup() {
+        index.destroy()
+    }
+
+    def "title matches rank above body matches and tenants stay apart"() {
+        when:
+        def hits = index.search("DEFAULT", "water", null, 10)
+
+        then:
+        hits*.id == [1L, 2L]
+    }
+
+    def "prefixes and typos still find the document"() {
+        expect:
+        index.search("DEFAULT", query, null, 10)*.id == expected
+
+        where:
+        query     | expected
+        "hydr"    | [3L]
+        "hyrdant" | [3L]
+        "potato"  | []
+    }
+
+    def "results can be limited to a kind"() {
+        expect:
+        index.search("DEFAULT", "street", [FullTextKind.ASSET], 10)*.id == [3L]
+    }
+
+    def "hits can be paged and counted"() {
+        expect:
+        index.count("DEFAULT", "water", null) == 2
+        index.search("DEFAULT", "water", null, 1, 10)*.id == [2L]
+        index.search("DEFAULT", "water", null, 2, 10).isEmpty()
+    }
+
+    def "an edited work order is searchable by its new text only"() {
+        given:
+        def indexer = new FullTextIndexer(index, Mock(IAssetRepository), Mock(SearchQueryPlanner))
+
+        when:
+        indexer.onCommand(dispatched(CrudOperation.MODIFY, 1L, "Sewer backup on 5th"))
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert index.search("DEFAULT", "sewer", null, 10)*.id == [1L]
+            assert index.search("DEFAULT", "break", null, 10).isEmpty()
+        }
+    }
+
+    def "deleted work orders and assets disappear from the index"() {
+        given:
+        def assets = Mock(IAssetRepository)
+        def indexer = new FullTextIndexer(index, assets, Mock(SearchQueryPlanner))
+
+        when:
+        indexer.onCommand(dispatched(CrudOperation.DELETE, 1L, "Water main break on 5th"))
+        indexer.onAssetChanged(new AssetChangedEvent(3L, null, CrudOperation.DELETE))
+
+        then:
+        0 * assets.findById(_)
+        new PollingConditions(timeout: 5).eventually {
+            assert index.search("DEFAULT", "water", null, 10)*.id == [2L]
+            assert index.search("DEFAULT", "hydrant", null, 10).isEmpty()
+        }
+
+        when: "an asset that is no longer in the database is reported as modified"
+        index.index(new FullTextDocument(FullTextKind.ASSET, 4L, "ALASKA", "Culvert C-7", ""))
+        indexer.onAssetChanged(new AssetChangedEvent(4L, null, CrudOperation.MODIFY))
+
+        then:
+        1 * assets.findById(4L) >> Optional.empty()
+        new PollingConditions(timeout: 5).eventually {
+            assert index.search("ALASKA", "culvert", null, 10).isEmpty()
+        }
+    }
+
+    def "assets removed through AssetService or their repository disappear from the index"() {
+        given:
+        def indexer = new FullTextIndexer(index, Mock(IAssetRepository), Mock(SearchQueryPlanner))
+        def publisher = new CommandEventPublisher({ event -> indexer.onAssetChanged(event as AssetChangedEvent) } as ApplicationEventPublisher)
+        index.index(new FullTextDocument(FullTextKind.ASSET, 4L, "DEFAULT", "Hydrant H-200", "Oak Street"))
+        index.index(new FullTextDocument(FullTextKind.ASSET, 5L, "DEFAULT", "Hydrant H-300", "Ash Street"))
+
+        when: "a REMOVE command goes through AssetService.modify"
+        publisher.afterAssetModify(joinPoint(AssetCommand.builder().id(3L).customerDiferentiator("DEFAULT")
+                .operation(CrudOperation.REMOVE).build()), null)
+        and: "one asset is deleted by id, another through its repository"
+        publisher.afterAssetDelete(joinPoint(4L), null)
+        publisher.afterAssetRepositoryDelete(joinPoint(Stub(IAssetRepository), [new Asset(id: 5L, customerDiferentiator: "DEFAULT")]))
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert index.search("DEFAULT", "hydrant", null, 10).isEmpty()
+        }
+    }
+
+    static JoinPoint joinPoint(Object target = null, Object arg) {
+        [getArgs: { [arg] as Object[] }, getThis: { target }, getSignature: { null }] as JoinPoint
+    }
+
+    def "searches see the old index until a rebuild is complete, and writes made meanwhile survive it"() {
+        given:
+        List<Long> duringRebuild = null
+
+        when:
+        index.rebuild("DEFAULT") { sink ->
+            sink.accept(new FullTextDocument(FullTextKind.WORK_ORDER, 5L, "DEFAULT", "Pothole on Oak", ""))
+            index.index(new FullTextDocument(FullTextKind.WORK_ORDER, 6L, "DEFAULT", "Pothole on Elm", ""))
+            Thread.sleep(200)
+            duringRebuild = index.search("DEFAULT", "water", null, 10)*.id + index.search("DEFAULT", "pothole", null, 10)*.id
+        }
+
+        then:
+        duringRebuild == [1L, 2L, 6L]
+        index.search("DEFAULT", "water", null, 10).isEmpty()
+        index.search("DEFAULT", "pothole", null, 10)*.id.sort() == [5L, 6L]
+    }
+
+    static CommandDispatchedEvent dispatched(CrudOperation operation, Long id, String title) {
+        def wo = new WorkOrder()
+        wo.id = id
+        wo.title = title
+        wo.customerDiferentiator = "DEFAULT"
+        IResult result = [isSuccess: { true }, getData: { wo }, getMessage: { null }] as IResult
+        new CommandDispatchedEvent(CreateWorkOrderCommand.builder().title(title).operation(operation).build(), result)
+    }
+}
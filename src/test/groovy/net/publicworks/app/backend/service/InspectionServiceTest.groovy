@@ -10,8 +10,10 @@ import net.publicworks.app.backend.entity.asset.AssetTypeEnum
 import net.publicworks.app.backend.itf.CustomerDiferentiator
 import net.publicworks.app.backend.repo.IAssetInspectionRepository
 import net.publicworks.app.backend.repo.IAssetRepository
+import net.publicworks.app.backend.service.inspection.InspectionSummaries
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.domain.PageRequest
 import org.springframework.transaction.annotation.Transactional
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -34,6 +36,9 @@ class InspectionServiceTest extends Specification {
     @Autowired
     IAssetInspectionRepository inspectionRepository
 
+    @Autowired
+    InspectionSummaries inspectionSummaries
+
     Asset sharedAsset
 
     def setup() {
@@ -233,4 +238,50 @@ class InspectionServiceTest extends Specification {
         var inspection = inspectionRepository.findById(inspectionId)
         inspection.isEmpty()
     }
+
+    def "latest inspection summary and paged history follow creates and deletes"() {
+        given: "an asset with a few inspections on different days"
+        def asset = assetRepository.findById(sharedAsset.id).orElseThrow()
+        long before = inspectionSummaries.count(asset.id)
+        def dates = (1..5).collect { OffsetDateTime.parse("2024-0${it}-15T08:00:00Z") }
+        dates.each { date ->
+            inspectionService.create(AssetInspectionCommand.builder()
+                    .assetId(asset.id)
+                    .inspectionDate(date)
+                    .inspectorName("Crew")
+                    .method(date.monthValue == 5 ? "CCTV" : "VISUAL")
+                    .conditionScore(date.monthValue as Double)
+                    .conditionClass("C" + date.monthValue)
+                    .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                    .operation(CrudOperation.CREATE)
+                    .build())
+        }
+
+        when:
+        def summary = inspectionSummaries.latest(asset.id).orElseThrow()
+        def firstPage = inspectionSummaries.history(asset.id, PageRequest.of(0, 2))
+
+        then: "the summary mirrors the newest of them, whatever order they were written in"
+        summary.inspectionCount == before + 5
+        summary.latestInspectionDate.toInstant() == inspectionRepository.findAll()
+                .findAll { it.asset.id == asset.id }*.inspectionDate*.toInstant().max()
+        firstPage.content.size() == 2
+        firstPage.hasNext()
+        firstPage.content[0].inspectionDate.toInstant() >= firstPage.content[1].inspectionDate.toInstant()
+
+        when: "the newest inspection is deleted"
+        def newest = inspectionRepository.findById(summary.latestInspectionId).orElseThrow()
+        inspectionService.delete(AssetInspectionCommand.builder()
+                .id(newest.id)
+                .assetId(asset.id)
+                .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                .operation(CrudOperation.DELETE)
+                .build())
+        def after = inspectionSummaries.latest(asset.id).orElseThrow()
+
+        then: "the next newest takes its place"
+        after.inspectionCount == before + 4
+        after.latestInspectionId != newest.id
+        after.latestInspectionDate.toInstant() <= newest.inspectionDate.toInstant()
+    }
 }
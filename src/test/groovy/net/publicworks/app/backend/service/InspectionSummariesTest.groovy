@@ -0,0 +1,101 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.commands.InspectionChangedEvent
+import net.publicworks.app.backend.entity.asset.AssetInspection
+import net.publicworks.app.backend.entity.asset.AssetInspectionSummary
+import net.publicworks.app.backend.repo.IAssetInspectionHistoryRepository
+import net.publicworks.app.backend.repo.IAssetInspectionSummaryRepository
+import net.publicworks.app.backend.service.inspection.InspectionSummaries
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+
+class InspectionSummariesTest extends Specification {
+
+    static final Long ASSET = 7L
+
+    List<AssetInspection> inspections = []
+    Map<Long, AssetInspectionSummary> rows = [:]
+    int counts
+
+    IAssetInspectionHistoryRepository history = Stub() {
+        countByAssetId(ASSET) >> {
+            counts++
+            inspections.size() as long
+        }
+        findFirstByAssetIdOrderByInspectionDateDescIdDesc(ASSET) >> {
+            Optional.ofNullable(inspections.max { a, b -> a.inspectionDate <=> b.inspectionDate ?: a.id <=> b.id })
+        }
+    }
+
+    IAssetInspectionSummaryRepository summaries = Stub() {
+        findForUpdateByAssetId(_ as Long) >> { Long id -> Optional.ofNullable(rows[id]) }
+        findById(_ as Long) >> { Long id -> Optional.ofNullable(rows[id]) }
+        existsById(_ as Long) >> { Long id -> rows.containsKey(id) }
+        save(_ as AssetInspectionSummary) >> { AssetInspectionSummary s -> rows[s.assetId] = s }
+        saveAndFlush(_ as AssetInspectionSummary) >> { AssetInspectionSummary s -> rows[s.assetId] = s }
+    }
+
+    InspectionSummaries inspectionSummaries = new InspectionSummaries(summaries, history, new InMemoryTransactionManager())
+
+    def "only a missing summary is counted, later writes adjust the count under the lock"() {
+        given: "an asset inspected before summaries existed"
+        3.times { inspect(it + 1) }
+
+        when: "its next inspection backfills the summary"
+        inspectionSummaries.onInspectionChanged(inspect(4))
+
+        then:
+        rows[ASSET].inspectionCount == 4
+        rows[ASSET].latestInspectionId == 4L
+
+        when:
+        counts = 0
+        inspectionSummaries.onInspectionChanged(inspect(5))
+        inspectionSummaries.onInspectionChanged(new InspectionChangedEvent(ASSET, 2L, CrudOperation.MODIFY))
+
+        then: "no further count of the history"
+        counts == 0
+        inspectionSummaries.count(ASSET) == 5
+        rows[ASSET].latestInspectionId == 5L
+
+        when: "the newest is deleted"
+        inspections.removeIf { it.id == 5L }
+        inspectionSummaries.onInspectionChanged(new InspectionChangedEvent(ASSET, 5L, CrudOperation.DELETE))
+
+        then: "the next newest takes its place"
+        counts == 0
+        rows[ASSET].inspectionCount == 4
+        rows[ASSET].latestInspectionId == 4L
+    }
+
+    InspectionChangedEvent inspect(int day) {
+        inspections << new AssetInspection(id: day, inspectionDate: OffsetDateTime.parse("2024-01-0${day}T08:00:00Z"),
+                conditionScore: day as Double, method: "VISUAL")
+        new InspectionChangedEvent(ASSET, day as Long, CrudOperation.CREATE)
+    }
+
+    static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            new Object()
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
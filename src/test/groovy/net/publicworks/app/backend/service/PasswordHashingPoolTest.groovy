@@ -0,0 +1,180 @@
+package net.publicworks.app.backend.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.persistence.EntityManager
+import jakarta.persistence.Query
+import jakarta.persistence.metamodel.EntityType
+import jakarta.persistence.metamodel.Metamodel
+import net.publicworks.app.backend.entity.User
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.itf.IResult
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope
+import net.publicworks.app.backend.service.user.AuthBusyException
+import net.publicworks.app.backend.service.user.PasswordHashingPool
+import org.aspectj.lang.JoinPoint
+import org.aspectj.lang.ProceedingJoinPoint
+import org.aspectj.lang.Signature
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.security.crypto.password.PasswordEncoder
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class PasswordHashingPoolTest extends Specification {
+
+    SimpleMeterRegistry meters = new SimpleMeterRegistry()
+    PasswordEncoder passwords = Mock()
+    Map<String, Object> updated = [:]
+    PasswordHashingPool pool = new PasswordHashingPool(entityManager(), new InMemoryTransactionManager(),
+            Stub(ObjectProvider) { getIfAvailable() >> { passwords } },
+            Stub(MultiTenantConnectionProviderImpl) { databaseOf(_) >> { String tenant -> tenant } },
+            meters, 1, 1)
+
+    def cleanup() {
+        pool.destroy()
+    }
+
+    def "sign-ins beyond the queue limit are refused at once"() {
+        given: "one login hashing and one waiting"
+        def release = new CountDownLatch(1)
+        def running = CompletableFuture.supplyAsync { pool.onHashingPool(matches { release.await(5, TimeUnit.SECONDS); "ok" }) }
+        def queued = CompletableFuture.supplyAsync { pool.onHashingPool(matches { "ok" }) }
+        waitUntil { meters.find("auth.hashing.queue.depth").gauge().value() == 1 }
+
+        when:
+        pool.onHashingPool(matches { "never runs" })
+
+        then:
+        thrown(AuthBusyException)
+        meters.counter("auth.hashing.rejected").count() == 1
+
+        when:
+        release.countDown()
+
+        then:
+        running.get(5, TimeUnit.SECONDS) == "ok"
+        queued.get(5, TimeUnit.SECONDS) == "ok"
+        meters.find("auth.hashing.duration").tag("operation", "matches").timer().count() == 2
+    }
+
+    def "only the hash runs on the pool, and its exceptions reach the caller unchanged"() {
+        given:
+        String hashedOn = null
+
+        expect:
+        pool.onHashingPool(matches { hashedOn = Thread.currentThread().name; true }) == true
+        hashedOn.startsWith("password-hash-")
+
+        when:
+        pool.onHashingPool(matches { throw new IllegalArgumentException("bad hash") })
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "bad hash"
+    }
+
+    def "a weak hash is re-hashed with the service's encoder in the user's tenant"() {
+        given:
+        def user = new User(id: 7L, passwordHash: "{bcrypt}old", customerDiferentiator: CustomerDiferentiator.ALASKA)
+        passwords.upgradeEncoding("{bcrypt}old") >> true
+        passwords.encode("secret") >> "{bcrypt}new"
+
+        when:
+        pool.afterLogin(login(), success(user))
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert updated == [h: "{bcrypt}new", id: 7L, old: "{bcrypt}old", tenant: CustomerDiferentiator.ALASKA]
+        }
+    }
+
+    def "a stored hash the encoder cannot read leaves the login alone"() {
+        given:
+        def user = new User(id: 7L, passwordHash: "plain-sha1", customerDiferentiator: CustomerDiferentiator.DEFAULT)
+        passwords.upgradeEncoding("plain-sha1") >> { throw new IllegalArgumentException("Encoded password does not look like BCrypt") }
+
+        when:
+        pool.afterLogin(login(), success(user))
+
+        then:
+        noExceptionThrown()
+        0 * passwords.encode(_)
+    }
+
+    private ProceedingJoinPoint matches(Closure body) {
+        Signature signature = Stub { getName() >> "matches" }
+        return Stub(ProceedingJoinPoint) {
+            getSignature() >> signature
+            getArgs() >> (["secret", "{bcrypt}hash"] as Object[])
+            proceed() >> { body.call() }
+        }
+    }
+
+    private JoinPoint login() {
+        Stub(JoinPoint) { getArgs() >> (["crew@city.gov", "secret"] as Object[]) }
+    }
+
+    private IResult success(User user) {
+        Stub(IResult) {
+            isSuccess() >> true
+            getData() >> user
+        }
+    }
+
+    /** Records the parameters of the hash update and the tenant bound while it ran. */
+    private EntityManager entityManager() {
+        Stub(EntityManager) {
+            getMetamodel() >> Stub(Metamodel) {
+                entity(User) >> Stub(EntityType) { getName() >> "User" }
+            }
+            createQuery(_ as String) >> {
+                Map<String, Object> params = [:]
+                Query query = Stub(Query)
+                query.setParameter(_ as String, _) >> { String name, value ->
+                    params[name] = value
+                    query
+                }
+                query.executeUpdate() >> {
+                    updated.putAll(params)
+                    updated.tenant = TenantScope.current()
+                    1
+                }
+                query
+            }
+        }
+    }
+
+    static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            new Object()
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition.call() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+    }
+}
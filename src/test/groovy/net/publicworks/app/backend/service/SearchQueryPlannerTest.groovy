@@ -0,0 +1,209 @@
+package net.publicworks.app.backend.service
+
+import jakarta.persistence.EntityManager
+import net.publicworks.app.VaadinApplication
+import net.publicworks.app.backend.entity.WorkOrder
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.repo.IWorkOrderRepository
+import net.publicworks.app.backend.service.search.CountMode
+import net.publicworks.app.backend.service.search.KeysetRequest
+import net.publicworks.app.backend.service.search.SearchFilter
+import net.publicworks.app.backend.service.search.SearchQueryPlanner
+import net.publicworks.app.backend.service.search.WorkOrderRow
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.domain.Page
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Sort
+import org.springframework.test.context.ActiveProfiles
+import spock.lang.Specification
+
+import static net.publicworks.app.backend.service.search.SearchFilter.Operator.*
+
+@SpringBootTest(classes = VaadinApplication)
+@ActiveProfiles("dev")
+class SearchQueryPlannerTest extends Specification {
+
+    @Autowired
+    SearchQueryPlanner planner
+
+    @Autowired
+    IWorkOrderRepository workOrderRepo
+
+    @Autowired
+    EntityManager entityManager
+
+    def setup() {
+        workOrderRepo.deleteAll()
+        workOrderRepo.saveAll([
+                new WorkOrder().tap {
+                    title = "Water main break on 5th"
+                    description = "Major leak near school"
+                    status = "OPEN"
+                    priority = "HIGH"
+                    customerDiferentiator = CustomerDiferentiator.DEFAULT
+                },
+                new WorkOrder().tap {
+                    title = "Street light out"
+                    description = "Lamp post near park"
+                    status = "OPEN"
+                    priority = "LOW"
+                    customerDiferentiator = CustomerDiferentiator.DEFAULT
+                },
+                new WorkOrder().tap {
+                    title = "Pothole on Elm"
+                    description = "Large pothole"
+                    status = "CLOSED"
+                    priority = "MEDIUM"
+                    customerDiferentiator = CustomerDiferentiator.DEFAULT
+                }
+        ])
+    }
+
+    def "same filter shape reuses one plan with different bind values"() {
+        when:
+        def open = planner.search(WorkOrder, [sf("status", "OPEN", EQ)], PageRequest.of(0, 10))
+        def closed = planner.search(WorkOrder, [sf("status", "CLOSED", EQ)], PageRequest.of(0, 10))
+
+        then:
+        open.totalElements == 2
+        closed.totalElements == 1
+        planner.plan(WorkOrder, [sf("status", "OPEN", EQ)], Sort.unsorted())
+                .is(planner.plan(WorkOrder, [sf("status", "anything", EQ)], Sort.unsorted()))
+    }
+
+    def "IN lists in the same arity bucket share a plan, an empty IN matches nothing"() {
+        expect:
+        planner.plan(WorkOrder, [sf("status", ["A", "B", "C"], IN)], Sort.unsorted())
+                .is(planner.plan(WorkOrder, [sf("status", ["A", "B", "C", "D"], IN)], Sort.unsorted()))
+
+        and:
+        planner.search(WorkOrder, [sf("status", [], IN)], PageRequest.of(0, 10)).totalElements == 0
+        planner.search(WorkOrder, [sf("status", ["OPEN", "CLOSED"], IN)], PageRequest.of(0, 10)).totalElements == 3
+    }
+
+    def "unknown fields are rejected before any query runs"() {
+        when:
+        planner.search(WorkOrder, [sf("noSuchField", "x", EQ)], PageRequest.of(0, 10))
+
+        then:
+        def ex = thrown(IllegalArgumentException)
+        ex.message.contains("noSuchField")
+    }
+
+    def "unknown sort properties are rejected too"() {
+        when:
+        planner.search(WorkOrder, [], PageRequest.of(0, 10, Sort.by("bogus")))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "keyset paging walks every row exactly once in sort order"() {
+        given:
+        def request = KeysetRequest.first("title", Sort.Direction.ASC, 2)
+
+        when:
+        def first = planner.searchKeyset(WorkOrder, [], request)
+        def second = planner.searchKeyset(WorkOrder, [], request.next(first))
+
+        then:
+        first.content*.title == ["Pothole on Elm", "Street light out"]
+        first.hasNext()
+        first.continuationToken != null
+
+        and:
+        second.content*.title == ["Water main break on 5th"]
+        !second.hasNext()
+        second.continuationToken == null
+    }
+
+    def "keyset paging applies filters and rejects tokens from another sort"() {
+        given:
+        def byTitle = KeysetRequest.first("title", Sort.Direction.DESC, 1)
+
+        when:
+        def first = planner.searchKeyset(WorkOrder, [sf("status", "OPEN", EQ)], byTitle)
+        def second = planner.searchKeyset(WorkOrder, [sf("status", "OPEN", EQ)], byTitle.next(first))
+
+        then:
+        first.content*.title == ["Water main break on 5th"]
+        second.content*.title == ["Street light out"]
+
+        when:
+        planner.searchKeyset(WorkOrder, [], new KeysetRequest("priority", Sort.Direction.ASC, 1, first.continuationToken))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "keyset paging visits rows without a sort value exactly once, after the others"() {
+        given:
+        workOrderRepo.saveAll([
+                new WorkOrder(title: "Graffiti on bridge", status: "OPEN", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+                new WorkOrder(title: "Fallen tree", status: "OPEN", customerDiferentiator: CustomerDiferentiator.DEFAULT),
+        ])
+
+        expect:
+        walk(KeysetRequest.first("priority", direction, 1))*.priority == expected
+
+        where:
+        direction          | expected
+        Sort.Direction.ASC  | ["HIGH", "LOW", "MEDIUM", null, null]
+        Sort.Direction.DESC | ["MEDIUM", "LOW", "HIGH", null, null]
+    }
+
+    def "expired count estimates make room for new filter values"() {
+        given:
+        def shortLived = new SearchQueryPlanner(entityManager, 1, 0)
+
+        when:
+        (1..6).each { shortLived.search(WorkOrder, [sf("status", "S" + it, EQ)], PageRequest.of(0, 2), CountMode.ESTIMATE) }
+
+        then:
+        shortLived.estimatedCounts.size() <= 4
+        shortLived.estimatedCounts.keySet()*.values().flatten().contains("S6")
+    }
+
+    List<WorkOrder> walk(KeysetRequest request) {
+        def rows = []
+        def slice = planner.searchKeyset(WorkOrder, [], request)
+        rows.addAll(slice.content)
+        while (slice.hasNext()) {
+            request = request.next(slice)
+            slice = planner.searchKeyset(WorkOrder, [], request)
+            rows.addAll(slice.content)
+        }
+        rows
+    }
+
+    def "count can be skipped or estimated"() {
+        when:
+        def skipped = planner.search(WorkOrder, [], PageRequest.of(0, 2), CountMode.SKIP)
+        def estimated = planner.search(WorkOrder, [], PageRequest.of(0, 2), CountMode.ESTIMATE)
+
+        then:
+        !(skipped instanceof Page)
+        skipped.content.size() == 2
+        skipped.hasNext()
+
+        and:
+        estimated instanceof Page
+        (estimated as Page).totalElements == 3
+    }
+
+    def "projections return rows instead of entities"() {
+        when:
+        def slice = planner.search(WorkOrder, WorkOrderRow.PROJECTION, [sf("status", "OPEN", EQ)],
+                PageRequest.of(0, 10, Sort.by("title")), CountMode.SKIP)
+
+        then:
+        slice.content.every { it instanceof WorkOrderRow }
+        slice.content*.title == ["Street light out", "Water main break on 5th"]
+        slice.content*.priority == ["LOW", "HIGH"]
+    }
+
+    private static SearchFilter sf(String field, Object value, SearchFilter.Operator op) {
+        return new SearchFilter(field, value, op)
+    }
+}
@@ -61,4 +61,56 @@ class TenantServiceRegistryTest extends Specification {
         def ex = thrown(IllegalStateException)
         ex.message.contains("No bean found for type")
     }
+
+    def "resolves each tenant once and serves later lookups from the table"() {
+        given:
+        def defaultSvc = new DefaultService()
+        def alaskaSvc = new AlaskaService()
+
+        when:
+        def results = (1..100).collect { registry.get(TestService, it % 2 ? "alaska" : "texas") }
+
+        then: "the context is asked exactly once"
+        1 * applicationContext.getBeansOfType(TestService) >> ["defaultService": defaultSvc, "alaskaService": alaskaSvc]
+        results.findAll { it.is(alaskaSvc) }.size() == 50
+        results.findAll { it.is(defaultSvc) }.size() == 50
+    }
+
+    def "tenant ids match regardless of case"() {
+        given:
+        def alaskaSvc = new AlaskaService()
+        applicationContext.getBeansOfType(TestService) >> ["defaultService": new DefaultService(), "alaskaService": alaskaSvc]
+
+        expect:
+        registry.get(TestService, "ALASKA").is(alaskaSvc)
+    }
+
+    def "tenant ids without an implementation get the default and are not remembered"() {
+        given:
+        def defaultSvc = new DefaultService()
+        applicationContext.getBeansOfType(TestService) >> ["defaultService": defaultSvc, "alaskaService": new AlaskaService()]
+
+        when:
+        def results = (1..1000).collect { registry.get(TestService, "tenant-" + it) }
+
+        then:
+        results.every { it.is(defaultSvc) }
+        registry.tables[TestService].byTenant.keySet() == ["DEFAULT", "default", "alaska"] as Set
+    }
+
+    def "refresh precomputes the table from @Customer beans"() {
+        given:
+        def defaultSvc = new DefaultService()
+        def alaskaSvc = new AlaskaService()
+        applicationContext.getBeansWithAnnotation(Customer) >> ["defaultService": defaultSvc, "alaskaService": alaskaSvc]
+        applicationContext.getBeansOfType(_) >> [:]
+
+        when:
+        registry.refresh()
+        def result = registry.get(TestService, "alaska")
+
+        then: "the lookup itself never goes back to the context"
+        1 * applicationContext.getBeansOfType(TestService) >> ["defaultService": defaultSvc, "alaskaService": alaskaSvc]
+        result.is(alaskaSvc)
+    }
 }
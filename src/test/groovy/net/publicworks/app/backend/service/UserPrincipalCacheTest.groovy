@@ -0,0 +1,64 @@
+package net.publicworks.app.backend.service
+
+import net.publicworks.app.backend.entity.User
+import net.publicworks.app.backend.service.search.SearchQueryPlanner
+import net.publicworks.app.backend.service.user.UserPrincipal
+import net.publicworks.app.backend.service.user.UserPrincipalCache
+import org.springframework.data.domain.SliceImpl
+import spock.lang.Specification
+
+import java.time.Duration
+
+class UserPrincipalCacheTest extends Specification {
+
+    SearchQueryPlanner planner = Mock()
+    UserPrincipalCache cache = new UserPrincipalCache(planner, 2, Duration.ofMinutes(5))
+
+    def dispatcher = new UserPrincipal(1L, "crew@city.gov", "USER", "DEFAULT", "DEFAULT")
+
+    def "an unchanged user keeps the session's instance and is loaded once"() {
+        when:
+        def first = cache.current(dispatcher)
+        def second = cache.current(dispatcher)
+
+        then:
+        1 * planner.search(User, UserPrincipal.PROJECTION, _, _, _) >> new SliceImpl([dispatcher])
+        first.is(dispatcher)
+        second.is(dispatcher)
+    }
+
+    def "a role change reaches sessions still holding the old principal"() {
+        given:
+        cache.put(new UserPrincipal(1L, "crew@city.gov", "ADMIN", "DEFAULT", "DEFAULT"))
+
+        when:
+        def current = cache.current(dispatcher)
+
+        then:
+        0 * planner._
+        current.role() == "ADMIN"
+        current.admin
+    }
+
+    def "removed users resolve to null"() {
+        when:
+        def current = cache.current(dispatcher)
+
+        then:
+        1 * planner.search(*_) >> new SliceImpl([])
+        current == null
+    }
+
+    def "the cache is bounded"() {
+        when:
+        (1L..5L).each { cache.put(new UserPrincipal(it, "u$it@city.gov", "USER", "DEFAULT", "DEFAULT")) }
+
+        then:
+        cache.size() == 2
+    }
+
+    def "the session principal stays small"() {
+        expect:
+        UserPrincipal.serializedSize(dispatcher) < 400
+    }
+}
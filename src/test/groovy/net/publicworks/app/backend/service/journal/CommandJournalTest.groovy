@@ -0,0 +1,225 @@
+package net.publicworks.app.backend.service.journal
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.publicworks.app.backend.commands.AssetCommand
+import net.publicworks.app.backend.commands.CommandDispatchedEvent
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.commands.RegisterCommand
+import net.publicworks.app.backend.entity.asset.AssetLocationCommand
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.itf.IResult
+import org.springframework.context.annotation.AnnotationConfigApplicationContext
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.event.TransactionalEventListenerFactory
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import org.springframework.transaction.support.TransactionTemplate
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.time.Duration
+import java.util.function.Supplier
+
+class CommandJournalTest extends Specification {
+
+    @TempDir
+    Path dir
+
+    List<CommandJournal> opened = []
+
+    def cleanup() {
+        opened*.destroy()
+    }
+
+    CommandJournal open(DataSize segmentSize = DataSize.ofMegabytes(1)) {
+        def journal = new CommandJournal(dir, segmentSize, Duration.ofMillis(50), Duration.ZERO,
+                ["AssetCommand", "RegisterCommand"] as Set, ["password"], new SimpleMeterRegistry())
+        opened << journal
+        journal
+    }
+
+    void close(CommandJournal journal) {
+        journal.destroy()
+        opened.remove(journal)
+    }
+
+    static AssetCommand asset(String name, String tenant = CustomerDiferentiator.DEFAULT) {
+        AssetCommand.builder()
+                .name(name)
+                .type(AssetTypeEnum.PARKING_LOT)
+                .installYear(1998)
+                .replacementCostEstimate(125000.5d)
+                .customerDiferentiator(tenant)
+                .operation(CrudOperation.CREATE)
+                .location(AssetLocationCommand.builder().city("Schaumburg").postalCode("60193").build())
+                .build()
+    }
+
+    List<JournalEntry> readAll(CommandJournal journal, String tenant = null, long from = 0) {
+        def entries = []
+        journal.read(tenant, from) { entries << it }
+        entries
+    }
+
+    def "appended commands read back with their properties, entity id and tenant"() {
+        given:
+        def journal = open()
+
+        when:
+        def first = journal.append(asset("Lot A"), 41L)
+        def second = journal.append(asset("Lot B"), null)
+        def entries = readAll(journal)
+
+        then:
+        first == 1
+        second == 2
+        entries*.sequence() == [1L, 2L]
+        entries*.entityId() == [41L, null]
+        entries[0].tenant() == CustomerDiferentiator.DEFAULT
+        entries[0].command().get("name") == "Lot A"
+        entries[0].command().get("type") == "PARKING_LOT"
+        entries[0].command().get("installYear") == 1998L
+        entries[0].command().get("replacementCostEstimate") == 125000.5d
+        (entries[0].command().get("location") as JournalObject).get("city") == "Schaumburg"
+
+        when:
+        AssetCommand rebuilt = entries[1].command().toInstance() as AssetCommand
+
+        then:
+        rebuilt.name == "Lot B"
+        rebuilt.type == AssetTypeEnum.PARKING_LOT
+        rebuilt.installYear == 1998
+        rebuilt.operation == CrudOperation.CREATE
+        rebuilt.location.postalCode == "60193"
+    }
+
+    def "redacted properties never reach the segment files"() {
+        given:
+        def journal = open()
+
+        when:
+        journal.append(RegisterCommand.builder().email("jane@example.org").password("s3cret-pw").tenantName("acme")
+                .build(), 7L)
+        close(journal)
+        def entries = readAll(open())
+
+        then:
+        Files.list(dir).toList().every { !new String(Files.readAllBytes(it), "ISO-8859-1").contains("s3cret-pw") }
+        entries.size() == 1
+        entries[0].command().get("email") == "jane@example.org"
+        !entries[0].command().fields().containsKey("password")
+        (entries[0].command().toInstance() as RegisterCommand).password == null
+    }
+
+    def "full segments roll over and a reopened journal continues the sequence"() {
+        given:
+        def journal = open(DataSize.ofKilobytes(64))
+        def name = "x" * 200
+
+        when:
+        1000.times { journal.append(asset(name + it), it as Long) }
+        close(journal)
+        def reopened = open(DataSize.ofKilobytes(64))
+
+        then:
+        JournalReader.segments(dir).size() > 2
+        JournalReader.segments(dir).every { Files.size(it) < DataSize.ofKilobytes(64).toBytes() }
+        reopened.lastSequence() == 1000
+
+        when:
+        reopened.append(asset("after restart"), null)
+        def entries = readAll(reopened)
+
+        then:
+        entries*.sequence() == (1L..1001L).toList()
+        entries[999].command().get("name") == name + 999
+        entries[1000].command().get("name") == "after restart"
+        readAll(reopened, null, 995)*.sequence() == (995L..1001L).toList()
+    }
+
+    def "a torn last record is ignored and its sequence reused"() {
+        given:
+        def journal = open()
+        3.times { journal.append(asset("Lot " + it), null) }
+        close(journal)
+        def segment = JournalReader.segments(dir).last()
+        FileChannel.open(segment, StandardOpenOption.WRITE).withCloseable { it.truncate(Files.size(segment) - 3) }
+
+        when:
+        def reopened = open()
+
+        then:
+        readAll(reopened)*.sequence() == [1L, 2L]
+        reopened.lastSequence() == 2
+        reopened.append(asset("Lot 2 again"), null) == 3
+        readAll(reopened)*.command()*.get("name") == ["Lot 0", "Lot 1", "Lot 2 again"]
+    }
+
+    def "reading by tenant skips the other tenants' commands"() {
+        given:
+        def journal = open()
+        journal.append(asset("Default lot"), 1L)
+        journal.append(asset("Alaska lot", CustomerDiferentiator.ALASKA), 2L)
+        journal.append(asset("Other default lot"), 3L)
+
+        expect:
+        readAll(journal, CustomerDiferentiator.ALASKA)*.entityId() == [2L]
+        readAll(journal, CustomerDiferentiator.DEFAULT)*.entityId() == [1L, 3L]
+        readAll(journal).size() == 3
+    }
+
+    def "commands are journaled once their transaction commits, never when it rolls back"() {
+        given:
+        def journal = open()
+        def context = new AnnotationConfigApplicationContext()
+        context.registerBean(TransactionalEventListenerFactory, new Object[0])
+        context.registerBean(CommandJournal, { journal } as Supplier<CommandJournal>)
+        context.refresh()
+        def transactions = new TransactionTemplate(new InMemoryTransactionManager())
+
+        when:
+        transactions.executeWithoutResult { status ->
+            context.publishEvent(dispatched(asset("Rolled back")))
+            status.setRollbackOnly()
+        }
+        transactions.executeWithoutResult { context.publishEvent(dispatched(asset("Committed"))) }
+        context.publishEvent(dispatched(asset("Without a transaction")))
+
+        then:
+        readAll(journal)*.command()*.get("name") == ["Committed", "Without a transaction"]
+
+        cleanup:
+        context?.close()
+    }
+
+    static CommandDispatchedEvent dispatched(Object command) {
+        new CommandDispatchedEvent(command, [isSuccess: { true }, getData: { null }, getMessage: { null }] as IResult)
+    }
+
+    /** Just enough of a transaction manager for synchronizations to run on commit. */
+    static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            new Object()
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
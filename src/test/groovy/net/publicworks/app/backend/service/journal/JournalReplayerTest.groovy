@@ -0,0 +1,78 @@
+package net.publicworks.app.backend.service.journal
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.publicworks.app.backend.commands.AssetCommand
+import net.publicworks.app.backend.commands.CommandBus
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.itf.IResult
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.time.Duration
+
+class JournalReplayerTest extends Specification {
+
+    @TempDir
+    Path dir
+
+    CommandJournal journal
+
+    def setup() {
+        journal = new CommandJournal(dir, DataSize.ofMegabytes(1), Duration.ofMillis(50), Duration.ZERO,
+                ["AssetCommand"] as Set, [], new SimpleMeterRegistry())
+    }
+
+    def cleanup() {
+        journal.destroy()
+    }
+
+    def "later commands reach the ids the replayed creates got, never a failed create's old id"() {
+        given: "a journal written against a database that had handed out ids 41 and 42"
+        journal.append(asset(null, "Lot A", CrudOperation.CREATE), 41L)
+        journal.append(asset(null, "Lot B", CrudOperation.CREATE), 42L)
+        journal.append(asset(41L, "Lot A renamed", CrudOperation.MODIFY), 41L)
+        journal.append(asset(42L, "Lot B renamed", CrudOperation.MODIFY), 42L)
+        journal.append(asset(7L, "Restored lot", CrudOperation.MODIFY), 7L)
+
+        and: "a fresh database that numbers from 1 and rejects Lot B"
+        List<AssetCommand> dispatched = []
+        long next = 1
+        CommandBus bus = Stub() {
+            dispatch(_) >> { AssetCommand cmd ->
+                dispatched << cmd
+                boolean ok = cmd.name != "Lot B"
+                Asset saved = new Asset(id: cmd.id ?: next++, name: cmd.name)
+                Stub(IResult) {
+                    isSuccess() >> ok
+                    getData() >> saved
+                }
+            }
+        }
+        def replayer = new JournalReplayer(journal, bus, Stub(ApplicationEventPublisher))
+
+        when:
+        long replayed = replayer.replay(CustomerDiferentiator.DEFAULT, 0)
+
+        then:
+        replayed == 3
+        dispatched*.name == ["Lot A", "Lot B", "Lot A renamed", "Restored lot"]
+        dispatched.find { it.name == "Lot A renamed" }.id == 1L
+        dispatched.find { it.name == "Restored lot" }.id == 7L
+    }
+
+    static AssetCommand asset(Long id, String name, CrudOperation operation) {
+        AssetCommand.builder()
+                .id(id)
+                .name(name)
+                .type(AssetTypeEnum.PARKING_LOT)
+                .customerDiferentiator(CustomerDiferentiator.DEFAULT)
+                .operation(operation)
+                .build()
+    }
+}
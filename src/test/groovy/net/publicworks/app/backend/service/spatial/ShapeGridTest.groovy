@@ -0,0 +1,53 @@
+package net.publicworks.app.backend.service.spatial
+
+import spock.lang.Specification
+
+class ShapeGridTest extends Specification {
+
+    ShapeGrid grid = new ShapeGrid()
+
+    def "a query returns each intersecting shape once, whatever its size"() {
+        given:
+        grid.put(shape(1, -97.74, 30.27))
+        grid.put(shape(2, -97.80, 30.20, -97.60, 30.40))
+        grid.put(shape(3, -120.0, 25.0, -70.0, 48.0))
+        grid.put(shape(4, -73.99, 40.73))
+
+        expect:
+        grid.within(-97.75, 30.26, -97.73, 30.28)*.id().sort() == [1L, 2L, 3L]
+        grid.within(-74.0, 40.7, -73.9, 40.8)*.id().sort() == [3L, 4L]
+        grid.within(10.0, 50.0, 11.0, 51.0).isEmpty()
+    }
+
+    def "a query wider than the occupied cells gives the same answer"() {
+        given:
+        (1..50).each { grid.put(shape(it, -97.7 + it * 0.01, 30.2, -97.7 + it * 0.01 + 0.05, 30.25)) }
+
+        expect:
+        grid.within(-180, -85, 180, 85).size() == 50
+        grid.within(-97.495, 30.0, -97.0, 31.0)*.id().sort() == (16L..50L).toList()
+    }
+
+    def "moves and removals are reflected in the next query"() {
+        given:
+        grid.put(shape(1, 10.0, 50.0, 10.2, 50.1))
+        grid.put(shape(2, 10.1, 50.1))
+
+        when:
+        grid.put(shape(1, -120.0, 35.0))
+        grid.remove(2)
+
+        then:
+        grid.size() == 1
+        grid.within(9, 49, 11, 51).isEmpty()
+        grid.within(-121, 34, -119, 36)*.id() == [1L]
+    }
+
+    static VectorTileEncoder.Shape shape(long id, double lon, double lat) {
+        VectorTileEncoder.Shape.of(id, [lon, lat] as double[])
+    }
+
+    static VectorTileEncoder.Shape shape(long id, double west, double south, double east, double north) {
+        VectorTileEncoder.Shape.of(id, [west, south, east, north] as double[])
+    }
+}
@@ -0,0 +1,61 @@
+package net.publicworks.app.backend.service.spatial
+
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import net.publicworks.app.backend.commands.AssetChangedEvent
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+
+import java.util.stream.Stream
+
+class SpatialIndexTest extends Specification {
+
+    static final Viewport WORLD = new Viewport(-180, -85, 180, 85, 2)
+
+    /** What the database holds once the load's transaction is done; the load itself saw the older state. */
+    Map<Long, Object[]> committed = [:]
+    SpatialIndex index
+
+    def setup() {
+        TypedQuery<Object[]> load = Stub()
+        load.setParameter(_ as String, _) >> load
+        load.setHint(_ as String, _) >> load
+        load.getResultStream() >> {
+            // two assets are moved and one deleted by writers that commit while the load is reading
+            Stream.of([1L, "POINT(10 50)", AssetTypeEnum.VALVE] as Object[], [2L, "POINT(11 51)", AssetTypeEnum.VALVE] as Object[],
+                    [3L, "POINT(12 52)", AssetTypeEnum.VALVE] as Object[])
+                    .onClose {
+                        committed[2L] = [2L, "POINT(-88 42)", AssetTypeEnum.HYDRANT] as Object[]
+                        committed.remove(3L)
+                        index.onAssetChanged(new AssetChangedEvent(2L, new Asset(gisGeometryRef: "POINT(-88 42)",
+                                type: AssetTypeEnum.HYDRANT, customerDiferentiator: "DEFAULT"), CrudOperation.MODIFY))
+                        index.onAssetChanged(new AssetChangedEvent(3L, null, CrudOperation.DELETE))
+                    }
+        }
+        TypedQuery<Object[]> reread = Stub()
+        def ids = []
+        reread.setParameter("ids", _) >> { String name, Collection value -> ids = value as List; reread }
+        reread.setParameter("tenant", _) >> reread
+        reread.getResultList() >> { ids.findResults { committed[it] } }
+        EntityManager entityManager = Stub() {
+            createQuery({ it.contains("is not null") }, Object[]) >> load
+            createQuery({ it.contains("a.id in :ids") }, Object[]) >> reread
+        }
+        committed[1L] = [1L, "POINT(10 50)", AssetTypeEnum.VALVE] as Object[]
+        index = new SpatialIndex(entityManager, Mock(PlatformTransactionManager), 100)
+    }
+
+    def "changes committed while a tenant loads are replayed onto the new grid"() {
+        when:
+        def features = index.query("DEFAULT", WORLD)
+
+        then:
+        features.collectEntries { [it.assetId(), [it.lon(), it.lat(), it.type()]] } == [
+                1L: [10d, 50d, "VALVE"],
+                2L: [-88d, 42d, "HYDRANT"],
+        ]
+    }
+}
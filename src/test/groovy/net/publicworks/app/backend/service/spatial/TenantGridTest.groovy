@@ -0,0 +1,75 @@
+package net.publicworks.app.backend.service.spatial
+
+import spock.lang.Specification
+
+class TenantGridTest extends Specification {
+
+    TenantGrid grid = new TenantGrid()
+
+    def "points are returned individually while under the limit"() {
+        given:
+        grid.put(1, -97.74, 30.27, "VALVE")
+        grid.put(2, -97.75, 30.28, "HYDRANT")
+        grid.put(3, -73.99, 40.73, "VALVE")
+
+        when:
+        def features = grid.query(new Viewport(-98, 30, -97, 31, 12), 10)
+
+        then:
+        features*.assetId as Set == [1L, 2L] as Set
+        features.every { !it.isCluster() }
+        features.find { it.assetId() == 2L }.type() == "HYDRANT"
+    }
+
+    def "crowded viewports are clustered and the counts add up"() {
+        given:
+        (1..500).each { grid.put(it, -97.7 + (it % 20) * 0.001, 30.2 + (it.intdiv(20)) * 0.001, "VALVE") }
+
+        when:
+        def features = grid.query(new Viewport(-98, 30, -97, 31, 10), 100)
+
+        then:
+        features.size() <= 100
+        features.any { it.isCluster() }
+        features.sum { it.count() } == 500
+    }
+
+    def "moves and removals are reflected in the next query"() {
+        given:
+        grid.put(1, 10.0, 50.0, "VALVE")
+        grid.put(2, 10.1, 50.1, "VALVE")
+
+        when:
+        grid.put(1, -120.0, 35.0, "VALVE")
+        grid.remove(2)
+
+        then:
+        grid.size() == 1
+        grid.query(new Viewport(9, 49, 11, 51, 8), 10).isEmpty()
+        grid.query(new Viewport(-121, 34, -119, 36, 8), 10)*.assetId == [1L]
+    }
+
+    def "viewports across the antimeridian see both sides"() {
+        given:
+        grid.put(1, 179.5, -17.0, "VALVE")
+        grid.put(2, -179.5, -17.0, "VALVE")
+        grid.put(3, 0.0, -17.0, "VALVE")
+
+        expect:
+        grid.query(new Viewport(179, -18, 181, -16, 8).normalized(), 10)*.assetId as Set == [1L, 2L] as Set
+    }
+
+    def "geometry references are read as WKT or GeoJSON points"() {
+        expect:
+        GeoPoints.parse(ref) == expected as double[]
+
+        where:
+        ref                                                 | expected
+        "POINT(-97.74 30.27)"                               | [-97.74, 30.27]
+        "SRID=4326;POINT (1.5e1 -2)"                        | [15.0, -2.0]
+        '{"type":"Point","coordinates":[-97.74,30.27]}'     | [-97.74, 30.27]
+        '{"type":"LineString","coordinates":[[0,0],[1,1]]}' | null
+        "gis://layers/valves/42"                            | null
+        "POINT(200 10)"                                     | null
+    }
+}
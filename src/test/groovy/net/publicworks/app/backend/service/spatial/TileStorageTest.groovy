@@ -0,0 +1,158 @@
+package net.publicworks.app.backend.service.spatial
+
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import net.publicworks.app.backend.commands.AssetChangedEvent
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.entity.asset.Asset
+import net.publicworks.app.backend.entity.asset.AssetTypeEnum
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.util.stream.Stream
+
+class TileStorageTest extends Specification {
+
+    @TempDir
+    Path dir
+
+    static TileKey key(int x, AssetTypeEnum type = AssetTypeEnum.VALVE) {
+        new TileKey("acme", type, 12, x, 7)
+    }
+
+    def "a point in the middle of the world tile is encoded at the middle of the extent"() {
+        when:
+        byte[] tile = VectorTileEncoder.encode(new TileKey("acme", AssetTypeEnum.VALVE, 0, 0, 0), "VALVE",
+                [VectorTileEncoder.Shape.of(42, [0d, 0d] as double[])])
+        def bytes = tile.collect { it & 0xff }
+
+        then:
+        bytes[0] == 0x1a
+        new String(tile, "ISO-8859-1").contains("VALVE")
+        // MoveTo(1), zigzag(2048), zigzag(2048)
+        Collections.indexOfSubList(bytes, [0x09, 0x80, 0x20, 0x80, 0x20]) > 0
+        VectorTileEncoder.encode(new TileKey("acme", AssetTypeEnum.VALVE, 0, 0, 0), "VALVE", []).length == 0
+    }
+
+    def "the memory cache evicts least recently used tiles to stay within its size"() {
+        given:
+        def cache = new TileCache(250)
+        cache.put(key(1), new byte[100])
+        cache.put(key(2), new byte[100])
+        cache.get(key(1))
+
+        when:
+        cache.put(key(3), new byte[100])
+
+        then:
+        cache.get(key(1)) != null
+        cache.get(key(2)) == null
+        cache.bytes() == 200
+        cache.invalidate { it.x() == 1 } == 1
+        cache.size() == 1
+    }
+
+    def "the mapped store returns what was written and forgets invalidated tiles"() {
+        given:
+        def store = new TileStore(dir.resolve("tiles.dat"), 1 << 20)
+
+        when:
+        store.put(key(1), [1, 2, 3] as byte[])
+        store.put(key(2, AssetTypeEnum.HYDRANT), [4, 5] as byte[])
+        store.put(key(1), [6] as byte[])
+
+        then:
+        store.get(key(1)) == [6] as byte[]
+        store.get(key(2, AssetTypeEnum.HYDRANT)) == [4, 5] as byte[]
+        store.bytes() == 3
+        store.invalidate { it.type() == AssetTypeEnum.HYDRANT } == 1
+        store.get(key(2, AssetTypeEnum.HYDRANT)) == null
+
+        cleanup:
+        store.close()
+    }
+
+    def "the mapped store overwrites its oldest segment once full"() {
+        given:
+        def store = new TileStore(dir.resolve("tiles.dat"), 2 * 65536)
+        def tile = new byte[40000]
+
+        when:
+        (0..<4).each { store.put(key(it), tile) }
+
+        then:
+        store.get(key(0)) == null
+        store.get(key(1)) == null
+        store.get(key(2)) != null
+        store.get(key(3)) != null
+        store.size() == 2
+
+        cleanup:
+        store.close()
+    }
+
+    def "an asset edit drops only the cached tiles its geometry is drawn in"() {
+        given:
+        TypedQuery<Object[]> query = Stub() {
+            setParameter(_, _) >> { query }
+            setHint(_, _) >> { query }
+            getResultStream() >> { Stream.empty() }
+        }
+        EntityManager entityManager = Stub() {
+            createQuery(_ as String, Object[]) >> query
+        }
+        def tiles = new AssetTiles(entityManager, Stub(PlatformTransactionManager), dir,
+                DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), 20)
+        int x = (int) (VectorTileEncoder.worldX(-88.08) * 4096)
+        int y = (int) (VectorTileEncoder.worldY(42.03) * 4096)
+        def here = new TileKey("acme", AssetTypeEnum.VALVE, 12, x, y)
+        def elsewhere = new TileKey("acme", AssetTypeEnum.VALVE, 12, x + 40, y)
+        def cachedHere = tiles.tile(here)
+        def cachedElsewhere = tiles.tile(elsewhere)
+
+        when:
+        def asset = new Asset()
+        asset.customerDiferentiator = "acme"
+        asset.type = AssetTypeEnum.VALVE
+        asset.gisGeometryRef = "POINT(-88.08 42.03)"
+        tiles.onAssetChanged(new AssetChangedEvent(7L, asset, CrudOperation.CREATE))
+
+        then:
+        cachedHere.length == 0
+        tiles.tile(here).length > 0
+        tiles.tile(elsewhere).is(cachedElsewhere)
+
+        when:
+        tiles.onAssetChanged(new AssetChangedEvent(7L, null, CrudOperation.DELETE))
+
+        then:
+        tiles.tile(here).length == 0
+
+        cleanup:
+        tiles?.destroy()
+    }
+
+    def "caches drop exactly the listed keys"() {
+        given:
+        def cache = new TileCache(1000)
+        def store = new TileStore(dir.resolve("tiles.dat"), 1 << 20)
+        [1, 2, 3].each {
+            cache.put(key(it), new byte[10])
+            store.put(key(it), new byte[10])
+        }
+
+        expect:
+        cache.invalidate([key(1), key(3), key(9)]) == 2
+        store.invalidate([key(1), key(3), key(9)]) == 2
+        cache.get(key(2)) != null
+        store.get(key(2)) != null
+        cache.bytes() == 10
+        store.bytes() == 10
+
+        cleanup:
+        store.close()
+    }
+}
@@ -0,0 +1,74 @@
+package net.publicworks.app.backend.service.topology
+
+import spock.lang.Specification
+
+/**
+ * A small water network:
+ * <pre>
+ *   plant(1) -> main(2) -> valve(3) -> main(4) -> valve(5) -> main(6) -> meter(7)
+ *                                       |
+ *                                       +-> hydrant(8)        facility(10) contains main(4) (parent)
+ * </pre>
+ */
+class TopologyGraphTest extends Specification {
+
+    TopologyGraph graph = new TopologyGraph.Builder()
+            .node(1, "FACILITY").node(2, "WATER_MAIN").node(3, "VALVE").node(4, "WATER_MAIN")
+            .node(5, "VALVE").node(6, "WATER_MAIN").node(7, "METER").node(8, "HYDRANT").node(10, "FACILITY")
+            .edge(1, 2, "feeds").edge(2, 3, "feeds").edge(3, 4, "feeds").edge(4, 5, "feeds")
+            .edge(5, 6, "feeds").edge(6, 7, "feeds").edge(4, 8, "feeds")
+            .edge(10, 4, TopologyGraph.PARENT)
+            .edge(99, 4, "feeds")
+            .build()
+
+    def "unknown endpoints are dropped when the graph is built"() {
+        expect:
+        graph.nodeCount() == 9
+        graph.edgeCount() == 8
+    }
+
+    def "traces follow direction, relationship types and depth"() {
+        expect:
+        graph.trace(4, Direction.DOWNSTREAM, false, null, -1) as List == [4L, 5L, 8L, 6L, 7L]
+        graph.trace(4, Direction.DOWNSTREAM, true, null, -1) as List == [4L, 5L, 6L, 7L, 8L]
+        graph.trace(4, Direction.UPSTREAM, false, ["feeds"] as Set, -1) as List == [4L, 3L, 2L, 1L]
+        graph.trace(4, Direction.UPSTREAM, false, null, 1) as List == [4L, 3L, 10L]
+        graph.trace(42, Direction.BOTH, false, null, -1).length == 0
+    }
+
+    def "shortest path counts hops in the chosen direction"() {
+        expect:
+        graph.shortestPath(1, 7, Direction.DOWNSTREAM, null) as List == [1L, 2L, 3L, 4L, 5L, 6L, 7L]
+        graph.shortestPath(8, 10, Direction.BOTH, null) as List == [8L, 4L, 10L]
+        graph.shortestPath(7, 1, Direction.DOWNSTREAM, null).length == 0
+    }
+
+    def "a break is isolated by the nearest valves and cuts off what lies downstream"() {
+        when:
+        def isolation = graph.isolate(4, ["VALVE"] as Set, ["feeds"] as Set)
+
+        then:
+        isolation.boundary() as List == [3L, 5L]
+        isolation.segment() as List == [4L, 8L]
+        isolation.downstream() as List == [6L, 7L]
+    }
+
+    def "updates replace every edge touching an asset and can remove it"() {
+        when: "a bypass from 2 straight to 6 is added and the hydrant is removed"
+        def updated = graph.apply([
+                new TopologyGraph.NodeUpdate(6, "WATER_MAIN", [new TopologyGraph.Edge(5, 6, "feeds"),
+                                                               new TopologyGraph.Edge(2, 6, "bypass"),
+                                                               new TopologyGraph.Edge(6, 7, "feeds")]),
+                new TopologyGraph.NodeUpdate(8, null, []),
+        ])
+
+        then:
+        updated.shortestPath(1, 7, Direction.DOWNSTREAM, null) as List == [1L, 2L, 6L, 7L]
+        !updated.contains(8)
+        updated.edgeCount() == 8
+
+        and: "the original graph is unchanged"
+        graph.contains(8)
+        graph.shortestPath(1, 7, Direction.DOWNSTREAM, null).length == 7
+    }
+}
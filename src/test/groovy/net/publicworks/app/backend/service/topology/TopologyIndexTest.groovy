@@ -0,0 +1,113 @@
+package net.publicworks.app.backend.service.topology
+
+import jakarta.persistence.EntityManager
+import jakarta.persistence.TypedQuery
+import net.publicworks.app.backend.commands.AssetChangedEvent
+import net.publicworks.app.backend.commands.CrudOperation
+import net.publicworks.app.backend.itf.CustomerDiferentiator
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.MultiTenantConnectionProviderImpl
+import net.publicworks.app.backend.repo.hibernateMultiTenantConfig.TenantScope
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import spock.lang.Specification
+
+class TopologyIndexTest extends Specification {
+
+    static final String ALASKA = CustomerDiferentiator.ALASKA
+
+    /** Asset rows {@code [id, type, tenant]} per database; alaska has its own. */
+    Map<String, List<List>> databases = [
+            (CustomerDiferentiator.DEFAULT): [[1L, "VALVE", CustomerDiferentiator.DEFAULT]],
+            (ALASKA)                       : [[10L, "WATER_MAIN", ALASKA], [11L, "VALVE", ALASKA]],
+    ]
+
+    TopologyIndex index
+
+    def setup() {
+        def connections = Stub(MultiTenantConnectionProviderImpl) {
+            databaseOf(_) >> { String tenant -> tenant == ALASKA ? ALASKA : CustomerDiferentiator.DEFAULT }
+            tenantsWithOwnDatabase() >> ([ALASKA] as Set)
+        }
+        index = new TopologyIndex(entityManager(), new InMemoryTransactionManager(), connections, 3_600_000, false)
+    }
+
+    def cleanup() {
+        index.destroy()
+    }
+
+    def "an edited asset of a tenant with its own database stays in its graph"() {
+        expect:
+        index.graph(ALASKA).contains(10)
+
+        when:
+        index.onAssetChanged(new AssetChangedEvent(10L, ALASKA, null, CrudOperation.MODIFY))
+        index.applyPending()
+
+        then:
+        index.graph(ALASKA).contains(10)
+        index.graph(ALASKA).nodeCount() == 2
+    }
+
+    def "an asset leaves the graph once its own tenant's database no longer has it"() {
+        expect:
+        index.graph(ALASKA).contains(11)
+
+        when:
+        databases[ALASKA].removeIf { it[0] == 11L }
+        index.onAssetChanged(new AssetChangedEvent(11L, ALASKA, null, CrudOperation.DELETE))
+        index.applyPending()
+
+        then:
+        !index.graph(ALASKA).contains(11)
+        index.graph(ALASKA).contains(10)
+        index.graph(CustomerDiferentiator.DEFAULT).contains(1)
+    }
+
+    /** Answers from the database of whichever tenant is bound, like the tenant connection provider would. */
+    EntityManager entityManager() {
+        Stub(EntityManager) {
+            createQuery(_ as String, Object[]) >> { String jpql, Class type ->
+                Map<String, Object> params = [:]
+                TypedQuery query = Stub(TypedQuery)
+                query.setParameter(_ as String, _) >> { String name, value ->
+                    params[name] = value
+                    query
+                }
+                query.setHint(_ as String, _) >> query
+                query.getResultStream() >> { rows(jpql, params).stream() }
+                query.getResultList() >> { rows(jpql, params) }
+                query
+            }
+        }
+    }
+
+    List<Object[]> rows(String jpql, Map<String, Object> params) {
+        def assets = databases[TenantScope.current() ?: CustomerDiferentiator.DEFAULT]
+        if (!jpql.startsWith("select a.id, a.type")) {
+            return []
+        }
+        assets.findAll { it[2] == params.tenant && (params.ids == null || it[0] in params.ids) }
+                .collect { [it[0], it[1], null] as Object[] }
+    }
+
+    static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            new Object()
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
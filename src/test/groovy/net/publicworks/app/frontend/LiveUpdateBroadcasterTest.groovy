@@ -0,0 +1,82 @@
+package net.publicworks.app.frontend
+
+import com.vaadin.flow.component.UI
+import com.vaadin.flow.server.Command
+import spock.lang.Specification
+
+class LiveUpdateBroadcasterTest extends Specification {
+
+    LiveUpdateBroadcaster live = new LiveUpdateBroadcaster(3_600_000)
+    List<Command> queued = []
+    UI ui = Spy(UI) {
+        access(_ as Command) >> { Command c -> queued << c; null }
+    }
+
+    def cleanup() {
+        live.destroy()
+    }
+
+    def "a burst of changes reaches a UI as one update with every topic"() {
+        given:
+        List<Set<LiveTopic>> received = []
+        live.subscribe(ui, "DEFAULT", EnumSet.allOf(LiveTopic), { received << it })
+
+        when:
+        3.times { live.publish("DEFAULT", LiveTopic.WORK_ORDERS) }
+        live.publish("DEFAULT", LiveTopic.ASSETS)
+        live.publish("alaska", LiveTopic.ASSETS)
+        live.tick()
+        queued*.execute()
+
+        then:
+        received == [EnumSet.allOf(LiveTopic)]
+    }
+
+    def "a UI that has not run its last update gets no new one until it does"() {
+        given:
+        List<Set<LiveTopic>> received = []
+        live.subscribe(ui, "DEFAULT", EnumSet.of(LiveTopic.WORK_ORDERS), { received << it })
+
+        when:
+        live.publish("DEFAULT", LiveTopic.WORK_ORDERS)
+        live.tick()
+        5.times {
+            live.publish("DEFAULT", LiveTopic.WORK_ORDERS)
+            live.tick()
+        }
+
+        then:
+        queued.size() == 1
+
+        when:
+        queued.remove(0).execute()
+        live.tick()
+
+        then:
+        queued.size() == 1
+        received.size() == 1
+    }
+
+    def "topics a view did not ask for are ignored and detached UIs are dropped"() {
+        given:
+        def registration = live.subscribe(ui, "DEFAULT", EnumSet.of(LiveTopic.ASSETS), {})
+        live.subscribe(ui, "DEFAULT", EnumSet.of(LiveTopic.ASSETS), {})
+
+        when:
+        live.publish("DEFAULT", LiveTopic.WORK_ORDERS)
+        live.tick()
+
+        then:
+        queued.isEmpty()
+
+        when:
+        registration.remove()
+        live.publish("DEFAULT", LiveTopic.ASSETS)
+        live.tick()
+
+        then:
+        _ * ui.isAttached() >> false
+        queued.isEmpty()
+        live.subscriptions("DEFAULT") == 0
+    }
+}